@@ -0,0 +1,156 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.xbase.XExpression;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static tools.vitruv.neojoin.utils.Assertions.check;
+
+/**
+ * Target instances of one target class whose features are populated in the second phase of the transformation.
+ * <p>
+ * Every instance is stored together with the record it was created from, e.g. its instance tuple. The evaluation
+ * context is only created from this record when the instance is {@link #populate populated}, and the record is
+ * released afterward. Thus, only two array entries per instance are retained between the phases.
+ *
+ * @see Transformator#transform()
+ */
+final class DeferredPopulations {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Runnable NOTHING = () -> {};
+
+    private final AQRTargetClass targetClass;
+    private final Function<@Nullable Object, @Nullable EObject> mainSource;
+    private final @Nullable Function<@Nullable Object, ExpressionEvaluator.Context> context;
+
+    private EObject[] targets = new EObject[INITIAL_CAPACITY];
+    private @Nullable Object[] records = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * @param targetClass target class of the instances
+     * @param mainSource  returns the main source instance for a record
+     * @param context     creates the evaluation context for a record or {@code null} if the instances are already
+     *                    populated
+     */
+    private DeferredPopulations(
+        AQRTargetClass targetClass,
+        Function<@Nullable Object, @Nullable EObject> mainSource,
+        @Nullable Function<@Nullable Object, ExpressionEvaluator.Context> context
+    ) {
+        this.targetClass = targetClass;
+        this.mainSource = mainSource;
+        this.context = context;
+    }
+
+    /**
+     * For a target class without source, the record is ignored.
+     */
+    static DeferredPopulations withoutSource(AQRTargetClass targetClass, ExpressionHelper helper) {
+        return new DeferredPopulations(
+            targetClass,
+            record -> null,
+            record -> ExpressionEvaluator.createContext(helper)
+        );
+    }
+
+    /**
+     * For a target class without grouping, the record is the {@link InstanceTuple} of the instance.
+     */
+    static DeferredPopulations forTuples(AQRTargetClass targetClass, ExpressionEvaluator evaluator) {
+        return new DeferredPopulations(
+            targetClass,
+            record -> ((InstanceTuple) Objects.requireNonNull(record)).get(0),
+            record -> evaluator.createContext((InstanceTuple) Objects.requireNonNull(record), null)
+        );
+    }
+
+    /**
+     * For a target class with grouping, the record is the tuple of instance lists of the group.
+     */
+    @SuppressWarnings("unchecked")
+    static DeferredPopulations forGroups(AQRTargetClass targetClass, ExpressionEvaluator evaluator) {
+        return new DeferredPopulations(
+            targetClass,
+            record -> null,
+            record -> evaluator.createContext(((List<List<EObject>>) Objects.requireNonNull(record)).iterator(), null)
+        );
+    }
+
+    /**
+     * For a target class with streaming aggregation, the record is the map of the aggregated values of the group.
+     */
+    @SuppressWarnings("unchecked")
+    static DeferredPopulations forAggregates(AQRTargetClass targetClass, ExpressionEvaluator evaluator) {
+        return new DeferredPopulations(
+            targetClass,
+            record -> null,
+            record -> evaluator.createContext()
+                .withPrecomputedValues((Map<XExpression, @Nullable Object>) Objects.requireNonNull(record))
+        );
+    }
+
+    /**
+     * For a target class whose instances are populated as soon as they are created, see {@link SinglePassAnalysis}.
+     * The record is ignored and {@link #populate populating} does nothing.
+     */
+    static DeferredPopulations populated(AQRTargetClass targetClass) {
+        return new DeferredPopulations(targetClass, record -> null, null);
+    }
+
+    /**
+     * Adds a target instance. Not thread-safe.
+     *
+     * @param target target instance
+     * @param record record to create the evaluation context from, see the factory methods
+     */
+    void add(EObject target, @Nullable Object record) {
+        if (size == targets.length) {
+            var capacity = size + (size >> 1);
+            targets = Arrays.copyOf(targets, capacity);
+            records = Arrays.copyOf(records, capacity);
+        }
+        targets[size] = target;
+        records[size] = record;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns all added target instances in the order they were added.
+     */
+    List<EObject> instances() {
+        return Collections.unmodifiableList(Arrays.asList(targets).subList(0, size));
+    }
+
+    /**
+     * Evaluates the features of the target instance at the given index and releases its record. Instances at
+     * different indices can be evaluated concurrently.
+     *
+     * @return action that assigns the evaluated values to the target instance, see {@link FeaturePopulator#populate}
+     */
+    Runnable populate(int index, FeaturePopulator populator) {
+        check(index < size);
+        if (context == null) {
+            return NOTHING;
+        }
+        var record = records[index];
+        records[index] = null;
+        return populator.populate(targetClass, targets[index], mainSource.apply(record), context.apply(record));
+    }
+
+}
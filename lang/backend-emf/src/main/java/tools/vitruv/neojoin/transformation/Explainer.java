@@ -0,0 +1,191 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
+import tools.vitruv.neojoin.transformation.source.Aggregation;
+import tools.vitruv.neojoin.transformation.source.InstanceSourceFactory;
+import tools.vitruv.neojoin.transformation.source.Operator;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Explains how the source instances of every target class of a {@link AQR query} are computed by printing the tree of
+ * {@link Operator operators} that the {@link Transformator} executes. The target classes are listed by name.
+ *
+ * @see #explain()
+ * @see #analyze(EPackage, boolean)
+ */
+public class Explainer {
+
+    private final ExpressionHelper expressionHelper;
+    private final AQR aqr;
+    private final Map<EPackage, Resource> sourceInstanceModels;
+
+    /**
+     * Result of {@link #analyze(EPackage, boolean)}.
+     *
+     * @param result      transformed target model
+     * @param explanation operator trees with runtime statistics
+     */
+    public record Analysis(EObject result, String explanation) {}
+
+    /**
+     * @param expressionHelper     for evaluating feature expressions and conditions
+     * @param aqr                  query representation
+     * @param sourceInstanceModels map from {@link EPackage package} to the corresponding instance model
+     *                             {@link Resource resource}, used for planning the joins
+     */
+    public Explainer(ExpressionHelper expressionHelper, AQR aqr, Map<EPackage, Resource> sourceInstanceModels) {
+        this.expressionHelper = expressionHelper;
+        this.aqr = aqr;
+        this.sourceInstanceModels = sourceInstanceModels;
+    }
+
+    /**
+     * Returns the operator trees of all target classes without executing them.
+     */
+    public String explain() {
+        var factory = new InstanceSourceFactory(sourceInstanceModels);
+        var singlePassAnalysis = new SinglePassAnalysis(aqr, expressionHelper);
+        return format(targetClass -> {
+            var source = targetClass.source();
+            if (source == null) {
+                return null;
+            }
+
+            var evaluator = new ExpressionEvaluator(expressionHelper, source);
+            var instanceSource = singlePassAnalysis.isSinglePass(targetClass) && factory.canStream(source)
+                ? factory.createStreaming(source, evaluator)
+                : factory.create(source, evaluator);
+            if (source.groupingExpressions().isEmpty()) {
+                return instanceSource;
+            } else {
+                return factory.createGrouping(
+                    source.groupingExpressions(),
+                    instanceSource,
+                    evaluator,
+                    Aggregation.of(targetClass)
+                );
+            }
+        });
+    }
+
+    /**
+     * Transforms the source instance models and returns the operator trees of all target classes together with the
+     * number of rows, the number of expression evaluations and the time of every operator. The size of the mapping from
+     * source to target instances is reported for every target class.
+     *
+     * @param targetMetaModel target meta-model that corresponds to the query
+     * @param parallel        whether independent target classes are transformed concurrently
+     * @throws TransformatorException see {@link Transformator#transform()}
+     */
+    public Analysis analyze(EPackage targetMetaModel, boolean parallel) throws TransformatorException {
+        return analyze(targetMetaModel, parallel, null);
+    }
+
+    /**
+     * Same as {@link #analyze(EPackage, boolean)}, but additionally records the transformation in the given metrics if
+     * they are not {@code null}, see {@link Transformator#Transformator(ExpressionHelper, AQR, EPackage, Map, boolean,
+     * Metrics)}.
+     */
+    public Analysis analyze(
+        EPackage targetMetaModel,
+        boolean parallel,
+        @Nullable Metrics metrics
+    ) throws TransformatorException {
+        var operators = new ConcurrentHashMap<AQRTargetClass, Operator>();
+        var transformator = new Transformator(
+            expressionHelper,
+            aqr,
+            targetMetaModel,
+            sourceInstanceModels,
+            parallel,
+            new InstanceSourceFactory(sourceInstanceModels, true),
+            operators::put,
+            metrics
+        );
+        var result = transformator.transform();
+        return new Analysis(result, format(operators::get, transformator::getTargetMapStatistics));
+    }
+
+    private String format(Function<AQRTargetClass, @Nullable Operator> operators) {
+        return format(operators, null);
+    }
+
+    private String format(
+        Function<AQRTargetClass, @Nullable Operator> operators,
+        @Nullable Function<AQRTargetClass, TargetMap.Statistics> targetMapStatistics
+    ) {
+        var builder = new StringBuilder();
+        var targetClasses = aqr.classes().stream()
+            .sorted(Comparator.comparing(AQRTargetClass::name))
+            .toList();
+        for (var targetClass : targetClasses) {
+            var operator = operators.apply(targetClass);
+            if (operator != null) {
+                builder.append(targetClass.name()).append(":\n");
+                format(builder, operator, 1);
+                if (targetMapStatistics != null) {
+                    var statistics = targetMapStatistics.apply(targetClass);
+                    builder.append("  Target Map  (entries: ").append(statistics.entries())
+                        .append(", memory: ").append(formatBytes(statistics.footprintBytes()))
+                        .append(")\n");
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void format(StringBuilder builder, Operator operator, int depth) {
+        builder.append("  ".repeat(depth)).append(operator.describe());
+
+        var profile = operator.getProfile();
+        if (profile != null) {
+            long rowsIn = 0;
+            long inputNanos = 0;
+            for (var input : operator.getInputs()) {
+                var inputProfile = input.getProfile();
+                if (inputProfile != null) {
+                    rowsIn += inputProfile.getRows();
+                    inputNanos += inputProfile.getNanos();
+                }
+            }
+
+            builder.append("  (");
+            if (!operator.getInputs().isEmpty()) {
+                builder.append("rows in: ").append(rowsIn).append(", ");
+            }
+            builder.append("rows out: ").append(profile.getRows());
+            if (profile.getEvaluations() > 0) {
+                builder.append(", evaluations: ").append(profile.getEvaluations());
+            }
+            builder.append(", time: ").append(formatNanos(profile.getNanos()))
+                .append(", self: ").append(formatNanos(Math.max(profile.getNanos() - inputNanos, 0)))
+                .append(")");
+        }
+        builder.append("\n");
+
+        for (var input : operator.getInputs()) {
+            format(builder, input, depth + 1);
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000.0);
+    }
+
+}
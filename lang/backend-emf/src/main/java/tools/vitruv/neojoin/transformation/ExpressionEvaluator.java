@@ -1,34 +1,91 @@
 package tools.vitruv.neojoin.transformation;
 
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.xbase.XExpression;
 import org.eclipse.xtext.xbase.interpreter.IEvaluationContext;
 import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.SourceLocation;
 import tools.vitruv.neojoin.aqr.AQRFrom;
 import tools.vitruv.neojoin.aqr.AQRSource;
+import tools.vitruv.neojoin.jvmmodel.CompiledExpression;
 import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
+import tools.vitruv.neojoin.transformation.source.OperatorProfile;
 import tools.vitruv.neojoin.utils.Result;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Wrapper around an {@link ExpressionHelper} and a {@link AQRSource} to evaluate feature expressions and conditions.
+ *
+ * @implNote Expressions are {@link ExpressionHelper#compile(XExpression) compiled} on first evaluation and the compiled
+ * expressions are shared by all contexts created by this evaluator. The variables of the contexts for instance tuples
+ * are laid out once per source (see {@link SlotEvaluationContext}). Conditions are evaluated with a
+ * {@link #evaluateConditions(List, InstanceTuple, AQRFrom, OperatorProfile) shared context} per thread that is
+ * rebound for every tuple and cleared after the evaluation. If {@link Metrics} are given, the compiled expressions are
+ * {@link Metrics#instrument instrumented}.
  */
 public class ExpressionEvaluator {
 
     private final ExpressionHelper helper;
     private final AQRSource source;
+    private final Map<XExpression, CompiledExpression> compiledExpressions;
+    private final @Nullable Metrics metrics;
+    private final SlotEvaluationContext.Layout layout;
+    private final ThreadLocal<SharedContext> sharedContext;
 
     public ExpressionEvaluator(ExpressionHelper helper, AQRSource source) {
+        this(helper, source, null);
+    }
+
+    /**
+     * @param metrics metrics to record the evaluations of the expressions in or {@code null}
+     */
+    public ExpressionEvaluator(ExpressionHelper helper, AQRSource source, @Nullable Metrics metrics) {
+        this(helper, source, new ConcurrentHashMap<>(), metrics);
+    }
+
+    private ExpressionEvaluator(
+        ExpressionHelper helper,
+        AQRSource source,
+        Map<XExpression, CompiledExpression> compiledExpressions,
+        @Nullable Metrics metrics
+    ) {
         this.helper = helper;
         this.source = source;
+        this.compiledExpressions = compiledExpressions;
+        this.metrics = metrics;
+        this.layout = SlotEvaluationContext.Layout.of(source);
+        this.sharedContext = ThreadLocal.withInitial(() -> {
+            var slots = new SlotEvaluationContext(layout);
+            return new SharedContext(slots, new Context(this::getCompiledExpression, slots));
+        });
+    }
+
+    private record SharedContext(SlotEvaluationContext slots, Context context) {}
+
+    /**
+     * Creates an evaluator that binds the values of instance tuples to the froms of the given source instead. Used for
+     * tuples whose instances are not in the order of the original source, see
+     * {@link tools.vitruv.neojoin.transformation.source.JoinOrderPlanner JoinOrderPlanner}. Compiled expressions are
+     * shared with this evaluator.
+     *
+     * @param source source with the same froms in a different order
+     */
+    public ExpressionEvaluator withSource(AQRSource source) {
+        return new ExpressionEvaluator(helper, source, compiledExpressions, metrics);
     }
 
     /**
      * Create an evaluation context without any parameters.
      */
     public static Context createContext(ExpressionHelper helper) {
-        return new Context(helper, helper.createContext());
+        return new Context(helper::compile, helper.createContext());
     }
 
     /**
@@ -38,8 +95,35 @@ public class ExpressionEvaluator {
      * @param limit  see {@link ExpressionHelper#createContext(Iterator, Iterator, AQRFrom)}
      */
     public Context createContext(Iterator<?> values, @Nullable AQRFrom limit) {
-        var evaluationContext = helper.createContext(source.allFroms().iterator(), values, limit);
-        return new Context(helper, evaluationContext);
+        var evaluationContext = new SlotEvaluationContext(layout).bind(values, limit);
+        return new Context(this::getCompiledExpression, evaluationContext);
+    }
+
+    /**
+     * Create an evaluation context without any parameters that shares the compiled expressions of this evaluator.
+     */
+    public Context createContext() {
+        return new Context(this::getCompiledExpression, helper.createContext());
+    }
+
+    /**
+     * Create an evaluation context with a single parameter that is not bound to a from, e.g. the parameter of a
+     * closure whose body is evaluated separately.
+     *
+     * @param name  name of the parameter
+     * @param value value of the parameter
+     */
+    public Context createContext(String name, @Nullable Object value) {
+        var evaluationContext = helper.createContext();
+        evaluationContext.newValue(QualifiedName.create(name), value);
+        return new Context(this::getCompiledExpression, evaluationContext);
+    }
+
+    private CompiledExpression getCompiledExpression(XExpression expression) {
+        return compiledExpressions.computeIfAbsent(
+            expression,
+            e -> Metrics.instrument(metrics, e, helper.compile(e))
+        );
     }
 
     /**
@@ -49,24 +133,111 @@ public class ExpressionEvaluator {
      * @param limit     see {@link ExpressionHelper#createContext(Iterator, Iterator, AQRFrom)}
      */
     public Context createContext(InstanceTuple instances, @Nullable AQRFrom limit) {
-        return createContext(instances.stream().iterator(), limit);
+        var evaluationContext = new SlotEvaluationContext(layout).bind(instances, limit);
+        return new Context(this::getCompiledExpression, evaluationContext);
+    }
+
+    /**
+     * Evaluates the given conditions with the context of the current thread bound to the values from the given instance
+     * tuple. Other than {@link #createContext(InstanceTuple, AQRFrom)}, this does not allocate a new context. The
+     * context is cleared afterward, so that it does not keep the instances reachable on pooled threads.
+     *
+     * @param conditions conditions which are evaluated in the given order until one is not satisfied
+     * @param instances  values as parameters for the conditions
+     * @param limit      see {@link ExpressionHelper#createContext(Iterator, Iterator, AQRFrom)}
+     * @param profile    profile to record the evaluations in or {@code null}
+     * @return whether all conditions are satisfied
+     */
+    public boolean evaluateConditions(
+        List<XExpression> conditions,
+        InstanceTuple instances,
+        @Nullable AQRFrom limit,
+        @Nullable OperatorProfile profile
+    ) {
+        var shared = sharedContext.get();
+        shared.slots().bind(instances, limit);
+        return evaluateConditions(shared, conditions, profile);
+    }
+
+    /**
+     * Same as {@link #evaluateConditions(List, InstanceTuple, AQRFrom, OperatorProfile)} for the values of the given
+     * tuple followed by the given instance, e.g. to evaluate join conditions without creating the joined tuple.
+     *
+     * @param left  values for the froms before the given limit
+     * @param right value for the given limit
+     * @param limit see {@link ExpressionHelper#createContext(Iterator, Iterator, AQRFrom)}
+     */
+    public boolean evaluateConditions(
+        List<XExpression> conditions,
+        InstanceTuple left,
+        @Nullable EObject right,
+        AQRFrom limit,
+        @Nullable OperatorProfile profile
+    ) {
+        var shared = sharedContext.get();
+        shared.slots().bind(left, right, limit);
+        return evaluateConditions(shared, conditions, profile);
+    }
+
+    private static boolean evaluateConditions(
+        SharedContext shared,
+        List<XExpression> conditions,
+        @Nullable OperatorProfile profile
+    ) {
+        try {
+            for (var condition : conditions) {
+                OperatorProfile.countEvaluation(profile);
+                if (!shared.context().evaluateCondition(condition)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            shared.slots().clear();
+        }
     }
 
     public static class Context {
 
-        private final ExpressionHelper helper;
+        private final Function<XExpression, CompiledExpression> compiler;
         private final IEvaluationContext evaluationContext;
+        private final Map<XExpression, @Nullable Object> precomputedValues;
+
+        /**
+         * @param compiler          provides the compiled form of an expression
+         * @param evaluationContext context, i.e. accessible local variables
+         */
+        public Context(Function<XExpression, CompiledExpression> compiler, IEvaluationContext evaluationContext) {
+            this(compiler, evaluationContext, Map.of());
+        }
 
-        public Context(ExpressionHelper helper, IEvaluationContext evaluationContext) {
-            this.helper = helper;
+        private Context(
+            Function<XExpression, CompiledExpression> compiler,
+            IEvaluationContext evaluationContext,
+            Map<XExpression, @Nullable Object> precomputedValues
+        ) {
+            this.compiler = compiler;
             this.evaluationContext = evaluationContext;
+            this.precomputedValues = precomputedValues;
+        }
+
+        /**
+         * Returns a context that yields the given values for the given expressions instead of evaluating them, e.g.
+         * the results of a {@link tools.vitruv.neojoin.transformation.source.Aggregation streaming aggregation}.
+         */
+        public Context withPrecomputedValues(Map<XExpression, @Nullable Object> values) {
+            return new Context(compiler, evaluationContext, values);
         }
 
         /**
          * Evaluate an expression with this context.
          */
         public @Nullable Object evaluateExpression(XExpression expression) {
-            var result = helper.evaluate(expression, evaluationContext);
+            if (precomputedValues.containsKey(expression)) {
+                return precomputedValues.get(expression);
+            }
+
+            var result = compiler.apply(expression).evaluate(evaluationContext);
             return switch (result) {
                 case Result.Success<?>(var value) -> value;
                 case Result.Failure<?>(var err) -> throw new TransformatorException(
@@ -0,0 +1,85 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.common.types.JvmField;
+import org.eclipse.xtext.common.types.JvmFormalParameter;
+import org.eclipse.xtext.common.types.JvmOperation;
+import org.eclipse.xtext.xbase.XAbstractFeatureCall;
+import org.eclipse.xtext.xbase.XExpression;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Names of the source model features read by a set of expressions, used by the {@link IncrementalTransformator} to
+ * decide which parts of the target model are affected by a change of a source instance.
+ * <p>
+ * A feature is read <i>locally</i> if it is only accessed directly on the instances bound to the froms of the query
+ * (e.g. {@code f.name}). A change of such a feature can only affect the tuples that contain the changed instance. All
+ * other accesses (e.g. {@code r.owner.name} or {@code r.sells.map[name]}) are <i>non-local</i>.
+ *
+ * @param local    features that are read locally
+ * @param nonLocal features that are read non-locally
+ * @param unknown  whether the expressions call EMF methods, so that any change might affect them
+ */
+record FeatureDependencies(Set<String> local, Set<String> nonLocal, boolean unknown) {
+
+    static final FeatureDependencies NONE = new FeatureDependencies(Set.of(), Set.of(), false);
+
+    /**
+     * Analyzes the given expressions.
+     *
+     * @param expressions   expressions to analyze
+     * @param localFeatures additional features that are read locally (e.g. features of join conditions)
+     */
+    static FeatureDependencies of(Collection<XExpression> expressions, Collection<String> localFeatures) {
+        var local = new HashSet<>(localFeatures);
+        var nonLocal = new HashSet<String>();
+        boolean unknown = false;
+        for (var expression : expressions) {
+            unknown |= collect(expression, local, nonLocal);
+            var iterator = expression.eAllContents();
+            while (iterator.hasNext()) {
+                unknown |= collect(iterator.next(), local, nonLocal);
+            }
+        }
+        return new FeatureDependencies(Set.copyOf(local), Set.copyOf(nonLocal), unknown);
+    }
+
+    /**
+     * @return whether the element calls an EMF method
+     */
+    private static boolean collect(EObject element, Set<String> local, Set<String> nonLocal) {
+        if (element instanceof XAbstractFeatureCall featureCall) {
+            if (featureCall.getFeature() instanceof JvmField field) {
+                (isFromParameter(featureCall.getActualReceiver()) ? local : nonLocal).add(field.getSimpleName());
+            } else if (featureCall.getFeature() instanceof JvmOperation operation) {
+                return operation.getDeclaringType().getQualifiedName().startsWith("org.eclipse.emf.");
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFromParameter(XExpression receiver) {
+        return receiver instanceof XAbstractFeatureCall featureCall
+            && featureCall.getFeature() instanceof JvmFormalParameter parameter
+            && parameter.eContainer() instanceof JvmOperation; // parameters of closures are not froms
+    }
+
+    /**
+     * Returns whether a change of the feature with the given name might affect the expressions.
+     */
+    boolean isAffectedBy(String feature) {
+        return unknown || local.contains(feature) || nonLocal.contains(feature);
+    }
+
+    /**
+     * Returns whether a change of the feature with the given name can only affect the expressions evaluated for
+     * tuples that contain the changed instance.
+     */
+    boolean isOnlyReadLocally(String feature) {
+        return !unknown && !nonLocal.contains(feature);
+    }
+
+}
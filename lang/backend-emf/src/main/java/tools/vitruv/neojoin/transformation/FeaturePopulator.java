@@ -0,0 +1,76 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRFeature;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Evaluates the features of target instances and assigns the results. References to other target instances are
+ * resolved with the given {@link TargetMap}.
+ *
+ * @implNote The work that does not depend on the populated instance is done once per target class by a
+ * {@link PopulationPlan}.
+ * @see #populate(AQRTargetClass, EObject, EObject, ExpressionEvaluator.Context)
+ */
+class FeaturePopulator {
+
+    private final TargetMap targetMap;
+    private final Supplier<@Nullable EObject> root;
+    private final Map<AQRTargetClass, PopulationPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * @param targetMap mapping from source to target instances
+     * @param root      provides the root instance of the target model
+     */
+    FeaturePopulator(TargetMap targetMap, Supplier<@Nullable EObject> root) {
+        this.targetMap = targetMap;
+        this.root = root;
+    }
+
+    private PopulationPlan getPlan(AQRTargetClass targetClass, EObject target) {
+        var plan = plans.get(targetClass);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(
+                targetClass,
+                t -> new PopulationPlan(targetClass, target.eClass(), targetMap, root)
+            );
+        }
+        return plan;
+    }
+
+    /**
+     * Evaluates the features of the given target instance. Evaluation does not modify the target model and can therefore
+     * be performed concurrently for different instances.
+     *
+     * @return action that assigns the evaluated values to the target instance
+     */
+    Runnable populate(
+        AQRTargetClass targetClass,
+        EObject target,
+        @Nullable EObject source,
+        ExpressionEvaluator.Context context
+    ) {
+        return getPlan(targetClass, target).populate(target, source, context);
+    }
+
+    /**
+     * Evaluates a single, not {@link AQRFeature.Kind.Generate generated} feature of the given target instance.
+     *
+     * @return action that assigns the evaluated value to the target instance
+     */
+    Runnable populate(
+        AQRTargetClass targetClass,
+        AQRFeature feature,
+        EObject target,
+        @Nullable EObject source,
+        ExpressionEvaluator.Context context
+    ) {
+        return getPlan(targetClass, target).populate(feature, target, source, context);
+    }
+
+}
@@ -0,0 +1,757 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.xbase.XExpression;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.Formatting;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.aqr.AQRFeature;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.aqr.AQRJoin;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.transformation.source.InstanceSource;
+import tools.vitruv.neojoin.transformation.source.InstanceSourceFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static tools.vitruv.neojoin.utils.Assertions.check;
+
+/**
+ * Transforms the given source instance models like the {@link Transformator} and afterward keeps the target model up
+ * to date while the source instance models change.
+ * <p>
+ * After the {@link #transform() initial transformation}, the source instance models are observed with an
+ * {@link EContentAdapter}. Changes are collected and only propagated to the target model after they are complete,
+ * either when {@link #propagateChanges()} is called or after the changes executed by {@link #deferUpdates(Runnable)}.
+ * Therefore, operations that send multiple notifications (e.g. {@link EcoreUtil#delete(EObject)}) are never observed
+ * in an intermediate state. Only the affected parts of the target model are updated, the remaining target instances
+ * and their feature values are kept:
+ * <ul>
+ *     <li>Target classes without grouping and left joins are maintained per tuple: For every added or changed source
+ *     instance only the tuples containing it are recomputed by restricting the corresponding from to that instance.
+ *     Tuples containing a removed source instance are dropped.</li>
+ *     <li>For other target classes, and if a condition reads a changed feature not directly on a from (e.g.
+ *     {@code r.owner.name}), all tuples are recomputed and compared with the previous ones.</li>
+ *     <li>Features are re-evaluated for target instances whose tuple contains the changed source instance, or for all
+ *     instances of the target class if the feature reads the changed feature non-locally (see
+ *     {@link FeatureDependencies}). References are re-evaluated whenever the instances of the referenced target class
+ *     change.</li>
+ * </ul>
+ * The updated target model is equal to the result of a new transformation except for the order of the target
+ * instances and of the instances contained in the root.
+ *
+ * @see #transform()
+ * @see #propagateChanges()
+ * @see #deferUpdates(Runnable)
+ * @see #dispose()
+ */
+public class IncrementalTransformator {
+
+    private final ExpressionHelper expressionHelper;
+    private final AQR aqr;
+    private final EPackage targetMetaModel;
+    private final Map<EPackage, Resource> sourceInstanceModels;
+    private final InstanceSourceFactory instanceSourceFactory;
+
+    private @Nullable EObject root;
+    private final TargetMap targetMap = new TargetMap(false, true);
+    private final FeaturePopulator populator = new FeaturePopulator(targetMap, () -> root);
+    private final Map<AQRTargetClass, ClassState> states = new LinkedHashMap<>();
+    private final ChangeObserver changeObserver = new ChangeObserver();
+    private final List<Change> pendingChanges = new ArrayList<>();
+    private int deferDepth = 0;
+
+    /**
+     * Source instances that form one target instance: a tuple for target classes without grouping, or a tuple of lists
+     * for target classes with grouping.
+     *
+     * @param key     identifies the row, i.e. the tuple itself or the grouping key
+     * @param sources all source instances of the row (may contain {@code null} for left joins)
+     * @param tuple   the tuple if the target class has no grouping
+     * @param group   the tuple of lists if the target class has grouping
+     */
+    private record Row(
+        List<?> key,
+        List<@Nullable EObject> sources,
+        @Nullable InstanceTuple tuple,
+        @Nullable List<List<EObject>> group
+    ) {
+
+        @Nullable EObject mainSource() {
+            return tuple != null ? sources.getFirst() : null;
+        }
+
+    }
+
+    /**
+     * A target instance together with its row and evaluation context.
+     */
+    private static final class Entry {
+
+        private final EObject target;
+        private Row row;
+        private ExpressionEvaluator.Context context;
+
+        private Entry(EObject target, Row row, ExpressionEvaluator.Context context) {
+            this.target = target;
+            this.row = row;
+            this.context = context;
+        }
+
+    }
+
+    /**
+     * A change of a source instance model.
+     *
+     * @param notification EMF notification
+     * @param resource     resource of the notifier at the time of the change
+     */
+    private record Change(Notification notification, @Nullable Resource resource) {}
+
+    /**
+     * A changed feature of a source instance.
+     */
+    private record FeatureChange(EObject instance, String feature) {}
+
+    /**
+     * Changes of the target model during the propagation of source model changes.
+     */
+    private static final class TargetChanges {
+
+        /**
+         * target classes whose instances or their mapping from source instances changed
+         */
+        private final Set<AQRTargetClass> changedClasses = new HashSet<>();
+        /**
+         * new or changed entries which must be populated completely
+         */
+        private final Set<Entry> newEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+        /**
+         * target classes whose instances might have lost their container
+         */
+        private final Set<AQRTargetClass> orphanCandidates = new HashSet<>();
+
+    }
+
+    /**
+     * State of one target class.
+     */
+    private final class ClassState {
+
+        private final AQRTargetClass targetClass;
+        private final EClass clazz;
+        private final @Nullable ExpressionEvaluator evaluator;
+        private final List<AQRFrom> froms;
+        private final boolean grouped;
+        /**
+         * whether tuples can be maintained individually, i.e. no grouping and no left joins
+         */
+        private final boolean incremental;
+        private final FeatureDependencies sourceDependencies;
+        private final Map<AQRFeature, FeatureDependencies> featureDependencies = new LinkedHashMap<>();
+        private final Map<List<?>, Entry> entries = new LinkedHashMap<>();
+        private final Map<EObject, Set<List<?>>> keysBySource = new HashMap<>();
+
+        private ClassState(AQRTargetClass targetClass) {
+            this.targetClass = targetClass;
+            this.clazz = getTargetClass(targetClass.name());
+
+            var source = targetClass.source();
+            if (source != null) {
+                evaluator = new ExpressionEvaluator(expressionHelper, source);
+                froms = source.allFroms().toList();
+                grouped = !source.groupingExpressions().isEmpty();
+                incremental = !grouped && source.joins().stream().allMatch(j -> j.type() == AQRJoin.Type.Inner);
+
+                var expressions = new ArrayList<XExpression>(source.groupingExpressions());
+                var joinFeatures = new ArrayList<String>();
+                if (source.condition() != null) {
+                    expressions.add(source.condition());
+                }
+                for (var join : source.joins()) {
+                    expressions.addAll(join.expressionConditions());
+                    join.featureConditions().forEach(c -> joinFeatures.addAll(c.features()));
+                }
+                sourceDependencies = FeatureDependencies.of(expressions, joinFeatures);
+            } else {
+                evaluator = null;
+                froms = List.of();
+                grouped = false;
+                incremental = false;
+                sourceDependencies = FeatureDependencies.NONE;
+            }
+
+            for (var feature : targetClass.features()) {
+                var kind = feature.kind();
+                if (kind.expression() != null) {
+                    featureDependencies.put(feature, FeatureDependencies.of(List.of(kind.expression()), List.of()));
+                } else if (kind instanceof AQRFeature.Kind.Copy.Implicit(var sourceFeature)) {
+                    featureDependencies.put(
+                        feature,
+                        new FeatureDependencies(Set.of(sourceFeature.getName()), Set.of(), false)
+                    );
+                }
+            }
+        }
+
+        private boolean isSourceInstance(EObject instance) {
+            for (var from : froms) {
+                if (from.clazz().isInstance(instance)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private ExpressionEvaluator.Context createContext(Row row) {
+            if (evaluator == null) {
+                return ExpressionEvaluator.createContext(expressionHelper);
+            } else if (row.group() != null) {
+                return evaluator.createContext(row.group().iterator(), null);
+            } else {
+                return evaluator.createContext(Objects.requireNonNull(row.tuple()), null);
+            }
+        }
+
+        private Set<List<?>> getKeysContaining(EObject source) {
+            return keysBySource.getOrDefault(source, Set.of());
+        }
+
+        private void register(List<?> key, Row row, EObject target) {
+            for (var source : row.sources()) {
+                if (source != null) {
+                    targetMap.register(source, targetClass, target);
+                    keysBySource.computeIfAbsent(source, s -> new HashSet<>()).add(key);
+                }
+            }
+        }
+
+        private void unregister(List<?> key, Row row, EObject target) {
+            for (var source : row.sources()) {
+                if (source != null) {
+                    targetMap.unregister(source, targetClass, target);
+                    var keys = keysBySource.get(source);
+                    if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                        keysBySource.remove(source);
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Observes all contents of the source instance models and collects their changes until they are propagated.
+     */
+    private final class ChangeObserver extends EContentAdapter {
+
+        @Override
+        public void notifyChanged(Notification notification) {
+            super.notifyChanged(notification); // observes added contents
+
+            if (notification.isTouch()) {
+                return;
+            }
+
+            if (notification.getNotifier() instanceof Resource resource) {
+                if (notification.getFeatureID(Resource.class) != Resource.RESOURCE__CONTENTS) {
+                    return;
+                }
+                pendingChanges.add(new Change(notification, resource));
+            } else if (notification.getNotifier() instanceof EObject instance
+                && notification.getFeature() instanceof EStructuralFeature) {
+                pendingChanges.add(new Change(notification, instance.eResource()));
+            }
+        }
+
+    }
+
+    /**
+     * Creates a new incremental transformator for transforming the given source instance models into an instance of
+     * the given target meta-model based on the given query.
+     *
+     * @param expressionHelper     for evaluating feature expressions and conditions
+     * @param aqr                  query representation
+     * @param targetMetaModel      target meta-model that corresponds to the given query representation
+     * @param sourceInstanceModels map from {@link EPackage package} to the corresponding instance model {@link Resource resource}
+     */
+    public IncrementalTransformator(
+        ExpressionHelper expressionHelper,
+        AQR aqr,
+        EPackage targetMetaModel,
+        Map<EPackage, Resource> sourceInstanceModels
+    ) {
+        this.expressionHelper = expressionHelper;
+        this.aqr = aqr;
+        this.targetMetaModel = targetMetaModel;
+        this.sourceInstanceModels = sourceInstanceModels;
+        this.instanceSourceFactory = new InstanceSourceFactory(sourceInstanceModels);
+    }
+
+    /**
+     * Transforms the given source instance models and starts observing them for changes.
+     *
+     * @return root of the target model which is updated on changes of the source instance models
+     * @throws TransformatorException see {@link Transformator#transform()}
+     */
+    public EObject transform() throws TransformatorException {
+        check(root == null, "model already transformed");
+
+        var changes = new TargetChanges();
+        var rootState = new ClassState(aqr.root());
+        states.put(aqr.root(), rootState);
+        update(rootState, computeRows(rootState), changes);
+        checkRoot(rootState);
+
+        for (var targetClass : aqr.classes()) {
+            if (targetClass != aqr.root()) {
+                var state = new ClassState(targetClass);
+                states.put(targetClass, state);
+                update(state, computeRows(state), changes);
+            }
+        }
+
+        populate(List.of(), changes);
+        sourceInstanceModels.values().forEach(resource -> resource.eAdapters().add(changeObserver));
+        return Objects.requireNonNull(root);
+    }
+
+    /**
+     * Propagates the changes of the source instance models since the last propagation to the target model. Within
+     * {@link #deferUpdates(Runnable)}, the changes are propagated once the outermost call completes instead.
+     *
+     * @throws TransformatorException if a user caused error arises while updating the target model, which leaves the
+     *                                target model in a partially updated state
+     */
+    public void propagateChanges() throws TransformatorException {
+        check(root != null, "model not yet transformed");
+        if (deferDepth == 0) {
+            propagate();
+        }
+    }
+
+    /**
+     * Executes the given changes of the source instance models and {@link #propagateChanges() propagates} them to the
+     * target model afterward.
+     *
+     * @throws TransformatorException if a user caused error arises while updating the target model, which leaves the
+     *                                target model in a partially updated state
+     */
+    public void deferUpdates(Runnable changes) throws TransformatorException {
+        check(root != null, "model not yet transformed");
+        deferDepth++;
+        try {
+            changes.run();
+        } finally {
+            deferDepth--;
+            if (deferDepth == 0) {
+                propagate();
+            }
+        }
+    }
+
+    /**
+     * Stops observing the source instance models. The target model is no longer updated afterward.
+     */
+    public void dispose() {
+        sourceInstanceModels.values().forEach(resource -> resource.eAdapters().remove(changeObserver));
+        pendingChanges.clear();
+    }
+
+    private EClass getTargetClass(String name) {
+        var clazz = targetMetaModel.getEClassifier(name);
+        check(clazz != null, () -> "no class named '%s' found in target meta-model".formatted(name));
+        return (EClass) clazz;
+    }
+
+    private void checkRoot(ClassState rootState) {
+        check(
+            rootState.entries.size() == 1, () -> "expected exactly one root instance of type %s, but found %d".formatted(
+                aqr.root().name(),
+                rootState.entries.size()
+            )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EObject> getRootContents(AQRTargetClass targetClass) {
+        var rootRef = Objects.requireNonNull(root).eClass()
+            .getEStructuralFeature(Formatting.formatRootReferenceName(targetClass.name()));
+        return (List<EObject>) root.eGet(rootRef);
+    }
+
+    private boolean isPresent(EObject instance) {
+        return instance.eResource() != null && sourceInstanceModels.containsValue(instance.eResource());
+    }
+
+    /**
+     * Propagates all pending changes of the source instance models to the target model.
+     */
+    private void propagate() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+
+        var changes = List.copyOf(pendingChanges);
+        pendingChanges.clear();
+
+        // collect changes
+        var added = new LinkedHashSet<EObject>();
+        var removed = new LinkedHashMap<EObject, Resource>();
+        var featureChanges = new ArrayList<FeatureChange>();
+        for (var change : changes) {
+            var notification = change.notification();
+            if (notification.getNotifier() instanceof EObject instance) {
+                var feature = (EStructuralFeature) notification.getFeature();
+                featureChanges.add(new FeatureChange(instance, feature.getName()));
+                if (feature instanceof EReference reference && reference.isContainment()) {
+                    collectContainmentChange(change, added, removed);
+                }
+            } else {
+                collectContainmentChange(change, added, removed);
+            }
+        }
+
+        // update instance indices
+        var removedByResource = new HashMap<Resource, List<EObject>>();
+        removed.forEach((instance, resource) ->
+            removedByResource.computeIfAbsent(resource, r -> new ArrayList<>()).add(instance));
+        removedByResource.forEach((resource, instances) -> instanceSourceFactory.getIndex(resource).remove(instances));
+        var gone = new LinkedHashSet<EObject>();
+        removed.keySet().stream()
+            .filter(instance -> !isPresent(instance))
+            .forEach(instance -> addWithContents(instance, gone));
+
+        var touched = new LinkedHashSet<EObject>();
+        for (var instance : added) {
+            if (isPresent(instance)) {
+                instanceSourceFactory.getIndex(instance.eResource()).add(instance);
+                addWithContents(instance, touched);
+            }
+        }
+        removed.keySet().stream()
+            .filter(instance -> !added.contains(instance) && isPresent(instance))
+            .forEach(instance -> {
+                instanceSourceFactory.getIndex(instance.eResource()).add(instance);
+                addWithContents(instance, touched);
+            });
+
+        // update target instances
+        var targetChanges = new TargetChanges();
+        for (var state : states.values()) {
+            if (state.targetClass.source() != null) {
+                updateRows(state, gone, touched, featureChanges, targetChanges);
+            }
+        }
+        checkRoot(states.get(aqr.root()));
+
+        // update features
+        populate(featureChanges, targetChanges);
+    }
+
+    private static void collectContainmentChange(
+        Change change,
+        Set<EObject> added,
+        Map<EObject, Resource> removed
+    ) {
+        var notification = change.notification();
+        switch (notification.getEventType()) {
+            case Notification.ADD, Notification.ADD_MANY, Notification.SET ->
+                forEachInstance(notification.getNewValue(), added::add);
+            default -> {}
+        }
+        switch (notification.getEventType()) {
+            case Notification.REMOVE, Notification.REMOVE_MANY, Notification.SET, Notification.UNSET -> {
+                if (change.resource() != null) {
+                    forEachInstance(notification.getOldValue(), instance -> removed.put(instance, change.resource()));
+                }
+            }
+            default -> {}
+        }
+    }
+
+    private static void forEachInstance(@Nullable Object value, Consumer<EObject> action) {
+        if (value instanceof EObject instance) {
+            action.accept(instance);
+        } else if (value instanceof Collection<?> collection) {
+            collection.forEach(v -> forEachInstance(v, action));
+        }
+    }
+
+    private static void addWithContents(EObject instance, Set<EObject> instances) {
+        instances.add(instance);
+        instance.eAllContents().forEachRemaining(instances::add);
+    }
+
+    /**
+     * Updates the rows of the given target class based on the given changes of the source instance models.
+     *
+     * @param gone           source instances that were removed from the source instance models
+     * @param touched        source instances that were added to or moved within the source instance models
+     * @param featureChanges changed features of source instances
+     */
+    private void updateRows(
+        ClassState state,
+        Set<EObject> gone,
+        Set<EObject> touched,
+        List<FeatureChange> featureChanges,
+        TargetChanges targetChanges
+    ) {
+        boolean full = false;
+        var dropped = new LinkedHashSet<EObject>();
+        var changed = new LinkedHashSet<EObject>();
+
+        for (var instance : gone) {
+            if (state.isSourceInstance(instance)) {
+                full |= !state.incremental;
+                dropped.add(instance);
+            }
+        }
+        for (var instance : touched) {
+            if (state.isSourceInstance(instance)) {
+                full |= !state.incremental;
+                changed.add(instance);
+            }
+        }
+        for (var change : featureChanges) {
+            if (state.sourceDependencies.isAffectedBy(change.feature())) {
+                if (!state.incremental || !state.sourceDependencies.isOnlyReadLocally(change.feature())) {
+                    full = true;
+                } else if (state.isSourceInstance(change.instance()) && isPresent(change.instance())) {
+                    changed.add(change.instance());
+                }
+            }
+        }
+
+        if (full) {
+            update(state, computeRows(state), targetChanges);
+        } else if (!dropped.isEmpty() || !changed.isEmpty()) {
+            updateRows(state, dropped, changed, targetChanges);
+        }
+    }
+
+    /**
+     * Recomputes the rows that contain one of the given instances.
+     *
+     * @param dropped instances which are no longer part of any row
+     * @param changed instances whose rows must be recomputed
+     */
+    private void updateRows(
+        ClassState state,
+        Set<EObject> dropped,
+        Set<EObject> changed,
+        TargetChanges targetChanges
+    ) {
+        var affectedKeys = new LinkedHashSet<List<?>>();
+        dropped.forEach(instance -> affectedKeys.addAll(state.getKeysContaining(instance)));
+        changed.forEach(instance -> affectedKeys.addAll(state.getKeysContaining(instance)));
+
+        var rows = new LinkedHashMap<List<?>, Row>();
+        var source = Objects.requireNonNull(state.targetClass.source());
+        var evaluator = Objects.requireNonNull(state.evaluator);
+        for (int i = 0; i < state.froms.size(); i++) {
+            var clazz = state.froms.get(i).clazz();
+            var instances = changed.stream().filter(clazz::isInstance).toList();
+            if (!instances.isEmpty()) {
+                collectRows(instanceSourceFactory.create(source, evaluator, i, instances), rows);
+            }
+        }
+
+        for (var key : affectedKeys) {
+            if (!rows.containsKey(key)) {
+                removeEntry(state, key, targetChanges);
+            }
+        }
+        rows.forEach((key, row) -> {
+            if (!state.entries.containsKey(key)) {
+                addEntry(state, row, targetChanges);
+            }
+        });
+    }
+
+    private Map<List<?>, Row> computeRows(ClassState state) {
+        var source = state.targetClass.source();
+        if (source == null) { // no source -> a single instance
+            return Map.of(List.of(), new Row(List.of(), List.of(), null, null));
+        }
+
+        var evaluator = Objects.requireNonNull(state.evaluator);
+        var instanceSource = instanceSourceFactory.create(source, evaluator);
+        var rows = new LinkedHashMap<List<?>, Row>();
+        if (state.grouped) {
+            instanceSourceFactory.createGrouping(source.groupingExpressions(), instanceSource, evaluator)
+                .getGroups()
+                .forEach((key, group) -> rows.put(
+                    key,
+                    new Row(key, group.stream().flatMap(List::stream).toList(), null, group)
+                ));
+        } else {
+            collectRows(instanceSource, rows);
+        }
+        return rows;
+    }
+
+    private static void collectRows(InstanceSource instanceSource, Map<List<?>, Row> rows) {
+        instanceSource.get().forEach(tuple -> {
+            var sources = tuple.asList();
+            rows.putIfAbsent(sources, new Row(sources, sources, tuple, null));
+        });
+    }
+
+    /**
+     * Replaces the rows of the given target class with the given rows. Target instances of rows that did not change
+     * are kept.
+     */
+    private void update(ClassState state, Map<List<?>, Row> rows, TargetChanges targetChanges) {
+        for (var key : List.copyOf(state.entries.keySet())) {
+            if (!rows.containsKey(key)) {
+                removeEntry(state, key, targetChanges);
+            }
+        }
+
+        rows.forEach((key, row) -> {
+            var entry = state.entries.get(key);
+            if (entry == null) {
+                addEntry(state, row, targetChanges);
+            } else if (!entry.row.sources().equals(row.sources())) { // group with changed members
+                state.unregister(key, entry.row, entry.target);
+                state.register(key, row, entry.target);
+                entry.row = row;
+                entry.context = state.createContext(row);
+                targetChanges.changedClasses.add(state.targetClass);
+                targetChanges.newEntries.add(entry);
+            }
+        });
+    }
+
+    private void addEntry(ClassState state, Row row, TargetChanges targetChanges) {
+        EObject target;
+        if (state.targetClass == aqr.root() && root != null) { // keep the root instance
+            target = root;
+        } else {
+            check(state.clazz.getEPackage() == targetMetaModel);
+            target = targetMetaModel.getEFactoryInstance().create(state.clazz);
+            if (state.targetClass == aqr.root()) {
+                root = target;
+            } else {
+                getRootContents(state.targetClass).add(target);
+            }
+        }
+
+        var entry = new Entry(target, row, state.createContext(row));
+        state.entries.put(row.key(), entry);
+        state.register(row.key(), row, target);
+        targetChanges.changedClasses.add(state.targetClass);
+        targetChanges.newEntries.add(entry);
+    }
+
+    private void removeEntry(ClassState state, List<?> key, TargetChanges targetChanges) {
+        var entry = state.entries.remove(key);
+        state.unregister(key, entry.row, entry.target);
+        targetChanges.changedClasses.add(state.targetClass);
+        targetChanges.newEntries.remove(entry);
+        if (entry.target != root) {
+            EcoreUtil.remove(entry.target);
+            for (var feature : state.targetClass.features()) {
+                if (feature instanceof AQRFeature.Reference reference && reference.options().isContainment()) {
+                    targetChanges.orphanCandidates.add(reference.type());
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates and assigns the features of all new or changed target instances and the features affected by the
+     * given changes.
+     */
+    private void populate(List<FeatureChange> featureChanges, TargetChanges targetChanges) {
+        var populations = new ArrayList<Runnable>();
+        for (var state : states.values()) {
+            for (var entry : state.entries.values()) {
+                if (targetChanges.newEntries.contains(entry)) {
+                    populations.add(populator.populate(
+                        state.targetClass,
+                        entry.target,
+                        entry.row.mainSource(),
+                        entry.context
+                    ));
+                }
+            }
+
+            state.featureDependencies.forEach((feature, dependencies) -> {
+                var entries = getAffectedEntries(state, feature, dependencies, featureChanges, targetChanges);
+                for (var entry : entries) {
+                    if (!targetChanges.newEntries.contains(entry)) {
+                        populations.add(populator.populate(
+                            state.targetClass, feature, entry.target, entry.row.mainSource(), entry.context
+                        ));
+                    }
+                }
+                if (!entries.isEmpty() && feature instanceof AQRFeature.Reference reference
+                    && reference.options().isContainment()) {
+                    targetChanges.orphanCandidates.add(reference.type());
+                }
+            });
+        }
+
+        populations.forEach(Runnable::run);
+
+        // target instances removed from a containment reference are contained in the root again
+        for (var targetClass : targetChanges.orphanCandidates) {
+            if (targetClass != aqr.root()) {
+                var rootContents = getRootContents(targetClass);
+                for (var entry : states.get(targetClass).entries.values()) {
+                    if (entry.target.eContainer() == null) {
+                        rootContents.add(entry.target);
+                    }
+                }
+            }
+        }
+    }
+
+    private Collection<Entry> getAffectedEntries(
+        ClassState state,
+        AQRFeature feature,
+        FeatureDependencies dependencies,
+        List<FeatureChange> featureChanges,
+        TargetChanges targetChanges
+    ) {
+        if (feature instanceof AQRFeature.Reference reference
+            && targetChanges.changedClasses.contains(reference.type())) {
+            return state.entries.values();
+        }
+
+        var keys = new LinkedHashSet<List<?>>();
+        for (var change : featureChanges) {
+            if (dependencies.isAffectedBy(change.feature())) {
+                if (state.grouped || !dependencies.isOnlyReadLocally(change.feature())) {
+                    return state.entries.values();
+                }
+                keys.addAll(state.getKeysContaining(change.instance()));
+            }
+        }
+        return keys.stream().map(state.entries::get).toList();
+    }
+
+}
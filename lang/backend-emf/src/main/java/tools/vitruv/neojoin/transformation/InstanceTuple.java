@@ -3,39 +3,115 @@ package tools.vitruv.neojoin.transformation;
 import org.eclipse.emf.ecore.EObject;
 import org.jspecify.annotations.Nullable;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 
 /**
  * A tuple of instances that results for example from joining multiple classes in a query.
- * Use {@link #stream()} to retrieve the contained instances.
+ * Use {@link #get(int)} to access a single instance by the index of its from and {@link #stream()} or
+ * {@link #iterator()} to retrieve all contained instances.
+ * <p>
+ * Instances can be {@code null} if they result from a left join without a matching partner.
  *
- * @implNote The tuple is implemented as a backwards linked list to allow for multiple longer tuples
- * to reuse the same existing left side. For example when joining multiple instances of a
- * class onto on existing tuple, every new tuple can reuse the existing tuple as it's {@link InstanceTuple#left}.
+ * @implNote The tuple is backed by an array of fixed size, so that accessing an instance by index does neither traverse
+ * the tuple nor allocate. Extending a tuple copies the array, which is cheap because tuples only contain one instance
+ * per from of the query.
  */
-public class InstanceTuple {
+public final class InstanceTuple implements Iterable<@Nullable EObject> {
 
-    private final @Nullable InstanceTuple left;
-    private final @Nullable EObject right;
+    private final @Nullable EObject[] instances;
 
+    private InstanceTuple(@Nullable EObject[] instances) {
+        this.instances = instances;
+    }
+
+    /**
+     * Creates a tuple that contains the instances of the given tuple followed by the given instance.
+     *
+     * @param left  tuple to extend or {@code null} to create a tuple with a single instance
+     * @param right instance to append
+     */
     public InstanceTuple(@Nullable InstanceTuple left, @Nullable EObject right) {
-        this.left = left;
-        this.right = right;
+        if (left == null) {
+            this.instances = new EObject[]{right};
+        } else {
+            this.instances = Arrays.copyOf(left.instances, left.instances.length + 1);
+            this.instances[left.instances.length] = right;
+        }
     }
 
     public InstanceTuple(EObject right) {
         this(null, right);
     }
 
+    /**
+     * Creates a tuple that takes ownership of the given array, i.e. the array must not be modified afterward.
+     *
+     * @param instances instances from left to right
+     */
+    public static InstanceTuple wrap(@Nullable EObject[] instances) {
+        return new InstanceTuple(instances);
+    }
+
+    /**
+     * @return number of contained instances
+     */
+    public int size() {
+        return instances.length;
+    }
+
+    /**
+     * @param index index of the instance from left to right
+     * @return instance at the given index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public @Nullable EObject get(int index) {
+        return instances[index];
+    }
+
     /**
      * @return contained instances from left to right
      */
     public Stream<@Nullable EObject> stream() {
-        if (left == null) {
-            return Stream.of(right);
-        } else {
-            return Stream.concat(left.stream(), Stream.<@Nullable EObject>of(right));
-        }
+        return Arrays.stream(instances);
+    }
+
+    /**
+     * @return unmodifiable list view of the contained instances from left to right
+     */
+    public List<@Nullable EObject> asList() {
+        return Collections.unmodifiableList(Arrays.asList(instances));
+    }
+
+    @Override
+    public Iterator<@Nullable EObject> iterator() {
+        return new Iterator<>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < instances.length;
+            }
+
+            @Override
+            public @Nullable EObject next() {
+                if (index >= instances.length) {
+                    throw new NoSuchElementException();
+                }
+                return instances[index++];
+            }
+
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(instances);
     }
 
 }
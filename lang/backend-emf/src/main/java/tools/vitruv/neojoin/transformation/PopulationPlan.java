@@ -0,0 +1,273 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EEnumLiteral;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.xtext.xbase.XExpression;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRFeature;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.utils.TypeCasts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static tools.vitruv.neojoin.utils.Assertions.check;
+import static tools.vitruv.neojoin.utils.Assertions.fail;
+
+/**
+ * Steps to populate the features of the instances of a target class, compiled once per target class. Every step holds
+ * the resolved structural feature of the target class and everything else that does not depend on the populated
+ * instance, e.g. the function to cast attribute values or the mapping of enum literals.
+ *
+ * @see FeaturePopulator
+ */
+final class PopulationPlan {
+
+    /**
+     * Population of a single feature.
+     */
+    private abstract static class Step {
+
+        protected final EStructuralFeature feature;
+        private final @Nullable XExpression expression;
+        private final @Nullable EStructuralFeature sourceFeature;
+
+        protected Step(AQRFeature.Kind kind, EStructuralFeature feature) {
+            this.feature = feature;
+            this.expression = kind.expression();
+            if (expression == null && kind instanceof AQRFeature.Kind.Copy.Implicit implicit) {
+                this.sourceFeature = implicit.source();
+            } else {
+                check(expression != null);
+                this.sourceFeature = null;
+            }
+        }
+
+        /**
+         * Evaluates the value of the feature without modifying the target model.
+         */
+        abstract @Nullable Object evaluate(@Nullable EObject source, ExpressionEvaluator.Context context);
+
+        /**
+         * Assigns a value previously {@link #evaluate evaluated} to the given target instance.
+         */
+        void assign(EObject target, @Nullable Object value) {
+            target.eSet(feature, value);
+        }
+
+        protected @Nullable Object evaluateKind(@Nullable EObject source, ExpressionEvaluator.Context context) {
+            if (expression != null) {
+                return context.evaluateExpression(expression);
+            } else {
+                check(sourceFeature != null && source != null && source.eClass() == sourceFeature.getEContainingClass());
+                return source.eGet(sourceFeature);
+            }
+        }
+
+    }
+
+    private static final class AttributeStep extends Step {
+
+        private final @Nullable Map<String, EEnumLiteral> enumLiterals;
+        private final @Nullable UnaryOperator<Object> cast;
+
+        private AttributeStep(AQRFeature.Attribute attribute, EStructuralFeature feature) {
+            super(attribute.kind(), feature);
+            if (feature.getEType() instanceof EEnum targetEnum) {
+                var literals = new HashMap<String, EEnumLiteral>();
+                targetEnum.getELiterals().forEach(literal -> literals.put(literal.getName(), literal));
+                this.enumLiterals = literals;
+            } else {
+                this.enumLiterals = null;
+            }
+            var instanceClass = feature.getEType().getInstanceClass();
+            this.cast = instanceClass != null ? TypeCasts.caster(instanceClass) : null;
+        }
+
+        @Override
+        @Nullable Object evaluate(@Nullable EObject source, ExpressionEvaluator.Context context) {
+            var value = evaluateKind(source, context);
+            if (value instanceof EEnumLiteral enumLiteral) {
+                check(enumLiterals != null);
+                value = enumLiterals.get(enumLiteral.getName());
+                check(value != null);
+            }
+            return cast(value);
+        }
+
+        private @Nullable Object cast(@Nullable Object value) {
+            if (value == null || cast == null) {
+                return value;
+            }
+
+            if (feature.isMany()) {
+                var list = (List<?>) value;
+                var result = new ArrayList<>(list.size());
+                for (var element : list) {
+                    result.add(element != null ? cast.apply(element) : null);
+                }
+                return result;
+            } else {
+                return cast.apply(value);
+            }
+        }
+
+    }
+
+    private static final class ReferenceStep extends Step {
+
+        private final AQRFeature.Reference reference;
+        private final TargetMap.ForClass mapping;
+        private final Supplier<@Nullable EObject> root;
+
+        private ReferenceStep(
+            AQRFeature.Reference reference,
+            EStructuralFeature feature,
+            TargetMap.ForClass mapping,
+            Supplier<@Nullable EObject> root
+        ) {
+            super(reference.kind(), feature);
+            this.reference = reference;
+            this.mapping = mapping;
+            this.root = root;
+        }
+
+        @Override
+        @Nullable Object evaluate(@Nullable EObject source, ExpressionEvaluator.Context context) {
+            var value = evaluateKind(source, context);
+            if (value == null) {
+                return null;
+            } else if (value instanceof List<?> list) {
+                var result = new ArrayList<EObject>(list.size());
+                for (var instance : list) {
+                    result.add(mapping.get((EObject) instance));
+                }
+                return result;
+            } else {
+                return mapping.get((EObject) value);
+            }
+        }
+
+        @Override
+        void assign(EObject target, @Nullable Object value) {
+            if (value != null && reference.options().isContainment()) {
+                if (value instanceof List<?> list) {
+                    list.forEach(v -> checkNotAlreadyContained((EObject) v, target));
+                } else {
+                    checkNotAlreadyContained((EObject) value, target);
+                }
+            }
+            super.assign(target, value);
+        }
+
+        /**
+         * Checks that the given value is not contained in another instance than the root. When a feature is populated
+         * again, the value may already be contained in the same feature of the same target instance.
+         */
+        private void checkNotAlreadyContained(EObject value, EObject target) {
+            var container = value.eContainer();
+            if (container == target && value.eContainingFeature() == feature) {
+                return;
+            }
+
+            if (container != null && container != root.get()) {
+                throw new TransformatorException(
+                    "cannot add target instance of class '%s' to containment reference '%s.%s' because it is already contained in another instance of class '%s'".formatted(
+                        value.eClass().getName(),
+                        target.eClass().getName(),
+                        reference.name(),
+                        container.eClass().getName()
+                    ));
+            }
+        }
+
+    }
+
+    private final EClass clazz;
+    private final Step[] steps;
+    private final Map<AQRFeature, Step> stepsByFeature = new IdentityHashMap<>();
+
+    /**
+     * Compiles the plan for all features of the given target class except for
+     * {@link AQRFeature.Kind.Generate generated} ones, which are populated elsewhere.
+     *
+     * @param targetClass target class to populate
+     * @param clazz       EClass of the target class
+     * @param targetMap   mapping from source to target instances for resolving references
+     * @param root        provides the root instance of the target model
+     */
+    PopulationPlan(
+        AQRTargetClass targetClass,
+        EClass clazz,
+        TargetMap targetMap,
+        Supplier<@Nullable EObject> root
+    ) {
+        this.clazz = clazz;
+        var steps = new ArrayList<Step>(targetClass.features().size());
+        for (var feature : targetClass.features()) {
+            if (feature.kind() instanceof AQRFeature.Kind.Generate) {
+                continue;
+            }
+
+            var structuralFeature = clazz.getEStructuralFeature(feature.name());
+            check(structuralFeature != null);
+            Step step;
+            if (feature instanceof AQRFeature.Attribute attribute) {
+                step = new AttributeStep(attribute, structuralFeature);
+            } else if (feature instanceof AQRFeature.Reference reference) {
+                step = new ReferenceStep(reference, structuralFeature, targetMap.forClass(reference.type()), root);
+            } else {
+                step = fail();
+            }
+            steps.add(step);
+            stepsByFeature.put(feature, step);
+        }
+        this.steps = steps.toArray(Step[]::new);
+    }
+
+    /**
+     * Evaluates all features of the given target instance. Evaluation does not modify the target model and can
+     * therefore be performed concurrently for different instances.
+     *
+     * @return action that assigns the evaluated values to the target instance
+     */
+    Runnable populate(EObject target, @Nullable EObject source, ExpressionEvaluator.Context context) {
+        check(target.eClass() == clazz);
+        var values = new Object[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            values[i] = steps[i].evaluate(source, context);
+        }
+        return () -> {
+            for (int i = 0; i < steps.length; i++) {
+                steps[i].assign(target, values[i]);
+            }
+        };
+    }
+
+    /**
+     * Evaluates a single feature of the given target instance, see {@link #populate(EObject, EObject, ExpressionEvaluator.Context)}.
+     *
+     * @param feature a not {@link AQRFeature.Kind.Generate generated} feature of the target class
+     */
+    Runnable populate(
+        AQRFeature feature,
+        EObject target,
+        @Nullable EObject source,
+        ExpressionEvaluator.Context context
+    ) {
+        check(target.eClass() == clazz);
+        var step = stepsByFeature.get(feature);
+        check(step != null);
+        var value = step.evaluate(source, context);
+        return () -> step.assign(target, value);
+    }
+
+}
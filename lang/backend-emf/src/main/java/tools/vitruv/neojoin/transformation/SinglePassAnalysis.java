@@ -0,0 +1,121 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.xtext.common.types.JvmOperation;
+import org.eclipse.xtext.xbase.XAbstractFeatureCall;
+import org.eclipse.xtext.xbase.XExpression;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.aqr.AQRFeature;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.jvmmodel.TypeResolutionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Finds the target classes whose instances can be created and populated in a single pass over their source instances,
+ * without retaining the source instances until the second phase of the transformation. This is the case if
+ * <ul>
+ *     <li>the target class selects from a single class without joins or grouping,</li>
+ *     <li>it only has attributes, so populating it does not depend on other target instances,</li>
+ *     <li>no other target class references it, so its source instances need not be mapped to its instances, and</li>
+ *     <li>its expressions only read attributes and containment references of the source instances, i.e. they only
+ *     access the containment subtree of a source instance.</li>
+ * </ul>
+ * The source instances of such a target class can therefore be {@link
+ * tools.vitruv.neojoin.transformation.source.StreamingFromSource streamed}.
+ *
+ * @see Transformator#transform()
+ */
+final class SinglePassAnalysis {
+
+    private final Set<AQRTargetClass> singlePass = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Analyzes all target classes of the given query. Type resolution is not thread-safe, so all expressions are
+     * analyzed up front.
+     */
+    SinglePassAnalysis(AQR aqr, ExpressionHelper expressionHelper) {
+        var referenced = Collections.newSetFromMap(new IdentityHashMap<AQRTargetClass, Boolean>());
+        for (var targetClass : aqr.classes()) {
+            for (var feature : targetClass.features()) {
+                if (feature instanceof AQRFeature.Reference reference
+                    && !(reference.kind() instanceof AQRFeature.Kind.Generate)) {
+                    referenced.add(reference.type());
+                }
+            }
+        }
+
+        for (var targetClass : aqr.classes()) {
+            if (targetClass != aqr.root()
+                && !referenced.contains(targetClass)
+                && allowsSinglePass(targetClass, expressionHelper)) {
+                singlePass.add(targetClass);
+            }
+        }
+    }
+
+    private static boolean allowsSinglePass(AQRTargetClass targetClass, ExpressionHelper expressionHelper) {
+        var source = targetClass.source();
+        if (source == null || !source.joins().isEmpty() || !source.groupingExpressions().isEmpty()) {
+            return false;
+        }
+
+        var expressions = new ArrayList<XExpression>();
+        if (source.condition() != null) {
+            expressions.add(source.condition());
+        }
+        for (var feature : targetClass.features()) {
+            if (!(feature instanceof AQRFeature.Attribute)) {
+                return false;
+            }
+            if (feature.kind().expression() != null) {
+                expressions.add(feature.kind().expression());
+            }
+        }
+
+        for (var expression : expressions) {
+            if (!readsSubtree(expression, expressionHelper)) {
+                return false;
+            }
+            var iterator = expression.eAllContents();
+            while (iterator.hasNext()) {
+                if (!readsSubtree(iterator.next(), expressionHelper)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the given element neither reads a non-containment reference nor calls an EMF method
+     */
+    private static boolean readsSubtree(EObject element, ExpressionHelper expressionHelper) {
+        if (!(element instanceof XAbstractFeatureCall featureCall)) {
+            return true;
+        }
+        if (featureCall.getFeature() instanceof JvmOperation operation) {
+            return !operation.getDeclaringType().getQualifiedName().startsWith("org.eclipse.emf.");
+        }
+
+        try {
+            return !(expressionHelper.getFeatureOrNull(featureCall) instanceof EReference reference)
+                || reference.isContainment();
+        } catch (TypeResolutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the given target class can be transformed in a single pass.
+     */
+    boolean isSinglePass(AQRTargetClass targetClass) {
+        return singlePass.contains(targetClass);
+    }
+
+}
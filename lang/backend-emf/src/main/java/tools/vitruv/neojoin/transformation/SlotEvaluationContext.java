@@ -0,0 +1,195 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.xbase.interpreter.IEvaluationContext;
+import org.eclipse.xtext.xbase.interpreter.impl.DefaultEvaluationContext;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.Constants;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.aqr.AQRSource;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static tools.vitruv.neojoin.utils.Assertions.check;
+import static tools.vitruv.neojoin.utils.Assertions.fail;
+
+/**
+ * Evaluation context with one slot per from of a source. The variable names of the slots are determined once by a
+ * {@link Layout} and the context can be {@link #bind(InstanceTuple, AQRFrom) rebound} to new values without allocating,
+ * so that a single context can be reused for many tuples.
+ * <p>
+ * The variables are the same as the ones of {@link ExpressionHelper#createContext(Iterator, Iterator, AQRFrom)}.
+ * Variables that are declared during the evaluation (e.g. in blocks) are kept separately and dropped on every rebind.
+ */
+final class SlotEvaluationContext implements IEvaluationContext {
+
+    /**
+     * Variable names of the slots of all contexts for a given source.
+     */
+    static final class Layout {
+
+        private final List<AQRFrom> froms;
+        private final QualifiedName[] names;
+        private final int[] slots;
+
+        private Layout(List<AQRFrom> froms, QualifiedName[] names, int[] slots) {
+            this.froms = froms;
+            this.names = names;
+            this.slots = slots;
+        }
+
+        static Layout of(AQRSource source) {
+            var froms = source.allFroms().toList();
+            var names = new ArrayList<QualifiedName>();
+            var slots = new ArrayList<Integer>();
+            for (int i = 0; i < froms.size(); i++) {
+                if (froms.size() == 1) {
+                    names.add(QualifiedName.create(Constants.ExpressionSelfReference));
+                    slots.add(i);
+                }
+                var alias = froms.get(i).alias();
+                if (alias != null) {
+                    names.add(QualifiedName.create(alias));
+                    slots.add(i);
+                }
+            }
+            return new Layout(
+                froms,
+                names.toArray(QualifiedName[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray()
+            );
+        }
+
+        /**
+         * @return number of slots of the bound values, i.e. the index of the given limit plus one or the number of
+         * froms if no limit is given
+         */
+        private int getBoundCount(@Nullable AQRFrom limit) {
+            if (limit == null) {
+                return froms.size();
+            }
+            for (int i = 0; i < froms.size(); i++) {
+                if (froms.get(i) == limit) {
+                    return i + 1;
+                }
+            }
+            return fail("limit is not a from of the source");
+        }
+
+    }
+
+    private final Layout layout;
+    private final @Nullable Object[] values;
+    private int bound = 0;
+    private @Nullable Map<QualifiedName, @Nullable Object> declaredValues;
+
+    SlotEvaluationContext(Layout layout) {
+        this.layout = layout;
+        this.values = new Object[layout.froms.size()];
+    }
+
+    /**
+     * Binds the instances of the given tuple to the froms of the source.
+     *
+     * @param limit last from contained in the tuple or {@code null} if the tuple contains all froms
+     */
+    SlotEvaluationContext bind(InstanceTuple instances, @Nullable AQRFrom limit) {
+        var count = layout.getBoundCount(limit);
+        check(instances.size() == count);
+        for (int i = 0; i < count; i++) {
+            values[i] = instances.get(i);
+        }
+        return rebound(count);
+    }
+
+    /**
+     * Binds the instances of the given tuple followed by the given instance to the froms of the source without
+     * creating a new tuple, e.g. for evaluating join conditions.
+     *
+     * @param limit the from of the given instance
+     */
+    SlotEvaluationContext bind(InstanceTuple left, @Nullable EObject right, AQRFrom limit) {
+        var count = layout.getBoundCount(limit);
+        check(left.size() + 1 == count);
+        for (int i = 0; i < left.size(); i++) {
+            values[i] = left.get(i);
+        }
+        values[left.size()] = right;
+        return rebound(count);
+    }
+
+    /**
+     * Binds the given values to the froms of the source.
+     *
+     * @param limit last from contained in the values or {@code null} if there is a value for every from
+     */
+    SlotEvaluationContext bind(Iterator<?> values, @Nullable AQRFrom limit) {
+        var count = layout.getBoundCount(limit);
+        for (int i = 0; i < count; i++) {
+            check(values.hasNext());
+            this.values[i] = values.next();
+        }
+        check(!values.hasNext());
+        return rebound(count);
+    }
+
+    /**
+     * Unbinds all froms, so that this context does not keep the previously bound instances reachable.
+     */
+    void clear() {
+        rebound(0);
+    }
+
+    private SlotEvaluationContext rebound(int count) {
+        for (int i = count; i < bound; i++) {
+            values[i] = null; // do not keep instances reachable
+        }
+        bound = count;
+        declaredValues = null;
+        return this;
+    }
+
+    @Override
+    public @Nullable Object getValue(QualifiedName qualifiedName) {
+        if (declaredValues != null && declaredValues.containsKey(qualifiedName)) {
+            return declaredValues.get(qualifiedName);
+        }
+        for (int i = 0; i < layout.names.length; i++) {
+            if (layout.slots[i] < bound && layout.names[i].equals(qualifiedName)) {
+                return values[layout.slots[i]];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void newValue(QualifiedName qualifiedName, @Nullable Object value) {
+        if (declaredValues == null) {
+            declaredValues = new HashMap<>();
+        }
+        if (declaredValues.containsKey(qualifiedName)) {
+            throw new IllegalStateException("Cannot create a duplicate value '" + qualifiedName + "'.");
+        }
+        declaredValues.put(qualifiedName, value);
+    }
+
+    @Override
+    public void assignValue(QualifiedName qualifiedName, @Nullable Object value) {
+        if (declaredValues == null || !declaredValues.containsKey(qualifiedName)) {
+            throw new IllegalStateException("Cannot assign value '" + qualifiedName + "' that was not declared.");
+        }
+        declaredValues.put(qualifiedName, value);
+    }
+
+    @Override
+    public IEvaluationContext fork() {
+        return new DefaultEvaluationContext(this);
+    }
+
+}
@@ -2,69 +2,237 @@ package tools.vitruv.neojoin.transformation;
 
 import org.eclipse.emf.ecore.EObject;
 import tools.vitruv.neojoin.aqr.AQRTargetClass;
-import tools.vitruv.neojoin.utils.Pair;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static tools.vitruv.neojoin.utils.Assertions.check;
 
 /**
  * Mapping from source instances to target instances. Given that one source class can be the source for multiple
  * target classes, this mapping does also depend on the target class. When {@link #get(EObject, AQRTargetClass) queried}
  * for a target instance this class checks that there is exactly one such instance and throws otherwise.
+ * <p>
+ * If created for concurrent use, instances can be registered concurrently. Queries are not synchronized: instances
+ * must only be queried after all registrations have completed, e.g. in the second phase of the {@link Transformator},
+ * and the completion of the registrations must happen-before the queries.
+ * <p>
+ * Mappings can only be {@link ForClass#unregister removed} if the map is created as removable, which requires
+ * keeping all target instances of a source instance that is mapped to multiple target instances.
+ *
+ * @implNote There is one {@link ForClass mapping per target class}. Source instances are compared by identity, so
+ * that neither {@link EObject#hashCode()} is required nor are keys allocated for lookups.
  */
 public class TargetMap {
 
-    private sealed interface Mapping {
+    /**
+     * Statistics of a mapping.
+     *
+     * @param entries         number of mapped source instances
+     * @param footprintBytes approximate memory used by the mapping in bytes, assuming compressed references
+     */
+    public record Statistics(long entries, long footprintBytes) {
 
-        Mapping with(EObject value);
+        private Statistics plus(Statistics other) {
+            return new Statistics(entries + other.entries, footprintBytes + other.footprintBytes);
+        }
 
     }
 
-    private record None() implements Mapping {
+    /**
+     * Mapping from source instances to target instances of a single target class.
+     *
+     * @implNote The mapping is split into segments selected by the {@link System#identityHashCode identity hash code}
+     * of the source instance. Each segment is an {@link IdentityHashMap}, which stores keys and values in a single
+     * array without entry objects, and is guarded by its own lock while registering concurrently. A source instance with one target instance maps
+     * directly to it. Multiple target instances are collected in a {@link Many} if the mapping is removable, otherwise
+     * the source instance maps to the shared {@link #Multiple} marker, since they can only be queried to fail.
+     */
+    public static final class ForClass {
+
+        private static final int SEGMENTS = 16;
+        private static final long REFERENCE_BYTES = 4;
+        private static final long OBJECT_HEADER_BYTES = 16;
 
-        @Override
-        public Mapping with(EObject value) {
-            return new One(value);
+        private final AQRTargetClass targetClass;
+        private final boolean concurrent;
+        private final boolean removable;
+        private final Map<?, ?>[] segments = new Map<?, ?>[SEGMENTS];
+
+        private ForClass(AQRTargetClass targetClass, boolean concurrent, boolean removable) {
+            this.targetClass = targetClass;
+            this.concurrent = concurrent;
+            this.removable = removable;
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new IdentityHashMap<EObject, Object>();
+            }
         }
 
-    }
+        @SuppressWarnings("unchecked")
+        private Map<EObject, Object> getSegment(EObject source) {
+            var hash = System.identityHashCode(source);
+            return (Map<EObject, Object>) segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        }
 
-    private record One(EObject value) implements Mapping {
+        /**
+         * Register a new mapping from the source instance to the target instance.
+         */
+        public void register(EObject source, EObject target) {
+            var segment = getSegment(source);
+            if (concurrent) {
+                synchronized (segment) {
+                    register(segment, source, target);
+                }
+            } else {
+                register(segment, source, target);
+            }
+        }
 
-        @Override
-        public Mapping with(EObject value) {
-            return new Many();
+        private void register(Map<EObject, Object> segment, EObject source, EObject target) {
+            var previous = segment.get(source);
+            if (previous == null) {
+                segment.put(source, target);
+            } else if (!removable) {
+                segment.put(source, Multiple);
+            } else if (previous instanceof Many many) {
+                many.values().add(target);
+            } else {
+                segment.put(source, new Many(new ArrayList<>(List.of((EObject) previous, target))));
+            }
         }
 
-    }
+        /**
+         * Remove a mapping that was previously {@link #register(EObject, EObject) registered}. Requires the map to be
+         * removable.
+         */
+        public void unregister(EObject source, EObject target) {
+            check(removable, "target map is not removable");
+            var segment = getSegment(source);
+            if (concurrent) {
+                synchronized (segment) {
+                    unregister(segment, source, target);
+                }
+            } else {
+                unregister(segment, source, target);
+            }
+        }
+
+        private static void unregister(Map<EObject, Object> segment, EObject source, EObject target) {
+            var mapping = segment.get(source);
+            if (mapping instanceof Many many) {
+                many.values().remove(target);
+                if (many.values().size() == 1) {
+                    segment.put(source, many.values().getFirst());
+                }
+            } else if (mapping == target) {
+                segment.remove(source);
+            }
+        }
+
+        /**
+         * Retrieve the target instance that is mapped to the given source instance.
+         *
+         * @throws TransformatorException if none or multiple target instances are mapped to the given source instance
+         */
+        public EObject get(EObject source) {
+            var mapping = getSegment(source).get(source);
 
-    private record Many() implements Mapping {
+            if (mapping instanceof EObject target) {
+                return target;
+            } else if (mapping == null) {
+                throw new TransformatorException(
+                    "no target instance of class '%s' found for source instance of class '%s'".formatted(
+                        targetClass.name(), source.eClass().getName()
+                    )
+                );
+            } else {
+                throw new TransformatorException(
+                    "multiple target instances of class '%s' found for source instance of class '%s'".formatted(
+                        targetClass.name(), source.eClass().getName()
+                    )
+                );
+            }
+        }
+
+        /**
+         * @return number of mapped source instances and the approximate memory footprint of this mapping
+         */
+        public Statistics getStatistics() {
+            long entries = 0;
+            long bytes = OBJECT_HEADER_BYTES + REFERENCE_BYTES * SEGMENTS;
+            for (var segment : segments) {
+                entries += segment.size();
+                bytes += OBJECT_HEADER_BYTES + estimateTableBytes(segment.size());
+                for (var mapping : segment.values()) {
+                    if (mapping instanceof Many many && many != Multiple) {
+                        bytes += 2 * OBJECT_HEADER_BYTES + REFERENCE_BYTES * many.values().size();
+                    }
+                }
+            }
+            return new Statistics(entries, bytes);
+        }
 
-        @Override
-        public Mapping with(EObject value) {
-            return this;
+        /**
+         * Estimates the size of the table of an {@link IdentityHashMap} with the given size, which keeps its load
+         * factor at or below 2/3 and stores keys and values next to each other.
+         */
+        private static long estimateTableBytes(int size) {
+            var capacity = Integer.highestOneBit(Math.max(size * 3 / 2, 1)) * 2;
+            return OBJECT_HEADER_BYTES + 2 * REFERENCE_BYTES * capacity;
         }
 
     }
 
-    private final Map<Pair<EObject, AQRTargetClass>, Mapping> map = new HashMap<>();
+    /**
+     * @param values all mapped target instances (only modified while holding the lock of the segment when registering
+     *               concurrently)
+     */
+    private record Many(List<EObject> values) {}
+
+    /**
+     * Shared marker for a source instance that is mapped to multiple target instances in a mapping that is not
+     * removable.
+     */
+    private static final Many Multiple = new Many(List.of());
+
+    private final Map<AQRTargetClass, ForClass> classes = new ConcurrentHashMap<>();
+    private final boolean concurrent;
+    private final boolean removable;
+
+    /**
+     * @param concurrent whether instances are registered concurrently, otherwise registrations are not synchronized
+     * @param removable  whether mappings can be {@link #unregister removed}, which requires keeping all target
+     *                   instances of every source instance
+     */
+    public TargetMap(boolean concurrent, boolean removable) {
+        this.concurrent = concurrent;
+        this.removable = removable;
+    }
 
-    private Mapping getMapping(EObject source, AQRTargetClass targetClass) {
-        return map.computeIfAbsent(
-            new Pair<>(source, targetClass),
-            k -> new None()
-        );
+    /**
+     * Returns the mapping for the given target class. Prefer this over the methods taking the target class when
+     * mapping many instances of the same target class.
+     */
+    public ForClass forClass(AQRTargetClass targetClass) {
+        var mapping = classes.get(targetClass);
+        return mapping != null ? mapping : classes.computeIfAbsent(targetClass, t -> new ForClass(t, concurrent, removable));
     }
 
     /**
      * Register a new mapping from the source instance to the target instance via the target class.
      */
     public void register(EObject source, AQRTargetClass targetClass, EObject target) {
-        var previous = getMapping(source, targetClass);
-        map.put(
-            new Pair<>(source, targetClass),
-            previous.with(target)
-        );
+        forClass(targetClass).register(source, target);
+    }
+
+    /**
+     * Remove a mapping that was previously {@link #register(EObject, AQRTargetClass, EObject) registered}.
+     */
+    public void unregister(EObject source, AQRTargetClass targetClass, EObject target) {
+        forClass(targetClass).unregister(source, target);
     }
 
     /**
@@ -73,19 +241,16 @@ public class TargetMap {
      * @throws TransformatorException if none or multiple target instances are mapped to the given source instance and target class
      */
     public EObject get(EObject source, AQRTargetClass targetClass) {
-        return switch (getMapping(source, targetClass)) {
-            case One(var value) -> value;
-            case None ignored -> throw new TransformatorException(
-                "no target instance of class '%s' found for source instance of class '%s'".formatted(
-                    targetClass.name(), source.eClass().getName()
-                )
-            );
-            case Many ignored -> throw new TransformatorException(
-                "multiple target instances of class '%s' found for source instance of class '%s'".formatted(
-                    targetClass.name(), source.eClass().getName()
-                )
-            );
-        };
+        return forClass(targetClass).get(source);
+    }
+
+    /**
+     * @return statistics of the mappings of all target classes combined
+     */
+    public Statistics getStatistics() {
+        return classes.values().stream()
+            .map(ForClass::getStatistics)
+            .reduce(new Statistics(0, 0), Statistics::plus);
     }
 
 }
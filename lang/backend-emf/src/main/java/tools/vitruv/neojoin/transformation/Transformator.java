@@ -1,31 +1,36 @@
 package tools.vitruv.neojoin.transformation;
 
 import org.eclipse.emf.ecore.EClass;
-import org.eclipse.emf.ecore.EClassifier;
-import org.eclipse.emf.ecore.EEnum;
-import org.eclipse.emf.ecore.EEnumLiteral;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
-import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.Formatting;
 import tools.vitruv.neojoin.aqr.AQR;
-import tools.vitruv.neojoin.aqr.AQRFeature;
 import tools.vitruv.neojoin.aqr.AQRTargetClass;
 import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
+import tools.vitruv.neojoin.transformation.source.Aggregation;
 import tools.vitruv.neojoin.transformation.source.GroupingSource;
 import tools.vitruv.neojoin.transformation.source.InstanceSourceFactory;
-import tools.vitruv.neojoin.utils.TypeCasts;
+import tools.vitruv.neojoin.transformation.source.Operator;
+import tools.vitruv.neojoin.utils.EMFUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static tools.vitruv.neojoin.utils.Assertions.check;
-import static tools.vitruv.neojoin.utils.Assertions.fail;
 
 /**
  * Transforms the given source instance models based on the given {@link AQR query}.
@@ -37,11 +42,19 @@ public class Transformator {
     private final ExpressionHelper expressionHelper;
     private final AQR aqr;
     private final EPackage targetMetaModel;
+    private final Map<EPackage, Resource> sourceInstanceModels;
     private final InstanceSourceFactory instanceSourceFactory;
+    private final boolean parallel;
+    private final BiConsumer<AQRTargetClass, Operator> operatorListener;
+    private final SinglePassAnalysis singlePassAnalysis;
+    private final @Nullable Metrics metrics;
+    private final Map<AQRTargetClass, Operator> operators = new ConcurrentHashMap<>();
+
+    private boolean bulkRootAssignment = true;
 
     private @Nullable EObject root;
-    private final TargetMap targetMap = new TargetMap();
-    private final List<Runnable> delayedActions = new ArrayList<>();
+    private final TargetMap targetMap;
+    private final FeaturePopulator populator;
 
     /**
      * Creates a new transformator for transforming the given source instance models into an instance of the given
@@ -57,18 +70,121 @@ public class Transformator {
         AQR aqr,
         EPackage targetMetaModel,
         Map<EPackage, Resource> sourceInstanceModels
+    ) {
+        this(expressionHelper, aqr, targetMetaModel, sourceInstanceModels, false);
+    }
+
+    /**
+     * Creates a new transformator for transforming the given source instance models into an instance of the given
+     * target meta-model based on the given query.
+     *
+     * @param expressionHelper     for evaluating feature expressions and conditions
+     * @param aqr                  query representation
+     * @param targetMetaModel      target meta-model that corresponds to the given query representation
+     * @param sourceInstanceModels map from {@link EPackage package} to the corresponding instance model {@link Resource resource}
+     * @param parallel             whether independent target classes are transformed concurrently
+     */
+    public Transformator(
+        ExpressionHelper expressionHelper,
+        AQR aqr,
+        EPackage targetMetaModel,
+        Map<EPackage, Resource> sourceInstanceModels,
+        boolean parallel
+    ) {
+        this(expressionHelper, aqr, targetMetaModel, sourceInstanceModels, parallel, null);
+    }
+
+    /**
+     * Creates a new transformator for transforming the given source instance models into an instance of the given
+     * target meta-model based on the given query.
+     *
+     * @param expressionHelper     for evaluating feature expressions and conditions
+     * @param aqr                  query representation
+     * @param targetMetaModel      target meta-model that corresponds to the given query representation
+     * @param sourceInstanceModels map from {@link EPackage package} to the corresponding instance model {@link Resource resource}
+     * @param parallel             whether independent target classes are transformed concurrently
+     * @param metrics              metrics to record the phases, operators and expression evaluations in or
+     *                             {@code null}
+     */
+    public Transformator(
+        ExpressionHelper expressionHelper,
+        AQR aqr,
+        EPackage targetMetaModel,
+        Map<EPackage, Resource> sourceInstanceModels,
+        boolean parallel,
+        @Nullable Metrics metrics
+    ) {
+        this(
+            expressionHelper,
+            aqr,
+            targetMetaModel,
+            sourceInstanceModels,
+            parallel,
+            new InstanceSourceFactory(sourceInstanceModels, metrics != null),
+            (targetClass, operator) -> {},
+            metrics
+        );
+    }
+
+    /**
+     * @param instanceSourceFactory factory for the operators providing the source instances, must create profiled
+     *                              operators to record them in the given metrics
+     * @param operatorListener      notified with the root operator of every target class that has a source, must be
+     *                              thread-safe in parallel mode
+     * @see Explainer
+     */
+    Transformator(
+        ExpressionHelper expressionHelper,
+        AQR aqr,
+        EPackage targetMetaModel,
+        Map<EPackage, Resource> sourceInstanceModels,
+        boolean parallel,
+        InstanceSourceFactory instanceSourceFactory,
+        BiConsumer<AQRTargetClass, Operator> operatorListener,
+        @Nullable Metrics metrics
     ) {
         this.expressionHelper = expressionHelper;
         this.aqr = aqr;
         this.targetMetaModel = targetMetaModel;
-        this.instanceSourceFactory = new InstanceSourceFactory(sourceInstanceModels);
+        this.sourceInstanceModels = sourceInstanceModels;
+        this.instanceSourceFactory = instanceSourceFactory;
+        this.parallel = parallel;
+        this.targetMap = new TargetMap(parallel, false);
+        this.populator = new FeaturePopulator(targetMap, () -> root);
+        this.metrics = metrics;
+        this.operatorListener = metrics == null ? operatorListener : (targetClass, operator) -> {
+            operators.put(targetClass, operator);
+            operatorListener.accept(targetClass, operator);
+        };
+        this.singlePassAnalysis = new SinglePassAnalysis(aqr, expressionHelper);
+    }
+
+    /**
+     * Sets whether the root containment references are filled by adding all instances at once (default) or with
+     * {@link EObject#eSet eSet()}, which checks every instance for duplicates. Only exists to compare both in
+     * benchmarks, the results are the same.
+     */
+    public void setBulkRootAssignment(boolean bulkRootAssignment) {
+        this.bulkRootAssignment = bulkRootAssignment;
     }
 
     /**
-     * Register an action to be executed after the instance creation phase.
+     * Returns the number of source instances mapped to target instances of the given target class and the approximate
+     * memory used for this mapping. Only meaningful after {@link #transform()}.
      */
-    private void later(Runnable action) {
-        delayedActions.add(action);
+    public TargetMap.Statistics getTargetMapStatistics(AQRTargetClass targetClass) {
+        return targetMap.forClass(targetClass).getStatistics();
+    }
+
+    /**
+     * Same as {@link #getTargetMapStatistics(AQRTargetClass)} for all target classes combined.
+     */
+    public TargetMap.Statistics getTargetMapStatistics() {
+        return targetMap.getStatistics();
+    }
+
+    private <T> Stream<T> stream(Collection<T> collection) {
+        return parallel ? collection.parallelStream() : collection.stream();
     }
 
     /**
@@ -78,14 +194,30 @@ public class Transformator {
      *                                (e.g. exception while evaluating an expression)
      * @implNote Transformation is performed in 2 phases: First all instances in the target model are created but its features
      * not yet populated because an instance could reference another instance that has not been created yet. In the
-     * second phase, the features for all instances are populated.
+     * second phase, the features for all instances are populated. In between, only the instances and the records they
+     * were created from are retained, see {@link DeferredPopulations}. Target classes that allow it are populated
+     * right away in the first phase instead if their source instances are streamed from an instance model that has
+     * not been loaded, so that the source instances need not be retained at all, see {@link SinglePassAnalysis}.
+     * <p>
+     * In parallel mode, the instances of different target classes are created concurrently because they only depend on
+     * the source models. The feature values of all instances are then evaluated concurrently, but assigned sequentially
+     * in the same order as in sequential mode. Therefore, both modes produce the same target model.
+     * <p>
+     * If {@link Metrics} are given, both phases are recorded as {@code transform-create} and
+     * {@code transform-populate}, followed by the profiles of all operators.
      */
     public EObject transform() throws TransformatorException {
         check(root == null, "model already transformed");
 
+        if (parallel) {
+            prepareConcurrentAccess();
+        }
+
         // phase 1:
+        var phase = Metrics.startPhase(metrics, "transform-create");
         // create root instance
-        var roots = transformTargetClass(aqr.root());
+        var transformedRoot = transformTargetClass(aqr.root());
+        var roots = transformedRoot.instances();
         check(
             roots.size() == 1, () -> "expected exactly one root instance of type %s, but found %d".formatted(
                 aqr.root().name(),
@@ -93,256 +225,240 @@ public class Transformator {
             )
         );
         root = roots.getFirst();
+        var deliver = root.eDeliver();
+        root.eSetDeliver(false); // nobody can observe the root before it is returned
 
         // create other instances
-        aqr.classes().stream()
+        var targets = aqr.classes().stream()
             .filter(target -> target != aqr.root())
-            .forEach(target -> {
-                var instances = transformTargetClass(target);
-                var rootRef = root.eClass()
-                    .getEStructuralFeature(Formatting.formatRootReferenceName(target.name()));
-                root.eSet(rootRef, instances);
-            });
-
-        // phase 2: populate instances
-        delayedActions.forEach(Runnable::run);
-        delayedActions.clear();
-
-        return root;
-    }
-
-    private EClass getTargetClass(String name) {
-        var clazz = targetMetaModel.getEClassifier(name);
-        check(clazz != null, () -> "no class named '%s' found in target meta-model".formatted(name));
-        return (EClass) clazz;
-    }
+            .toList();
+        var transformedTargets = stream(targets)
+            .map(this::transformTargetClass)
+            .toList();
+
+        var populations = new ArrayList<DeferredPopulations>(targets.size() + 1);
+        populations.add(transformedRoot);
+        for (int i = 0; i < targets.size(); i++) {
+            var transformed = transformedTargets.get(i);
+            var rootRef = root.eClass()
+                .getEStructuralFeature(Formatting.formatRootReferenceName(targets.get(i).name()));
+            if (bulkRootAssignment) {
+                // the instances were just created and are distinct, so the checks of eSet() can be skipped
+                @SuppressWarnings("unchecked")
+                var list = (InternalEList<EObject>) root.eGet(rootRef);
+                list.addAllUnique(transformed.instances());
+            } else {
+                root.eSet(rootRef, transformed.instances());
+            }
+            populations.add(transformed);
+        }
 
-    private List<EObject> transformTargetClass(AQRTargetClass targetClass) {
-        var clazz = getTargetClass(targetClass.name());
+        phase.close();
 
-        if (targetClass.source() == null) { // no source -> create a single instance
-            return List.of(createTransformedInstance(targetClass, clazz));
+        // phase 2: populate instances
+        phase = Metrics.startPhase(metrics, "transform-populate");
+        if (parallel) {
+            populateConcurrently(populations);
         } else {
-            var evaluator = new ExpressionEvaluator(expressionHelper, targetClass.source());
-            var instanceSource = instanceSourceFactory.create(targetClass.source(), evaluator);
-
-            if (targetClass.source().groupingExpressions().isEmpty()) { // no grouping
-                return instanceSource.get()
-                    .map(tuple -> createTransformedInstance(targetClass, clazz, tuple, evaluator))
-                    .toList();
-            } else { // with grouping
-                var groupingSource = new GroupingSource(
-                    targetClass.source().groupingExpressions(),
-                    instanceSource,
-                    evaluator
-                );
-                return groupingSource.get()
-                    .map(tupleOfLists -> createTransformedInstance(targetClass, clazz, tupleOfLists, evaluator))
-                    .toList();
+            for (var transformed : populations) {
+                for (int i = 0; i < transformed.size(); i++) {
+                    transformed.populate(i, populator).run();
+                }
             }
         }
+
+        phase.close();
+
+        root.eSetDeliver(deliver);
+        if (metrics != null) {
+            recordMetrics(metrics);
+        }
+        return root;
     }
 
     /**
-     * Create a transformed instance of the given target class.
-     *
-     * @param targetClass AQR target class
-     * @param clazz       EClass of the target class
-     * @param mainSource  main source instance to retrieve values from or {@code null} if no main source is available
-     * @param allSources  all source instances to register with the created target instance
-     * @param context     expression evaluation context
-     * @return transformed instance
+     * Records the profiles of the operators of all target classes in the order of the query and commits the events of
+     * the evaluated expressions.
      */
-    private EObject createTransformedInstance(
-        AQRTargetClass targetClass,
-        EClass clazz,
-        @Nullable EObject mainSource,
-        Stream<@Nullable EObject> allSources,
-        ExpressionEvaluator.Context context
-    ) {
-        check(clazz.getEPackage() == targetMetaModel);
-        var targetInstance = targetMetaModel.getEFactoryInstance().create(clazz);
-        registerTargetInstance(targetInstance, targetClass, allSources);
-        later(() -> populateTargetInstance(targetClass, targetInstance, mainSource, context));
-        return targetInstance;
+    private void recordMetrics(Metrics metrics) {
+        for (var targetClass : aqr.classes()) {
+            var operator = operators.get(targetClass);
+            if (operator != null) {
+                recordOperator(metrics, targetClass, operator, 0);
+            }
+        }
+        metrics.commitExpressionEvents();
     }
 
-    /**
-     * Create a transformed instance of the given target class without source.
-     *
-     * @param targetClass AQR target class
-     * @param clazz       EClass of the target class
-     * @return transformed instance
-     */
-    private EObject createTransformedInstance(AQRTargetClass targetClass, EClass clazz) {
-        check(targetClass.source() == null);
-        var context = ExpressionEvaluator.createContext(expressionHelper);
-        return createTransformedInstance(targetClass, clazz, null, Stream.of(), context);
+    private static void recordOperator(Metrics metrics, AQRTargetClass targetClass, Operator operator, int depth) {
+        var profile = operator.getProfile();
+        if (profile != null) {
+            metrics.record(new Metrics.OperatorMetrics(
+                targetClass.name(),
+                operator.describe(),
+                depth,
+                profile.getRows(),
+                profile.getEvaluations(),
+                profile.getNanos()
+            ));
+        }
+        for (var input : operator.getInputs()) {
+            recordOperator(metrics, targetClass, input, depth + 1);
+        }
     }
 
     /**
-     * Create a transformed instance of the given target class.
-     *
-     * @param targetClass   AQR target class
-     * @param clazz         EClass of the target class
-     * @param instanceTuple instance tuple
-     * @param evaluator     expression evaluator
-     * @return transformed instance
+     * Evaluates the features of all target instances concurrently and assigns them sequentially in the order of the
+     * given target classes and their instances.
      */
-    private EObject createTransformedInstance(
-        AQRTargetClass targetClass,
-        EClass clazz,
-        InstanceTuple instanceTuple,
-        ExpressionEvaluator evaluator
-    ) {
-        var mainSource = instanceTuple.stream().findFirst().orElseThrow();
-        var context = evaluator.createContext(instanceTuple, null);
-        return createTransformedInstance(targetClass, clazz, mainSource, instanceTuple.stream(), context);
+    private void populateConcurrently(List<DeferredPopulations> populations) {
+        // start index of every target class in the concatenation of all target instances
+        var offsets = new int[populations.size() + 1];
+        for (int i = 0; i < populations.size(); i++) {
+            offsets[i + 1] = offsets[i] + populations.get(i).size();
+        }
+
+        IntStream.range(0, offsets[populations.size()])
+            .parallel()
+            .mapToObj(index -> {
+                var found = Arrays.binarySearch(offsets, index);
+                // skip target classes without instances, which share their offset with the next one
+                var clazz = found >= 0 ? found : -found - 2;
+                while (offsets[clazz + 1] == index) {
+                    clazz++;
+                }
+                return populations.get(clazz).populate(index - offsets[clazz], populator);
+            })
+            .toList()
+            .forEach(Runnable::run);
     }
 
     /**
-     * Transform target class with the given grouping instance source.
-     *
-     * @param targetClass  AQR target class
-     * @param clazz        EClass of the target class
-     * @param tupleOfLists tuple of instance lists
-     * @param evaluator    expression evaluator
-     * @return list of transformed instances
+     * EMF resolves proxies and initializes some meta-model caches lazily on first access, which is not thread-safe.
+     * Therefore, trigger these initializations before the models are accessed concurrently.
      */
-    private EObject createTransformedInstance(
-        AQRTargetClass targetClass,
-        EClass clazz,
-        List<List<EObject>> tupleOfLists,
-        ExpressionEvaluator evaluator
-    ) {
-        var context = evaluator.createContext(tupleOfLists.iterator(), null);
-        return createTransformedInstance(
-            targetClass,
-            clazz,
-            null,
-            tupleOfLists.stream().flatMap(List::stream),
-            context
-        );
+    private void prepareConcurrentAccess() {
+        sourceInstanceModels.values().forEach(EcoreUtil::resolveAll);
+        Stream.concat(sourceInstanceModels.keySet().stream(), Stream.of(targetMetaModel))
+            .forEach(EMFUtils::prepareConcurrentAccess);
     }
 
-    private void registerTargetInstance(
-        EObject targetInstance,
-        AQRTargetClass targetClass,
-        Stream<@Nullable EObject> sources
-    ) {
-        sources.filter(Objects::nonNull).forEach(source -> targetMap.register(source, targetClass, targetInstance));
+    private EClass getTargetClass(String name) {
+        var clazz = targetMetaModel.getEClassifier(name);
+        check(clazz != null, () -> "no class named '%s' found in target meta-model".formatted(name));
+        return (EClass) clazz;
     }
 
-    private void populateTargetInstance(
-        AQRTargetClass targetClass,
-        EObject target,
-        @Nullable EObject source,
-        ExpressionEvaluator.Context context
-    ) {
-        for (var feature : targetClass.features()) {
-            if (feature.kind() instanceof AQRFeature.Kind.Generate) {
-                continue; // generated features are populated elsewhere
-            }
-
-            if (feature instanceof AQRFeature.Attribute attr) {
-                populateAttribute(attr, target, source, context);
-            } else if (feature instanceof AQRFeature.Reference ref) {
-                populateReference(ref, target, source, context);
-            }
+    private DeferredPopulations transformTargetClass(AQRTargetClass targetClass) {
+        var clazz = getTargetClass(targetClass.name());
+        if (targetClass.source() == null) { // no source -> create a single instance
+            var populations = DeferredPopulations.withoutSource(targetClass, expressionHelper);
+            populations.add(createTargetInstance(clazz), null);
+            return populations;
         }
-    }
 
-    private void populateAttribute(
-        AQRFeature.Attribute attribute,
-        EObject target,
-        @Nullable EObject source,
-        ExpressionEvaluator.Context context
-    ) {
-        var feature = target.eClass().getEStructuralFeature(attribute.name());
-        var value = evaluateFeature(attribute.kind(), source, context);
-        if (value instanceof EEnumLiteral enumLiteral) {
-            var targetEnum = (EEnum) feature.getEType();
-            value = targetEnum.getEEnumLiteral(enumLiteral.getName());
-            check(value != null);
+        var evaluator = new ExpressionEvaluator(expressionHelper, targetClass.source(), metrics);
+        if (singlePassAnalysis.isSinglePass(targetClass) && instanceSourceFactory.canStream(targetClass.source())) {
+            return transformSinglePass(targetClass, clazz, evaluator);
         }
-        value = cast(value, feature.getEType(), feature.isMany());
-        target.eSet(feature, value);
-    }
 
-    private @Nullable Object cast(@Nullable Object value, EClassifier to, boolean isMany) {
-        if (value == null) {
-            return null;
-        }
+        var instanceSource = instanceSourceFactory.create(targetClass.source(), evaluator);
+        var mapping = targetMap.forClass(targetClass);
 
-        if (to.getInstanceClass() == null) {
-            return value;
+        if (targetClass.source().groupingExpressions().isEmpty()) { // no grouping
+            operatorListener.accept(targetClass, instanceSource);
+            var populations = DeferredPopulations.forTuples(targetClass, evaluator);
+            instanceSource.get().forEach(tuple -> {
+                var targetInstance = createTargetInstance(clazz);
+                registerTargetInstance(targetInstance, mapping, tuple.stream());
+                populations.add(targetInstance, tuple);
+            });
+            return populations;
         }
 
-        if (isMany) {
-            var list = (List<?>) value;
-            return list.stream()
-                .map(v -> cast(v, to, false))
-                .toList();
-        } else {
-            return TypeCasts.cast(value, to.getInstanceClass());
+        // with grouping
+        var aggregation = Aggregation.of(targetClass);
+        var groupingSource = instanceSourceFactory.createGrouping(
+            targetClass.source().groupingExpressions(),
+            instanceSource,
+            evaluator,
+            aggregation
+        );
+        operatorListener.accept(targetClass, groupingSource);
+        if (aggregation != null) { // streaming aggregation
+            return createAggregatedInstances(targetClass, clazz, groupingSource, evaluator);
         }
+        var populations = DeferredPopulations.forGroups(targetClass, evaluator);
+        groupingSource.get().forEach(tupleOfLists -> {
+            var targetInstance = createTargetInstance(clazz);
+            registerTargetInstance(targetInstance, mapping, tupleOfLists.stream().flatMap(List::stream));
+            populations.add(targetInstance, tupleOfLists);
+        });
+        return populations;
     }
 
-    private void populateReference(
-        AQRFeature.Reference ref,
-        EObject target,
-        @Nullable EObject source,
-        ExpressionEvaluator.Context context
+    /**
+     * Transform target class that {@link SinglePassAnalysis allows a single pass} and whose source instances can be
+     * streamed. Every target instance is populated as soon as it is created, and neither its source instance nor a
+     * mapping to it is retained.
+     */
+    private DeferredPopulations transformSinglePass(
+        AQRTargetClass targetClass,
+        EClass clazz,
+        ExpressionEvaluator evaluator
     ) {
-        var value = evaluateFeature(ref.kind(), source, context);
-        var mappedValue = value != null ? mapInstances(value, ref.type()) : null;
-        if (mappedValue != null && ref.options().isContainment()) {
-            checkNotAlreadyContained(mappedValue, target, ref);
-        }
-        target.eSet(target.eClass().getEStructuralFeature(ref.name()), mappedValue);
-    }
-
-    private Object mapInstances(Object instance, AQRTargetClass target) {
-        if (instance instanceof List<?> list) {
-            return list.stream().map(i -> targetMap.get((EObject) i, target)).toList();
-        } else {
-            return targetMap.get((EObject) instance, target);
+        var source = Objects.requireNonNull(targetClass.source());
+        var instanceSource = instanceSourceFactory.createStreaming(source, evaluator);
+        operatorListener.accept(targetClass, instanceSource);
+        var populations = DeferredPopulations.populated(targetClass);
+        try (var tuples = instanceSource.get()) {
+            tuples.forEach(tuple -> {
+                var targetInstance = createTargetInstance(clazz);
+                populator.populate(targetClass, targetInstance, tuple.get(0), evaluator.createContext(tuple, null)).run();
+                populations.add(targetInstance, null);
+            });
         }
+        return populations;
     }
 
-    private void checkNotAlreadyContained(Object value, EObject target, AQRFeature.Reference ref) {
-        if (value instanceof List<?> list) {
-            list.forEach(v -> checkNotAlreadyContained((EObject) v, target, ref));
-        } else {
-            checkNotAlreadyContained((EObject) value, target, ref);
-        }
+    /**
+     * Transform target class with the given grouping instance source using streaming aggregation. The target instances
+     * are created when the first tuple of a group is encountered.
+     *
+     * @param targetClass    AQR target class
+     * @param clazz          EClass of the target class
+     * @param groupingSource grouping instance source with an {@link Aggregation}
+     * @param evaluator      expression evaluator
+     * @return transformed instances with the aggregated values of their groups
+     */
+    private DeferredPopulations createAggregatedInstances(
+        AQRTargetClass targetClass,
+        EClass clazz,
+        GroupingSource groupingSource,
+        ExpressionEvaluator evaluator
+    ) {
+        var targetInstances = new HashMap<List<?>, EObject>();
+        var mapping = targetMap.forClass(targetClass);
+        var populations = DeferredPopulations.forAggregates(targetClass, evaluator);
+        groupingSource.aggregate((key, tuple) -> {
+                var targetInstance = targetInstances.computeIfAbsent(key, k -> createTargetInstance(clazz));
+                registerTargetInstance(targetInstance, mapping, tuple.stream());
+            })
+            .forEach(group -> populations.add(targetInstances.get(group.key()), group.values()));
+        return populations;
     }
 
-    private void checkNotAlreadyContained(EObject value, EObject target, AQRFeature.Reference ref) {
-        if (value.eContainer() != null && value.eContainer() != root) {
-            throw new TransformatorException(
-                "cannot add target instance of class '%s' to containment reference '%s.%s' because it is already contained in another instance of class '%s'".formatted(
-                    value.eClass().getName(),
-                    target.eClass().getName(),
-                    ref.name(),
-                    value.eContainer().eClass().getName()
-                ));
-        }
+    private EObject createTargetInstance(EClass clazz) {
+        check(clazz.getEPackage() == targetMetaModel);
+        return targetMetaModel.getEFactoryInstance().create(clazz);
     }
 
-    private @Nullable Object evaluateFeature(
-        AQRFeature.Kind featureKind,
-        @Nullable EObject source,
-        ExpressionEvaluator.Context context
+    private void registerTargetInstance(
+        EObject targetInstance,
+        TargetMap.ForClass mapping,
+        Stream<@Nullable EObject> sources
     ) {
-        if (featureKind.expression() != null) {
-            return context.evaluateExpression(Objects.requireNonNull(featureKind.expression()));
-        } else if (featureKind instanceof AQRFeature.Kind.Copy.Implicit(EStructuralFeature feature)) {
-            check(source != null && source.eClass() == feature.getEContainingClass());
-            return source.eGet(feature);
-        } else {
-            return fail();
-        }
+        sources.filter(Objects::nonNull).forEach(source -> mapping.register(source, targetInstance));
     }
 
 }
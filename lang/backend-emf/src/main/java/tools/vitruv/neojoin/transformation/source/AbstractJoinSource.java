@@ -1,17 +1,20 @@
 package tools.vitruv.neojoin.transformation.source;
 
 import org.eclipse.emf.ecore.EObject;
+import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.aqr.AQRJoin;
 import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
 import tools.vitruv.neojoin.transformation.InstanceTuple;
-import tools.vitruv.neojoin.utils.Utils;
 
-import java.util.Objects;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Abstract base class for join sources that provides functionality for evaluating join conditions.
  *
- * @see #evaluateConditions(InstanceTuple, EObject)
+ * @see #createMatcher()
  */
 public abstract class AbstractJoinSource implements InstanceSource {
 
@@ -19,47 +22,80 @@ public abstract class AbstractJoinSource implements InstanceSource {
     protected final FromSource rightSource;
     private final AQRJoin join;
     private final ExpressionEvaluator evaluator;
+    protected final @Nullable OperatorProfile profile;
 
-    protected AbstractJoinSource(InstanceSource left, FromSource right, AQRJoin join, ExpressionEvaluator evaluator) {
+    protected AbstractJoinSource(
+        InstanceSource left,
+        FromSource right,
+        AQRJoin join,
+        ExpressionEvaluator evaluator,
+        @Nullable OperatorProfile profile
+    ) {
         this.leftSource = left;
         this.rightSource = right;
         this.join = join;
         this.evaluator = evaluator;
+        this.profile = profile;
     }
 
-    protected boolean evaluateConditions(InstanceTuple left, EObject right) {
-        return evaluateFeatureConditions(left, right) && evaluateExpressionConditions(left, right);
-    }
+    /**
+     * Creates a function that returns all right instances that satisfy the join conditions for a given left tuple.
+     * If the join has {@link AQRJoin.FeatureCondition feature conditions}, the right side is indexed once with a
+     * {@link HashJoinIndex} and only matching instances are considered. Otherwise, every right instance is a candidate.
+     * Expression conditions are evaluated for all candidates in both cases.
+     *
+     * @implNote Should be called once for every {@link #get()} because the index reflects the right side at the time of
+     * the call.
+     */
+    protected Function<InstanceTuple, Stream<EObject>> createMatcher() {
+        if (join.featureConditions().isEmpty()) {
+            return left -> rightSource.getEObjects()
+                .filter(right -> evaluateExpressionConditions(left, right));
+        }
 
-    private boolean evaluateFeatureConditions(InstanceTuple left, EObject right) {
-        return join.featureConditions().stream().allMatch(c -> evaluateFeatureCondition(c, left, right));
+        var index = new HashJoinIndex(join.featureConditions(), rightSource.getEObjects());
+        return left -> index.probe(left)
+            .filter(right -> evaluateExpressionConditions(left, right));
     }
 
-    private boolean evaluateFeatureCondition(
-        AQRJoin.FeatureCondition condition,
-        InstanceTuple leftTuple,
-        EObject right
-    ) {
-        var left = Utils.getAt(leftTuple.stream(), condition.otherIndex());
-        //noinspection ConstantValue - false positive
-        if (left == null) {
-            return false;
+    private boolean evaluateExpressionConditions(InstanceTuple left, EObject right) {
+        if (join.expressionConditions().isEmpty()) {
+            return true;
         }
 
-        for (var feature : condition.features()) {
-            var leftValue = left.eGet(left.eClass().getEStructuralFeature(feature));
-            var rightValue = right.eGet(right.eClass().getEStructuralFeature(feature));
-            if (!Objects.equals(leftValue, rightValue)) {
-                return false;
-            }
+        return evaluator.evaluateConditions(join.expressionConditions(), left, right, join.from(), profile);
+    }
+
+    @Override
+    public String describe() {
+        var description = new StringBuilder();
+        description.append(join.featureConditions().isEmpty() ? "Nested Loop " : "Hash ")
+            .append(join.type())
+            .append(" Join ")
+            .append(join.from().clazz().getName());
+        if (join.from().alias() != null) {
+            description.append(" ").append(join.from().alias());
+        }
+        if (!join.featureConditions().isEmpty()) {
+            description.append(" ").append(join.featureConditions().stream()
+                .flatMap(condition -> condition.features().stream()
+                    .map(feature -> "%s = #%d.%s".formatted(feature, condition.otherIndex(), feature)))
+                .collect(Collectors.joining(", ", "[", "]")));
+        }
+        if (!join.expressionConditions().isEmpty()) {
+            description.append(" ").append(Operator.toText(join.expressionConditions()));
         }
+        return description.toString();
+    }
 
-        return true;
+    @Override
+    public List<? extends Operator> getInputs() {
+        return List.of(leftSource, rightSource);
     }
 
-    private boolean evaluateExpressionConditions(InstanceTuple left, EObject right) {
-        var context = evaluator.createContext(new InstanceTuple(left, right), join.from());
-        return join.expressionConditions().stream().allMatch(context::evaluateCondition);
+    @Override
+    public @Nullable OperatorProfile getProfile() {
+        return profile;
     }
 
 }
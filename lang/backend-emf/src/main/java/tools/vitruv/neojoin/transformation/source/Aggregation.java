@@ -0,0 +1,437 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.common.types.JvmFormalParameter;
+import org.eclipse.xtext.common.types.JvmOperation;
+import org.eclipse.xtext.xbase.XAbstractFeatureCall;
+import org.eclipse.xtext.xbase.XClosure;
+import org.eclipse.xtext.xbase.XExpression;
+import org.eclipse.xtext.xbase.XMemberFeatureCall;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.Constants;
+import tools.vitruv.neojoin.SourceLocation;
+import tools.vitruv.neojoin.aqr.AQRFeature;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
+import tools.vitruv.neojoin.transformation.InstanceTuple;
+import tools.vitruv.neojoin.transformation.TransformatorException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming aggregation for a target class with grouping whose features only access the members of a group through
+ * aggregate calls. Instead of materializing the members of every group as lists, the {@link GroupingSource} then
+ * maintains running {@link Accumulator accumulators} per group, see {@link GroupingSource#aggregate}.
+ * <p>
+ * Supported aggregate calls on a from alias {@code f} are {@code f.size}, {@code f.sum[..]}, {@code f.min[..]},
+ * {@code f.max[..]} and {@code f.avg[..]} of the NeoJoin aggregation extensions as well as the same functions applied
+ * to {@code f.map[..]} (including {@code f.map[..].min()} and {@code f.map[..].max()} for comparable values). The
+ * closures must not reference any from. Features that do not reference a from at all are evaluated normally.
+ *
+ * @implNote The accumulators reproduce the semantics of the aggregation extensions exactly, e.g. the initial values
+ * of {@code min} and {@code max} and the overflow behavior of {@code sum}, so that both modes produce the same
+ * target model.
+ * @see #of(AQRTargetClass)
+ */
+public final class Aggregation {
+
+    private static final String AGGREGATION_EXTENSIONS_PACKAGE = "tools.vitruv.neojoin.jvmmodel.extensions.";
+
+    private enum Function {
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG,
+        COMPARABLE_MIN,
+        COMPARABLE_MAX,
+    }
+
+    /**
+     * Primitive type of an aggregation extension, determines the arithmetic of {@code sum}, {@code min} and
+     * {@code max}.
+     */
+    private enum NumericType {
+        DOUBLE, FLOAT, LONG, INTEGER, SHORT, BYTE;
+
+        private static @Nullable NumericType of(String extensionsClassName) {
+            for (var type : values()) {
+                var name = type.name().charAt(0) + type.name().substring(1).toLowerCase();
+                if (extensionsClassName.equals(AGGREGATION_EXTENSIONS_PACKAGE + name + "AggregationExtensions")) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        private Number zero() {
+            return cast(0);
+        }
+
+        private Number cast(Number value) {
+            return switch (this) {
+                case DOUBLE -> value.doubleValue();
+                case FLOAT -> value.floatValue();
+                case LONG -> value.longValue();
+                case INTEGER -> value.intValue();
+                case SHORT -> value.shortValue();
+                case BYTE -> value.byteValue();
+            };
+        }
+
+        private Number minValue() {
+            return switch (this) {
+                case DOUBLE -> Double.MIN_VALUE;
+                case FLOAT -> Float.MIN_VALUE;
+                case LONG -> Long.MIN_VALUE;
+                case INTEGER -> Integer.MIN_VALUE;
+                case SHORT -> Short.MIN_VALUE;
+                case BYTE -> Byte.MIN_VALUE;
+            };
+        }
+
+        private Number maxValue() {
+            return switch (this) {
+                case DOUBLE -> Double.MAX_VALUE;
+                case FLOAT -> Float.MAX_VALUE;
+                case LONG -> Long.MAX_VALUE;
+                case INTEGER -> Integer.MAX_VALUE;
+                case SHORT -> Short.MAX_VALUE;
+                case BYTE -> Byte.MAX_VALUE;
+            };
+        }
+
+        private Number add(Number a, Number b) {
+            return switch (this) {
+                case DOUBLE -> a.doubleValue() + b.doubleValue();
+                case FLOAT -> a.floatValue() + b.floatValue();
+                case LONG -> a.longValue() + b.longValue();
+                case INTEGER -> a.intValue() + b.intValue();
+                case SHORT -> (short) (a.shortValue() + b.shortValue());
+                case BYTE -> (byte) (a.byteValue() + b.byteValue());
+            };
+        }
+
+        private boolean isLess(Number a, Number b) {
+            return switch (this) {
+                case DOUBLE -> a.doubleValue() < b.doubleValue();
+                case FLOAT -> a.floatValue() < b.floatValue();
+                default -> a.longValue() < b.longValue();
+            };
+        }
+
+    }
+
+    /**
+     * An aggregate call within a feature expression.
+     *
+     * @param expression the aggregate call whose value is computed by the aggregation
+     * @param function   aggregate function
+     * @param type       primitive type of the aggregation extension, {@code null} for {@link Function#COUNT} and
+     *                   comparable values
+     * @param fromIndex  index of the aggregated from in the order of {@link tools.vitruv.neojoin.aqr.AQRSource#allFroms()}
+     * @param body       body of the closure that maps a member to the aggregated value or {@code null} for
+     *                   {@link Function#COUNT}
+     * @param parameter  name of the parameter of the closure
+     */
+    private record Aggregate(
+        XExpression expression,
+        Function function,
+        @Nullable NumericType type,
+        int fromIndex,
+        @Nullable XExpression body,
+        @Nullable String parameter
+    ) {}
+
+    /**
+     * Aggregated values of one group.
+     *
+     * @param key    grouping key
+     * @param values value of every aggregate call of the feature expressions
+     */
+    public record Group(List<?> key, Map<XExpression, @Nullable Object> values) {}
+
+    private final List<Aggregate> aggregates;
+
+    private Aggregation(List<Aggregate> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Analyzes the features of the given target class with grouping.
+     *
+     * @return the aggregation or {@code null} if a feature requires the members of a group as lists
+     */
+    public static @Nullable Aggregation of(AQRTargetClass targetClass) {
+        var source = targetClass.source();
+        if (source == null || source.groupingExpressions().isEmpty()) {
+            return null;
+        }
+
+        var froms = source.allFroms().toList();
+        var aggregates = new ArrayList<Aggregate>();
+        for (var feature : targetClass.features()) {
+            var kind = feature.kind();
+            if (kind instanceof AQRFeature.Kind.Generate) {
+                continue;
+            }
+
+            var expression = kind.expression();
+            if (expression == null) {
+                return null;
+            }
+
+            var aggregate = match(expression, froms);
+            if (aggregate != null) {
+                aggregates.add(aggregate);
+            } else if (referencesFrom(expression)) {
+                return null;
+            }
+        }
+        return new Aggregation(aggregates);
+    }
+
+    private static @Nullable Aggregate match(XExpression expression, List<AQRFrom> froms) {
+        if (!(expression instanceof XMemberFeatureCall call && call.getFeature() instanceof JvmOperation operation)) {
+            return null;
+        }
+
+        var name = operation.getSimpleName();
+        var declaringType = operation.getDeclaringType().getQualifiedName();
+        var receiver = call.getMemberCallTarget();
+        var arguments = call.getMemberCallArguments();
+
+        if (name.equals("size") && arguments.isEmpty()) {
+            int fromIndex = getFromIndex(receiver, froms);
+            return fromIndex >= 0 ? new Aggregate(expression, Function.COUNT, null, fromIndex, null, null) : null;
+        }
+
+        var numericType = NumericType.of(declaringType);
+        Function function;
+        if (numericType != null) {
+            function = switch (name) {
+                case "sum" -> Function.SUM;
+                case "min" -> Function.MIN;
+                case "max" -> Function.MAX;
+                case "avg" -> Function.AVG;
+                default -> null;
+            };
+        } else if (declaringType.equals(IterableExtensions.class.getName())) {
+            function = switch (name) {
+                case "min" -> Function.COMPARABLE_MIN;
+                case "max" -> Function.COMPARABLE_MAX;
+                default -> null;
+            };
+        } else {
+            function = null;
+        }
+        if (function == null) {
+            return null;
+        }
+
+        // f.sum[ .. ]
+        if (numericType != null && arguments.size() == 1 && arguments.getFirst() instanceof XClosure closure) {
+            return createAggregate(expression, function, numericType, receiver, closure, froms);
+        }
+
+        // f.map[ .. ].sum
+        if (arguments.isEmpty()
+            && receiver instanceof XMemberFeatureCall mapCall
+            && mapCall.getFeature() instanceof JvmOperation mapOperation
+            && mapOperation.getSimpleName().equals("map")
+            && isMapExtension(mapOperation.getDeclaringType().getQualifiedName())
+            && mapCall.getMemberCallArguments().size() == 1
+            && mapCall.getMemberCallArguments().getFirst() instanceof XClosure closure) {
+            return createAggregate(expression, function, numericType, mapCall.getMemberCallTarget(), closure, froms);
+        }
+
+        return null;
+    }
+
+    private static boolean isMapExtension(String declaringType) {
+        return declaringType.equals(IterableExtensions.class.getName())
+            || declaringType.equals(ListExtensions.class.getName());
+    }
+
+    private static @Nullable Aggregate createAggregate(
+        XExpression expression,
+        Function function,
+        @Nullable NumericType type,
+        XExpression receiver,
+        XClosure closure,
+        List<AQRFrom> froms
+    ) {
+        int fromIndex = getFromIndex(receiver, froms);
+        if (fromIndex < 0 || closure.getFormalParameters().size() != 1 || referencesFrom(closure)) {
+            return null;
+        }
+
+        var parameter = closure.getFormalParameters().getFirst().getName();
+        return new Aggregate(expression, function, type, fromIndex, closure.getExpression(), parameter);
+    }
+
+    /**
+     * Returns the index of the from that the given expression references directly or {@code -1}.
+     */
+    private static int getFromIndex(@Nullable XExpression expression, List<AQRFrom> froms) {
+        if (expression instanceof XAbstractFeatureCall featureCall
+            && featureCall.getFeature() instanceof JvmFormalParameter parameter
+            && parameter.eContainer() instanceof JvmOperation) { // parameters of closures are not froms
+            for (int i = 0; i < froms.size(); i++) {
+                if (parameter.getName().equals(froms.get(i).alias())) {
+                    return i;
+                }
+            }
+            if (froms.size() == 1 && parameter.getName().equals(Constants.ExpressionSelfReference)) {
+                return 0;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean referencesFrom(EObject expression) {
+        if (isFromReference(expression)) {
+            return true;
+        }
+        var iterator = expression.eAllContents();
+        while (iterator.hasNext()) {
+            if (isFromReference(iterator.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFromReference(EObject element) {
+        return element instanceof XAbstractFeatureCall featureCall
+            && featureCall.getFeature() instanceof JvmFormalParameter parameter
+            && parameter.eContainer() instanceof JvmOperation;
+    }
+
+    /**
+     * Returns the aggregate calls, e.g. for {@link Operator#describe() describing} the aggregation.
+     */
+    public List<XExpression> getExpressions() {
+        return aggregates.stream().map(Aggregate::expression).toList();
+    }
+
+    /**
+     * Creates the accumulators for a new group.
+     *
+     * @param evaluator evaluator for the closures of the aggregate calls
+     * @param profile   profile to count the evaluations of the closures with
+     */
+    Accumulator createAccumulator(ExpressionEvaluator evaluator, @Nullable OperatorProfile profile) {
+        return new Accumulator(evaluator, profile);
+    }
+
+    /**
+     * Running values of all aggregate calls for one group.
+     */
+    final class Accumulator {
+
+        private final ExpressionEvaluator evaluator;
+        private final @Nullable OperatorProfile profile;
+        private final @Nullable Object[] values = new Object[aggregates.size()];
+        private final double[] sums = new double[aggregates.size()];
+        private int count = 0;
+
+        private Accumulator(ExpressionEvaluator evaluator, @Nullable OperatorProfile profile) {
+            this.evaluator = evaluator;
+            this.profile = profile;
+            for (int i = 0; i < aggregates.size(); i++) {
+                var aggregate = aggregates.get(i);
+                if (aggregate.type() != null) {
+                    values[i] = switch (aggregate.function()) {
+                        case SUM -> aggregate.type().zero();
+                        case MIN -> aggregate.type().maxValue();
+                        case MAX -> aggregate.type().minValue();
+                        default -> null;
+                    };
+                }
+            }
+        }
+
+        /**
+         * Adds the given member tuple of the group.
+         */
+        void add(InstanceTuple tuple) {
+            count++;
+            for (int i = 0; i < aggregates.size(); i++) {
+                var aggregate = aggregates.get(i);
+                if (aggregate.function() != Function.COUNT) {
+                    var member = tuple.get(aggregate.fromIndex());
+                    OperatorProfile.countEvaluation(profile);
+                    var value = evaluator.createContext(aggregate.parameter(), member)
+                        .evaluateExpression(aggregate.body());
+                    add(i, aggregate, value);
+                }
+            }
+        }
+
+        private void add(int index, Aggregate aggregate, @Nullable Object value) {
+            if (value == null) {
+                throw new TransformatorException(
+                    "error during expression evaluation: [NullPointerException] aggregated value is null",
+                    SourceLocation.from(aggregate.expression())
+                );
+            }
+
+            var current = values[index];
+            switch (aggregate.function()) {
+                case SUM -> values[index] = aggregate.type().add((Number) current, (Number) value);
+                case MIN -> {
+                    if (aggregate.type().isLess((Number) value, (Number) current)) {
+                        values[index] = aggregate.type().cast((Number) value);
+                    }
+                }
+                case MAX -> {
+                    if (aggregate.type().isLess((Number) current, (Number) value)) {
+                        values[index] = aggregate.type().cast((Number) value);
+                    }
+                }
+                case AVG -> sums[index] += ((Number) value).doubleValue();
+                case COMPARABLE_MIN -> {
+                    if (current == null || compare(current, value) > 0) {
+                        values[index] = value;
+                    }
+                }
+                case COMPARABLE_MAX -> {
+                    if (current == null || compare(current, value) < 0) {
+                        values[index] = value;
+                    }
+                }
+                case COUNT -> {}
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compare(Object a, Object b) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+
+        /**
+         * Returns the value of every aggregate call.
+         */
+        Map<XExpression, @Nullable Object> getValues() {
+            var result = new HashMap<XExpression, @Nullable Object>();
+            for (int i = 0; i < aggregates.size(); i++) {
+                var aggregate = aggregates.get(i);
+                result.put(aggregate.expression(), switch (aggregate.function()) {
+                    case COUNT -> count;
+                    case AVG -> sums[i] / count;
+                    default -> values[i];
+                });
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.common.types.JvmFormalParameter;
+import org.eclipse.xtext.common.types.JvmOperation;
+import org.eclipse.xtext.xbase.XAbstractFeatureCall;
+import org.eclipse.xtext.xbase.XBinaryOperation;
+import org.eclipse.xtext.xbase.XExpression;
+import org.eclipse.xtext.xbase.lib.BooleanExtensions;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.aqr.AQRSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the condition of an {@link AQRSource} into its {@code &&} conjuncts and assigns each conjunct to the earliest
+ * {@link AQRSource#allFroms() from} after which all variables referenced by the conjunct are bound. Filtering tuples
+ * directly after that from (instead of after all joins) reduces the number of tuples that later joins have to process.
+ * <p>
+ * Filtering earlier does not change the result because a condition that only references earlier froms commutes with
+ * both inner and left joins.
+ *
+ * @implNote The conjuncts keep their original evaluation order: a conjunct is never placed before a conjunct that
+ * precedes it in the condition. Otherwise, a conjunct could be evaluated for tuples for which {@code &&} would have
+ * skipped it (e.g. {@code a.b != null && a.b.c > 5}).
+ * @see #placeConjuncts(AQRSource)
+ */
+public final class ConditionPushdown {
+
+    private ConditionPushdown() {}
+
+    /**
+     * Computes where the conjuncts of the condition of the given source should be evaluated.
+     *
+     * @param source source with an optional condition
+     * @return list with one entry for every {@link AQRSource#allFroms() from} containing the conjuncts to evaluate
+     * after that from in the original order
+     */
+    public static List<List<XExpression>> placeConjuncts(AQRSource source) {
+        var conjuncts = source.condition() != null ? splitConjuncts(source.condition()) : List.<XExpression>of();
+        return placeConjuncts(conjuncts, source.allFroms().toList());
+    }
+
+    /**
+     * Computes after which of the given froms the given conjuncts should be evaluated.
+     *
+     * @param conjuncts conjuncts in evaluation order
+     * @param froms     froms in the order in which they are bound
+     * @return list with one entry for every from containing the conjuncts to evaluate after that from in the original
+     * order
+     */
+    public static List<List<XExpression>> placeConjuncts(List<XExpression> conjuncts, List<AQRFrom> froms) {
+        var placement = new ArrayList<List<XExpression>>(froms.size());
+        for (int i = 0; i < froms.size(); i++) {
+            placement.add(new ArrayList<>());
+        }
+
+        int level = 0;
+        for (var conjunct : conjuncts) {
+            level = Math.max(level, getLevel(conjunct, froms));
+            placement.get(level).add(conjunct);
+        }
+
+        return placement;
+    }
+
+    /**
+     * Splits the given condition into its {@code &&} conjuncts.
+     */
+    public static List<XExpression> splitConjuncts(XExpression condition) {
+        var conjuncts = new ArrayList<XExpression>();
+        collectConjuncts(condition, conjuncts);
+        return conjuncts;
+    }
+
+    private static void collectConjuncts(XExpression condition, List<XExpression> conjuncts) {
+        if (isAnd(condition)) {
+            var operation = (XBinaryOperation) condition;
+            collectConjuncts(operation.getLeftOperand(), conjuncts);
+            collectConjuncts(operation.getRightOperand(), conjuncts);
+        } else {
+            conjuncts.add(condition);
+        }
+    }
+
+    private static boolean isAnd(XExpression expression) {
+        return expression instanceof XBinaryOperation operation
+            && operation.getFeature() instanceof JvmOperation feature
+            && feature.getSimpleName().equals("operator_and")
+            && feature.getDeclaringType().getQualifiedName().equals(BooleanExtensions.class.getName());
+    }
+
+    /**
+     * Returns the index of the last from whose alias is referenced by the given expression. If the expression
+     * references variables that cannot be mapped to a from, the last index is returned.
+     */
+    private static int getLevel(XExpression expression, List<AQRFrom> froms) {
+        int level = getReferencedFromIndex(expression, froms);
+        var iterator = expression.eAllContents();
+        while (iterator.hasNext()) {
+            level = Math.max(level, getReferencedFromIndex(iterator.next(), froms));
+        }
+        return level;
+    }
+
+    private static int getReferencedFromIndex(EObject element, List<AQRFrom> froms) {
+        if (element instanceof XAbstractFeatureCall featureCall
+            && featureCall.getFeature() instanceof JvmFormalParameter parameter
+            && parameter.eContainer() instanceof JvmOperation) { // parameters of closures are not relevant
+            return getFromIndex(parameter.getName(), froms);
+        }
+        return 0;
+    }
+
+    private static int getFromIndex(String alias, List<AQRFrom> froms) {
+        for (int i = 0; i < froms.size(); i++) {
+            if (alias.equals(froms.get(i).alias())) {
+                return i;
+            }
+        }
+        return froms.size() - 1;
+    }
+
+}
@@ -1,30 +1,67 @@
 package tools.vitruv.neojoin.transformation.source;
 
 import org.eclipse.xtext.xbase.XExpression;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRFrom;
 import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
 import tools.vitruv.neojoin.transformation.InstanceTuple;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
- * Filters objects from the given instance source with the given expression.
+ * Filters objects from the given instance source with the given expressions. An object is kept if all expressions
+ * evaluate to {@code true}.
  */
 public class FilterSource implements InstanceSource {
 
-    private final XExpression expression;
+    private final List<XExpression> expressions;
+    private final @Nullable AQRFrom limit;
     private final InstanceSource inner;
     private final ExpressionEvaluator evaluator;
+    private final @Nullable OperatorProfile profile;
 
-    public FilterSource(XExpression expression, InstanceSource inner, ExpressionEvaluator evaluator) {
-        this.expression = expression;
+    /**
+     * @param expressions conditions which are evaluated in the given order
+     * @param limit       last from contained in the tuples of the inner source or {@code null} if the tuples contain
+     *                    all froms (see {@link ExpressionEvaluator#evaluateConditions(List, InstanceTuple, AQRFrom, OperatorProfile)})
+     * @param inner       source to filter
+     * @param evaluator   expression evaluator
+     * @param profile     profile to record statistics in or {@code null}
+     */
+    public FilterSource(
+        List<XExpression> expressions,
+        @Nullable AQRFrom limit,
+        InstanceSource inner,
+        ExpressionEvaluator evaluator,
+        @Nullable OperatorProfile profile
+    ) {
+        this.expressions = expressions;
+        this.limit = limit;
         this.inner = inner;
         this.evaluator = evaluator;
+        this.profile = profile;
     }
 
     @Override
     public Stream<InstanceTuple> get() {
-        return inner.get()
-            .filter(tuple -> evaluator.createContext(tuple, null).evaluateCondition(expression));
+        return OperatorProfile.track(profile, () -> inner.get()
+            .filter(tuple -> evaluator.evaluateConditions(expressions, tuple, limit, profile)));
+    }
+
+    @Override
+    public String describe() {
+        return "Filter " + Operator.toText(expressions);
+    }
+
+    @Override
+    public List<? extends Operator> getInputs() {
+        return List.of(inner);
+    }
+
+    @Override
+    public @Nullable OperatorProfile getProfile() {
+        return profile;
     }
 
 }
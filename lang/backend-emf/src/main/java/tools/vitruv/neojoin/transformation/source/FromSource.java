@@ -1,24 +1,33 @@
 package tools.vitruv.neojoin.transformation.source;
 
-import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.Resource;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRFrom;
 import tools.vitruv.neojoin.transformation.InstanceTuple;
-import tools.vitruv.neojoin.utils.EMFUtils;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
- * Provides {@link InstanceTuple instance tuples} for all objects of the given {@link EClass class} in the given {@link Resource resource}.
+ * Provides {@link InstanceTuple instance tuples} for the given instances of the class of the given {@link AQRFrom from},
+ * usually all instances of the class in an {@link InstanceIndex instance index}.
  */
 public class FromSource implements InstanceSource {
 
-    private final EClass clazz;
-    private final Resource resource;
-
-    public FromSource(EClass clazz, Resource resource) {
-        this.clazz = clazz;
-        this.resource = resource;
+    private final AQRFrom from;
+    private final List<EObject> instances;
+    private final @Nullable OperatorProfile profile;
+
+    /**
+     * @param from      from to provide instances for
+     * @param instances instances of the class of the from (may be a live view that changes between calls of
+     *                  {@link #get()})
+     * @param profile   profile to record statistics in or {@code null}
+     */
+    public FromSource(AQRFrom from, List<EObject> instances, @Nullable OperatorProfile profile) {
+        this.from = from;
+        this.instances = instances;
+        this.profile = profile;
     }
 
     @Override
@@ -27,7 +36,17 @@ public class FromSource implements InstanceSource {
     }
 
     public Stream<EObject> getEObjects() {
-        return EMFUtils.getAllInstances(resource, clazz);
+        return OperatorProfile.track(profile, instances::stream);
+    }
+
+    @Override
+    public String describe() {
+        return "From " + from.clazz().getName() + (from.alias() != null ? " " + from.alias() : "");
+    }
+
+    @Override
+    public @Nullable OperatorProfile getProfile() {
+        return profile;
     }
 
 }
@@ -5,10 +5,13 @@ import org.eclipse.xtext.xbase.XExpression;
 import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
 import tools.vitruv.neojoin.transformation.InstanceTuple;
-import tools.vitruv.neojoin.utils.Utils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
@@ -20,26 +23,93 @@ import static tools.vitruv.neojoin.utils.Assertions.check;
  * not implement the interface because it cannot conform to it, because an {@link InstanceTuple} can only hold {@link EObject}s
  * and the result of a {@code group by} is not a tuple of objects but instead a tuple of lists of objects.
  */
-public class GroupingSource {
+public class GroupingSource implements Operator {
 
     private final List<XExpression> groupingExpressions;
     private final InstanceSource inner;
     private final ExpressionEvaluator evaluator;
+    private final @Nullable Aggregation aggregation;
+    private final @Nullable OperatorProfile profile;
 
-    public GroupingSource(List<XExpression> groupingExpressions, InstanceSource inner, ExpressionEvaluator evaluator) {
+    /**
+     * @param aggregation streaming aggregation of the grouped target class, see {@link #aggregate(BiConsumer)}
+     */
+    public GroupingSource(
+        List<XExpression> groupingExpressions,
+        InstanceSource inner,
+        ExpressionEvaluator evaluator,
+        @Nullable Aggregation aggregation,
+        @Nullable OperatorProfile profile
+    ) {
         this.groupingExpressions = groupingExpressions;
         this.inner = inner;
         this.evaluator = evaluator;
+        this.aggregation = aggregation;
+        this.profile = profile;
     }
 
     public Stream<List<List<EObject>>> get() {
+        return OperatorProfile.track(profile, () -> getGroups().values().stream());
+    }
+
+    /**
+     * Returns all groups, i.e. the tuples of lists as returned by {@link #get()}, by their grouping key.
+     */
+    public Map<List<?>, List<List<EObject>>> getGroups() {
         var grouped = inner.get().collect(Collectors.groupingBy(this::getGroupingKey));
-        return grouped.values().stream().map(GroupingSource::map);
+        var groups = new LinkedHashMap<List<?>, List<List<EObject>>>();
+        grouped.forEach((key, tuples) -> groups.put(key, map(tuples)));
+        return groups;
+    }
+
+    /**
+     * Computes the aggregated values of all groups without materializing the members of the groups. The groups are
+     * returned in the same order as by {@link #get()}.
+     *
+     * @param tupleListener notified with the grouping key and every tuple of the group, e.g. to register the sources
+     *                      of the group
+     */
+    public Stream<Aggregation.Group> aggregate(BiConsumer<List<?>, InstanceTuple> tupleListener) {
+        check(aggregation != null);
+        return OperatorProfile.track(profile, () -> {
+            var accumulators = new HashMap<List<?>, Aggregation.Accumulator>();
+            inner.get().forEach(tuple -> {
+                var key = getGroupingKey(tuple);
+                accumulators.computeIfAbsent(key, k -> aggregation.createAccumulator(evaluator, profile)).add(tuple);
+                tupleListener.accept(key, tuple);
+            });
+            return accumulators.entrySet().stream()
+                .map(entry -> new Aggregation.Group(entry.getKey(), entry.getValue().getValues()));
+        });
     }
 
     private List<?> getGroupingKey(InstanceTuple tuple) {
         var context = evaluator.createContext(tuple, null);
-        return groupingExpressions.stream().map(context::evaluateExpression).toList();
+        return groupingExpressions.stream()
+            .map(expression -> {
+                OperatorProfile.countEvaluation(profile);
+                return context.evaluateExpression(expression);
+            })
+            .toList();
+    }
+
+    @Override
+    public String describe() {
+        var description = "Group By " + Operator.toText(groupingExpressions);
+        if (aggregation != null) {
+            description += " Aggregate " + Operator.toText(aggregation.getExpressions());
+        }
+        return description;
+    }
+
+    @Override
+    public List<? extends Operator> getInputs() {
+        return List.of(inner);
+    }
+
+    @Override
+    public @Nullable OperatorProfile getProfile() {
+        return profile;
     }
 
     /**
@@ -48,13 +118,13 @@ public class GroupingSource {
      */
     private static List<List<@Nullable EObject>> map(List<InstanceTuple> tuples) {
         check(!tuples.isEmpty());
-        var tupleLength = tuples.getFirst().stream().count();
+        var tupleLength = tuples.getFirst().size();
         List<List<@Nullable EObject>> result = createResultList(tupleLength, tuples.size());
 
         for (var tuple : tuples) {
-            Utils.forEachIndexed(
-                tuple.stream().iterator(), (obj, index) -> result.get(index).add(obj)
-            );
+            for (int i = 0; i < tupleLength; i++) {
+                result.get(i).add(tuple.get(i));
+            }
         }
 
         return result;
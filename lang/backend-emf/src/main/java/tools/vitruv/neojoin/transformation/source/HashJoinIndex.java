@@ -0,0 +1,87 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.ecore.EObject;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRJoin;
+import tools.vitruv.neojoin.transformation.InstanceTuple;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static tools.vitruv.neojoin.utils.Assertions.require;
+
+/**
+ * Hash index over the right side of a join that groups all right instances by the values of the features referenced in
+ * the {@link AQRJoin.FeatureCondition feature conditions} of the join. This allows to find all join partners of a left
+ * tuple with a single lookup instead of comparing it with every right instance.
+ *
+ * @implNote Feature values are compared with {@link Object#equals(Object) equals()} as before, i.e. {@code null} values
+ * match each other. However, if the instance referenced by a condition is missing in the left tuple (e.g. because of a
+ * previous left join), the tuple does not match any right instance.
+ * @see #probe(InstanceTuple)
+ */
+public class HashJoinIndex {
+
+    private final List<AQRJoin.FeatureCondition> conditions;
+    private final Map<List<@Nullable Object>, List<EObject>> buckets = new HashMap<>();
+
+    /**
+     * Builds the index for the given right instances.
+     *
+     * @param conditions     feature conditions of the join (must not be empty)
+     * @param rightInstances instances of the right side of the join
+     */
+    public HashJoinIndex(List<AQRJoin.FeatureCondition> conditions, Stream<EObject> rightInstances) {
+        require(!conditions.isEmpty(), "hash join requires at least one feature condition");
+        this.conditions = conditions;
+        rightInstances.forEach(right ->
+            buckets.computeIfAbsent(getRightKey(right), k -> new ArrayList<>()).add(right)
+        );
+    }
+
+    /**
+     * Returns all right instances whose feature values are equal to the corresponding feature values of the given left
+     * tuple. The instances are returned in the same order as they were provided by the right side.
+     */
+    public Stream<EObject> probe(InstanceTuple leftTuple) {
+        var key = getLeftKey(leftTuple);
+        if (key == null) {
+            return Stream.empty();
+        }
+        return buckets.getOrDefault(key, List.of()).stream();
+    }
+
+    private List<@Nullable Object> getRightKey(EObject right) {
+        var key = new ArrayList<@Nullable Object>();
+        for (var condition : conditions) {
+            for (var feature : condition.features()) {
+                key.add(getValue(right, feature));
+            }
+        }
+        return key;
+    }
+
+    private @Nullable List<@Nullable Object> getLeftKey(InstanceTuple leftTuple) {
+        var key = new ArrayList<@Nullable Object>();
+        for (var condition : conditions) {
+            var left = leftTuple.get(condition.otherIndex());
+            //noinspection ConstantValue - false positive
+            if (left == null) {
+                return null;
+            }
+
+            for (var feature : condition.features()) {
+                key.add(getValue(left, feature));
+            }
+        }
+        return key;
+    }
+
+    private static @Nullable Object getValue(EObject instance, String feature) {
+        return instance.eGet(instance.eClass().getEStructuralFeature(feature));
+    }
+
+}
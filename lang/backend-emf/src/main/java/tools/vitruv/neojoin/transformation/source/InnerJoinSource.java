@@ -1,5 +1,6 @@
 package tools.vitruv.neojoin.transformation.source;
 
+import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.aqr.AQRJoin;
 import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
 import tools.vitruv.neojoin.transformation.InstanceTuple;
@@ -11,17 +12,25 @@ import java.util.stream.Stream;
  */
 public class InnerJoinSource extends AbstractJoinSource {
 
-    public InnerJoinSource(InstanceSource left, FromSource right, AQRJoin join, ExpressionEvaluator evaluator) {
-        super(left, right, join, evaluator);
+    public InnerJoinSource(
+        InstanceSource left,
+        FromSource right,
+        AQRJoin join,
+        ExpressionEvaluator evaluator,
+        @Nullable OperatorProfile profile
+    ) {
+        super(left, right, join, evaluator, profile);
     }
 
     @Override
     public Stream<InstanceTuple> get() {
-        return leftSource.get().flatMap(left ->
-            rightSource.getEObjects()
-                .filter(right -> evaluateConditions(left, right))
-                .map(right -> new InstanceTuple(left, right))
-        );
+        return OperatorProfile.track(profile, () -> {
+            var matcher = createMatcher();
+            return leftSource.get().flatMap(left ->
+                matcher.apply(left)
+                    .map(right -> new InstanceTuple(left, right))
+            );
+        });
     }
 
 }
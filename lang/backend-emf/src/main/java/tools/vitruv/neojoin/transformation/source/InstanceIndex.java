@@ -0,0 +1,115 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from {@link EClass classes} to all of their instances within a {@link Resource resource}. Instances of a class
+ * are also listed for all of its super classes. The index is built with a single traversal of the resource contents.
+ * <p>
+ * Additionally, the index provides statistics about the instances for planning joins, see
+ * {@link #getDistinctValueCount(EClass, String)}. For incremental transformations, the index can be updated with
+ * {@link #add(EObject)} and {@link #remove(Collection)}, which must not be called concurrently with any other method.
+ *
+ * @see #getInstances(EClass)
+ */
+public class InstanceIndex {
+
+    private final Map<EClass, List<EObject>> instances = new HashMap<>();
+    private final Map<DistinctValueKey, Integer> distinctValueCounts = new ConcurrentHashMap<>();
+
+    private record DistinctValueKey(EClass clazz, String feature) {}
+
+    public InstanceIndex(Resource resource) {
+        resource.getAllContents().forEachRemaining(this::addInstance);
+    }
+
+    private void addInstance(EObject instance) {
+        var clazz = instance.eClass();
+        add(clazz, instance);
+        for (var superType : clazz.getEAllSuperTypes()) {
+            add(superType, instance);
+        }
+    }
+
+    private void add(EClass clazz, EObject instance) {
+        instances.computeIfAbsent(clazz, c -> new ArrayList<>()).add(instance);
+    }
+
+    /**
+     * Adds the given instance and all of its contents to the index, e.g. after it was added to the resource. The
+     * instances are appended to the instances of their classes.
+     */
+    public void add(EObject instance) {
+        addInstance(instance);
+        instance.eAllContents().forEachRemaining(this::addInstance);
+        distinctValueCounts.clear();
+    }
+
+    /**
+     * Removes the given instances and all of their contents from the index, e.g. after they were removed from the
+     * resource.
+     *
+     * @implNote The removed instances are collected in an identity set first, so that the instances of every affected
+     * class are filtered in a single pass instead of searching the instances once per removed instance.
+     */
+    public void remove(Collection<? extends EObject> instances) {
+        var removed = Collections.newSetFromMap(new IdentityHashMap<EObject, Boolean>());
+        var classes = new HashSet<EClass>();
+        for (var instance : instances) {
+            collectRemoved(instance, removed, classes);
+            instance.eAllContents().forEachRemaining(content -> collectRemoved(content, removed, classes));
+        }
+
+        for (var clazz : classes) {
+            var classInstances = this.instances.get(clazz);
+            if (classInstances != null) {
+                classInstances.removeIf(removed::contains);
+            }
+        }
+        distinctValueCounts.clear();
+    }
+
+    private static void collectRemoved(EObject instance, Set<EObject> removed, Set<EClass> classes) {
+        if (removed.add(instance)) {
+            classes.add(instance.eClass());
+            classes.addAll(instance.eClass().getEAllSuperTypes());
+        }
+    }
+
+    /**
+     * Returns all instances of the given class (incl. instances of subclasses) in the order of
+     * {@link Resource#getAllContents()}.
+     */
+    public List<EObject> getInstances(EClass clazz) {
+        return Collections.unmodifiableList(instances.getOrDefault(clazz, List.of()));
+    }
+
+    /**
+     * Returns the number of distinct values of the given feature among all instances of the given class. Values are
+     * compared with {@link Object#equals(Object) equals()} like in {@link HashJoinIndex}. The result is computed on
+     * first request and then cached.
+     */
+    public int getDistinctValueCount(EClass clazz, String feature) {
+        return distinctValueCounts.computeIfAbsent(new DistinctValueKey(clazz, feature), key -> {
+            var values = new HashSet<>();
+            for (var instance : getInstances(clazz)) {
+                values.add(instance.eGet(instance.eClass().getEStructuralFeature(feature)));
+            }
+            return values.size();
+        });
+    }
+
+}
@@ -10,4 +10,4 @@ import java.util.stream.Stream;
  *
  * @see #get()
  */
-public interface InstanceSource extends Supplier<Stream<InstanceTuple>> {}
+public interface InstanceSource extends Supplier<Stream<InstanceTuple>>, Operator {}
@@ -1,43 +1,171 @@
 package tools.vitruv.neojoin.transformation.source;
 
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.xbase.XExpression;
+import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.aqr.AQRFrom;
 import tools.vitruv.neojoin.aqr.AQRJoin;
 import tools.vitruv.neojoin.aqr.AQRSource;
 import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
 import tools.vitruv.neojoin.utils.EMFUtils;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import static tools.vitruv.neojoin.utils.Assertions.require;
 
 /**
  * Creates an {@link InstanceSource} for the given {@link AQRSource}.
  * <p>
- * <b>Note:</b> Does <b>not</b> handle {@link GroupingSource}.
+ * <b>Note:</b> {@link #create(AQRSource, ExpressionEvaluator)} does <b>not</b> handle {@link GroupingSource}, see
+ * {@link #createGrouping(List, InstanceSource, ExpressionEvaluator)}.
+ * <p>
+ * The condition of a source is split into its conjuncts which are evaluated as early as possible, see
+ * {@link ConditionPushdown}. Inner joins are executed in the order chosen by the {@link JoinOrderPlanner} based on the
+ * statistics of the {@link InstanceIndex instance indices}. The resulting tuples always contain the instances in the
+ * order of the query.
+ *
+ * @implNote The {@link InstanceIndex instance index} of each source instance model is built on first use and then
+ * shared by all {@link FromSource from sources} created by this factory. Sources can be created concurrently.
+ * If profiling is enabled, every created operator records an {@link OperatorProfile}. Instance models that have not
+ * been loaded yet are loaded when their index is built, unless their instances are streamed, see
+ * {@link #createStreaming(AQRSource, ExpressionEvaluator)}.
  */
 public class InstanceSourceFactory {
 
     private final Map<EPackage, Resource> sourceInstanceModels;
+    private final Map<Resource, InstanceIndex> instanceIndices = new ConcurrentHashMap<>();
+    private final boolean profiling;
+
+    private final JoinOrderPlanner.Statistics statistics = new JoinOrderPlanner.Statistics() {
+
+        @Override
+        public int getCardinality(AQRFrom from) {
+            return getIndex(from).getInstances(from.clazz()).size();
+        }
+
+        @Override
+        public int getDistinctValueCount(AQRFrom from, String feature) {
+            return getIndex(from).getDistinctValueCount(from.clazz(), feature);
+        }
+
+    };
 
     public InstanceSourceFactory(Map<EPackage, Resource> sourceInstanceModels) {
+        this(sourceInstanceModels, false);
+    }
+
+    /**
+     * @param sourceInstanceModels map from {@link EPackage package} to the corresponding instance model {@link Resource resource}
+     * @param profiling            whether the created operators record {@link OperatorProfile profiles}
+     */
+    public InstanceSourceFactory(Map<EPackage, Resource> sourceInstanceModels, boolean profiling) {
         this.sourceInstanceModels = sourceInstanceModels;
+        this.profiling = profiling;
+    }
+
+    private @Nullable OperatorProfile createProfile() {
+        return profiling ? new OperatorProfile() : null;
     }
 
     public InstanceSource create(AQRSource source, ExpressionEvaluator evaluator) {
-        InstanceSource result = createFrom(source.from());
-        for (var join : source.joins()) {
-            result = createJoin(join, result, createFrom(join.from()), evaluator);
+        return create(source, evaluator, this::createFrom);
+    }
+
+    /**
+     * Returns whether the instances of the given source can be {@link StreamingFromSource streamed}, i.e. it has no
+     * joins and its instance model has been neither loaded nor indexed.
+     */
+    public boolean canStream(AQRSource source) {
+        if (!source.joins().isEmpty()) {
+            return false;
+        }
+        var instanceModel = getInstanceModel(source.from());
+        return StreamingFromSource.supports(instanceModel) && !instanceIndices.containsKey(instanceModel);
+    }
+
+    /**
+     * Same as {@link #create(AQRSource, ExpressionEvaluator)} for a source whose tuples are consumed in a single pass
+     * and not retained. The instances are {@link StreamingFromSource streamed} from the file of the instance model
+     * instead of loading it. The returned streams must be closed to close the file.
+     *
+     * @throws IllegalArgumentException if the source {@link #canStream(AQRSource) cannot be streamed}
+     */
+    public InstanceSource createStreaming(AQRSource source, ExpressionEvaluator evaluator) {
+        require(source.joins().isEmpty(), "only sources without joins can be streamed");
+        return create(
+            source,
+            evaluator,
+            from -> new StreamingFromSource(from, getInstanceModel(from), createProfile())
+        );
+    }
+
+    /**
+     * Creates an {@link InstanceSource} for the given {@link AQRSource} that only provides the tuples which contain
+     * one of the given instances for the from with the given index. Used to compute the tuples affected by a change
+     * during incremental transformations.
+     *
+     * @param restrictedFrom index of the from in the order of {@link AQRSource#allFroms()}
+     * @param instances      instances of the class of that from
+     */
+    public InstanceSource create(
+        AQRSource source,
+        ExpressionEvaluator evaluator,
+        int restrictedFrom,
+        List<EObject> instances
+    ) {
+        var from = source.allFroms().skip(restrictedFrom).findFirst().orElseThrow();
+        return create(
+            source,
+            evaluator,
+            f -> f == from ? new FromSource(from, instances, createProfile()) : createFrom(f)
+        );
+    }
+
+    private InstanceSource create(
+        AQRSource source,
+        ExpressionEvaluator evaluator,
+        Function<AQRFrom, FromSource> fromFactory
+    ) {
+        var plan = JoinOrderPlanner.plan(source, statistics);
+        var plannedSource = plan.source();
+        var plannedEvaluator = plan.isReordered() ? evaluator.withSource(plannedSource) : evaluator;
+        var conditions = plan.conditions();
+
+        InstanceSource result = createFilter(
+            conditions.getFirst(),
+            plannedSource.from(),
+            fromFactory.apply(plannedSource.from()),
+            plannedEvaluator
+        );
+        for (int i = 0; i < plannedSource.joins().size(); i++) {
+            var join = plannedSource.joins().get(i);
+            result = createJoin(join, result, fromFactory.apply(join.from()), plannedEvaluator);
+            result = createFilter(conditions.get(i + 1), join.from(), result, plannedEvaluator);
         }
-        if (source.condition() != null) {
-            result = createFilter(source.condition(), result, evaluator);
+
+        if (plan.isReordered()) {
+            result = new PermutationSource(result, plan.order(), createProfile());
         }
         return result;
     }
 
     public FromSource createFrom(AQRFrom from) {
+        return new FromSource(from, getIndex(from).getInstances(from.clazz()), createProfile());
+    }
+
+    private InstanceIndex getIndex(AQRFrom from) {
+        return getIndex(getInstanceModel(from));
+    }
+
+    private Resource getInstanceModel(AQRFrom from) {
         var rootPackage = EMFUtils.getRootPackage(from.clazz().getEPackage());
         var referencedInstanceModel = sourceInstanceModels.get(rootPackage);
         require(
@@ -45,7 +173,34 @@ public class InstanceSourceFactory {
             () -> "referenced instance model not found for package '%s'".formatted(from.clazz().getEPackage().getName())
         );
 
-        return new FromSource(from.clazz(), referencedInstanceModel);
+        return referencedInstanceModel;
+    }
+
+    /**
+     * Returns the instance index of the given source instance model. The instance model is loaded first if
+     * necessary.
+     */
+    public InstanceIndex getIndex(Resource instanceModel) {
+        return instanceIndices.computeIfAbsent(instanceModel, model -> new InstanceIndex(load(model)));
+    }
+
+    /**
+     * Loads the given instance model with the load options of its resource set unless it is already loaded. Loading
+     * is serialized per resource set because proxies are resolved in it.
+     */
+    private static Resource load(Resource instanceModel) {
+        var resourceSet = instanceModel.getResourceSet();
+        synchronized (resourceSet != null ? resourceSet : instanceModel) {
+            if (!instanceModel.isLoaded()) {
+                try {
+                    instanceModel.load(resourceSet != null ? resourceSet.getLoadOptions() : Map.of());
+                } catch (IOException e) {
+                    throw new WrappedException(e);
+                }
+                EcoreUtil.resolveAll(instanceModel);
+            }
+        }
+        return instanceModel;
     }
 
     public InstanceSource createJoin(
@@ -55,13 +210,41 @@ public class InstanceSourceFactory {
         ExpressionEvaluator evaluator
     ) {
         return switch (join.type()) {
-            case Inner -> new InnerJoinSource(left, right, join, evaluator);
-            case Left -> new LeftJoinSource(left, right, join, evaluator);
+            case Inner -> new InnerJoinSource(left, right, join, evaluator, createProfile());
+            case Left -> new LeftJoinSource(left, right, join, evaluator, createProfile());
         };
     }
 
-    private InstanceSource createFilter(XExpression condition, InstanceSource source, ExpressionEvaluator evaluator) {
-        return new FilterSource(condition, source, evaluator);
+    public GroupingSource createGrouping(
+        List<XExpression> groupingExpressions,
+        InstanceSource source,
+        ExpressionEvaluator evaluator
+    ) {
+        return createGrouping(groupingExpressions, source, evaluator, null);
+    }
+
+    /**
+     * @param aggregation streaming aggregation of the grouped target class, see {@link Aggregation#of}
+     */
+    public GroupingSource createGrouping(
+        List<XExpression> groupingExpressions,
+        InstanceSource source,
+        ExpressionEvaluator evaluator,
+        @Nullable Aggregation aggregation
+    ) {
+        return new GroupingSource(groupingExpressions, source, evaluator, aggregation, createProfile());
+    }
+
+    private InstanceSource createFilter(
+        List<XExpression> conditions,
+        AQRFrom limit,
+        InstanceSource source,
+        ExpressionEvaluator evaluator
+    ) {
+        if (conditions.isEmpty()) {
+            return source;
+        }
+        return new FilterSource(conditions, limit, source, evaluator, createProfile());
     }
 
 }
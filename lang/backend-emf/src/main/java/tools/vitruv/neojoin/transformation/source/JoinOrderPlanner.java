@@ -0,0 +1,294 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.xtext.xbase.XExpression;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.aqr.AQRJoin;
+import tools.vitruv.neojoin.aqr.AQRSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Chooses the order in which the froms of an {@link AQRSource} are joined based on {@link Statistics statistics} about
+ * the source instance models.
+ * <p>
+ * Only the main source and the inner joins directly following it are reordered because inner joins are commutative
+ * and associative while left joins are not. The estimated cost of an order is the sum of the estimated sizes of all
+ * intermediate results. The size of a join result is estimated with the cardinalities of the joined classes and the
+ * selectivity of the {@link AQRJoin.FeatureCondition feature conditions} between them, which is estimated as
+ * {@code 1 / max(distinct values left, distinct values right)} for every feature. Expression conditions and the where
+ * condition are not considered for the estimation.
+ * <p>
+ * The planned {@link Plan#source() source} lists the froms in their physical order. Feature conditions are attached
+ * to the join that binds the later of the two froms and their {@link AQRJoin.FeatureCondition#otherIndex() other index}
+ * refers to the physical order. Expression conditions of reordered inner joins are turned into filters, see
+ * {@link Plan#conditions()}.
+ *
+ * @implNote The order is only changed if it is estimated to be considerably cheaper than the order of the query to
+ * keep the order of the resulting tuples stable for small models. The optimal order is found with dynamic programming
+ * over all subsets of the reorderable froms, so the number of reorderable froms is limited.
+ * @see #plan(AQRSource, Statistics)
+ */
+public final class JoinOrderPlanner {
+
+    /**
+     * Maximum number of froms to reorder. Further inner joins are executed in query order.
+     */
+    private static final int MAX_REORDERED_FROMS = 10;
+
+    /**
+     * Factor by which the estimated cost of a reordered plan must be lower than the estimated cost of the query order.
+     */
+    private static final double MIN_IMPROVEMENT = 0.8;
+
+    private JoinOrderPlanner() {}
+
+    /**
+     * Statistics about the source instance models.
+     */
+    public interface Statistics {
+
+        /**
+         * Returns the number of instances of the class of the given from.
+         */
+        int getCardinality(AQRFrom from);
+
+        /**
+         * Returns the number of distinct values of the given feature among the instances of the class of the given
+         * from.
+         */
+        int getDistinctValueCount(AQRFrom from, String feature);
+
+    }
+
+    /**
+     * Physical execution plan for an {@link AQRSource}.
+     *
+     * @param source     source with the froms and joins in execution order (its condition is not used)
+     * @param conditions conditions to evaluate after the from with the same index in the order of
+     *                   {@link AQRSource#allFroms() source.allFroms()}, see {@link ConditionPushdown}
+     * @param order      index of the from in the original source for each from in the planned source
+     */
+    public record Plan(AQRSource source, List<List<XExpression>> conditions, List<Integer> order) {
+
+        /**
+         * Returns whether the froms are executed in a different order than in the original source.
+         */
+        public boolean isReordered() {
+            for (int i = 0; i < order.size(); i++) {
+                if (order.get(i) != i) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Feature condition between the froms with the given indices (in the order of the original source).
+     */
+    private record Edge(int left, int right, List<String> features) {}
+
+    /**
+     * Plans the execution of the given source.
+     */
+    public static Plan plan(AQRSource source, Statistics statistics) {
+        var froms = source.allFroms().toList();
+        int reorderable = Math.min(getInnerJoinPrefixLength(source), MAX_REORDERED_FROMS);
+        if (reorderable < 3) { // with two froms, the order does not change the number of tuples
+            return createOriginalPlan(source);
+        }
+
+        var edges = getEdges(source, reorderable);
+        var sizes = estimateSizes(froms, edges, reorderable, statistics);
+        var order = findBestOrder(sizes, reorderable);
+        if (getCost(order, sizes) >= MIN_IMPROVEMENT * getCost(IntStream.range(0, reorderable).boxed().toList(), sizes)) {
+            return createOriginalPlan(source);
+        }
+
+        var fullOrder = new ArrayList<>(order);
+        for (int i = reorderable; i < froms.size(); i++) {
+            fullOrder.add(i);
+        }
+        return createPlan(source, edges, reorderable, fullOrder);
+    }
+
+    private static Plan createOriginalPlan(AQRSource source) {
+        return new Plan(
+            source,
+            ConditionPushdown.placeConjuncts(source),
+            IntStream.range(0, source.joins().size() + 1).boxed().toList()
+        );
+    }
+
+    /**
+     * Returns the number of froms from the start of the source that are only joined with inner joins.
+     */
+    private static int getInnerJoinPrefixLength(AQRSource source) {
+        int length = 1;
+        for (var join : source.joins()) {
+            if (join.type() != AQRJoin.Type.Inner) {
+                break;
+            }
+            length++;
+        }
+        return length;
+    }
+
+    private static List<Edge> getEdges(AQRSource source, int reorderable) {
+        var edges = new ArrayList<Edge>();
+        for (int i = 1; i < reorderable; i++) {
+            for (var condition : source.joins().get(i - 1).featureConditions()) {
+                edges.add(new Edge(condition.otherIndex(), i, condition.features()));
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Estimates the size of the join result for every subset of the reorderable froms. Subsets are represented as bit
+     * masks.
+     */
+    private static double[] estimateSizes(
+        List<AQRFrom> froms,
+        List<Edge> edges,
+        int reorderable,
+        Statistics statistics
+    ) {
+        var sizes = new double[1 << reorderable];
+        sizes[0] = 1;
+        for (int set = 1; set < sizes.length; set++) {
+            int last = 31 - Integer.numberOfLeadingZeros(set);
+            int rest = set & ~(1 << last);
+            double size = sizes[rest] * statistics.getCardinality(froms.get(last));
+            for (var edge : edges) {
+                if ((edge.left() == last && contains(rest, edge.right()))
+                    || (edge.right() == last && contains(rest, edge.left()))) {
+                    size *= getSelectivity(froms.get(edge.left()), froms.get(edge.right()), edge.features(), statistics);
+                }
+            }
+            sizes[set] = size;
+        }
+        return sizes;
+    }
+
+    private static double getSelectivity(AQRFrom left, AQRFrom right, List<String> features, Statistics statistics) {
+        double selectivity = 1;
+        for (var feature : features) {
+            int distinct = Math.max(
+                statistics.getDistinctValueCount(left, feature),
+                statistics.getDistinctValueCount(right, feature)
+            );
+            selectivity /= Math.max(distinct, 1);
+        }
+        return selectivity;
+    }
+
+    /**
+     * Finds the order of the reorderable froms with the lowest cost.
+     */
+    private static List<Integer> findBestOrder(double[] sizes, int reorderable) {
+        var costs = new double[sizes.length];
+        var lastFroms = new int[sizes.length];
+        for (int set = 1; set < sizes.length; set++) {
+            if (Integer.bitCount(set) == 1) {
+                costs[set] = sizes[set];
+                lastFroms[set] = Integer.numberOfTrailingZeros(set);
+                continue;
+            }
+
+            costs[set] = Double.POSITIVE_INFINITY;
+            for (int from = 0; from < reorderable; from++) {
+                if (contains(set, from)) {
+                    double cost = costs[set & ~(1 << from)] + sizes[set];
+                    if (cost <= costs[set]) { // on ties, prefer froms that come first in the query
+                        costs[set] = cost;
+                        lastFroms[set] = from;
+                    }
+                }
+            }
+        }
+
+        var order = new ArrayList<Integer>(reorderable);
+        for (int set = sizes.length - 1; set != 0; set &= ~(1 << lastFroms[set])) {
+            order.add(lastFroms[set]);
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    private static double getCost(List<Integer> order, double[] sizes) {
+        double cost = 0;
+        int set = 0;
+        for (var from : order) {
+            set |= 1 << from;
+            cost += sizes[set];
+        }
+        return cost;
+    }
+
+    private static boolean contains(int set, int from) {
+        return (set & (1 << from)) != 0;
+    }
+
+    private static Plan createPlan(AQRSource source, List<Edge> edges, int reorderable, List<Integer> order) {
+        var froms = source.allFroms().toList();
+        var positions = new int[froms.size()];
+        for (int position = 0; position < order.size(); position++) {
+            positions[order.get(position)] = position;
+        }
+
+        var joins = new ArrayList<AQRJoin>();
+        for (int position = 1; position < order.size(); position++) {
+            int index = order.get(position);
+            if (position < reorderable) {
+                var featureConditions = new ArrayList<AQRJoin.FeatureCondition>();
+                for (var edge : edges) {
+                    int left = positions[edge.left()];
+                    int right = positions[edge.right()];
+                    if (Math.max(left, right) == position) {
+                        featureConditions.add(new AQRJoin.FeatureCondition(Math.min(left, right), edge.features()));
+                    }
+                }
+                joins.add(new AQRJoin(AQRJoin.Type.Inner, froms.get(index), featureConditions, List.of()));
+            } else {
+                var join = source.joins().get(index - 1);
+                var featureConditions = join.featureConditions().stream()
+                    .map(condition -> new AQRJoin.FeatureCondition(
+                        positions[condition.otherIndex()],
+                        condition.features()
+                    ))
+                    .toList();
+                joins.add(new AQRJoin(join.type(), join.from(), featureConditions, join.expressionConditions()));
+            }
+        }
+        var plannedSource = new AQRSource(froms.get(order.getFirst()), joins, null, List.of());
+        var plannedFroms = plannedSource.allFroms().toList();
+
+        // expression conditions of the reordered joins are evaluated as filters before the where condition
+        var chains = new ArrayList<List<XExpression>>();
+        for (int i = 1; i < reorderable; i++) {
+            chains.add(source.joins().get(i - 1).expressionConditions());
+        }
+        if (source.condition() != null) {
+            chains.add(ConditionPushdown.splitConjuncts(source.condition()));
+        }
+
+        var conditions = new ArrayList<List<XExpression>>();
+        for (int i = 0; i < plannedFroms.size(); i++) {
+            conditions.add(new ArrayList<>());
+        }
+        for (var chain : chains) {
+            var placement = ConditionPushdown.placeConjuncts(chain, plannedFroms);
+            for (int i = 0; i < placement.size(); i++) {
+                conditions.get(i).addAll(placement.get(i));
+            }
+        }
+
+        return new Plan(plannedSource, conditions, order);
+    }
+
+}
@@ -1,5 +1,6 @@
 package tools.vitruv.neojoin.transformation.source;
 
+import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.aqr.AQRJoin;
 import tools.vitruv.neojoin.transformation.ExpressionEvaluator;
 import tools.vitruv.neojoin.transformation.InstanceTuple;
@@ -12,17 +13,25 @@ import java.util.stream.Stream;
  */
 public class LeftJoinSource extends AbstractJoinSource {
 
-    public LeftJoinSource(InstanceSource left, FromSource right, AQRJoin join, ExpressionEvaluator evaluator) {
-        super(left, right, join, evaluator);
+    public LeftJoinSource(
+        InstanceSource left,
+        FromSource right,
+        AQRJoin join,
+        ExpressionEvaluator evaluator,
+        @Nullable OperatorProfile profile
+    ) {
+        super(left, right, join, evaluator, profile);
     }
 
     @Override
     public Stream<InstanceTuple> get() {
-        return leftSource.get().flatMap(left -> {
-            var results = rightSource.getEObjects()
-                .filter(right -> evaluateConditions(left, right))
-                .map(right -> new InstanceTuple(left, right));
-            return Utils.defaultIfEmpty(results, () -> new InstanceTuple(left, null));
+        return OperatorProfile.track(profile, () -> {
+            var matcher = createMatcher();
+            return leftSource.get().flatMap(left -> {
+                var results = matcher.apply(left)
+                    .map(right -> new InstanceTuple(left, right));
+                return Utils.defaultIfEmpty(results, () -> new InstanceTuple(left, null));
+            });
         });
     }
 
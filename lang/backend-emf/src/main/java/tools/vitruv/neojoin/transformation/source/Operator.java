@@ -0,0 +1,47 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.xbase.XExpression;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A node in the tree of operators that provides the source instances of a target class. Used to explain how a query
+ * is executed.
+ *
+ * @see tools.vitruv.neojoin.transformation.Explainer
+ */
+public interface Operator {
+
+    /**
+     * Returns a short, human-readable description of this operator, e.g. {@code Filter [a.b > 5]}.
+     */
+    String describe();
+
+    /**
+     * Returns the operators providing the input of this operator.
+     */
+    default List<? extends Operator> getInputs() {
+        return List.of();
+    }
+
+    /**
+     * Returns the profile of this operator or {@code null} if the operator is not profiled.
+     */
+    @Nullable OperatorProfile getProfile();
+
+    /**
+     * Returns the source text of the given expressions for use in {@link #describe()}.
+     */
+    static String toText(List<XExpression> expressions) {
+        return expressions.stream()
+            .map(expression -> {
+                var node = NodeModelUtils.findActualNodeFor(expression);
+                return node != null ? NodeModelUtils.getTokenText(node) : expression.toString();
+            })
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+}
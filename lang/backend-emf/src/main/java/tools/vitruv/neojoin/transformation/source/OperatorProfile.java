@@ -0,0 +1,103 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runtime statistics of an {@link Operator}: the number of produced rows, the number of expression evaluations and
+ * the time spent producing the rows.
+ *
+ * @implNote The time is inclusive, i.e. it contains the time of the input operators, but excludes the time spent by
+ * the consumers of the rows. It is measured around every {@link Spliterator#tryAdvance(Consumer) advance} of the
+ * stream, so profiling slows down the execution.
+ * @see #track(OperatorProfile, Supplier)
+ */
+public class OperatorProfile {
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    /**
+     * Returns the stream of the given supplier and records the rows and time for the given profile if it is not
+     * {@code null}.
+     */
+    public static <T> Stream<T> track(@Nullable OperatorProfile profile, Supplier<Stream<T>> supplier) {
+        if (profile == null) {
+            return supplier.get();
+        }
+
+        long start = System.nanoTime();
+        var stream = supplier.get();
+        profile.nanos.add(System.nanoTime() - start);
+        return StreamSupport.stream(profile.new TrackingSpliterator<>(stream.spliterator()), false)
+            .onClose(stream::close);
+    }
+
+    /**
+     * Records an expression evaluation for the given profile if it is not {@code null}.
+     */
+    public static void countEvaluation(@Nullable OperatorProfile profile) {
+        if (profile != null) {
+            profile.evaluations.increment();
+        }
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    private class TrackingSpliterator<T> implements Spliterator<T> {
+
+        private final Spliterator<T> inner;
+        private long start;
+
+        private TrackingSpliterator(Spliterator<T> inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            start = System.nanoTime();
+            boolean advanced = inner.tryAdvance(element -> {
+                nanos.add(System.nanoTime() - start);
+                rows.increment();
+                action.accept(element);
+                start = System.nanoTime();
+            });
+            nanos.add(System.nanoTime() - start);
+            return advanced;
+        }
+
+        @Override
+        public @Nullable Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return inner.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return inner.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+
+    }
+
+}
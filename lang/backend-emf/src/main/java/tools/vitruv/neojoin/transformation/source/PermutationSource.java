@@ -0,0 +1,59 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.ecore.EObject;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.transformation.InstanceTuple;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reorders the instances of every tuple of the given instance source. Used to restore the order of the froms in the
+ * query after the joins have been executed in a different order, see {@link JoinOrderPlanner}.
+ */
+public class PermutationSource implements InstanceSource {
+
+    private final InstanceSource inner;
+    private final List<Integer> order;
+    private final @Nullable OperatorProfile profile;
+
+    /**
+     * @param inner   source with tuples in the planned order
+     * @param order   index in the resulting tuple for every instance of the tuples of the inner source
+     * @param profile profile to record statistics in or {@code null}
+     */
+    public PermutationSource(InstanceSource inner, List<Integer> order, @Nullable OperatorProfile profile) {
+        this.inner = inner;
+        this.order = order;
+        this.profile = profile;
+    }
+
+    @Override
+    public Stream<InstanceTuple> get() {
+        return OperatorProfile.track(profile, () -> inner.get().map(this::permute));
+    }
+
+    @Override
+    public String describe() {
+        return "Reorder " + order;
+    }
+
+    @Override
+    public List<? extends Operator> getInputs() {
+        return List.of(inner);
+    }
+
+    @Override
+    public @Nullable OperatorProfile getProfile() {
+        return profile;
+    }
+
+    private InstanceTuple permute(InstanceTuple tuple) {
+        var instances = new @Nullable EObject[order.size()];
+        for (int i = 0; i < instances.length; i++) {
+            instances[order.get(i)] = tuple.get(i);
+        }
+        return InstanceTuple.wrap(instances);
+    }
+
+}
@@ -0,0 +1,96 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.utils.EMFUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Provides the instances of the class of the given {@link AQRFrom from} directly from the XMI file of an instance model
+ * that has not been loaded. Every call of {@link #get()} parses the file again and builds one containment subtree at a
+ * time, see {@link XMISubtreeReader}. Thus, the instance model does not need to fit into memory, but the instances are
+ * only valid until the next one is read and have no container. References to other objects are unresolved proxies.
+ *
+ * @see InstanceSourceFactory#createStreaming
+ */
+public class StreamingFromSource extends FromSource {
+
+    private final AQRFrom from;
+    private final Resource instanceModel;
+    private final Map<String, EPackage> packages;
+
+    /**
+     * @param from          from to provide instances for
+     * @param instanceModel {@link #supports supported} instance model that has not been loaded
+     * @param profile       profile to record statistics in or {@code null}
+     */
+    public StreamingFromSource(AQRFrom from, Resource instanceModel, @Nullable OperatorProfile profile) {
+        super(from, List.of(), profile);
+        this.from = from;
+        this.instanceModel = instanceModel;
+        var resourceSet = instanceModel.getResourceSet();
+        var registry = resourceSet != null ? resourceSet.getPackageRegistry() : EPackage.Registry.INSTANCE;
+        this.packages = EMFUtils.collectAvailablePackages(registry).stream()
+            .collect(Collectors.toMap(EPackage::getNsURI, pack -> pack, (first, second) -> first));
+    }
+
+    /**
+     * Returns whether the instances of the given instance model can be streamed, i.e. it is an XMI resource that
+     * has not been loaded.
+     */
+    public static boolean supports(Resource instanceModel) {
+        return instanceModel instanceof XMIResource && !instanceModel.isLoaded();
+    }
+
+    @Override
+    public Stream<EObject> getEObjects() {
+        return OperatorProfile.track(getProfile(), () -> {
+            var input = open();
+            XMISubtreeReader reader;
+            try {
+                reader = new XMISubtreeReader(instanceModel.getURI(), input, from.clazz(), packages);
+            } catch (RuntimeException e) {
+                closeQuietly(input);
+                throw e;
+            }
+            return StreamSupport.stream(reader, false).onClose(reader::close);
+        });
+    }
+
+    private InputStream open() {
+        var resourceSet = instanceModel.getResourceSet();
+        var uriConverter = resourceSet != null ? resourceSet.getURIConverter() : URIConverter.INSTANCE;
+        try {
+            return uriConverter.createInputStream(instanceModel.getURI());
+        } catch (IOException e) {
+            throw new WrappedException(e);
+        }
+    }
+
+    private static void closeQuietly(InputStream input) {
+        try {
+            input.close();
+        } catch (IOException e) {
+            // the original exception is more relevant
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "Stream " + from.clazz().getName() + (from.alias() != null ? " " + from.alias() : "");
+    }
+
+}
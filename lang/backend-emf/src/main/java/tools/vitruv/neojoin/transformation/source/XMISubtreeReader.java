@@ -0,0 +1,392 @@
+package tools.vitruv.neojoin.transformation.source;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.DynamicEObjectImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.PackageNotFoundException;
+import org.eclipse.emf.ecore.xmi.XMIException;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.utils.EMFUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Reads the instances of a class from an XMI file with a StAX parser instead of loading the whole model. Every
+ * instance that is not contained in another instance of the class is built together with its containment subtree
+ * and released by the reader once it has been provided. Instances nested in it are provided right after it, so the
+ * order is the same as in {@link org.eclipse.emf.ecore.resource.Resource#getAllContents()}.
+ * <p>
+ * Objects outside of these subtrees are only parsed to find the instances, so the provided instances have no
+ * container. Non-containment references are set to unresolved proxies with the URI of the referenced object.
+ * Only features of the meta-model are supported, i.e. no extended meta-data or feature maps.
+ *
+ * @see StreamingFromSource
+ */
+final class XMISubtreeReader implements Spliterator<EObject>, AutoCloseable {
+
+    private static final XMLInputFactory InputFactory = createInputFactory();
+
+    private static XMLInputFactory createInputFactory() {
+        var factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * An open element.
+     *
+     * @param type    class of the object represented by the element or {@code null} if the element does not
+     *                represent an object
+     * @param object  object that is built from the element or {@code null} if it is skipped
+     * @param feature attribute whose value is the text of the element or {@code null}
+     * @param text    text of the element if it is the value of an attribute
+     */
+    private record Element(
+        @Nullable EClass type,
+        @Nullable EObject object,
+        @Nullable EAttribute feature,
+        @Nullable StringBuilder text
+    ) {
+
+        private static final Element Skipped = new Element(null, null, null, null);
+
+        private static Element object(EClass type, @Nullable EObject object) {
+            return new Element(type, object, null, null);
+        }
+
+        private static Element attribute(EObject object, EAttribute feature) {
+            return new Element(null, object, feature, new StringBuilder());
+        }
+
+    }
+
+    private final URI uri;
+    private final EClass clazz;
+    private final Map<String, EPackage> packages;
+    private final InputStream input;
+    private final XMLStreamReader reader;
+
+    private final Deque<Element> elements = new ArrayDeque<>();
+    private boolean wrapped = false; // root objects are wrapped in an xmi:XMI element
+    private int subtreeDepth = -1; // depth of the root of the subtree that is currently built
+    private final List<EObject> subtreeInstances = new ArrayList<>();
+    private final Deque<EObject> ready = new ArrayDeque<>();
+    private boolean finished = false;
+
+    /**
+     * @param uri      URI of the XMI file, used for the URIs of proxies and in error messages
+     * @param input    content of the XMI file, closed by the reader
+     * @param clazz    class whose instances (incl. instances of subclasses) are provided
+     * @param packages packages of the instantiated classes by their namespace URI
+     */
+    XMISubtreeReader(URI uri, InputStream input, EClass clazz, Map<String, EPackage> packages) {
+        this.uri = uri;
+        this.clazz = clazz;
+        this.packages = packages;
+        this.input = input;
+        try {
+            this.reader = InputFactory.createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            close();
+            throw new WrappedException(e);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super EObject> action) {
+        try {
+            while (ready.isEmpty() && !finished) {
+                next();
+            }
+        } catch (XMLStreamException e) {
+            close();
+            throw new WrappedException(e);
+        } catch (WrappedException e) {
+            close();
+            throw e;
+        }
+
+        if (ready.isEmpty()) {
+            close();
+            return false;
+        }
+        action.accept(ready.poll());
+        return true;
+    }
+
+    private void next() throws XMLStreamException {
+        switch (reader.next()) {
+            case XMLStreamReader.START_ELEMENT -> startElement();
+            case XMLStreamReader.END_ELEMENT -> endElement();
+            case XMLStreamReader.CHARACTERS, XMLStreamReader.CDATA -> {
+                var element = elements.peek();
+                if (element != null && element.text() != null) {
+                    element.text().append(reader.getText());
+                }
+            }
+            case XMLStreamReader.END_DOCUMENT -> finished = true;
+            default -> {}
+        }
+    }
+
+    private void startElement() {
+        var parent = elements.peek();
+        if (parent == null || (wrapped && elements.size() == 1)) { // root object
+            if (parent == null && EMFUtils.isXMINamespace(reader.getNamespaceURI())) {
+                wrapped = true;
+                elements.push(Element.Skipped);
+                return;
+            }
+            startObject(getClass(reader.getNamespaceURI(), reader.getLocalName()), null, null);
+            return;
+        }
+
+        var parentType = parent.type();
+        if (parentType == null) {
+            elements.push(Element.Skipped);
+            return;
+        }
+
+        var feature = parentType.getEStructuralFeature(reader.getLocalName());
+        if (feature == null) {
+            if (EMFUtils.isXMINamespace(reader.getNamespaceURI())) { // e.g. xmi:Extension
+                elements.push(Element.Skipped);
+                return;
+            }
+            throw error("Feature '%s' not found in class '%s'".formatted(reader.getLocalName(), parentType.getName()));
+        }
+
+        var parentObject = parent.object();
+        var href = reader.getAttributeValue(null, XMLResource.HREF);
+        if (feature instanceof EAttribute attribute) {
+            var isNil = Boolean.parseBoolean(reader.getAttributeValue(XMLResource.XSI_URI, XMLResource.NIL));
+            elements.push(
+                parentObject != null && !isNil ? Element.attribute(parentObject, attribute) : Element.Skipped
+            );
+        } else if (href != null) { // reference to an object in another file
+            if (parentObject != null) {
+                add(parentObject, feature, createProxy(getType((EReference) feature), resolve(href)));
+            }
+            elements.push(Element.Skipped);
+        } else if (((EReference) feature).isContainment()) {
+            startObject(getType((EReference) feature), parentObject, feature);
+        } else {
+            elements.push(Element.Skipped);
+        }
+    }
+
+    /**
+     * Starts an element that represents an object of the given type, which is built if it is part of a subtree.
+     *
+     * @param parent  object containing the new object or {@code null} if the parent is not built
+     * @param feature containment reference of the parent or {@code null} for root objects
+     */
+    private void startObject(EClass type, @Nullable EObject parent, @Nullable EStructuralFeature feature) {
+        var isInstance = clazz.isSuperTypeOf(type);
+        if (parent == null && !isInstance) {
+            elements.push(Element.object(type, null));
+            return;
+        }
+
+        var object = EcoreUtil.create(type);
+        if (parent == null) {
+            subtreeDepth = elements.size();
+        } else if (feature != null) {
+            add(parent, feature, object);
+        }
+        if (isInstance) {
+            subtreeInstances.add(object);
+        }
+        setAttributes(object);
+        elements.push(Element.object(type, object));
+    }
+
+    private void endElement() {
+        var element = elements.pop();
+        if (element.feature() != null && element.object() != null && element.text() != null) {
+            add(element.object(), element.feature(), createFromString(element.feature(), element.text().toString()));
+        }
+
+        if (elements.size() == subtreeDepth) {
+            ready.addAll(subtreeInstances);
+            subtreeInstances.clear();
+            subtreeDepth = -1;
+        }
+    }
+
+    /**
+     * Sets the features that are stored in the XML attributes of the current element.
+     */
+    private void setAttributes(EObject object) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            var namespace = reader.getAttributeNamespace(i);
+            if (EMFUtils.isXMINamespace(namespace) || XMLResource.XSI_URI.equals(namespace)) {
+                continue;
+            }
+
+            var name = reader.getAttributeLocalName(i);
+            var feature = object.eClass().getEStructuralFeature(name);
+            if (feature == null) {
+                throw error("Feature '%s' not found in class '%s'".formatted(name, object.eClass().getName()));
+            }
+
+            var value = reader.getAttributeValue(i);
+            if (feature instanceof EAttribute attribute) {
+                add(object, feature, createFromString(attribute, value));
+            } else {
+                setReferences(object, (EReference) feature, value);
+            }
+        }
+    }
+
+    /**
+     * Sets proxies for the space separated references in the given value. Each reference is a URI fragment within
+     * this file or a URI with fragment, optionally preceded by the qualified name of the type of the referenced object.
+     */
+    private void setReferences(EObject object, EReference reference, String value) {
+        EClass type = null;
+        for (var token : value.trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.indexOf('#') == -1 && token.indexOf(':') != -1 && type == null) {
+                type = getType(token);
+                continue;
+            }
+
+            var proxyURI = token.indexOf('#') == -1 ? uri.appendFragment(token) : resolve(token);
+            add(object, reference, createProxy(type != null ? type : reference.getEReferenceType(), proxyURI));
+            type = null;
+        }
+    }
+
+    private URI resolve(String reference) {
+        var referenceURI = URI.createURI(reference);
+        return referenceURI.isRelative() ? referenceURI.resolve(uri) : referenceURI;
+    }
+
+    private static EObject createProxy(EClass type, URI proxyURI) {
+        var proxy = type.isAbstract() ? new DynamicEObjectImpl(type) : EcoreUtil.create(type);
+        ((InternalEObject) proxy).eSetProxyURI(proxyURI);
+        return proxy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void add(EObject object, EStructuralFeature feature, @Nullable Object value) {
+        if (feature.isMany()) {
+            ((EList<Object>) object.eGet(feature, false)).add(value);
+        } else {
+            object.eSet(feature, value);
+        }
+    }
+
+    private @Nullable Object createFromString(EAttribute attribute, String value) {
+        try {
+            return EcoreUtil.createFromString(attribute.getEAttributeType(), value);
+        } catch (RuntimeException e) {
+            throw error("Value '%s' is not valid for feature '%s'".formatted(value, attribute.getName()));
+        }
+    }
+
+    /**
+     * Returns the type of the object in the current element, which is either given by an {@code xsi:type} or
+     * {@code xmi:type} attribute or the type of the reference.
+     */
+    private EClass getType(EReference reference) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            var namespace = reader.getAttributeNamespace(i);
+            if (reader.getAttributeLocalName(i).equals(XMLResource.TYPE)
+                && (XMLResource.XSI_URI.equals(namespace) || EMFUtils.isXMINamespace(namespace))) {
+                return getType(reader.getAttributeValue(i));
+            }
+        }
+        return reference.getEReferenceType();
+    }
+
+    /**
+     * Returns the class with the given qualified name, e.g. {@code restaurant:Food}.
+     */
+    private EClass getType(String qualifiedName) {
+        var separator = qualifiedName.indexOf(':');
+        var prefix = separator != -1 ? qualifiedName.substring(0, separator) : "";
+        return getClass(reader.getNamespaceURI(prefix), qualifiedName.substring(separator + 1));
+    }
+
+    private EClass getClass(@Nullable String namespace, String name) {
+        var pack = namespace != null ? packages.get(namespace) : null;
+        if (pack == null) {
+            var location = reader.getLocation();
+            throw new WrappedException(new PackageNotFoundException(
+                namespace,
+                uri.toString(),
+                location.getLineNumber(),
+                location.getColumnNumber()
+            ));
+        }
+        if (!(pack.getEClassifier(name) instanceof EClass type)) {
+            throw error("Class '%s' not found in package '%s'".formatted(name, pack.getName()));
+        }
+        return type;
+    }
+
+    private WrappedException error(String message) {
+        var location = reader.getLocation();
+        return new WrappedException(new XMIException(
+            message,
+            uri.toString(),
+            location.getLineNumber(),
+            location.getColumnNumber()
+        ));
+    }
+
+    @Override
+    public @Nullable Spliterator<EObject> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+            input.close();
+        } catch (XMLStreamException | IOException e) {
+            throw new WrappedException(e);
+        }
+    }
+
+}
@@ -9,6 +9,7 @@ import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import tools.vitruv.neojoin.AbstractIntegrationTest;
+import tools.vitruv.neojoin.aqr.AQR;
 import tools.vitruv.neojoin.generation.MetaModelGenerator;
 import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
 import tools.vitruv.neojoin.utils.EMFUtils;
@@ -62,14 +63,23 @@ public abstract class AbstractTransformationTest extends AbstractIntegrationTest
 
     protected abstract List<String> getInstanceModelPaths();
 
+    protected Map<EPackage, Resource> getInstanceModelRegistry() {
+        return instanceModelRegistry;
+    }
+
     protected EObject internalTransform(String query) {
         var aqr = internalParseAQR(query);
         var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+        return internalTransform(aqr, targetMetaModel, false);
+    }
+
+    protected EObject internalTransform(AQR aqr, EPackage targetMetaModel, boolean parallel) {
         return new Transformator(
             getInjector().getInstance(ExpressionHelper.class),
             aqr,
             targetMetaModel,
-            instanceModelRegistry
+            instanceModelRegistry,
+            parallel
         ).transform();
     }
 
@@ -0,0 +1,126 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.transformation.source.ConditionPushdown;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tools.vitruv.neojoin.transformation.InstanceModelAssertions.assertThat;
+
+public class ConditionPushdownTest extends DefaultTransformationTest {
+
+    private List<List<String>> placeConjuncts(String query) {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + query);
+        var source = aqr.classes().stream()
+            .map(AQRTargetClass::source)
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElseThrow();
+        return ConditionPushdown.placeConjuncts(source).stream()
+            .map(conjuncts -> conjuncts.stream()
+                .map(conjunct -> NodeModelUtils.getTokenText(NodeModelUtils.findActualNodeFor(conjunct)))
+                .toList())
+            .toList();
+    }
+
+    @Test
+    void noCondition() {
+        var placement = placeConjuncts("""
+            from Restaurant r
+            join Food f
+            create {}
+            """);
+
+        assertThat(placement).containsExactly(List.of(), List.of());
+    }
+
+    @Test
+    void pushdown() {
+        var placement = placeConjuncts("""
+            from Restaurant r
+            join Food f
+            join ReviewPage p
+            where r.name.length > 3 && p.name == r.name && (f.price > 6 && r.sells.contains(f))
+            create {}
+            """);
+
+        assertThat(placement).containsExactly(
+            List.of("r.name.length > 3"),
+            List.of(),
+            List.of("p.name == r.name", "f.price > 6", "r.sells.contains(f)")
+        );
+    }
+
+    @Test
+    void keepOrder() {
+        var placement = placeConjuncts("""
+            from Restaurant r
+            join Food f
+            where f.price > 6 && r.sells.contains(f) && r.name != null
+            create {}
+            """);
+
+        assertThat(placement).containsExactly(
+            List.of(),
+            List.of("f.price > 6", "r.sells.contains(f)", "r.name != null")
+        );
+    }
+
+    @Test
+    void noConjunction() {
+        var placement = placeConjuncts("""
+            from Restaurant r
+            join Food f
+            where r.name == "Brauhaus" || f.price > 6
+            create {}
+            """);
+
+        assertThat(placement).containsExactly(
+            List.of(),
+            List.of("r.name == \"Brauhaus\" || f.price > 6")
+        );
+    }
+
+    @Test
+    void closureParameter() {
+        var placement = placeConjuncts("""
+            from Restaurant r
+            join Food f
+            where r.sells.exists[ it.price > 7 ] && f.price > 6
+            create {}
+            """);
+
+        assertThat(placement).containsExactly(
+            List.of("r.sells.exists[ it.price > 7 ]"),
+            List.of("f.price > 6")
+        );
+    }
+
+    @Test
+    void transformWithLeftJoin() {
+        var result = transform("""
+            from Restaurant r
+            left join Food f on r.sells.contains(f)
+            where r.name.startsWith("Pizzeria") && f.price > 6
+            create Offer {
+                restaurant := r.name
+                food := f.name
+            }
+            """);
+
+        assertThat(result)
+            .hasInstance("Offer", and(attribute("restaurant", "Pizzeria Toni"), attribute("food", "Pizza Margherita")))
+            .hasNoMoreInstances();
+    }
+
+}
@@ -0,0 +1,99 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExplainerTest extends DefaultTransformationTest {
+
+    private static final String QUERY = """
+        from Restaurant r
+        join Food f
+        where r.sells.contains(f)
+        create Offer {
+            restaurant := r.name
+            food := f.name
+        }
+
+        from Food f
+        group by f.price > 6
+        create PriceCategory {
+            count := f.size
+        }
+        """;
+
+    private AQR parse(String query) {
+        return internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + query);
+    }
+
+    private Explainer createExplainer(AQR aqr) {
+        return new Explainer(getInjector().getInstance(ExpressionHelper.class), aqr, getInstanceModelRegistry());
+    }
+
+    @Test
+    void explain() {
+        var explanation = createExplainer(parse(QUERY)).explain();
+
+        assertThat(explanation).isEqualTo("""
+            Offer:
+              Filter [r.sells.contains(f)]
+                Nested Loop Inner Join Food f
+                  From Restaurant r
+                  From Food f
+            PriceCategory:
+              Group By [f.price > 6] Aggregate [f.size]
+                From Food f
+            """);
+    }
+
+    @Test
+    void explainHashJoin() {
+        var explanation = createExplainer(parse("""
+            from Restaurant r
+            left join ReviewPage p with r using name
+            create {}
+            """)).explain();
+
+        assertThat(explanation).contains("Hash Left Join ReviewPage p [name = #0.name]");
+    }
+
+    @Test
+    void analyze() {
+        var aqr = parse(QUERY);
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+        var analysis = createExplainer(aqr).analyze(targetMetaModel, false);
+
+        var time = "time: \\d+\\.\\d{3} ms, self: \\d+\\.\\d{3} ms";
+        var memory = "memory: \\d+\\.\\d KiB";
+        assertThat(analysis.explanation().lines()).satisfiesExactly(
+            line -> assertThat(line).isEqualTo("Offer:"),
+            line -> assertThat(line).matches(" {2}Filter \\[r.sells.contains\\(f\\)] {2}\\(rows in: 6, rows out: 4, evaluations: 6, " + time + "\\)"),
+            line -> assertThat(line).matches(" {4}Nested Loop Inner Join Food f {2}\\(rows in: 8, rows out: 6, " + time + "\\)"),
+            line -> assertThat(line).matches(" {6}From Restaurant r {2}\\(rows out: 2, " + time + "\\)"),
+            line -> assertThat(line).matches(" {6}From Food f {2}\\(rows out: 6, " + time + "\\)"),
+            line -> assertThat(line).matches(" {2}Target Map {2}\\(entries: 5, " + memory + "\\)"),
+            line -> assertThat(line).isEqualTo("PriceCategory:"),
+            line -> assertThat(line).matches(" {2}Group By \\[f.price > 6] Aggregate \\[f.size] {2}\\(rows in: 3, rows out: 2, evaluations: 3, " + time + "\\)"),
+            line -> assertThat(line).matches(" {4}From Food f {2}\\(rows out: 3, " + time + "\\)"),
+            line -> assertThat(line).matches(" {2}Target Map {2}\\(entries: 3, " + memory + "\\)")
+        );
+        InstanceModelAssertions.assertThat(analysis.result())
+            .hasInstance("Offer", and(attribute("restaurant", "Pizzeria Toni"), attribute("food", "Fanta")))
+            .hasInstance("Offer", and(attribute("restaurant", "Pizzeria Toni"), attribute("food", "Pizza Margherita")))
+            .hasInstance("Offer", and(attribute("restaurant", "Brauhaus"), attribute("food", "Fanta")))
+            .hasInstance("Offer", and(attribute("restaurant", "Brauhaus"), attribute("food", "Maultaschen")))
+            .hasInstance("PriceCategory", attribute("count", 1))
+            .hasInstance("PriceCategory", attribute("count", 2))
+            .hasNoMoreInstances();
+    }
+
+}
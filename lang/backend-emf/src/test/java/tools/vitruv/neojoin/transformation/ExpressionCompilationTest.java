@@ -0,0 +1,134 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.xbase.XExpression;
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExpressionCompilationTest extends DefaultTransformationTest {
+
+    private static List<XExpression> getAllExpressions(AQR aqr) {
+        var expressions = new ArrayList<XExpression>();
+        for (var targetClass : aqr.classes()) {
+            var source = targetClass.source();
+            if (source != null) {
+                source.joins().forEach(join -> expressions.addAll(join.expressionConditions()));
+                if (source.condition() != null) {
+                    expressions.add(source.condition());
+                }
+                expressions.addAll(source.groupingExpressions());
+            }
+            targetClass.features().stream()
+                .map(feature -> feature.kind().expression())
+                .filter(Objects::nonNull)
+                .forEach(expressions::add);
+        }
+        return expressions;
+    }
+
+    /**
+     * Asserts that all expressions of the given query are compiled and transforms the models.
+     */
+    private EObject transformCompiled(String query) {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + query);
+        var expressionHelper = getInjector().getInstance(ExpressionHelper.class);
+        assertThat(getAllExpressions(aqr))
+            .isNotEmpty()
+            .allSatisfy(expression -> assertThat(expressionHelper.compile(expression).isCompiled()).isTrue());
+
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+        return internalTransform(aqr, targetMetaModel, false);
+    }
+
+    @Test
+    void supportedExpressions() {
+        var result = transformCompiled("""
+            from Restaurant r
+            join Food f on r.sells.contains(f) && f.price > 6
+            where r.name.startsWith("Pizzeria") || r.name == "Brauhaus"
+            create Offer {
+                restaurant := r.name
+                food := f.name?.toUpperCase
+                price := f.price * 2
+                cheap := if (f.price < 7.5) "yes" else "no"
+                label := (if (f.price < 7.5) null else f.name) ?: "cheap"
+                tags [*] := #[r.name, f.name].map[ it.length ]
+                desc := { val n = f.name; n + "@" + r.name }
+            }
+
+            from Food f
+            group by f.price < 6
+            create Foods {
+                names := f.map[ it.name ].sort.^join("+")
+                maxPrice := f.map[ it.price ].max()
+            }
+            """);
+
+        InstanceModelAssertions.assertThat(result)
+            .hasInstance(
+                "Offer", and(attribute("restaurant", "Pizzeria Toni"), attribute("food", "PIZZA MARGHERITA")),
+                offer -> InstanceModelAssertions.assertThat(offer)
+                    .hasAttribute("price", 14.0f)
+                    .hasAttribute("cheap", "yes")
+                    .hasAttribute("label", "cheap")
+                    .hasAttribute("tags", List.of(13, 16))
+                    .hasAttribute("desc", "Pizza Margherita@Pizzeria Toni")
+            )
+            .hasInstance(
+                "Offer", and(attribute("restaurant", "Brauhaus"), attribute("food", "MAULTASCHEN")),
+                offer -> InstanceModelAssertions.assertThat(offer)
+                    .hasAttribute("price", 16.0f)
+                    .hasAttribute("cheap", "no")
+                    .hasAttribute("label", "Maultaschen")
+                    .hasAttribute("tags", List.of(8, 11))
+                    .hasAttribute("desc", "Maultaschen@Brauhaus")
+            )
+            .hasInstance("Foods", attribute("names", "Maultaschen+Pizza Margherita"))
+            .hasInstance("Foods", attribute("names", "Fanta"))
+            .hasNoMoreInstances();
+    }
+
+    @Test
+    void conditionsAreEvaluatedWithReboundContext() {
+        var result = transform("""
+            from Restaurant r
+            join Food f on { val p = f.price; r.sells.contains(f) && p > 6 }
+            where { val n = r.numEmployees; n > 2 }
+            create Offer {
+                restaurant := r.name
+                food := f.name
+            }
+            """);
+
+        InstanceModelAssertions.assertThat(result)
+            .hasInstance("Offer", and(attribute("restaurant", "Pizzeria Toni"), attribute("food", "Pizza Margherita")))
+            .hasNoMoreInstances();
+    }
+
+    @Test
+    void errorsAreReportedLikeInterpreter() {
+        assertThatThrownBy(() ->
+            transform("""
+                from Restaurant r create {
+                    test := r.name.substring(100)
+                }
+                """)
+        ).hasMessageStartingWith("Failed to transform models: error during expression evaluation: [StringIndexOutOfBoundsException]");
+    }
+
+}
@@ -1,7 +1,11 @@
 package tools.vitruv.neojoin.transformation;
 
 import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.transformation.source.Aggregation;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static tools.vitruv.neojoin.transformation.InstanceModelAssertions.assertThat;
 
 public class GroupingTest extends DefaultTransformationTest {
@@ -28,6 +32,34 @@ public class GroupingTest extends DefaultTransformationTest {
             .hasNoMoreInstances();
     }
 
+    @Test
+    void referencesToGroupsAreUnique() {
+        var result = transform("""
+            from Restaurant r create {
+                r.name
+                r.sells
+            }
+
+            from Food f
+            group by true
+            create Foods {
+                name := f.map[ it.name ].sort.^join("+")
+            }
+            """);
+
+        assertThat(result)
+            .hasInstance(
+                "Restaurant", named("Pizzeria Toni"),
+                restaurant -> assertThat(restaurant).hasManyReference("sells", named("Fanta+Maultaschen+Pizza Margherita"))
+            )
+            .hasInstance(
+                "Restaurant", named("Brauhaus"),
+                restaurant -> assertThat(restaurant).hasManyReference("sells", named("Fanta+Maultaschen+Pizza Margherita"))
+            )
+            .hasInstance("Foods", named("Fanta+Maultaschen+Pizza Margherita"))
+            .hasNoMoreInstances();
+    }
+
     @Test
     void multipleResults() {
         var result = transform("""
@@ -87,4 +119,75 @@ public class GroupingTest extends DefaultTransformationTest {
             .hasNoMoreInstances();
     }
 
+    @Test
+    void streamingAggregation() {
+        var result = transform("""
+            from Restaurant r
+            join Food f on r.sells.contains(f)
+            group by r.name
+            create Sales {
+                count := f.size
+                total := f.sum[ it.price ]
+                average := f.avg[ it.price ]
+                cheapest := f.map[ it.price ].min()
+                employees := r.max[ it.numEmployees ]
+                kind := "restaurant"
+            }
+            """);
+
+        assertThat(result)
+            .hasInstance(
+                "Sales", attribute("employees", 3), sales -> {
+                    assertThat(sales)
+                        .hasAttribute("count", 2)
+                        .hasAttribute("total", 12.0f)
+                        .hasAttribute("average", 6.0)
+                        .hasAttribute("cheapest", 5.0f)
+                        .hasAttribute("kind", "restaurant");
+                }
+            )
+            .hasInstance(
+                "Sales", attribute("employees", 2), sales -> {
+                    assertThat(sales)
+                        .hasAttribute("count", 2)
+                        .hasAttribute("total", 13.0f)
+                        .hasAttribute("average", 6.5)
+                        .hasAttribute("cheapest", 5.0f);
+                }
+            )
+            .hasNoMoreInstances();
+    }
+
+    @Test
+    void streamingAggregationDetection() {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+
+            from Food f
+            group by f.price > 6
+            create Aggregated {
+                count := f.size
+                maxPrice := f.map[ it.price ].max()
+            }
+
+            from Food f
+            group by f.price > 6
+            create Materialized {
+                count := f.size
+                names := f.map[ it.name ].sort.^join(", ")
+            }
+            """);
+
+        var aggregation = Aggregation.of(getTargetClass(aqr, "Aggregated"));
+        assertThat(aggregation).isNotNull();
+        assertThat(aggregation.getExpressions()).hasSize(2);
+        assertThat(Aggregation.of(getTargetClass(aqr, "Materialized"))).isNull();
+    }
+
+    private static AQRTargetClass getTargetClass(AQR aqr, String name) {
+        return aqr.classes().stream().filter(c -> c.name().equals(name)).findFirst().orElseThrow();
+    }
+
 }
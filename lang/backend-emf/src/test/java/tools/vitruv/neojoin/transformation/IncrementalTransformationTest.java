@@ -0,0 +1,256 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalTransformationTest extends DefaultTransformationTest {
+
+    private static final String QUERY = """
+        from Restaurant r create {
+            r.name
+            r.sells
+        }
+
+        from Food f create {
+            f.name
+            f.price
+        }
+
+        from Restaurant r
+        where r.numEmployees > 2
+        create BigRestaurant {
+            r.name
+        }
+
+        from Restaurant r
+        join ReviewPage p on r.name == p.name
+        create Page {
+            name := r.name
+            reviews := p.reviews.size
+        }
+
+        from Review rev
+        group by rev.rating > 2
+        create Ratings {
+            users := rev.map[ it.user ].sort.^join(", ")
+        }
+
+        from Restaurant r
+        left join ReviewPage p on r.name == p.name
+        where r.numEmployees > 1
+        create Listing {
+            name := r.name
+            foods := r.sells.size
+            reviews := p?.reviews?.size
+        }
+        """;
+
+    /**
+     * Applies the given changes to the source models and checks that the incrementally updated target model equals
+     * the result of transforming the changed source models again.
+     *
+     * @return the incrementally updated target model
+     */
+    private EObject assertUpdated(boolean deferred, Consumer<IncrementalTransformator> changes) {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + QUERY);
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+
+        var transformator = createTransformator(aqr, targetMetaModel);
+        var result = transformator.transform();
+        if (deferred) {
+            transformator.deferUpdates(() -> changes.accept(transformator));
+        } else {
+            changes.accept(transformator);
+            transformator.propagateChanges();
+        }
+        transformator.dispose();
+
+        var expected = internalTransform(aqr, targetMetaModel, false);
+        assertThat(describeRoot(result)).isEqualTo(describeRoot(expected));
+        return result;
+    }
+
+    private IncrementalTransformator createTransformator(AQR aqr, EPackage targetMetaModel) {
+        return new IncrementalTransformator(
+            getInjector().getInstance(ExpressionHelper.class),
+            aqr,
+            targetMetaModel,
+            getInstanceModelRegistry()
+        );
+    }
+
+    private EObject getStore(String nsUri) {
+        return getInstanceModelRegistry().entrySet().stream()
+            .filter(entry -> entry.getKey().getNsURI().equals(nsUri))
+            .findFirst()
+            .orElseThrow()
+            .getValue()
+            .getContents()
+            .getFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<EObject> getList(EObject object, String feature) {
+        return (List<EObject>) object.eGet(object.eClass().getEStructuralFeature(feature));
+    }
+
+    private static void set(EObject object, String feature, Object value) {
+        object.eSet(object.eClass().getEStructuralFeature(feature), value);
+    }
+
+    private EObject find(String nsUri, String list, String name) {
+        return getList(getStore(nsUri), list).stream()
+            .filter(object -> Objects.equals(object.eGet(object.eClass().getEStructuralFeature("name")), name))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private EObject food(String name) {
+        return find("http://example.org/restaurant", "foods", name);
+    }
+
+    private EObject restaurant(String name) {
+        return find("http://example.org/restaurant", "restaurants", name);
+    }
+
+    /**
+     * Describes the instances contained in the root independent of their order.
+     */
+    private static List<String> describeRoot(EObject root) {
+        var descriptions = new ArrayList<String>();
+        for (var reference : root.eClass().getEAllReferences()) {
+            getList(root, reference.getName()).forEach(object -> descriptions.add(describe(object, true)));
+        }
+        descriptions.sort(null);
+        return descriptions;
+    }
+
+    private static String describe(EObject object, boolean deep) {
+        var builder = new StringBuilder(object.eClass().getName()).append("[");
+        for (var feature : object.eClass().getEAllStructuralFeatures()) {
+            var value = object.eGet(feature);
+            if (feature instanceof EAttribute) {
+                builder.append(feature.getName()).append("=").append(value).append(" ");
+            } else if (deep) {
+                var nested = ((EReference) feature).isContainment();
+                var values = value instanceof List<?> list ? list : value != null ? List.of(value) : List.of();
+                builder.append(feature.getName()).append("=").append(
+                    values.stream().map(v -> describe((EObject) v, nested)).toList()
+                ).append(" ");
+            }
+        }
+        return builder.append("]").toString();
+    }
+
+    @Test
+    void changeAttribute() {
+        var result = assertUpdated(false, t -> {
+            set(food("Fanta"), "price", 9.0f);
+            set(food("Maultaschen"), "name", "Spätzle");
+            set(restaurant("Brauhaus"), "numEmployees", 5);
+            set(restaurant("Pizzeria Toni"), "numEmployees", 1);
+        });
+
+        assertThat(describeRoot(result)).contains(
+            "Food[name=Fanta price=9.0 ]",
+            "Food[name=Spätzle price=8.0 ]",
+            "BigRestaurant[name=Brauhaus ]"
+        );
+    }
+
+    @Test
+    void changeJoinedAttribute() {
+        assertUpdated(false, t -> {
+            set(restaurant("Brauhaus"), "name", "Gasthaus");
+            set(find("http://example.org/reviewpage", "pages", "Pizzeria Toni"), "name", "Brauhaus");
+            set(restaurant("Pizzeria Toni"), "name", "Brauhaus");
+        });
+    }
+
+    @Test
+    void changeGroupedAttribute() {
+        assertUpdated(false, t -> {
+            var reviews = getList(getStore("http://example.org/reviewpage"), "reviews");
+            set(reviews.get(1), "rating", 4);
+            set(reviews.get(2), "user", "Paul (D)");
+        });
+    }
+
+    @Test
+    void changeReference() {
+        assertUpdated(false, t -> {
+            getList(restaurant("Brauhaus"), "sells").remove(food("Fanta"));
+            getList(restaurant("Pizzeria Toni"), "sells").add(food("Maultaschen"));
+        });
+    }
+
+    @Test
+    void addAndRemoveInstances() {
+        assertUpdated(true, t -> {
+            var salad = EcoreUtil.create(food("Fanta").eClass());
+            set(salad, "name", "Salad");
+            set(salad, "price", 6.5f);
+            set(salad, "type", food("Fanta").eGet(food("Fanta").eClass().getEStructuralFeature("type")));
+            getList(getStore("http://example.org/restaurant"), "foods").add(salad);
+            getList(restaurant("Brauhaus"), "sells").add(salad);
+
+            EcoreUtil.delete(food("Pizza Margherita"), true);
+            EcoreUtil.delete(restaurant("Pizzeria Toni"));
+        });
+    }
+
+    @Test
+    void unaffectedInstancesAreKept() {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+
+            from Food f
+            where f.price > 6
+            create ExpensiveFood {
+                f.name
+            }
+            """);
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+        var transformator = createTransformator(aqr, targetMetaModel);
+        var result = transformator.transform();
+        var before = List.copyOf(result.eContents());
+
+        set(food("Maultaschen"), "name", "Spätzle");
+        set(food("Fanta"), "price", 9.0f);
+        assertThat(result.eContents()).hasSize(2);
+        assertThat(describe(before.get(1), false)).isEqualTo("ExpensiveFood[name=Maultaschen ]");
+        transformator.propagateChanges();
+
+        var after = result.eContents();
+        assertThat(after).hasSize(3).containsAll(before);
+        assertThat(describe(before.get(1), false)).isEqualTo("ExpensiveFood[name=Spätzle ]");
+
+        transformator.dispose();
+        set(food("Pizza Margherita"), "price", 1.0f);
+        transformator.propagateChanges();
+        assertThat(result.eContents()).hasSize(3);
+    }
+
+}
@@ -0,0 +1,135 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQRFrom;
+import tools.vitruv.neojoin.aqr.AQRJoin;
+import tools.vitruv.neojoin.aqr.AQRSource;
+import tools.vitruv.neojoin.aqr.AQRTargetClass;
+import tools.vitruv.neojoin.transformation.source.JoinOrderPlanner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tools.vitruv.neojoin.transformation.InstanceModelAssertions.assertThat;
+
+public class JoinOrderPlannerTest extends DefaultTransformationTest {
+
+    /**
+     * Statistics with the given cardinalities per class name and the same number of distinct values for every feature.
+     */
+    private record TestStatistics(Map<String, Integer> cardinalities, int distinctValues)
+        implements JoinOrderPlanner.Statistics {
+
+        @Override
+        public int getCardinality(AQRFrom from) {
+            return cardinalities.get(from.clazz().getName());
+        }
+
+        @Override
+        public int getDistinctValueCount(AQRFrom from, String feature) {
+            return distinctValues;
+        }
+
+    }
+
+    private JoinOrderPlanner.Plan plan(String query, JoinOrderPlanner.Statistics statistics) {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + query);
+        var source = aqr.classes().stream()
+            .map(AQRTargetClass::source)
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElseThrow();
+        return JoinOrderPlanner.plan(source, statistics);
+    }
+
+    private static List<String> getAliases(AQRSource source) {
+        return source.allFroms().map(AQRFrom::alias).toList();
+    }
+
+    @Test
+    void reorder() {
+        var plan = plan(
+            """
+                from Food f
+                join Restaurant r
+                join ReviewPage p with r using name
+                where p.name.length > 3 && r.sells.contains(f)
+                create {}
+                """,
+            new TestStatistics(Map.of("Food", 1000, "Restaurant", 10, "ReviewPage", 10), 10)
+        );
+
+        assertThat(plan.isReordered()).isTrue();
+        assertThat(plan.order()).containsExactly(1, 2, 0);
+        assertThat(getAliases(plan.source())).containsExactly("r", "p", "f");
+        assertThat(plan.source().joins())
+            .extracting(AQRJoin::featureConditions)
+            .containsExactly(List.of(new AQRJoin.FeatureCondition(0, List.of("name"))), List.of());
+        assertThat(plan.conditions())
+            .extracting(List::size)
+            .containsExactly(0, 1, 1);
+    }
+
+    @Test
+    void keepOrderIfNotCheaper() {
+        var plan = plan(
+            """
+                from Restaurant r
+                join ReviewPage p with r using name
+                join Food f
+                create {}
+                """,
+            new TestStatistics(Map.of("Food", 1000, "Restaurant", 10, "ReviewPage", 10), 10)
+        );
+
+        assertThat(plan.isReordered()).isFalse();
+        assertThat(plan.order()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void leftJoinsAreNotReordered() {
+        var plan = plan(
+            """
+                from Food f
+                join Restaurant r
+                left join ReviewPage p with r using name
+                create {}
+                """,
+            new TestStatistics(Map.of("Food", 1000, "Restaurant", 10, "ReviewPage", 10), 10)
+        );
+
+        assertThat(plan.isReordered()).isFalse();
+    }
+
+    @Test
+    void transformReordered() {
+        // food x restaurant is larger than restaurant x review page, so the joins are reordered
+        var result = transform("""
+            from Food f
+            join Restaurant r
+            join ReviewPage p with r using name
+            where r.sells.contains(f)
+            create Offer {
+                food := f.name
+                restaurant := r.name
+                reviews := p.reviews.size
+            }
+            """);
+
+        assertThat(result)
+            .hasInstance("Offer", and(attribute("food", "Pizza Margherita"), attribute("restaurant", "Pizzeria Toni"), attribute("reviews", 2)))
+            .hasInstance("Offer", and(attribute("food", "Fanta"), attribute("restaurant", "Pizzeria Toni"), attribute("reviews", 2)))
+            .hasInstance("Offer", and(attribute("food", "Maultaschen"), attribute("restaurant", "Brauhaus"), attribute("reviews", 1)))
+            .hasInstance("Offer", and(attribute("food", "Fanta"), attribute("restaurant", "Brauhaus"), attribute("reviews", 1)))
+            .hasNoMoreInstances();
+    }
+
+}
@@ -86,6 +86,31 @@ public class JoinTest extends DefaultTransformationTest {
             .hasNoMoreInstances();
     }
 
+    @Test
+    void joinOnNullAttribute() {
+        var result = transform("""
+            from Restaurant r1
+            join Restaurant r2
+                using address
+            create ReviewedRestaurant {
+                ^left = r1.name
+                ^right = r2.name
+            }
+            """);
+
+        // Brauhaus has no address, which matches the missing address of itself
+        assertThat(result)
+            .hasInstance(
+                "ReviewedRestaurant",
+                and(attribute("left", "Pizzeria Toni"), attribute("right", "Pizzeria Toni"))
+            )
+            .hasInstance(
+                "ReviewedRestaurant",
+                and(attribute("left", "Brauhaus"), attribute("right", "Brauhaus"))
+            )
+            .hasNoMoreInstances();
+    }
+
     @Test
     void multiJoin() {
         var result = transform("""
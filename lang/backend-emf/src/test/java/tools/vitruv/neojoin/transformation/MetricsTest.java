@@ -0,0 +1,115 @@
+package tools.vitruv.neojoin.transformation;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class MetricsTest extends DefaultTransformationTest {
+
+    private static final String QUERY = """
+        export package to "http://example.com"
+
+        import "http://example.org/restaurant"
+
+        from Food f where f.price > 6 create {
+            label := f.name.toUpperCase
+        }
+        """;
+
+    private Metrics transformWithMetrics() {
+        var metrics = new Metrics();
+        var aqr = internalParseAQR(QUERY);
+        new Transformator(
+            getInjector().getInstance(ExpressionHelper.class),
+            aqr,
+            new MetaModelGenerator(aqr).generate().pack(),
+            getInstanceModelRegistry(),
+            false,
+            metrics
+        ).transform();
+        return metrics;
+    }
+
+    @Test
+    void records() {
+        var metrics = transformWithMetrics();
+
+        assertThat(metrics.getPhases())
+            .extracting(Metrics.PhaseMetrics::name)
+            .containsExactly("transform-create", "transform-populate");
+        assertThat(metrics.getOperators()).satisfiesExactly(
+            filter -> {
+                assertThat(filter.targetClass()).isEqualTo("Food");
+                assertThat(filter.operator()).isEqualTo("Filter [f.price > 6]");
+                assertThat(filter.depth()).isEqualTo(0);
+                assertThat(filter.rows()).isEqualTo(2);
+                assertThat(filter.evaluations()).isEqualTo(3);
+            },
+            from -> {
+                assertThat(from.operator()).isEqualTo("From Food f");
+                assertThat(from.depth()).isEqualTo(1);
+                assertThat(from.rows()).isEqualTo(3);
+            }
+        );
+        assertThat(metrics.getExpressions())
+            .extracting(
+                Metrics.ExpressionMetrics::expression,
+                Metrics.ExpressionMetrics::evaluations,
+                expression -> expression.location().start().getLine()
+            )
+            .containsExactlyInAnyOrder(
+                tuple("f.price > 6", 3L, 5),
+                tuple("f.name.toUpperCase", 2L, 6)
+            );
+    }
+
+    @Test
+    void json() {
+        var json = transformWithMetrics().toJson();
+
+        assertThat(json)
+            .contains("\"phases\"", "\"operators\"", "\"expressions\"")
+            .contains("\"name\": \"transform-populate\"")
+            .contains("\"operator\": \"From Food f\"")
+            .contains("\"expression\": \"f.price > 6\"");
+    }
+
+    @Test
+    void events(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("metrics.jfr");
+        try (var recording = new Recording()) {
+            recording.enable("tools.vitruv.neojoin.Phase");
+            recording.enable("tools.vitruv.neojoin.Operator");
+            recording.enable("tools.vitruv.neojoin.Expression");
+            recording.start();
+            transformWithMetrics();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file);
+        assertThat(events)
+            .filteredOn(event -> event.getEventType().getName().equals("tools.vitruv.neojoin.Phase"))
+            .extracting(event -> event.getString("phase"))
+            .containsExactly("transform-create", "transform-populate");
+        assertThat(events)
+            .filteredOn(event -> event.getEventType().getName().equals("tools.vitruv.neojoin.Operator"))
+            .extracting(event -> event.getLong("rows"))
+            .containsExactly(2L, 3L);
+        assertThat(events)
+            .filteredOn(event -> event.getEventType().getName().equals("tools.vitruv.neojoin.Expression"))
+            .extracting(event -> event.getString("expression"))
+            .containsExactlyInAnyOrder("f.price > 6", "f.name.toUpperCase");
+    }
+
+}
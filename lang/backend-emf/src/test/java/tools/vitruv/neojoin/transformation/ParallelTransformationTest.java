@@ -0,0 +1,92 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelTransformationTest extends DefaultTransformationTest {
+
+    private void assertSameResult(String query) {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + query);
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+
+        var sequential = internalTransform(aqr, targetMetaModel, false);
+        var parallel = internalTransform(aqr, targetMetaModel, true);
+        assertThat(EcoreUtil.equals(sequential, parallel))
+            .as("parallel transformation produces the same model as sequential transformation")
+            .isTrue();
+    }
+
+    @Test
+    void multipleClasses() {
+        assertSameResult("""
+            from Restaurant r create {
+                r.name
+                r.sells
+            }
+
+            from Food f create {
+                f.name
+                f.price
+            }
+
+            from Review rev
+            group by rev.rating > 2
+            create Ratings {
+                users := rev.map[ it.user ].sort.^join(", ")
+                maxRating := rev.map[ it.rating ].max()
+            }
+
+            from Restaurant r
+            join ReviewPage p on r.name == p.name
+            create Page {
+                name := r.name
+                reviews := p.reviews.size
+            }
+            """);
+    }
+
+    @Test
+    void subQuery() {
+        assertSameResult("""
+            from Restaurant r create {
+                r.name
+                r.sells create {
+                    it.name
+                    it.price
+                }
+            }
+            """);
+    }
+
+    @Test
+    void error() {
+        var aqr = internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+
+            from Restaurant create
+
+            from Food f
+            where false
+            create TastyFood {}
+            """);
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+
+        assertThatThrownBy(() -> internalTransform(aqr, targetMetaModel, true))
+            .hasMessage(
+                "Failed to transform models: no target instance of class 'TastyFood' found for source instance of class 'Food'"
+            );
+    }
+
+}
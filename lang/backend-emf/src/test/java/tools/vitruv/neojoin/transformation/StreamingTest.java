@@ -0,0 +1,156 @@
+package tools.vitruv.neojoin.transformation;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingTest extends DefaultTransformationTest {
+
+    private static final String QUERY = """
+        from Food f create {
+            f.name
+            f.price
+            expensive := f.price > 7
+        }
+
+        from Review rev where rev.rating > 3 create GoodReview {
+            rev.user
+        }
+
+        from restaurant.Store s create Summary {
+            foods := s.foods.size
+            restaurants := s.restaurants.map[ it.name ].sort.^join(", ")
+        }
+
+        from Restaurant r create {
+            r.name
+            r.sells
+        }
+
+        from Review rev
+        group by rev.rating > 2
+        create Ratings {
+            count := rev.size
+        }
+        """;
+
+    /**
+     * Returns the instance models of the test with resources that have not been loaded.
+     */
+    private Map<EPackage, Resource> createUnloadedInstanceModels() {
+        var resourceSet = new ResourceSetImpl();
+        resourceSet.setPackageRegistry(getPackageRegistry());
+
+        var instanceModels = new HashMap<EPackage, Resource>();
+        getInstanceModelRegistry().forEach((pack, loaded) -> {
+            var url = Objects.requireNonNull(getClass().getResource(loaded.getURI().toString()));
+            instanceModels.put(pack, resourceSet.createResource(URI.createURI(url.toString())));
+        });
+        return instanceModels;
+    }
+
+    private AQR parse(String query) {
+        return internalParseAQR("""
+            export package to "http://example.com"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+
+            """ + query);
+    }
+
+    private void assertSameResult(String query, boolean parallel) {
+        var aqr = parse(query);
+        var targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+
+        var loaded = internalTransform(aqr, targetMetaModel, parallel);
+        var streamed = new Transformator(
+            getInjector().getInstance(ExpressionHelper.class),
+            aqr,
+            targetMetaModel,
+            createUnloadedInstanceModels(),
+            parallel
+        ).transform();
+        assertThat(EcoreUtil.equals(loaded, streamed))
+            .as("streaming produces the same model as loading the instance models")
+            .isTrue();
+    }
+
+    @Test
+    void sameResult() {
+        assertSameResult(QUERY, false);
+    }
+
+    @Test
+    void sameResultParallel() {
+        assertSameResult(QUERY, true);
+    }
+
+    @Test
+    void streamsWithoutLoading() {
+        var instanceModels = createUnloadedInstanceModels();
+        var aqr = parse("""
+            from Food f create {
+                f.name
+                f.type
+            }
+            """);
+
+        var result = new Transformator(
+            getInjector().getInstance(ExpressionHelper.class),
+            aqr,
+            new MetaModelGenerator(aqr).generate().pack(),
+            instanceModels
+        ).transform();
+
+        InstanceModelAssertions.assertThat(result)
+            .hasInstance("Food", named("Pizza Margherita"))
+            .hasInstance(
+                "Food", named("Fanta"), food -> {
+                    InstanceModelAssertions.assertThat(food)
+                        .hasAttribute("type", "DRINK");
+                }
+            )
+            .hasInstance("Food", named("Maultaschen"))
+            .hasNoMoreInstances();
+        assertThat(instanceModels.values()).noneMatch(Resource::isLoaded);
+    }
+
+    @Test
+    void explain() {
+        var aqr = parse("""
+            from Food f create { f.name }
+
+            from Restaurant r create {
+                r.name
+                foods := r.sells.size
+            }
+            """);
+
+        var explanation = new Explainer(
+            getInjector().getInstance(ExpressionHelper.class),
+            aqr,
+            createUnloadedInstanceModels()
+        ).explain();
+
+        assertThat(explanation).isEqualTo("""
+            Food:
+              Stream Food f
+            Restaurant:
+              From Restaurant r
+            """);
+    }
+
+}
@@ -0,0 +1,254 @@
+package tools.vitruv.neojoin.benchmarks;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.impl.EPackageRegistryImpl;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
+import tools.vitruv.neojoin.NeoJoinStandaloneSetup;
+import tools.vitruv.neojoin.Parser;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Meta-models, queries and generated instance models shared by the benchmarks. The meta-models are the ones used by
+ * the tests and are loaded from the classpath.
+ */
+public final class BenchmarkModels {
+
+    public static final String RESTAURANT = "http://example.org/restaurant";
+    public static final String REVIEW_PAGE = "http://example.org/reviewpage";
+    public static final String LIBRARY = "http://example.org/library";
+
+    private static final List<String> META_MODELS = List.of("restaurant", "reviewpage", "library");
+
+    private final EPackage.Registry registry = new EPackageRegistryImpl();
+    private final NeoJoinStandaloneSetup setup;
+
+    public BenchmarkModels() {
+        var resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap()
+            .put("ecore", new EcoreResourceFactoryImpl());
+        for (var name : META_MODELS) {
+            var url = Objects.requireNonNull(BenchmarkModels.class.getResource("/models/" + name + ".ecore"));
+            var resource = resourceSet.getResource(URI.createURI(url.toString()), true);
+            var pack = (EPackage) resource.getContents().getFirst();
+            registry.put(pack.getNsURI(), pack);
+        }
+        this.setup = new NeoJoinStandaloneSetup(registry);
+    }
+
+    public EPackage.Registry getRegistry() {
+        return registry;
+    }
+
+    public EPackage getPackage(String nsUri) {
+        return Objects.requireNonNull(registry.getEPackage(nsUri));
+    }
+
+    public ExpressionHelper getExpressionHelper() {
+        return setup.getExpressionHelper();
+    }
+
+    public Parser getParser() {
+        return setup.getParser();
+    }
+
+    /**
+     * Parses the given query.
+     *
+     * @throws IllegalArgumentException if the query is invalid
+     */
+    public AQR parse(String query) {
+        try {
+            var file = Files.createTempFile("benchmark", ".nj");
+            try {
+                Files.writeString(file, query);
+                var result = getParser().parse(URI.createFileURI(file.toString()));
+                if (result instanceof Parser.Result.Success success) {
+                    return success.aqr();
+                }
+                throw new IllegalArgumentException("invalid query: " + result.issues());
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates a restaurant instance model.
+     *
+     * @param restaurants        number of restaurants
+     * @param foods              number of foods
+     * @param foodsPerRestaurant number of distinct foods sold by every restaurant
+     * @param seed               seed for the random attribute values and references
+     * @return map from the restaurant package to the generated model
+     */
+    public Map<EPackage, Resource> createRestaurants(int restaurants, int foods, int foodsPerRestaurant, long seed) {
+        var random = new Random(seed);
+        var pack = getPackage(RESTAURANT);
+        var store = create(pack, "Store");
+
+        var foodType = (EEnum) pack.getEClassifier("FoodType");
+        var foodInstances = new ArrayList<EObject>(foods);
+        for (int i = 0; i < foods; i++) {
+            var food = create(pack, "Food");
+            set(food, "name", "Food " + i);
+            set(food, "price", 1 + random.nextInt(2000) / 100.0f);
+            set(food, "type", foodType.getELiterals().get(random.nextInt(foodType.getELiterals().size())));
+            foodInstances.add(food);
+        }
+        getList(store, "foods").addAll(foodInstances);
+
+        var restaurantInstances = new ArrayList<EObject>(restaurants);
+        for (int i = 0; i < restaurants; i++) {
+            var restaurant = create(pack, "Restaurant");
+            set(restaurant, "name", "Restaurant " + i);
+            set(restaurant, "numEmployees", 1 + random.nextInt(50));
+            var start = random.nextInt(foods);
+            var sells = getList(restaurant, "sells");
+            for (int j = 0; j < Math.min(foodsPerRestaurant, foods); j++) {
+                sells.add(foodInstances.get((start + j) % foods));
+            }
+            restaurantInstances.add(restaurant);
+        }
+        getList(store, "restaurants").addAll(restaurantInstances);
+
+        return createModel(pack, "restaurants", List.of(store));
+    }
+
+    /**
+     * Generates a review page instance model for the restaurants of {@link #createRestaurants}. The review pages are
+     * named after the first restaurants, so that they can be joined by name.
+     *
+     * @param pages          number of review pages
+     * @param reviewsPerPage number of reviews on every page
+     * @param seed           seed for the random ratings
+     * @return map from the review page package to the generated model
+     */
+    public Map<EPackage, Resource> createReviews(int pages, int reviewsPerPage, long seed) {
+        var random = new Random(seed);
+        var pack = getPackage(REVIEW_PAGE);
+        var store = create(pack, "Store");
+
+        var pageInstances = new ArrayList<EObject>(pages);
+        var reviewInstances = new ArrayList<EObject>(pages * reviewsPerPage);
+        for (int i = 0; i < pages; i++) {
+            var page = create(pack, "ReviewPage");
+            set(page, "name", "Restaurant " + i);
+            var reviews = getList(page, "reviews");
+            for (int j = 0; j < reviewsPerPage; j++) {
+                var review = create(pack, "Review");
+                set(review, "user", "User " + random.nextInt(Math.max(pages, 1)));
+                set(review, "rating", 1 + random.nextInt(5));
+                reviews.add(review);
+                reviewInstances.add(review);
+            }
+            pageInstances.add(page);
+        }
+        getList(store, "pages").addAll(pageInstances);
+        getList(store, "reviews").addAll(reviewInstances);
+
+        return createModel(pack, "reviews", List.of(store));
+    }
+
+    /**
+     * Generates a library instance model. The writers and customers are roots of the model because the library does
+     * not contain them. Every book on tape has the title of a book.
+     *
+     * @param books       number of books
+     * @param booksOnTape number of books on tape
+     * @param persons     number of writers and of customers
+     * @param seed        seed for the random attribute values and references
+     * @return map from the library package to the generated model
+     */
+    public Map<EPackage, Resource> createLibrary(int books, int booksOnTape, int persons, long seed) {
+        var random = new Random(seed);
+        var pack = getPackage(LIBRARY);
+        var library = create(pack, "Library");
+        set(library, "name", "Library");
+
+        var writers = new ArrayList<EObject>(persons);
+        var customers = new ArrayList<EObject>(persons);
+        for (int i = 0; i < persons; i++) {
+            writers.add(createPerson(pack, "Writer", i));
+            customers.add(createPerson(pack, "Customer", i));
+        }
+
+        var stock = getList(library, "stock");
+        for (int i = 0; i < books; i++) {
+            var book = create(pack, "Book");
+            set(book, "title", "Title " + i);
+            set(book, "pages", 50 + random.nextInt(950));
+            set(book, "author", writers.get(random.nextInt(persons)));
+            var borrowedBy = getList(book, "borrowedBy");
+            for (int j = random.nextInt(3); j > 0; j--) {
+                var customer = customers.get(random.nextInt(persons));
+                if (!borrowedBy.contains(customer)) {
+                    borrowedBy.add(customer);
+                }
+            }
+            stock.add(book);
+        }
+        for (int i = 0; i < booksOnTape; i++) {
+            var bookOnTape = create(pack, "BookOnTape");
+            set(bookOnTape, "title", "Title " + random.nextInt(Math.max(books, 1)));
+            set(bookOnTape, "minutesLength", 60 + random.nextInt(600));
+            set(bookOnTape, "author", writers.get(random.nextInt(persons)));
+            stock.add(bookOnTape);
+        }
+
+        var roots = new ArrayList<EObject>(1 + 2 * persons);
+        roots.add(library);
+        roots.addAll(writers);
+        roots.addAll(customers);
+        return createModel(pack, "library", roots);
+    }
+
+    private static EObject createPerson(EPackage pack, String className, int index) {
+        var person = create(pack, className);
+        set(person, "firstName", className);
+        set(person, "lastName", String.valueOf(index));
+        return person;
+    }
+
+    static Map<EPackage, Resource> createModel(EPackage pack, String name, List<EObject> roots) {
+        var resource = new ResourceImpl(URI.createURI("benchmark:/" + name + ".xmi"));
+        resource.getContents().addAll(roots);
+        var models = new HashMap<EPackage, Resource>();
+        models.put(pack, resource);
+        return models;
+    }
+
+    static EObject create(EPackage pack, String className) {
+        return EcoreUtil.create((EClass) pack.getEClassifier(className));
+    }
+
+    static void set(EObject object, String feature, Object value) {
+        object.eSet(object.eClass().getEStructuralFeature(feature), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<EObject> getList(EObject object, String feature) {
+        return (List<EObject>) object.eGet(object.eClass().getEStructuralFeature(feature));
+    }
+
+}
@@ -0,0 +1,91 @@
+package tools.vitruv.neojoin.benchmarks;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.vitruv.neojoin.collector.InstanceModelCollector;
+import tools.vitruv.neojoin.utils.EMFUtils;
+import tools.vitruv.neojoin.utils.ResourceProfile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InstanceModelCollector#collect()} for a directory with a restaurant, a review page and a library
+ * model in XMI, sequentially and with parallel loading.
+ *
+ * @see ResourceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectBenchmark {
+
+    /**
+     * Number of restaurants and of books.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private BenchmarkModels models;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InstanceModelCollector.registerResourceFactories();
+        models = new BenchmarkModels();
+        directory = Files.createTempDirectory("benchmark");
+        save("restaurants", models.createRestaurants(size, Math.max(size / 10, 1), 10, 42));
+        save("reviews", models.createReviews(size / 2, 5, 42));
+        save("library", models.createLibrary(size, size / 2, Math.max(size / 10, 1), 42));
+    }
+
+    private void save(String name, Map<EPackage, Resource> model) throws IOException {
+        var contents = new ArrayList<>(model.values().iterator().next().getContents());
+        EMFUtils.save(URI.createFileURI(directory.resolve(name + ".xmi").toString()), contents, ResourceProfile.Default);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object collect() {
+        return new InstanceModelCollector(
+            directory.toString(),
+            models.getRegistry(),
+            parallel,
+            ResourceProfile.Default
+        ).collect();
+    }
+
+}
@@ -0,0 +1,97 @@
+package tools.vitruv.neojoin.benchmarks;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.transformation.Transformator;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the population of the root containment references and of many-valued references scales with the
+ * number of target instances, with the root containment references filled in bulk or with
+ * {@link org.eclipse.emf.ecore.EObject#eSet eSet()}. The time per instance should stay roughly constant across the
+ * sizes in bulk mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopulationBenchmark {
+
+    private static final String QUERY = """
+        export package to "http://example.org/benchmark"
+
+        import "http://example.org/restaurant"
+
+        from Restaurant r create {
+            r.name
+            r.numEmployees
+            r.sells
+        }
+
+        from Food f create {
+            f.name
+            f.price
+        }
+        """;
+
+    /**
+     * Number of restaurants and foods, i.e. the size of the root containment references of the target model.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    /**
+     * Number of foods sold by every restaurant, i.e. the size of the many-valued references.
+     */
+    @Param({"10", "100"})
+    public int fanOut;
+
+    /**
+     * Whether the root containment references are filled in bulk instead of with
+     * {@link org.eclipse.emf.ecore.EObject#eSet eSet()}.
+     */
+    @Param({"true", "false"})
+    public boolean bulk;
+
+    private ExpressionHelper expressionHelper;
+    private AQR aqr;
+    private EPackage targetMetaModel;
+    private Map<EPackage, Resource> sourceModels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var models = new BenchmarkModels();
+        expressionHelper = models.getExpressionHelper();
+        aqr = models.parse(QUERY);
+        targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+        sourceModels = models.createRestaurants(size, size, fanOut, 42);
+    }
+
+    @Benchmark
+    public EObject transform() {
+        var transformator = new Transformator(expressionHelper, aqr, targetMetaModel, sourceModels);
+        transformator.setBulkRootAssignment(bulk);
+        return transformator.transform();
+    }
+
+}
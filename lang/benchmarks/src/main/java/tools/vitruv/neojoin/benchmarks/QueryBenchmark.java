@@ -0,0 +1,121 @@
+package tools.vitruv.neojoin.benchmarks;
+
+import org.eclipse.emf.common.util.URI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.vitruv.neojoin.Parser;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.generation.ModelInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the frontend for queries of growing size: {@link Parser#parse parsing and validating} a query file including
+ * {@link tools.vitruv.neojoin.aqr.AQRBuilder building the AQR}, and {@link MetaModelGenerator generating} the target
+ * meta-model from the AQR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    /**
+     * Number of copies of a block of five target classes with selections, joins, grouping and sub-queries.
+     */
+    @Param({"1", "10", "50"})
+    public int blocks;
+
+    private BenchmarkModels models;
+    private Path file;
+    private AQR aqr;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        models = new BenchmarkModels();
+        var query = createQuery(blocks);
+        file = Files.createTempFile("benchmark", ".nj");
+        Files.writeString(file, query);
+        aqr = models.parse(query);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static String createQuery(int blocks) {
+        var query = new StringBuilder("""
+            export package to "http://example.org/benchmark"
+
+            import "http://example.org/restaurant"
+            import "http://example.org/reviewpage"
+            import "http://example.org/library"
+            """);
+        for (int i = 0; i < blocks; i++) {
+            query.append("""
+
+                from Restaurant r where r.numEmployees > %1$d create Restaurant%1$d {
+                    r.name
+                    employees := r.numEmployees * 2
+                    r.sells create Dish%1$d {
+                        it.name
+                        it.price
+                    }
+                }
+
+                from Restaurant r
+                left join ReviewPage p
+                    using name
+                create Listing%1$d {
+                    r.name
+                    reviewed := p !== null
+                }
+
+                from Food f
+                group by f.type
+                create FoodType%1$d {
+                    count := f.size
+                    average := f.avg[ it.price ]
+                }
+
+                from BookOnTape bot
+                join Book b
+                    using title
+                create AudioBook%1$d {
+                    bot.title
+                    minutesPerPage := bot.minutesLength / b.pages
+                }
+                """.formatted(i));
+        }
+        return query.toString();
+    }
+
+    @Benchmark
+    public Parser.Result parse() {
+        return models.getParser().parse(URI.createFileURI(file.toString()));
+    }
+
+    @Benchmark
+    public ModelInfo generate() {
+        return new MetaModelGenerator(aqr).generate();
+    }
+
+}
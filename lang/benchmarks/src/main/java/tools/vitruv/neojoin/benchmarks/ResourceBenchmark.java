@@ -0,0 +1,93 @@
+package tools.vitruv.neojoin.benchmarks;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.vitruv.neojoin.collector.InstanceModelCollector;
+import tools.vitruv.neojoin.utils.EMFUtils;
+import tools.vitruv.neojoin.utils.ResourceProfile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares loading and saving instance models with the {@link ResourceProfile resource profiles} in XMI and in the
+ * {@link EMFUtils#BinaryFileExtension binary format}. The profiles only affect XMI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceBenchmark {
+
+    /**
+     * Number of restaurants in the instance model.
+     */
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"Default", "Throughput"})
+    public ResourceProfile profile;
+
+    @Param({"xmi", "xmib"})
+    public String format;
+
+    private BenchmarkModels models;
+    private Path directory;
+    private URI output;
+    private EObject root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (!Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().containsKey("xmi")) {
+            Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().put("xmi", new XMIResourceFactoryImpl());
+        }
+
+        models = new BenchmarkModels();
+        directory = Files.createTempDirectory("benchmark");
+        var model = models.createRestaurants(size, size / 10, 10, 42).values().iterator().next();
+        root = model.getContents().getFirst();
+        EMFUtils.save(URI.createFileURI(directory.resolve("restaurants." + format).toString()), root);
+        output = URI.createFileURI(Files.createTempFile("benchmark", "." + format).toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Stream.concat(Files.walk(directory), Stream.of(Path.of(output.toFileString())))) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object load() {
+        return new InstanceModelCollector(directory.toString(), models.getRegistry(), false, profile).collect();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        EMFUtils.save(output, root, profile);
+    }
+
+}
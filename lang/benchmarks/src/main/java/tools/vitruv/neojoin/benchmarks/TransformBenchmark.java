@@ -0,0 +1,171 @@
+package tools.vitruv.neojoin.benchmarks;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.transformation.Transformator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Transformator#transform()} for typical query shapes on generated restaurant, review page and library
+ * models. The models have {@link #size} restaurants and books, a review page with 5 reviews for every second restaurant
+ * and a book on tape for every second book. {@link Workload#GroupBy} covers both streaming aggregation and grouping
+ * with materialized groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+
+    public enum Workload {
+
+        Selection("""
+            from Restaurant r create {
+                r.name
+                r.numEmployees
+            }
+
+            from Food f create {
+                f.name
+                f.price
+                f.type
+            }
+            """),
+
+        Where("""
+            from Restaurant r where r.numEmployees > 25 && r.name.endsWith("7") create {
+                r.name
+            }
+
+            from Book b where b.pages >= 500 create {
+                b.title
+                b.pages
+            }
+            """),
+
+        InnerJoin("""
+            from Restaurant r
+            join ReviewPage p
+                using name
+            create Rated {
+                r.name
+                reviews := p.reviews.size
+            }
+
+            from BookOnTape bot
+            join Book b
+                using title
+            create AudioBook {
+                bot.title
+                minutesPerPage := bot.minutesLength / b.pages
+            }
+            """),
+
+        LeftJoin("""
+            from Restaurant r
+            left join ReviewPage p
+                using name
+            create Listing {
+                r.name
+                reviewed := p !== null
+            }
+            """),
+
+        GroupBy("""
+            from Food f
+            group by f.type
+            create FoodTypes {
+                count := f.size
+                average := f.avg[ it.price ]
+                cheapest := f.map[ it.price ].min()
+            }
+
+            from Review rev
+            group by rev.user
+            create Users {
+                user := rev.map[ it.user ].same
+                reviews := rev.size
+                best := rev.map[ it.rating ].max()
+            }
+            """),
+
+        SubQuery("""
+            from restaurant.Store s create Menu {
+                s.restaurants create {
+                    it.name
+                    it.sells create Dish {
+                        it.name
+                        it.price
+                    }
+                }
+            }
+            """);
+
+        private final String query;
+
+        Workload(String query) {
+            this.query = """
+                export package to "http://example.org/benchmark"
+
+                import "http://example.org/restaurant"
+                import "http://example.org/reviewpage"
+                import "http://example.org/library"
+
+                """ + query;
+        }
+
+    }
+
+    /**
+     * Number of restaurants and of books.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param
+    public Workload workload;
+
+    private ExpressionHelper expressionHelper;
+    private AQR aqr;
+    private EPackage targetMetaModel;
+    private Map<EPackage, Resource> sourceModels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var models = new BenchmarkModels();
+        expressionHelper = models.getExpressionHelper();
+        aqr = models.parse(workload.query);
+        targetMetaModel = new MetaModelGenerator(aqr).generate().pack();
+        sourceModels = new HashMap<>();
+        sourceModels.putAll(models.createRestaurants(size, Math.max(size / 10, 1), 10, 42));
+        sourceModels.putAll(models.createReviews(size / 2, 5, 42));
+        sourceModels.putAll(models.createLibrary(size, size / 2, Math.max(size / 10, 1), 42));
+    }
+
+    @Benchmark
+    public EObject transform() {
+        return new Transformator(expressionHelper, aqr, targetMetaModel, sourceModels).transform();
+    }
+
+}
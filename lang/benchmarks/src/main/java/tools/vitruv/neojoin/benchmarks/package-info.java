@@ -0,0 +1,4 @@
+@NullMarked
+package tools.vitruv.neojoin.benchmarks;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,74 @@
+package tools.vitruv.neojoin.cli;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.jspecify.annotations.NullUnmarked;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import tools.vitruv.neojoin.collector.InstanceModelCollector;
+import tools.vitruv.neojoin.collector.PackageModelCollector;
+import tools.vitruv.neojoin.utils.EMFUtils;
+import tools.vitruv.neojoin.utils.ResourceProfile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+import static tools.vitruv.neojoin.cli.Main.printError;
+
+@NullUnmarked
+@Command(
+    name = "convert",
+    mixinStandardHelpOptions = true,
+    description = "Convert an instance model between XMI and the binary format."
+)
+class Convert implements Callable<Integer>, PathArguments {
+
+    @Parameters(index = "0", paramLabel = "INPUT", description = "Path to the instance model to convert (.xmi or .xmib).")
+    Path input;
+
+    @Parameters(index = "1", paramLabel = "OUTPUT", description = "Path to write the converted instance model to. The format is determined by the file extension (.xmi or .xmib).")
+    Path output;
+
+    @Option(names = {"-m", "--meta-model-path"}, paramLabel = "MODEL-PATH", required = true, description = "Model path to find the meta-model of the instance model.")
+    String metaModelPath;
+
+    @Option(names = {"--resource-profile"}, paramLabel = "PROFILE", description = "Options for loading and saving models: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}).")
+    ResourceProfile resourceProfile = ResourceProfile.Default;
+
+    @Override
+    public void resolveAgainst(Path workingDirectory) {
+        input = PathArguments.resolve(workingDirectory, input);
+        output = PathArguments.resolve(workingDirectory, output);
+        metaModelPath = PathArguments.resolveModelPath(workingDirectory, metaModelPath);
+    }
+
+    @Override
+    public Integer call() {
+        try {
+            var collectionResult = new PackageModelCollector(metaModelPath, false, resourceProfile).collect();
+            collectionResult.left().forEach(System.err::println);
+
+            InstanceModelCollector.registerResourceFactories();
+            var resourceSet = new ResourceSetImpl();
+            resourceSet.setPackageRegistry(collectionResult.right());
+            resourceProfile.applyTo(resourceSet);
+            var resource = resourceSet.getResource(URI.createFileURI(input.toString()), true);
+
+            EMFUtils.save(URI.createFileURI(output.toString()), new ArrayList<>(resource.getContents()), resourceProfile);
+            return 0;
+        } catch (IllegalArgumentException ex) {
+            printError("Invalid meta-model path: %s", ex.getMessage());
+        } catch (IOException e) {
+            printError("Failed to write output: %s", e.getMessage());
+        } catch (WrappedException e) {
+            printError("Failed to read input model: %s", e.getMessage());
+        }
+
+        return 1;
+    }
+
+}
@@ -0,0 +1,290 @@
+package tools.vitruv.neojoin.cli;
+
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+import static tools.vitruv.neojoin.cli.Main.printError;
+
+/**
+ * Runs the CLI invocations sent by {@link DaemonClient clients} over a Unix domain socket in a long-lived process. The
+ * invocations skip the startup of the JVM and share the language setups and models loaded by previous invocations,
+ * see {@link ModelCache}.
+ * <p>
+ * Invocations are run one at a time. Their output is forwarded to the client while they run by redirecting
+ * {@link System#out} and {@link System#err}, and relative paths in their arguments are resolved against the working
+ * directory of the client, see {@link PathArguments}.
+ * <p>
+ * Protocol: The client sends its working directory, the number of arguments and the arguments as
+ * {@link DataOutputStream#writeUTF(String) UTF strings}. The daemon answers with messages that start with their
+ * kind: {@link #Out} and {@link #Err} are followed by the length and bytes of output, {@link #Exit} by the exit code,
+ * which ends the invocation.
+ */
+final class Daemon {
+
+    static final byte Out = 1;
+    static final byte Err = 2;
+    static final byte Exit = 3;
+
+    private static final Set<PosixFilePermission> PrivatePermissions = PosixFilePermissions.fromString("rwx------");
+
+    private final Path socket;
+    private final ModelCache cache = new ModelCache();
+
+    Daemon(Path socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Returns the socket that is used if none is given: {@code neojoin.socket} in the runtime directory of the user
+     * ({@code $XDG_RUNTIME_DIR}) or, if there is none, in the directory {@code neojoin-<user>} in the temporary
+     * directory. The daemon only listens on the default socket if only its user can access the directory.
+     */
+    static Path getDefaultSocket() {
+        var runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+        var directory = runtimeDirectory != null && !runtimeDirectory.isEmpty()
+            ? Path.of(runtimeDirectory)
+            : Path.of(System.getProperty("java.io.tmpdir"), "neojoin-" + System.getProperty("user.name"));
+        return directory.resolve("neojoin.socket");
+    }
+
+    /**
+     * Returns the user running this process, who owns the sockets the daemon listens on.
+     */
+    static UserPrincipal getCurrentUser() throws IOException {
+        return FileSystems.getDefault().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+    }
+
+    /**
+     * Listens on the socket until the process is terminated.
+     *
+     * @return exit code if the daemon cannot listen on the socket
+     */
+    int run() {
+        if (isListening(socket)) {
+            printError("Another daemon is listening on %s", socket);
+            return 1;
+        }
+
+        try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            if (socket.equals(getDefaultSocket())) {
+                preparePrivateDirectory(socket.getParent());
+            }
+            bind(server, socket);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    // the daemon terminates anyway
+                }
+            }));
+            System.out.printf("Listening on %s%n", socket);
+
+            while (true) {
+                try (var channel = server.accept()) {
+                    serve(channel);
+                } catch (IOException e) {
+                    printError("Failed to serve client: %s", e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            printError("Failed to listen on %s: %s", socket, e.getMessage());
+            return 1;
+        }
+    }
+
+    private static boolean isListening(Path socket) {
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the given directory if it does not exist and checks that only the current user can access it, so that
+     * nobody else can replace the socket in it.
+     */
+    private static void preparePrivateDirectory(Path directory) throws IOException {
+        if (!isPosix(directory)) {
+            return;
+        }
+
+        if (Files.notExists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory.toAbsolutePath().getParent());
+            try {
+                Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PrivatePermissions));
+            } catch (FileAlreadyExistsException e) {
+                // created concurrently, which is checked below
+            }
+        }
+
+        var attributes = Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isDirectory()
+            || !attributes.owner().equals(getCurrentUser())
+            || !attributes.permissions().equals(PrivatePermissions)) {
+            throw new IOException("%s must be a directory that only the current user can access".formatted(directory));
+        }
+    }
+
+    /**
+     * Invocations can read and write any file the daemon can access, so only its user may connect. Therefore, the
+     * socket is bound in a new private directory and restricted to the user before it is moved to the given path, so
+     * that it is never accessible by others.
+     */
+    private static void bind(ServerSocketChannel server, Path socket) throws IOException {
+        if (!isPosix(socket)) {
+            deleteStaleSocket(socket);
+            server.bind(UnixDomainSocketAddress.of(socket));
+            return;
+        }
+
+        var directory = socket.toAbsolutePath().getParent();
+        var staging = Files.createTempDirectory(directory, ".neojoin", PosixFilePermissions.asFileAttribute(PrivatePermissions));
+        var stagedSocket = staging.resolve("socket");
+        try {
+            server.bind(UnixDomainSocketAddress.of(stagedSocket));
+            Files.setPosixFilePermissions(stagedSocket, PosixFilePermissions.fromString("rw-------"));
+            deleteStaleSocket(socket);
+            Files.move(stagedSocket, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(stagedSocket);
+            Files.delete(staging);
+        }
+    }
+
+    /**
+     * Deletes the socket at the given path, which has been left behind by a daemon that has been killed. Anything
+     * else at the path, e.g. a file passed as the socket by mistake, is never deleted.
+     */
+    private static void deleteStaleSocket(Path socket) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (!attributes.isOther()) {
+            throw new IOException("%s exists and is not a socket".formatted(socket));
+        }
+        Files.delete(socket);
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private void serve(SocketChannel channel) throws IOException {
+        var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        Path workingDirectory;
+        String[] args;
+        try {
+            workingDirectory = Path.of(input.readUTF());
+            args = new String[input.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = input.readUTF();
+            }
+        } catch (EOFException e) {
+            return; // closed without a command, e.g. by another daemon checking whether the socket is in use
+        }
+
+        var output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        var out = new PrintStream(new ForwardingStream(output, Out), true, Charset.defaultCharset());
+        var err = new PrintStream(new ForwardingStream(output, Err), true, Charset.defaultCharset());
+
+        var systemOut = System.out;
+        var systemErr = System.err;
+        int exitCode;
+        System.setOut(out);
+        System.setErr(err);
+        try {
+            exitCode = execute(workingDirectory, args);
+        } finally {
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+        }
+
+        out.flush();
+        err.flush();
+        synchronized (output) {
+            output.writeByte(Exit);
+            output.writeInt(exitCode);
+            output.flush();
+        }
+    }
+
+    private int execute(Path workingDirectory, String[] args) {
+        var commandLine = new CommandLine(new Main(cache));
+        commandLine.setOut(new PrintWriter(System.out, true));
+        commandLine.setErr(new PrintWriter(System.err, true));
+        commandLine.setExecutionStrategy(parseResult -> {
+            for (var command : parseResult.asCommandLineList()) {
+                if (command.getCommand() instanceof PathArguments arguments) {
+                    arguments.resolveAgainst(workingDirectory);
+                }
+            }
+            return new CommandLine.RunLast().execute(parseResult);
+        });
+        return commandLine.execute(args);
+    }
+
+    /**
+     * Forwards the output written to it as messages of the given kind. Output can be written concurrently, e.g. by the
+     * queries of a batch, so messages are written atomically.
+     */
+    private static final class ForwardingStream extends OutputStream {
+
+        private final DataOutputStream output;
+        private final byte kind;
+
+        ForwardingStream(DataOutputStream output, byte kind) {
+            this.output = output;
+            this.kind = kind;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (output) {
+                output.writeByte(kind);
+                output.writeInt(len);
+                output.write(b, off, len);
+                output.flush();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package tools.vitruv.neojoin.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.List;
+
+import static tools.vitruv.neojoin.cli.Main.printError;
+
+/**
+ * Sends a CLI invocation to a {@link Daemon} and prints its output. The client does not load any models or language
+ * infrastructure, so it starts as fast as the JVM.
+ */
+final class DaemonClient {
+
+    private DaemonClient() {}
+
+    /**
+     * Runs the given arguments on the daemon listening on the given socket. The arguments and the output may contain
+     * sensitive data, so the socket must be owned by the current user.
+     *
+     * @return exit code of the invocation
+     */
+    static int run(Path socket, List<String> args) {
+        try {
+            var owner = Files.getOwner(socket, LinkOption.NOFOLLOW_LINKS);
+            if (!owner.equals(Daemon.getCurrentUser())) {
+                printError("Refusing to run on daemon at %s: the socket is owned by %s", socket, owner.getName());
+                return 1;
+            }
+        } catch (UnsupportedOperationException e) {
+            // the file system does not support owners
+        } catch (IOException e) {
+            printError("Failed to run on daemon at %s (start it with --daemon): %s", socket, e.getMessage());
+            return 1;
+        }
+
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            var output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            output.writeUTF(Path.of("").toAbsolutePath().toString());
+            output.writeInt(args.size());
+            for (var arg : args) {
+                output.writeUTF(arg);
+            }
+            output.flush();
+
+            var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            while (true) {
+                var kind = input.readByte();
+                switch (kind) {
+                    case Daemon.Out, Daemon.Err -> {
+                        var bytes = new byte[input.readInt()];
+                        input.readFully(bytes);
+                        var stream = kind == Daemon.Out ? System.out : System.err;
+                        stream.write(bytes);
+                        stream.flush();
+                    }
+                    case Daemon.Exit -> {
+                        return input.readInt();
+                    }
+                    default -> throw new IOException("Unexpected message from daemon: " + kind);
+                }
+            }
+        } catch (IOException e) {
+            printError("Failed to run on daemon at %s (start it with --daemon): %s", socket, e.getMessage());
+            return 1;
+        }
+    }
+
+}
@@ -1,41 +1,44 @@
 package tools.vitruv.neojoin.cli;
 
-import org.eclipse.emf.common.util.Diagnostic;
-import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.common.util.WrappedException;
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
-import org.eclipse.emf.ecore.util.Diagnostician;
-import org.eclipse.xtext.validation.Issue;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.jspecify.annotations.NullUnmarked;
 import org.jspecify.annotations.Nullable;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
-import tools.vitruv.neojoin.NeoJoinStandaloneSetup;
-import tools.vitruv.neojoin.Parser;
-import tools.vitruv.neojoin.SourceLocation;
+import picocli.CommandLine.Spec;
+import tools.vitruv.neojoin.cache.QueryCache;
 import tools.vitruv.neojoin.collector.InstanceModelCollector;
-import tools.vitruv.neojoin.collector.PackageModelCollector;
-import tools.vitruv.neojoin.generation.MetaModelGenerator;
-import tools.vitruv.neojoin.transformation.Transformator;
-import tools.vitruv.neojoin.transformation.TransformatorException;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
 import tools.vitruv.neojoin.utils.EMFUtils;
-import tools.vitruv.neojoin.utils.Utils;
+import tools.vitruv.neojoin.utils.ResourceProfile;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 
 @NullUnmarked
 @Command(
     name = "neojoin",
     version = "NeoJoin CLI 1.0.0",
     mixinStandardHelpOptions = true,
+    subcommands = {Convert.class, Synthesize.class},
     footer = {
         "",
         "Model Path",
@@ -45,14 +48,46 @@ import java.util.concurrent.Callable;
         "  - Linux: /path/to/directory;/path/to/file.ecore",
         "  - Windows: C:\\path\\to\\directory;C:/path/to/file.ecore",
     })
-public class Main implements Callable<Integer> {
+public class Main implements Callable<Integer>, PathArguments {
 
-    @Parameters(index = "0", paramLabel = "QUERY", description = "Path to the query file.")
-    Path queryFile;
+    @Spec
+    CommandSpec spec;
 
-    @Option(names = {"-m", "--meta-model-path"}, paramLabel = "MODEL-PATH", required = true, description = "Model path (see below) to find referenced meta-models (.ecore).")
+    // QUERY and --meta-model-path are required unless a subcommand is given, which picocli cannot express
+    @Parameters(arity = "0..*", paramLabel = "QUERY", description = "Path to a query file, a directory with query files or a glob pattern like 'queries/*.nj'. Multiple queries are run in one batch that loads the models only once. Required unless a command is given.")
+    List<String> queries = List.of();
+
+    @Option(names = {"-m", "--meta-model-path"}, paramLabel = "MODEL-PATH", description = "Model path (see below) to find referenced meta-models (.ecore). Required unless a command is given.")
     String metaModelPath;
 
+    @Option(names = {"--parallel-loading"}, description = "Load the meta-models and instance models from the model paths concurrently.")
+    boolean parallelLoading;
+
+    @Option(names = {"--resource-profile"}, paramLabel = "PROFILE", description = "Options for loading and saving models: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}). Throughput speeds up large models.")
+    ResourceProfile resourceProfile = ResourceProfile.Default;
+
+    @Option(names = {"--metrics"}, paramLabel = "FORMAT", description = "Record the duration of every phase, the rows of every operator and the evaluations of every expression and write a summary in the given format (${COMPLETION-CANDIDATES}) to a file named after the query in the working directory. The metrics are also recorded as JFR events when a flight recording is running.")
+    @Nullable
+    MetricsFormat metricsFormat;
+
+    // lowercase to match the format on the command line
+    enum MetricsFormat {
+        json
+    }
+
+    @Option(names = {"--query-cache"}, paramLabel = "DIR", description = "Store the issues and the generated meta-model of every query in the given directory. Queries are not validated again, and not parsed again unless they are transformed, as long as they, the meta-models they depend on and NeoJoin are unchanged.")
+    @Nullable
+    Path queryCache;
+
+    // handled in main() before the arguments are parsed, only declared for the usage help
+    @Option(names = {"--connect"}, paramLabel = "SOCKET", arity = "0..1", fallbackValue = "", description = "Run the command on the daemon listening on the given socket (default: neojoin.socket in $XDG_RUNTIME_DIR or in a private neojoin-<user> directory in the temporary directory). Must be the first argument.")
+    @Nullable
+    String connect;
+
+    @Option(names = {"--daemon"}, paramLabel = "SOCKET", arity = "0..1", fallbackValue = "", description = "Run as a daemon that listens on the given socket (default: see --connect) for commands sent with --connect. The daemon keeps the language setup and the models loaded by previous commands and reloads models whose files have changed.")
+    @Nullable
+    String daemon;
+
 
     @ArgGroup(exclusive = false, heading = "Generate the meta-model:%n")
     @Nullable
@@ -72,12 +107,67 @@ public class Main implements Callable<Integer> {
 
     static class Transform {
 
-        @Option(names = {"-i", "--instance-model-path"}, paramLabel = "MODEL-PATH", required = true, description = "Model path (see below) to find instance models (.xmi).")
+        @Option(names = {"-i", "--instance-model-path"}, paramLabel = "MODEL-PATH", required = true, description = "Model path (see below) to find instance models (.xmi or .xmib).")
         String instanceModelPath;
 
-        @Option(names = {"-t", "--transform"}, paramLabel = "OUTPUT", required = true, description = "Transform the input models based on the query and write the result to the given output file or directory.")
+        @Option(names = {"-t", "--transform"}, paramLabel = "OUTPUT", description = "Transform the input models based on the query and write the result to the given output file or directory. The result is written in the binary format if the file extension is .xmib. Required unless --explain or --explain-analyze is given.")
+        @Nullable
         Path output;
 
+        @Option(names = {"-p", "--parallel"}, description = "Transform independent target classes concurrently.")
+        boolean parallel;
+
+        @Option(names = {"-j", "--jobs"}, paramLabel = "N", description = "Number of queries that are transformed concurrently when multiple queries are given (default: number of processors). Queries are transformed one after another with --streaming.")
+        int jobs = Runtime.getRuntime().availableProcessors();
+
+        @Option(names = {"--streaming"}, description = "Do not load the XMI instance models up front. The source instances of target classes that only read attributes and contained objects are streamed from the files, other instance models are loaded when needed.")
+        boolean streaming;
+
+        @Option(names = {"--explain"}, description = "Print the operators that compute the source instances of every target class.")
+        boolean explain;
+
+        @Option(names = {"--explain-analyze"}, description = "Transform the input models and print the operators of every target class with their number of rows, expression evaluations and execution time as well as the size of the mapping from source to target instances.")
+        boolean explainAnalyze;
+
+    }
+
+    /**
+     * Cache of the daemon that runs this command or {@code null} if the command is run directly.
+     */
+    private final @Nullable ModelCache cache;
+
+    /**
+     * Directory against which the metrics files are written.
+     */
+    private Path workingDirectory = Path.of("");
+
+    public Main() {
+        this(null);
+    }
+
+    Main(@Nullable ModelCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void resolveAgainst(Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+        queries = queries.stream().map(query -> PathArguments.resolve(workingDirectory, query)).toList();
+        if (metaModelPath != null) {
+            metaModelPath = PathArguments.resolveModelPath(workingDirectory, metaModelPath);
+        }
+        if (queryCache != null) {
+            queryCache = PathArguments.resolve(workingDirectory, queryCache);
+        }
+        if (generate != null) {
+            generate.output = PathArguments.resolve(workingDirectory, generate.output);
+        }
+        if (transform != null) {
+            transform.instanceModelPath = PathArguments.resolveModelPath(workingDirectory, transform.instanceModelPath);
+            if (transform.output != null) {
+                transform.output = PathArguments.resolve(workingDirectory, transform.output);
+            }
+        }
     }
 
     /**
@@ -87,17 +177,60 @@ public class Main implements Callable<Integer> {
      */
     @Override
     public Integer call() {
+        if (connect != null) {
+            throw new ParameterException(spec.commandLine(), cache != null
+                ? "Cannot connect to a daemon from a daemon"
+                : "--connect must be the first argument");
+        }
+        if (daemon != null) {
+            if (cache != null) {
+                throw new ParameterException(spec.commandLine(), "Already running as a daemon");
+            }
+            return new Daemon(getSocket(daemon)).run();
+        }
+
+        if (metaModelPath == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required option: '--meta-model-path=MODEL-PATH'");
+        }
+        if (queries.isEmpty()) {
+            throw new ParameterException(spec.commandLine(), "Missing required parameter: 'QUERY'");
+        }
+
+        List<Path> queryFiles;
+        try {
+            queryFiles = QueryFiles.resolve(queries);
+        } catch (IllegalArgumentException e) {
+            printError("Invalid query: %s", e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            printError("Failed to find queries: %s", e.getMessage());
+            return 1;
+        }
+
+        var batch = queryFiles.size() > 1;
+        if (batch && !prepareBatchOutputs(queryFiles)) {
+            return 1;
+        }
+        var runs = queryFiles.stream()
+            .map(queryFile -> new QueryRun(this, queryFile, Metrics.create(metricsFormat != null), batch))
+            .toList();
+
         try {
-            return execute();
+            // in a batch, the shared phases are not attributed to any query
+            var sharedMetrics = batch ? Metrics.create(false) : runs.get(0).getMetrics();
+            execute(runs, sharedMetrics);
+            if (metricsFormat != null) {
+                for (var run : runs) {
+                    var metricsFile = QueryRun.getOutputFileName(run.getQueryFile(), "metrics.json");
+                    run.getMetrics().writeJson(workingDirectory.resolve(metricsFile));
+                }
+            }
+            if (batch) {
+                printBatchResults(runs);
+            }
+            return runs.stream().anyMatch(run -> run.getExitCode() != 0) ? 1 : 0;
         } catch (IllegalArgumentException ex) {
             printError("Invalid meta-model path: %s", ex.getMessage());
-        } catch (TransformatorException e) {
-            var source = e.getSourceLocation();
-            if (source != null) {
-                printError("%s (%s)", e.getMessage(), source.display());
-            } else {
-                printError(e.getMessage());
-            }
         } catch (IOException e) {
             printError("Failed to write output: %s", e.getMessage());
         } catch (WrappedException e) {
@@ -107,6 +240,54 @@ public class Main implements Callable<Integer> {
         return 1;
     }
 
+    /**
+     * Checks that the queries of a batch are named differently if their outputs are named after them and creates the
+     * output directories, in which every query writes its own output files.
+     *
+     * @return whether the outputs are valid
+     */
+    private boolean prepareBatchOutputs(List<Path> queryFiles) {
+        var outputs = new ArrayList<Path>();
+        if (generate != null) {
+            outputs.add(generate.output);
+        }
+        if (transform != null && transform.output != null) {
+            outputs.add(transform.output);
+        }
+
+        if (!outputs.isEmpty() || metricsFormat != null) {
+            var names = new HashSet<String>();
+            for (var queryFile : queryFiles) {
+                if (!names.add(queryFile.getFileName().toString())) {
+                    printError("Multiple queries named '%s' would write to the same output files", queryFile.getFileName());
+                    return false;
+                }
+            }
+        }
+
+        for (var output : outputs) {
+            if (Files.exists(output) && !Files.isDirectory(output)) {
+                printError("Output must be a directory when multiple queries are given: %s", output);
+                return false;
+            }
+            try {
+                Files.createDirectories(output);
+            } catch (IOException e) {
+                printError("Failed to create output directory: %s", e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void printBatchResults(List<QueryRun> runs) {
+        var failed = runs.stream().filter(run -> run.getExitCode() != 0).count();
+        System.out.printf("==> %d queries, %d failed <==%n", runs.size(), failed);
+        for (var run : runs) {
+            System.out.printf("%d %s%n", run.getExitCode(), run.getQueryFile());
+        }
+    }
+
     /**
      * Prints an error message with optional formatting arguments.
      *
@@ -114,133 +295,140 @@ public class Main implements Callable<Integer> {
      * @param args    formatting arguments
      * @see java.io.PrintStream#printf(String, Object...)
      */
-    private void printError(String message, @Nullable Object... args) {
-        System.err.print("[ERROR] ");
-        System.err.printf(message, args);
-        System.err.println();
+    static void printError(String message, @Nullable Object... args) {
+        printError(System.err, message, args);
+    }
+
+    /**
+     * Same as {@link #printError(String, Object...)}, but prints to the given stream.
+     */
+    static void printError(PrintStream stream, String message, @Nullable Object... args) {
+        stream.print("[ERROR] ");
+        stream.printf(message, args);
+        stream.println();
     }
 
     /**
-     * Execute the CLI operation.
+     * Execute the CLI operation for all queries. The meta-models, the parser and the instance models are shared by
+     * all queries. Queries are parsed one after another, but transformed concurrently.
      *
-     * @return exit code
+     * @param metrics metrics to record the shared phases in or {@code null}
      */
-    private int execute() throws IOException {
+    private void execute(List<QueryRun> runs, @Nullable Metrics metrics) {
         // collect available meta-models
-        var collectionResult = new PackageModelCollector(metaModelPath).collect();
-        List<PackageModelCollector.Issue> issues = collectionResult.left();
-        EPackage.Registry registry = collectionResult.right();
-
-        issues.forEach(System.err::println);
-
-        // parse query
-        var setup = new NeoJoinStandaloneSetup(registry);
-        var result = setup.getParser().parse(URI.createFileURI(queryFile.toString()));
-
-        printIssues(result.issues());
-
-        if (result instanceof Parser.Result.Failure) {
-            return 1;
+        ModelCache.MetaModels metaModels;
+        try (var phase = Metrics.startPhase(metrics, "collect-meta-models")) {
+            metaModels = cache != null
+                ? cache.getMetaModels(metaModelPath, parallelLoading, resourceProfile)
+                : ModelCache.MetaModels.collect(metaModelPath, parallelLoading, resourceProfile);
         }
+        EPackage.Registry registry = metaModels.getRegistry();
 
-        if (generate == null && transform == null) {
-            // neither generation nor transformation requested
-            System.out.println("Query is valid. Use --generate or --transform for further processing.");
-            return 0;
-        }
-
-        var aqr = ((Parser.Result.Success) result).aqr();
+        metaModels.getIssues().forEach(System.err::println);
 
-        // generate meta-model
-        var targetMetaModel = new MetaModelGenerator(aqr).generate();
-        printIssues(targetMetaModel.diagnostic());
-        if (generate != null) {
-            EMFUtils.save(getOutputURI(generate.output, "ecore"), targetMetaModel.pack());
+        // parse queries, each with its own parser so that queries cannot refer to each other
+        var queryResults = queryCache != null ? new QueryCache(queryCache, registry) : null;
+        var parsed = new ArrayList<QueryRun>();
+        for (var run : runs) {
+            if (run.parse(() -> metaModels.getSetup().getParser(), queryResults)) {
+                parsed.add(run);
+            } else {
+                run.report();
+            }
         }
 
-        if (transform != null) {
-            // transform instance models
-            var inputModels = new InstanceModelCollector(transform.instanceModelPath, registry).collect();
-            var targetInstanceModel = new Transformator(
-                setup.getExpressionHelper(),
-                aqr,
-                targetMetaModel.pack(),
-                inputModels
-            ).transform();
-            EMFUtils.save(getOutputURI(transform.output, "xmi"), targetInstanceModel);
-            validateInstanceModel(targetInstanceModel);
+        if (parsed.isEmpty()) {
+            return;
         }
 
-        return 0;
-    }
-
-    private static void printIssues(List<Issue> issues) {
-        for (Issue issue : issues) {
-            System.err.printf(
-                "[%s] %s (%s)%n",
-                issue.getSeverity().name(),
-                issue.getMessage(),
-                SourceLocation.from(issue).display()
-            );
+        // transform instance models
+        var collector = new InstanceModelCollector(transform.instanceModelPath, registry, parallelLoading, resourceProfile);
+        Map<EPackage, Resource> inputModels;
+        try (var phase = Metrics.startPhase(metrics, "collect-instance-models")) {
+            if (transform.streaming) {
+                inputModels = collector.collectDeferred();
+            } else if (cache != null) {
+                inputModels = cache.getInstanceModels(transform.instanceModelPath, metaModels, parallelLoading, resourceProfile);
+            } else {
+                inputModels = collector.collect();
+            }
         }
+        transformAll(parsed, metaModels.getSetup().getExpressionHelper(), inputModels);
     }
 
-    private static void printIssues(Diagnostic rootDiagnostic) {
-        if (rootDiagnostic.getSeverity() == Diagnostic.OK) {
+    /**
+     * Transforms the given queries with up to {@link Transform#jobs} queries at a time. The queries only read the
+     * instance models, which are therefore prepared for concurrent access once for all queries. Deferred instance
+     * models are loaded on first access, so queries are transformed one after another when streaming.
+     */
+    private void transformAll(List<QueryRun> runs, ExpressionHelper expressionHelper, Map<EPackage, Resource> inputModels) {
+        var jobs = transform.streaming ? 1 : Math.min(transform.jobs, runs.size());
+        if (jobs <= 1) {
+            for (var run : runs) {
+                try {
+                    run.transform(expressionHelper, inputModels);
+                } finally {
+                    run.report();
+                }
+            }
             return;
         }
 
-        rootDiagnostic.getChildren().forEach(d ->
-            System.err.printf("[%s] %s%n", EMFUtils.diagnosticSeverityText(d), d.getMessage())
-        );
+        inputModels.values().forEach(EcoreUtil::resolveAll);
+        inputModels.keySet().forEach(EMFUtils::prepareConcurrentAccess);
+
+        try (var executor = Executors.newFixedThreadPool(jobs)) {
+            var futures = runs.stream()
+                .map(run -> executor.submit(() -> {
+                    try {
+                        run.transform(expressionHelper, inputModels);
+                    } finally {
+                        run.report();
+                    }
+                }))
+                .toList();
+            for (var future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * Infer the output file URI based on the given output path and file extension.
-     *
-     * @param output    the output path (file or directory)
-     * @param extension file extension of the output file
-     * @return the output file URI
+     * Returns the socket given to --daemon or --connect, which is empty if none is given.
      */
-    private URI getOutputURI(Path output, String extension) {
-        if (Files.isDirectory(output)) { // if output is given as directory, infer file name from input file
-            String outputFileName = Utils.removeSuffix(queryFile.getFileName().toString(), ".nj") + "." + extension;
-            output = output.resolve(outputFileName);
-        }
-
-        return URI.createFileURI(output.toString());
+    private static Path getSocket(String socket) {
+        return socket.isEmpty() ? Daemon.getDefaultSocket() : Path.of(socket);
     }
 
     /**
-     * Validate the given instance model and print any validation issues.
-     *
-     * @param instanceModel the instance model to validate
+     * Sends the arguments following --connect to the daemon. Like picocli does for options with an optional value,
+     * the socket is either attached with {@code =} or given as the next argument unless that is an option.
      */
-    private void validateInstanceModel(EObject instanceModel) {
-        var rootDiagnostic = Diagnostician.INSTANCE.validate(instanceModel);
-        if (rootDiagnostic.getSeverity() == Diagnostic.OK) {
-            return;
-        }
-
-        System.err.println("[WARNING] Generated instance model failed validation:");
-        for (var diagnostic : rootDiagnostic.getChildren()) {
-            if (diagnostic.getSeverity() != Diagnostic.OK) {
-                System.err.printf("[%s] %s%n", getSeverityString(diagnostic), diagnostic.getMessage());
-            }
+    static int connect(String[] args) {
+        var socket = "";
+        var forwarded = 1;
+        if (args[0].startsWith("--connect=")) {
+            socket = args[0].substring("--connect=".length());
+        } else if (args.length > 1 && !args[1].startsWith("-")) {
+            socket = args[1];
+            forwarded = 2;
         }
-    }
-
-    private String getSeverityString(Diagnostic diagnostic) {
-        return switch (diagnostic.getSeverity()) {
-            case Diagnostic.OK -> "OK";
-            case Diagnostic.INFO -> "INFO";
-            case Diagnostic.WARNING -> "WARNING";
-            case Diagnostic.ERROR -> "ERROR";
-            default -> "UNKNOWN";
-        };
+        return DaemonClient.run(getSocket(socket), List.of(args).subList(forwarded, args.length));
     }
 
     public static void main(String[] args) {
+        // the client only forwards the arguments, so they are not parsed and the language is not initialized
+        if (args.length > 0 && (args[0].equals("--connect") || args[0].startsWith("--connect="))) {
+            System.exit(connect(args));
+        }
         System.exit(new CommandLine(new Main()).execute(args));
     }
 
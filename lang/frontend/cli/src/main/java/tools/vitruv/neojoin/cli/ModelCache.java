@@ -0,0 +1,216 @@
+package tools.vitruv.neojoin.cli;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.NeoJoinStandaloneSetup;
+import tools.vitruv.neojoin.collector.InstanceModelCollector;
+import tools.vitruv.neojoin.collector.PackageModelCollector;
+import tools.vitruv.neojoin.utils.ResourceProfile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the meta-models, language setups and instance models of previous CLI invocations of a {@link Daemon}, so
+ * that invocations with the same model paths skip loading them again.
+ * <p>
+ * Meta-models are reloaded together with their language setup if any file on their model path has been added,
+ * removed or modified since they have been loaded. Instance models are reloaded per file: a modified instance model is
+ * unloaded and loaded again on the next collection, while all other instance models on the model path stay loaded.
+ * Files are considered modified if their modification time or size has changed. The least recently used model paths
+ * are evicted when more than {@link #MaxEntries} are cached.
+ * <p>
+ * The cache is not thread-safe, the daemon runs one invocation at a time.
+ */
+final class ModelCache {
+
+    static final int MaxEntries = 4;
+
+    /**
+     * Meta-models collected from a model path with the language setup for queries on them, which is created on first
+     * use.
+     */
+    static final class MetaModels {
+
+        private final List<PackageModelCollector.Issue> issues;
+        private final EPackage.Registry registry;
+        private @Nullable NeoJoinStandaloneSetup setup;
+
+        private MetaModels(List<PackageModelCollector.Issue> issues, EPackage.Registry registry) {
+            this.issues = issues;
+            this.registry = registry;
+        }
+
+        static MetaModels collect(String modelPath, boolean parallel, ResourceProfile profile) {
+            var collectionResult = new PackageModelCollector(modelPath, parallel, profile).collect();
+            return new MetaModels(collectionResult.left(), collectionResult.right());
+        }
+
+        List<PackageModelCollector.Issue> getIssues() {
+            return issues;
+        }
+
+        EPackage.Registry getRegistry() {
+            return registry;
+        }
+
+        NeoJoinStandaloneSetup getSetup() {
+            if (setup == null) {
+                setup = new NeoJoinStandaloneSetup(registry);
+            }
+            return setup;
+        }
+
+    }
+
+    private record Key(String modelPath, ResourceProfile profile) {}
+
+    /**
+     * Size and modification time of a file to detect modifications.
+     */
+    private record FileState(long size, FileTime modified) {
+
+        static @Nullable FileState of(Path file) {
+            try {
+                var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(attributes.size(), attributes.lastModifiedTime());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+    }
+
+    private record MetaModelEntry(MetaModels metaModels, Map<Path, FileState> files) {}
+
+    /**
+     * Instance models loaded for the given meta-models and the states of their files when they have been loaded.
+     */
+    private record InstanceModelEntry(MetaModels metaModels, ResourceSet resourceSet, Map<URI, FileState> files) {}
+
+    private final Map<Key, MetaModelEntry> metaModels = createLRUMap();
+    private final Map<Key, InstanceModelEntry> instanceModels = createLRUMap();
+
+    private static <K, V> Map<K, V> createLRUMap() {
+        return new LinkedHashMap<>(MaxEntries + 1, 1, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MaxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the meta-models on the given model path, which are only collected again if a file on the model path has
+     * changed.
+     *
+     * @throws IllegalArgumentException if the model path contains files or directories that do not exist
+     */
+    MetaModels getMetaModels(String modelPath, boolean parallel, ResourceProfile profile) {
+        var key = new Key(modelPath, profile);
+        var files = getFileStates(modelPath);
+        var entry = metaModels.get(key);
+        if (entry == null || !entry.files().equals(files)) {
+            entry = new MetaModelEntry(MetaModels.collect(modelPath, parallel, profile), files);
+            metaModels.put(key, entry);
+        }
+        return entry.metaModels();
+    }
+
+    /**
+     * Returns the instance models on the given model path like {@link InstanceModelCollector#collect()}. Instance
+     * models that have been loaded for the same meta-models before are reused unless their file has changed.
+     */
+    Map<EPackage, Resource> getInstanceModels(
+        String modelPath,
+        MetaModels metaModels,
+        boolean parallel,
+        ResourceProfile profile
+    ) {
+        var key = new Key(modelPath, profile);
+        var entry = instanceModels.get(key);
+        if (entry == null || entry.metaModels() != metaModels) {
+            entry = new InstanceModelEntry(metaModels, new ResourceSetImpl(), new HashMap<>());
+            instanceModels.put(key, entry);
+        } else {
+            unloadModified(entry);
+        }
+
+        var models = new InstanceModelCollector(modelPath, metaModels.getRegistry(), parallel, profile)
+            .collect(entry.resourceSet());
+        for (var resource : entry.resourceSet().getResources()) {
+            var file = getLocalFile(resource.getURI());
+            var state = file != null ? FileState.of(file) : null;
+            if (state != null) {
+                entry.files().putIfAbsent(resource.getURI(), state);
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Unloads and removes the resources whose file has changed since it has been loaded, so that it is loaded again.
+     * References from other resources to their objects become proxies, which are resolved to the reloaded objects.
+     */
+    private static void unloadModified(InstanceModelEntry entry) {
+        var modified = new ArrayList<Resource>();
+        for (var resource : entry.resourceSet().getResources()) {
+            var loadedState = entry.files().get(resource.getURI());
+            var file = getLocalFile(resource.getURI());
+            if (loadedState == null || file == null || !loadedState.equals(FileState.of(file))) {
+                modified.add(resource);
+            }
+        }
+        for (var resource : modified) {
+            resource.unload();
+            entry.resourceSet().getResources().remove(resource);
+            entry.files().remove(resource.getURI());
+        }
+    }
+
+    /**
+     * Returns the file that contains the model with the given URI, which is an archive for models in archives, or
+     * {@code null} if the model is not stored in a local file.
+     */
+    private static @Nullable Path getLocalFile(URI uri) {
+        if (uri.isArchive()) {
+            var authority = uri.authority();
+            return getLocalFile(URI.createURI(authority.substring(0, authority.length() - 1))); // strip trailing '!'
+        }
+        return uri.isFile() ? Path.of(uri.toFileString()) : null;
+    }
+
+    private static Map<Path, FileState> getFileStates(String modelPath) {
+        var states = new HashMap<Path, FileState>();
+        for (var path : modelPath.split(";")) {
+            try (var files = Files.walk(Path.of(path))) {
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    var state = FileState.of(file);
+                    if (state != null) {
+                        states.put(file, state);
+                    }
+                });
+            } catch (NoSuchFileException e) {
+                throw new IllegalArgumentException("File or directory does not exist: " + path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return states;
+    }
+
+}
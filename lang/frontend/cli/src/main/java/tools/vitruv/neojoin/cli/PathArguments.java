@@ -0,0 +1,40 @@
+package tools.vitruv.neojoin.cli;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * A command whose arguments contain paths, which the {@link Daemon} resolves against the working directory of the
+ * client before the command is run.
+ */
+interface PathArguments {
+
+    /**
+     * Resolves all relative paths in the arguments against the given absolute directory.
+     */
+    void resolveAgainst(Path workingDirectory);
+
+    static Path resolve(Path workingDirectory, Path path) {
+        return workingDirectory.resolve(path);
+    }
+
+    /**
+     * Same as {@link #resolve(Path, Path)} for a path that may contain glob patterns, which are not valid paths on all
+     * platforms.
+     */
+    static String resolve(Path workingDirectory, String path) {
+        return new File(path).isAbsolute() ? path : new File(workingDirectory.toFile(), path).getPath();
+    }
+
+    /**
+     * Resolves every path of a model path, see {@link Main}.
+     */
+    static String resolveModelPath(Path workingDirectory, String modelPath) {
+        return Arrays.stream(modelPath.split(";"))
+            .map(path -> resolve(workingDirectory, path))
+            .collect(Collectors.joining(";"));
+    }
+
+}
@@ -0,0 +1,85 @@
+package tools.vitruv.neojoin.cli;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static tools.vitruv.neojoin.utils.Assertions.require;
+
+/**
+ * Resolves the {@code QUERY} arguments of the CLI to query files. Every argument is either
+ * <ul>
+ *     <li>a query file,</li>
+ *     <li>a directory, which stands for all query files in it and its subdirectories, or</li>
+ *     <li>a glob pattern like {@code queries/*.nj} or {@code queries/**.nj}, which is matched against the paths
+ *     relative to the directory in front of the first wildcard.</li>
+ * </ul>
+ * Glob patterns are useful on shells that do not expand them and when the number of query files exceeds the limits
+ * of the command line.
+ */
+final class QueryFiles {
+
+    static final String FileExtension = "nj";
+
+    private static final Pattern Wildcard = Pattern.compile("[*?\\[{]");
+
+    private QueryFiles() {}
+
+    /**
+     * Returns the query files of the given arguments in the order of the arguments, files of a directory or pattern
+     * are sorted by their path. Files that are given multiple times are only returned once.
+     *
+     * @throws IllegalArgumentException if a query file does not exist or a directory or pattern contains no query
+     *                                  files
+     */
+    static List<Path> resolve(List<String> arguments) throws IOException {
+        var files = new LinkedHashSet<Path>();
+        for (var argument : arguments) {
+            var wildcard = Wildcard.matcher(argument);
+            if (wildcard.find()) {
+                files.addAll(glob(argument, wildcard.start()));
+            } else if (Files.isDirectory(Path.of(argument))) {
+                var found = find(Path.of(argument), QueryFiles::isQueryFile);
+                require(!found.isEmpty(), () -> "No query files in directory '%s'".formatted(argument));
+                files.addAll(found);
+            } else {
+                require(Files.isRegularFile(Path.of(argument)), () -> "File does not exist: %s".formatted(argument));
+                files.add(Path.of(argument));
+            }
+        }
+        return List.copyOf(files);
+    }
+
+    private static List<Path> glob(String pattern, int wildcard) throws IOException {
+        var separator = Math.max(pattern.lastIndexOf('/', wildcard), pattern.lastIndexOf('\\', wildcard));
+        var base = Path.of(separator >= 0 ? pattern.substring(0, separator + 1) : ".");
+        var matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(separator + 1));
+
+        var found = Files.isDirectory(base)
+            ? find(base, file -> matcher.matches(base.relativize(file)))
+            : List.<Path>of();
+        require(!found.isEmpty(), () -> "No files match '%s'".formatted(pattern));
+        return found;
+    }
+
+    private static List<Path> find(Path directory, Predicate<Path> filter) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(filter)
+                .map(Path::normalize)
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static boolean isQueryFile(Path file) {
+        return file.getFileName().toString().endsWith("." + FileExtension);
+    }
+
+}
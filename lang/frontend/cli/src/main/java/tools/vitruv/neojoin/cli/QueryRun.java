@@ -0,0 +1,358 @@
+package tools.vitruv.neojoin.cli;
+
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.Diagnostician;
+import org.eclipse.xtext.validation.Issue;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.Parser;
+import tools.vitruv.neojoin.SourceLocation;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.aqr.AQRImport;
+import tools.vitruv.neojoin.cache.QueryCache;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.generation.ModelInfo;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
+import tools.vitruv.neojoin.transformation.Explainer;
+import tools.vitruv.neojoin.transformation.Transformator;
+import tools.vitruv.neojoin.transformation.TransformatorException;
+import tools.vitruv.neojoin.utils.EMFUtils;
+import tools.vitruv.neojoin.utils.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static tools.vitruv.neojoin.cli.Main.printError;
+
+/**
+ * A single query of a CLI invocation, which is {@link #parse(Parser) parsed} and then
+ * {@link #transform(ExpressionHelper, Map) transformed} with the meta-models and instance models shared by all
+ * queries of the invocation.
+ * <p>
+ * The messages of a query in a batch of multiple queries are buffered until the query is {@link #report() reported},
+ * so that queries can be transformed concurrently without mixing their messages.
+ */
+final class QueryRun {
+
+    private final Main options;
+    private final Path queryFile;
+    private final @Nullable Metrics metrics;
+
+    private final @Nullable ByteArrayOutputStream outBuffer;
+    private final @Nullable ByteArrayOutputStream errBuffer;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    private @Nullable AQR aqr;
+    private @Nullable ModelInfo targetMetaModel;
+    private int exitCode;
+
+    /**
+     * @param options  options of the CLI invocation
+     * @param buffered whether the messages are buffered until the query is {@link #report() reported} instead of
+     *                 printed right away
+     */
+    QueryRun(Main options, Path queryFile, @Nullable Metrics metrics, boolean buffered) {
+        this.options = options;
+        this.queryFile = queryFile;
+        this.metrics = metrics;
+        if (buffered) {
+            this.outBuffer = new ByteArrayOutputStream();
+            this.errBuffer = new ByteArrayOutputStream();
+            this.out = new PrintStream(outBuffer, true, Charset.defaultCharset());
+            this.err = new PrintStream(errBuffer, true, Charset.defaultCharset());
+        } else {
+            this.outBuffer = null;
+            this.errBuffer = null;
+            this.out = System.out;
+            this.err = System.err;
+        }
+    }
+
+    Path getQueryFile() {
+        return queryFile;
+    }
+
+    @Nullable
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns 0 if the query has been processed successfully, 1 otherwise.
+     */
+    int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Parses the query and generates its meta-model if the query is valid and generation or transformation is
+     * requested. If a cache is given, queries are only validated if they are not cached, queries that are not
+     * transformed are not even parsed then, and the results of validated queries are stored in the cache.
+     *
+     * @param parser supplies the parser, which is only requested if the query is parsed
+     * @return whether the query is ready to be {@link #transform(ExpressionHelper, Map) transformed}
+     */
+    boolean parse(Supplier<Parser> parser, @Nullable QueryCache cache) {
+        try {
+            return parseAndGenerate(parser, cache);
+        } catch (IllegalArgumentException e) {
+            printError(err, "Invalid query: %s", e.getMessage());
+        } catch (IOException e) {
+            printError(err, "Failed to write output: %s", e.getMessage());
+        }
+
+        exitCode = 1;
+        return false;
+    }
+
+    private boolean parseAndGenerate(Supplier<Parser> parser, @Nullable QueryCache cache) throws IOException {
+        var file = URI.createFileURI(queryFile.toString());
+        var queryHash = cache != null ? QueryCache.hash(queryFile) : null;
+
+        QueryCache.Entry entry = null;
+        if (cache != null) {
+            try (var phase = Metrics.startPhase(metrics, "read-query-cache")) {
+                entry = cache.get(queryHash, file);
+            }
+        }
+        if (entry != null && (entry.metaModel() == null || options.transform == null)) {
+            printIssues(entry.issues());
+            var metaModel = entry.metaModel();
+            if (metaModel == null) {
+                exitCode = 1;
+                return false;
+            }
+            return processMetaModel(metaModel, Diagnostician.INSTANCE.validate(metaModel));
+        }
+
+        // transformation requires the AQR, which is not cached, but cached queries are not validated again
+        var result = entry != null
+            ? parser.get().parseValid(file, entry.issues(), metrics)
+            : parser.get().parse(file, metrics);
+
+        printIssues(result.issues());
+
+        if (result instanceof Parser.Result.Failure) {
+            if (cache != null) {
+                try (var phase = Metrics.startPhase(metrics, "write-query-cache")) {
+                    cache.putInvalid(queryHash, result.issues());
+                }
+            }
+            exitCode = 1;
+            return false;
+        }
+
+        if (cache == null && options.generate == null && options.transform == null) {
+            // neither generation nor transformation requested, nor is the meta-model cached
+            out.println("Query is valid. Use --generate or --transform for further processing.");
+            return false;
+        }
+
+        aqr = ((Parser.Result.Success) result).aqr();
+
+        // generate meta-model
+        try (var phase = Metrics.startPhase(metrics, "generate")) {
+            targetMetaModel = new MetaModelGenerator(aqr).generate();
+        }
+        if (cache != null && entry == null) {
+            try (var phase = Metrics.startPhase(metrics, "write-query-cache")) {
+                var imports = aqr.imports().stream().map(AQRImport::pack).toList();
+                cache.putValid(queryHash, result.issues(), imports, targetMetaModel.pack());
+            }
+        }
+        return processMetaModel(targetMetaModel.pack(), targetMetaModel.diagnostic());
+    }
+
+    /**
+     * Saves the generated meta-model if generation is requested.
+     *
+     * @param diagnostic result of validating the meta-model
+     * @return whether the query is ready to be {@link #transform(ExpressionHelper, Map) transformed}
+     */
+    private boolean processMetaModel(EPackage metaModel, Diagnostic diagnostic) throws IOException {
+        if (options.generate == null && options.transform == null) {
+            // neither generation nor transformation requested
+            out.println("Query is valid. Use --generate or --transform for further processing.");
+            return false;
+        }
+
+        printIssues(diagnostic);
+        if (options.generate != null) {
+            try (var phase = Metrics.startPhase(metrics, "save-meta-model")) {
+                EMFUtils.save(getOutputURI(options.generate.output, "ecore"), metaModel, options.resourceProfile);
+            }
+        }
+
+        if (options.transform != null && options.transform.output == null && !options.transform.explain && !options.transform.explainAnalyze) {
+            printError(err, "Missing required option: '--transform=OUTPUT'");
+            exitCode = 1;
+            return false;
+        }
+        return options.transform != null;
+    }
+
+    /**
+     * Transforms the instance models based on the {@link #parse(Parser) parsed} query. Queries can be transformed
+     * concurrently if the instance models have been prepared for concurrent access. Errors are reported as messages
+     * of this query, so that they do not abort the other queries of a batch.
+     */
+    void transform(ExpressionHelper expressionHelper, Map<EPackage, Resource> inputModels) {
+        try {
+            transformAndSave(expressionHelper, inputModels);
+        } catch (TransformatorException e) {
+            var source = e.getSourceLocation();
+            if (source != null) {
+                printError(err, "%s (%s)", e.getMessage(), source.display());
+            } else {
+                printError(err, e.getMessage());
+            }
+            exitCode = 1;
+        } catch (IOException e) {
+            printError(err, "Failed to write output: %s", e.getMessage());
+            exitCode = 1;
+        } catch (WrappedException e) {
+            printError(err, "Failed to read input model: %s", e.getMessage());
+            exitCode = 1;
+        } catch (RuntimeException e) {
+            printError(err, "Failed to transform models: %s", e);
+            exitCode = 1;
+        }
+    }
+
+    private void transformAndSave(ExpressionHelper expressionHelper, Map<EPackage, Resource> inputModels) throws IOException {
+        var transform = options.transform;
+        var explainer = new Explainer(expressionHelper, aqr, inputModels);
+        if (transform.explain) {
+            out.print(explainer.explain());
+        }
+
+        EObject targetInstanceModel = null;
+        if (transform.explainAnalyze) {
+            var analysis = explainer.analyze(targetMetaModel.pack(), transform.parallel, metrics);
+            out.print(analysis.explanation());
+            targetInstanceModel = analysis.result();
+        } else if (transform.output != null) {
+            targetInstanceModel = new Transformator(
+                expressionHelper,
+                aqr,
+                targetMetaModel.pack(),
+                inputModels,
+                transform.parallel,
+                metrics
+            ).transform();
+        }
+
+        if (transform.output != null && targetInstanceModel != null) {
+            try (var phase = Metrics.startPhase(metrics, "save-instance-model")) {
+                EMFUtils.save(getOutputURI(transform.output, "xmi"), targetInstanceModel, options.resourceProfile);
+            }
+            try (var phase = Metrics.startPhase(metrics, "validate-instance-model")) {
+                validateInstanceModel(targetInstanceModel);
+            }
+        }
+    }
+
+    /**
+     * Prints the buffered messages of the query under a heading with its path. Does nothing if the messages are not
+     * buffered.
+     */
+    void report() {
+        if (outBuffer == null || errBuffer == null) {
+            return;
+        }
+
+        synchronized (QueryRun.class) {
+            System.out.printf("==> %s <==%n", queryFile);
+            System.out.print(outBuffer.toString(Charset.defaultCharset()));
+            System.out.flush();
+            System.err.print(errBuffer.toString(Charset.defaultCharset()));
+            System.err.flush();
+        }
+    }
+
+    private void printIssues(List<Issue> issues) {
+        for (Issue issue : issues) {
+            err.printf(
+                "[%s] %s (%s)%n",
+                issue.getSeverity().name(),
+                issue.getMessage(),
+                SourceLocation.from(issue).display()
+            );
+        }
+    }
+
+    private void printIssues(Diagnostic rootDiagnostic) {
+        if (rootDiagnostic.getSeverity() == Diagnostic.OK) {
+            return;
+        }
+
+        rootDiagnostic.getChildren().forEach(d ->
+            err.printf("[%s] %s%n", EMFUtils.diagnosticSeverityText(d), d.getMessage())
+        );
+    }
+
+    /**
+     * Infer the output file URI based on the given output path and file extension.
+     *
+     * @param output    the output path (file or directory)
+     * @param extension file extension of the output file
+     * @return the output file URI
+     */
+    private URI getOutputURI(Path output, String extension) {
+        if (Files.isDirectory(output)) { // if output is given as directory, infer file name from input file
+            output = output.resolve(getOutputFileName(queryFile, extension));
+        }
+
+        return URI.createFileURI(output.toString());
+    }
+
+    /**
+     * Returns the name of an output file for the given query file, which is named after the query.
+     */
+    static String getOutputFileName(Path queryFile, String extension) {
+        return Utils.removeSuffix(queryFile.getFileName().toString(), "." + QueryFiles.FileExtension) + "." + extension;
+    }
+
+    /**
+     * Validate the given instance model and print any validation issues.
+     *
+     * @param instanceModel the instance model to validate
+     */
+    private void validateInstanceModel(EObject instanceModel) {
+        var rootDiagnostic = Diagnostician.INSTANCE.validate(instanceModel);
+        if (rootDiagnostic.getSeverity() == Diagnostic.OK) {
+            return;
+        }
+
+        err.println("[WARNING] Generated instance model failed validation:");
+        for (var diagnostic : rootDiagnostic.getChildren()) {
+            if (diagnostic.getSeverity() != Diagnostic.OK) {
+                err.printf("[%s] %s%n", getSeverityString(diagnostic), diagnostic.getMessage());
+            }
+        }
+    }
+
+    private String getSeverityString(Diagnostic diagnostic) {
+        return switch (diagnostic.getSeverity()) {
+            case Diagnostic.OK -> "OK";
+            case Diagnostic.INFO -> "INFO";
+            case Diagnostic.WARNING -> "WARNING";
+            case Diagnostic.ERROR -> "ERROR";
+            default -> "UNKNOWN";
+        };
+    }
+
+}
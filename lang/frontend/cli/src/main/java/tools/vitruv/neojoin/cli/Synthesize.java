@@ -0,0 +1,107 @@
+package tools.vitruv.neojoin.cli;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.jspecify.annotations.NullUnmarked;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import tools.vitruv.neojoin.collector.PackageModelCollector;
+import tools.vitruv.neojoin.synthetic.SyntheticModelGenerator;
+import tools.vitruv.neojoin.synthetic.SyntheticModelOptions;
+import tools.vitruv.neojoin.synthetic.ValueDistribution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static tools.vitruv.neojoin.cli.Main.printError;
+
+@NullUnmarked
+@Command(
+    name = "synthesize",
+    mixinStandardHelpOptions = true,
+    description = "Generate synthetic instance models of the meta-models, e.g. to test queries on large models."
+)
+class Synthesize implements Callable<Integer>, PathArguments {
+
+    @Parameters(index = "0", paramLabel = "OUTPUT-DIR", description = "Directory to write the instance models to, one file per root package.")
+    Path outputDirectory;
+
+    @Option(names = {"-m", "--meta-model-path"}, paramLabel = "MODEL-PATH", required = true, description = "Model path to find the meta-models to instantiate.")
+    String metaModelPath;
+
+    @Option(names = {"-p", "--package"}, paramLabel = "PACKAGE", description = "Name or URI of a package to instantiate. Can be given multiple times (default: all packages).")
+    List<String> packages = List.of();
+
+    @Option(names = {"-n", "--objects"}, paramLabel = "N", description = "Number of objects of every class without an explicit count (default: ${DEFAULT-VALUE}).")
+    int objects = 100;
+
+    @Option(names = {"--count"}, paramLabel = "CLASS=N", description = "Number of objects of a class, given by its simple or qualified name. Can be given multiple times.")
+    Map<String, Integer> counts = new LinkedHashMap<>();
+
+    @Option(names = {"--fan-out"}, paramLabel = "AVERAGE", description = "Average number of targets of many-valued references and values of many-valued attributes (default: ${DEFAULT-VALUE}).")
+    double fanOut = 3;
+
+    @Option(names = {"--key-overlap"}, paramLabel = "FRACTION", description = "Fraction of string values that are shared by attributes of the same name in different classes, which makes them join keys (default: ${DEFAULT-VALUE}).")
+    double keyOverlap = 0.5;
+
+    @Option(names = {"--distribution"}, paramLabel = "CLASS.ATTRIBUTE=DISTRIBUTION", description = "Distribution of the values of an attribute: key[:OVERLAP], uniform:MIN..MAX or zipf:VALUES[:EXPONENT]. Can be given multiple times.")
+    Map<String, String> distributions = new LinkedHashMap<>();
+
+    @Option(names = {"--seed"}, paramLabel = "SEED", description = "Seed of the generated values. The same seed and options generate the same models (default: ${DEFAULT-VALUE}).")
+    long seed = 0;
+
+    @Option(names = {"--binary"}, description = "Write the instance models in the binary format (.xmib) instead of XMI.")
+    boolean binary;
+
+    @Override
+    public void resolveAgainst(Path workingDirectory) {
+        outputDirectory = PathArguments.resolve(workingDirectory, outputDirectory);
+        metaModelPath = PathArguments.resolveModelPath(workingDirectory, metaModelPath);
+    }
+
+    @Override
+    public Integer call() {
+        EPackage.Registry registry;
+        try {
+            var collectionResult = new PackageModelCollector(metaModelPath).collect();
+            collectionResult.left().forEach(System.err::println);
+            registry = collectionResult.right();
+        } catch (IllegalArgumentException ex) {
+            printError("Invalid meta-model path: %s", ex.getMessage());
+            return 1;
+        }
+
+        var selected = registry.keySet().stream()
+            .map(registry::getEPackage)
+            .filter(pack -> packages.isEmpty() || packages.contains(pack.getName()) || packages.contains(pack.getNsURI()))
+            .toList();
+        if (selected.isEmpty()) {
+            printError("No packages to instantiate");
+            return 1;
+        }
+
+        try {
+            var parsedDistributions = new LinkedHashMap<String, ValueDistribution>();
+            distributions.forEach((attribute, distribution) -> parsedDistributions.put(attribute, ValueDistribution.parse(distribution)));
+            var options = new SyntheticModelOptions(objects, counts, fanOut, keyOverlap, parsedDistributions, seed);
+            var generator = new SyntheticModelGenerator(selected, options, binary);
+
+            var total = generator.getCounts().values().stream().mapToLong(Integer::longValue).sum();
+            var files = generator.generate(outputDirectory);
+            files.forEach(System.out::println);
+            System.out.printf("Generated %d objects in %d files%n", total, files.size());
+            return 0;
+        } catch (IllegalArgumentException ex) {
+            printError("Invalid options: %s", ex.getMessage());
+        } catch (IOException e) {
+            printError("Failed to write output: %s", e.getMessage());
+        }
+
+        return 1;
+    }
+
+}
@@ -0,0 +1,140 @@
+package tools.vitruv.neojoin.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tools.vitruv.neojoin.cli.integration.Utils.getResource;
+
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import picocli.CommandLine;
+import tools.vitruv.neojoin.cli.integration.Utils;
+
+class DaemonTest {
+
+    private static void startDaemon(Path socket) throws InterruptedException {
+        var thread = new Thread(() -> new CommandLine(new Main()).execute("--daemon=" + socket));
+        thread.setDaemon(true);
+        thread.start();
+        while (!isListening(socket)) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static boolean isListening(Path socket) {
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * {@code java -jar cli.jar --connect=<socket> --meta-model-path=<meta-model-path> --instance-model-path=<instance-model-path> --transform=<output> <query>}
+     */
+    @Test
+    void testReloadModifiedInstanceModel(@TempDir Path directory) throws IOException, InterruptedException {
+        // GIVEN a daemon and a copy of the instance models
+        var socket = directory.resolve("neojoin.socket");
+        startDaemon(socket);
+
+        var instanceModelPath = directory.resolve("instances");
+        Files.createDirectories(instanceModelPath);
+        for (var name : List.of("restaurants.xmi", "reviews.xmi")) {
+            Files.copy(getResource(Utils.INSTANCES.resolve(name)), instanceModelPath.resolve(name));
+        }
+
+        var output = directory.resolve("pizza.xmi");
+        var args = List.of(
+            "--meta-model-path=" + getResource(Utils.MODELS),
+            "--instance-model-path=" + instanceModelPath,
+            "--transform=" + output,
+            getResource(Utils.QUERIES.resolve("pizza.nj")).toString()
+        );
+
+        // WHEN transforming the instance models, modifying one of them and transforming them again
+        assertEquals(0, DaemonClient.run(socket, args));
+        assertFalse(Files.readString(output).contains("Pizzeria Renamed"));
+
+        var restaurants = instanceModelPath.resolve("restaurants.xmi");
+        var modified = Files.readString(restaurants).replaceFirst("name=\"Pizzeria", "name=\"Pizzeria Renamed");
+        Files.writeString(restaurants, modified);
+        Files.setLastModifiedTime(restaurants, FileTime.from(Instant.now().plusSeconds(1)));
+
+        // THEN the second transformation uses the modified instance model
+        assertEquals(0, DaemonClient.run(socket, args));
+        assertTrue(Files.readString(output).contains("Pizzeria Renamed"));
+    }
+
+    @Test
+    void testSocketOnlyAccessibleByOwner(@TempDir Path directory) throws IOException, InterruptedException {
+        // GIVEN a daemon
+        var socket = directory.resolve("neojoin.socket");
+
+        // WHEN it listens on the socket
+        startDaemon(socket);
+
+        // THEN only the owner can connect and no staging directory is left behind
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(socket), files.toList());
+        }
+    }
+
+    /**
+     * {@code java -jar cli.jar --connect <socket> --help}
+     */
+    @Test
+    void testConnectWithSeparateSocket(@TempDir Path directory) throws InterruptedException {
+        // GIVEN a daemon
+        var socket = directory.resolve("neojoin.socket");
+        startDaemon(socket);
+
+        // WHEN sending a command with the socket as a separate argument
+        int exitCode = Main.connect(new String[] { "--connect", socket.toString(), "--help" });
+
+        // THEN the command runs on the daemon
+        assertEquals(0, exitCode);
+    }
+
+    /**
+     * {@code java -jar cli.jar --daemon=<file>}
+     */
+    @Test
+    void testExistingFileNotReplaced(@TempDir Path directory) throws IOException {
+        // GIVEN a regular file
+        var file = directory.resolve("query.nj");
+        Files.writeString(file, "content");
+
+        // WHEN starting a daemon on it
+        int exitCode = new CommandLine(new Main()).execute("--daemon=" + file);
+
+        // THEN the daemon fails and the file is kept
+        assertEquals(1, exitCode);
+        assertEquals("content", Files.readString(file));
+    }
+
+    @Test
+    void testNoDaemon(@TempDir Path directory) {
+        // GIVEN no daemon listening on the socket
+        var socket = directory.resolve("neojoin.socket");
+
+        // WHEN sending a command to the socket
+        int exitCode = DaemonClient.run(socket, List.of("--help"));
+
+        // THEN the command fails
+        assertEquals(1, exitCode);
+    }
+
+}
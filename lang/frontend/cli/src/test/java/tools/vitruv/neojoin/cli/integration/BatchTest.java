@@ -0,0 +1,114 @@
+package tools.vitruv.neojoin.cli.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tools.vitruv.neojoin.cli.integration.Utils.compareEcoreFiles;
+import static tools.vitruv.neojoin.cli.integration.Utils.compareInstanceFiles;
+import static tools.vitruv.neojoin.cli.integration.Utils.getResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.compare.DifferenceKind;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import picocli.CommandLine;
+import tools.vitruv.neojoin.cli.Main;
+
+class BatchTest {
+
+    static List<String> validQueries = List.of("actor-rating", "books-on-tape", "customer-borrowings", "movies");
+
+    @BeforeAll
+    static void setupRegistry() {
+        if (!Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().containsKey("xmi")) {
+            Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().put("xmi", new XMIResourceFactoryImpl());
+        }
+    }
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> --generate=<output-dir> <query>...}
+     */
+    @Test
+    void testGenerateMetaModels(@TempDir Path outputDirectory) {
+        // GIVEN meta-models and multiple valid queries
+        var metaModelPath = getResource(Utils.MODELS);
+        var args = new ArrayList<>(List.of("--meta-model-path=" + metaModelPath, "--generate=" + outputDirectory));
+        for (var queryName : validQueries) {
+            args.add(getResource(Utils.QUERIES.resolve(queryName + ".nj")).toString());
+        }
+
+        // WHEN generating the view types in one batch
+        int exitCode = new CommandLine(new Main()).execute(args.toArray(String[]::new));
+
+        // THEN the correct view type of every query is generated
+        assertEquals(0, exitCode);
+        for (var queryName : validQueries) {
+            var result = getResource(Utils.RESULTS.resolve(queryName + ".ecore"));
+            var output = outputDirectory.resolve(queryName + ".ecore");
+            assertTrue(compareEcoreFiles(result, output).getDifferences().stream()
+                .allMatch(diff -> diff.getKind() == DifferenceKind.MOVE));
+        }
+    }
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> --generate=<output-dir> <query-dir>}
+     */
+    @Test
+    void testInvalidQueryInDirectory(@TempDir Path outputDirectory) {
+        // GIVEN meta-models and a directory with valid queries and an invalid query
+        var metaModelPath = getResource(Utils.MODELS);
+        var queries = getResource(Utils.QUERIES);
+
+        // WHEN generating the view types of all queries in the directory
+        int exitCode = new CommandLine(new Main()).execute(new String[] { "--meta-model-path=" + metaModelPath, "--generate=" + outputDirectory, queries.toString() });
+
+        // THEN the batch fails, but the view types of the valid queries are generated
+        assertEquals(1, exitCode);
+        assertFalse(Files.exists(outputDirectory.resolve("invalid.ecore")));
+        for (var queryName : validQueries) {
+            assertTrue(Files.exists(outputDirectory.resolve(queryName + ".ecore")));
+        }
+    }
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> --instance-model-path=<instance-model-path> --transform=<output-dir> --jobs=2 <query-glob>}
+     */
+    @Test
+    void testTransformConcurrently(@TempDir Path queryDirectory, @TempDir Path outputDirectory) throws IOException {
+        // GIVEN meta-models, instance models and two copies of a valid query
+        var metaModelPath = getResource(Utils.MODELS);
+        var instanceModelPath = getResource(Utils.INSTANCES);
+        var query = getResource(Utils.QUERIES.resolve("pizza.nj"));
+        Files.copy(query, queryDirectory.resolve("pizza.nj"));
+        Files.copy(query, queryDirectory.resolve("pizza-copy.nj"));
+
+        // WHEN transforming the instance models with both queries concurrently
+        int exitCode = new CommandLine(new Main()).execute(new String[] {
+            "--meta-model-path=" + metaModelPath,
+            "--instance-model-path=" + instanceModelPath,
+            "--transform=" + outputDirectory,
+            "--jobs=2",
+            queryDirectory.resolve("pizza*.nj").toString()
+        });
+
+        // THEN both queries generate the correct view
+        assertEquals(0, exitCode);
+
+        var resultModel = getResource(Utils.MODELS.resolve("pizza.ecore"));
+        var result = getResource(Utils.RESULTS.resolve("pizza.xmi"));
+        for (var output : List.of("pizza.xmi", "pizza-copy.xmi")) {
+            assertTrue(compareInstanceFiles(resultModel, result, outputDirectory.resolve(output)).getDifferences().stream()
+                .allMatch(diff -> diff.getKind() == DifferenceKind.MOVE));
+        }
+    }
+
+}
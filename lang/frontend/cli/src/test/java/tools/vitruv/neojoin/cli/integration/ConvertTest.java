@@ -0,0 +1,49 @@
+package tools.vitruv.neojoin.cli.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tools.vitruv.neojoin.cli.integration.Utils.compareInstanceFiles;
+import static tools.vitruv.neojoin.cli.integration.Utils.getResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import picocli.CommandLine;
+import tools.vitruv.neojoin.cli.Main;
+
+class ConvertTest {
+
+    /**
+     * {@code java -jar cli.jar convert --meta-model-path=<meta-model-path> <input> <output>}
+     */
+    @ParameterizedTest
+    @CsvSource({ "restaurants, restaurant", "reviews, reviewpage" })
+    void testConvertRoundTrip(String modelName, String metaModelName, @TempDir Path outputDirectory) throws IOException {
+        // GIVEN meta-models and an instance model in XMI
+        var metaModelPath = getResource(Utils.MODELS);
+        var input = getResource(Utils.INSTANCES.resolve(modelName + ".xmi"));
+
+        Path binary = outputDirectory.resolve(modelName + ".xmib");
+        Path output = outputDirectory.resolve(modelName + ".xmi");
+
+        String metaModelPathArg = "--meta-model-path=" + metaModelPath;
+
+        // WHEN converting the instance model to the binary format and back
+        int toBinaryExitCode = new CommandLine(new Main()).execute(new String[] { "convert", metaModelPathArg, input.toString(), binary.toString() });
+        int toXmiExitCode = new CommandLine(new Main()).execute(new String[] { "convert", metaModelPathArg, binary.toString(), output.toString() });
+
+        // THEN the binary file is smaller and the instance model is unchanged
+        assertEquals(0, toBinaryExitCode);
+        assertEquals(0, toXmiExitCode);
+        assertTrue(Files.size(binary) < Files.size(input));
+
+        var metaModel = getResource(Utils.MODELS.resolve(metaModelName + ".ecore"));
+        assertTrue(compareInstanceFiles(metaModel, input, output).getDifferences().isEmpty());
+    }
+
+}
@@ -35,4 +35,21 @@ class MetaModelPathTest {
         assertEquals(0, exitCode);
     }
 
+    @ParameterizedTest
+    @FieldSource("validQueries")
+    void testCheckQueryWithParallelLoading(String queryName) {
+        // GIVEN meta-models and a valid query on them
+        var metaModelPath = getResource(Utils.MODELS);
+        var query = getResource(Utils.QUERIES.resolve(queryName + ".nj"));
+
+        String metaModelPathArg = "--meta-model-path=" + metaModelPath;
+        String queryArg = query.toString();
+
+        // WHEN checking the query with concurrently loaded meta-models
+        int exitCode = new CommandLine(new Main()).execute(new String[] { metaModelPathArg, "--parallel-loading", queryArg });
+
+        // THEN the query is accepted
+        assertEquals(0, exitCode);
+    }
+
 }
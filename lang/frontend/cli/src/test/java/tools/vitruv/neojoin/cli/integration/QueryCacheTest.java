@@ -0,0 +1,88 @@
+package tools.vitruv.neojoin.cli.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tools.vitruv.neojoin.cli.integration.Utils.getResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import picocli.CommandLine;
+import tools.vitruv.neojoin.cli.Main;
+
+class QueryCacheTest {
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> --query-cache=<cache-dir> --generate=<output> <query>}
+     */
+    @Test
+    void testGenerateFromCache(@TempDir Path directory) throws IOException {
+        // GIVEN meta-models, a valid query and an empty cache
+        var metaModelPath = getResource(Utils.MODELS);
+        var query = getResource(Utils.QUERIES.resolve("pizza.nj"));
+        var cache = directory.resolve("cache");
+        var first = directory.resolve("first.ecore");
+        var second = directory.resolve("second.ecore");
+
+        // WHEN generating the view type twice, the second time from the cache
+        int firstExitCode = new CommandLine(new Main()).execute(new String[] { "--meta-model-path=" + metaModelPath, "--query-cache=" + cache, "--generate=" + first, query.toString() });
+        int secondExitCode = new CommandLine(new Main()).execute(new String[] { "--meta-model-path=" + metaModelPath, "--query-cache=" + cache, "--generate=" + second, query.toString() });
+
+        // THEN the query is cached and both view types are identical
+        assertEquals(0, firstExitCode);
+        assertEquals(0, secondExitCode);
+        try (var entries = Files.list(cache)) {
+            assertEquals(1, entries.count());
+        }
+        assertTrue(Files.mismatch(first, second) == -1);
+    }
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> --instance-model-path=<instance-model-path> --query-cache=<cache-dir> --transform=<output> <query>}
+     */
+    @Test
+    void testTransformFromCache(@TempDir Path directory) throws IOException {
+        // GIVEN meta-models, instance models, a valid query and an empty cache
+        var metaModelPath = getResource(Utils.MODELS);
+        var instanceModelPath = getResource(Utils.INSTANCES);
+        var query = getResource(Utils.QUERIES.resolve("pizza.nj"));
+        var cache = directory.resolve("cache");
+        var first = directory.resolve("first.xmi");
+        var second = directory.resolve("second.xmi");
+
+        // WHEN transforming the instance models twice, the second time with the cached validation result
+        int firstExitCode = new CommandLine(new Main()).execute(new String[] { "--meta-model-path=" + metaModelPath, "--instance-model-path=" + instanceModelPath, "--query-cache=" + cache, "--transform=" + first, query.toString() });
+        int secondExitCode = new CommandLine(new Main()).execute(new String[] { "--meta-model-path=" + metaModelPath, "--instance-model-path=" + instanceModelPath, "--query-cache=" + cache, "--transform=" + second, query.toString() });
+
+        // THEN the query is cached and both views are identical
+        assertEquals(0, firstExitCode);
+        assertEquals(0, secondExitCode);
+        try (var entries = Files.list(cache)) {
+            assertEquals(1, entries.count());
+        }
+        assertTrue(Files.mismatch(first, second) == -1);
+    }
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> --query-cache=<cache-dir> <query>}
+     */
+    @Test
+    void testInvalidQueryFromCache(@TempDir Path cache) {
+        // GIVEN meta-models and an invalid query that has been cached
+        var metaModelPath = getResource(Utils.MODELS);
+        var query = getResource(Utils.QUERIES.resolve("invalid.nj"));
+        var args = new String[] { "--meta-model-path=" + metaModelPath, "--query-cache=" + cache, query.toString() };
+        new CommandLine(new Main()).execute(args);
+
+        // WHEN validating the query again
+        int exitCode = new CommandLine(new Main()).execute(args);
+
+        // THEN the query is still invalid
+        assertEquals(1, exitCode);
+    }
+
+}
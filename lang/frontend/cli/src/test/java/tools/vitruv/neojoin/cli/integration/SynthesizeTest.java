@@ -0,0 +1,56 @@
+package tools.vitruv.neojoin.cli.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tools.vitruv.neojoin.cli.integration.Utils.getResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import picocli.CommandLine;
+import tools.vitruv.neojoin.cli.Main;
+
+class SynthesizeTest {
+
+    /**
+     * {@code java -jar cli.jar synthesize --meta-model-path=<meta-model-path> --package=<package> <output-dir>}
+     */
+    @ParameterizedTest
+    @CsvSource({ "false, xmi", "true, xmib" })
+    void testSynthesize(boolean binary, String extension, @TempDir Path outputDirectory) throws IOException {
+        // GIVEN meta-models
+        var metaModelPath = getResource(Utils.MODELS);
+
+        // WHEN synthesizing instance models of two packages with a shared join key
+        var args = new ArrayList<>(List.of(
+            "synthesize",
+            "--meta-model-path=" + metaModelPath,
+            "--package=restaurant",
+            "--package=reviewpage",
+            "--objects=50",
+            "--count=Store=1",
+            "--distribution=Review.rating=uniform:1..5",
+            outputDirectory.toString()
+        ));
+        if (binary) {
+            args.add("--binary");
+        }
+        int exitCode = new CommandLine(new Main()).execute(args.toArray(String[]::new));
+
+        // THEN one instance model per package is written
+        assertEquals(0, exitCode);
+        try (var files = Files.list(outputDirectory)) {
+            assertEquals(2, files.count());
+        }
+        assertTrue(Files.size(outputDirectory.resolve("restaurant." + extension)) > 0);
+        assertTrue(Files.size(outputDirectory.resolve("reviewpage." + extension)) > 0);
+    }
+
+}
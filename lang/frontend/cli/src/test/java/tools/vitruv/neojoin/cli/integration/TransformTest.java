@@ -69,4 +69,42 @@ class TransformTest {
         assertTrue(differences.findAny().isEmpty());
     }
 
+    static List<String> resourceOptions = List.of("--parallel-loading", "--resource-profile=Throughput");
+
+    /**
+     * {@code java -jar cli.jar --meta-model-path=<meta-model-path> <option> --instance-model-path=<instance-model-path> --transform=<output> <query>}
+     */
+    @ParameterizedTest
+    @FieldSource("resourceOptions")
+    void testTransformInputModelsWithResourceOptions(String option, @TempDir Path outputDirectory) throws URISyntaxException, IOException {
+        // GIVEN meta-models, instance models, a valid query and an output path
+        var queryName = "pizza";
+        var metaModelPath = getResource(Utils.MODELS);
+        var instanceModelPath = getResource(Utils.INSTANCES);
+        var query = getResource(Utils.QUERIES.resolve(queryName + ".nj"));
+
+        Path output = outputDirectory.resolve(queryName + ".xmi");
+
+        String metaModelPathArg = "--meta-model-path=" + metaModelPath;
+        String instanceModelPathArg = "--instance-model-path=" + instanceModelPath;
+        String transformArg = "--transform=" + output;
+        String queryArg = query.toString();
+
+        // WHEN transforming the instance models with the given option for loading and saving models
+        int exitCode = new CommandLine(new Main()).execute(new String[] { metaModelPathArg, option, instanceModelPathArg, transformArg, queryArg });
+
+        // THEN the same view is generated as without the option
+        assertEquals(0, exitCode);
+
+        var resultModel = getResource(Utils.MODELS.resolve(queryName + ".ecore"));
+        var result = getResource(Utils.RESULTS.resolve(queryName + ".xmi"));
+
+        Stream<Diff> differences = compareInstanceFiles(resultModel, result, output)
+            .getDifferences()
+            .stream()
+            .filter(diff -> diff.getKind() != DifferenceKind.MOVE);
+
+        assertTrue(differences.findAny().isEmpty());
+    }
+
 }
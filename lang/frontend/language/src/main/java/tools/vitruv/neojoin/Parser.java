@@ -3,18 +3,22 @@ package tools.vitruv.neojoin;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.xtext.Constants;
+import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.diagnostics.Severity;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.validation.CheckMode;
 import org.eclipse.xtext.validation.IResourceValidator;
 import org.eclipse.xtext.validation.Issue;
+import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.aqr.AQR;
 import tools.vitruv.neojoin.aqr.AQRBuilder;
 import tools.vitruv.neojoin.ast.ViewTypeDefinition;
 import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+import tools.vitruv.neojoin.metrics.Metrics;
 
 import java.util.List;
 
@@ -55,19 +59,25 @@ public class Parser {
     private ExpressionHelper expressionHelper;
 
     public Result parse(URI file) {
-        require(
-            file.fileExtension().equals(fileExtension),
-            () -> "Cannot parse given file: unknown file extension (expected: %s, actual: %s)".formatted(
-                fileExtension,
-                file.fileExtension()
-            )
-        );
-
-        // load file + parse
-        var resource = resourceSet.getResource(file, true);
+        return parse(file, null);
+    }
 
-        // resolve lazy references (proxies) and validate parser result
-        var issues = validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
+    /**
+     * Same as {@link #parse(URI)}, but records the phases for parsing and validating the file and for building the
+     * {@link AQR} in the given metrics if they are not {@code null}.
+     */
+    public Result parse(URI file, @Nullable Metrics metrics) {
+        requireFileExtension(file);
+
+        List<Issue> issues;
+        Resource resource;
+        try (var phase = Metrics.startPhase(metrics, "parse")) {
+            // load file + parse
+            resource = resourceSet.getResource(file, true);
+
+            // resolve lazy references (proxies) and validate parser result
+            issues = validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
+        }
         var hasError = issues.stream().anyMatch(issue -> issue.getSeverity() == Severity.ERROR);
         if (hasError) {
             return new Result.Failure(issues);
@@ -77,8 +87,50 @@ public class Parser {
             return new Result.Failure(List.of());
         }
 
-        var aqr = new AQRBuilder((ViewTypeDefinition) resource.getContents().get(0), expressionHelper).build();
-        return new Result.Success(aqr, issues);
+        return buildAQR(resource, issues, metrics);
+    }
+
+    /**
+     * Same as {@link #parse(URI, Metrics)} for a file that is already known to be valid, e.g. from a
+     * {@link tools.vitruv.neojoin.cache.QueryCache query cache}. The file is parsed and linked, but not validated
+     * again, and the given issues of the earlier validation are returned with the {@link AQR}. Falls back to a full
+     * {@link #parse(URI, Metrics) parse} if the file cannot be parsed.
+     *
+     * @param issues issues found by an earlier validation of the file, which must not contain errors
+     */
+    public Result parseValid(URI file, List<Issue> issues, @Nullable Metrics metrics) {
+        requireFileExtension(file);
+
+        Resource resource;
+        try (var phase = Metrics.startPhase(metrics, "parse")) {
+            // load file + parse
+            resource = resourceSet.getResource(file, true);
+
+            // resolve lazy references (proxies) without validating
+            EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
+        }
+        if (!resource.getErrors().isEmpty() || resource.getContents().isEmpty()) {
+            return parse(file, metrics);
+        }
+
+        return buildAQR(resource, issues, metrics);
+    }
+
+    private void requireFileExtension(URI file) {
+        require(
+            file.fileExtension().equals(fileExtension),
+            () -> "Cannot parse given file: unknown file extension (expected: %s, actual: %s)".formatted(
+                fileExtension,
+                file.fileExtension()
+            )
+        );
+    }
+
+    private Result buildAQR(Resource resource, List<Issue> issues, @Nullable Metrics metrics) {
+        try (var phase = Metrics.startPhase(metrics, "build-aqr")) {
+            var aqr = new AQRBuilder((ViewTypeDefinition) resource.getContents().get(0), expressionHelper).build();
+            return new Result.Success(aqr, issues);
+        }
     }
 
 }
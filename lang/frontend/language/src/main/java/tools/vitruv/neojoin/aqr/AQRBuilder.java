@@ -33,6 +33,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -67,9 +68,9 @@ public class AQRBuilder {
 
     private final Queue<Pair<AQRTargetClass, @Nullable Body>> populationQueue = new ArrayDeque<>(); // target class + query it originated from (or null if implicit)
 
-    private final Set<EDataType> encounteredDataTypes = new HashSet<>();
+    private final Set<EDataType> encounteredDataTypes = new LinkedHashSet<>();
 
-    private final Set<AQRTargetClass> targetClasses = new HashSet<>();
+    private final Set<AQRTargetClass> targetClasses = new LinkedHashSet<>(); // in order of creation
     private final Map<EClass, Set<AQRTargetClass>> sourceClassToAQR = new HashMap<>(); // source class -> aqr targets
     private final Map<Query, AQRTargetClass> queryToTarget = new HashMap<>(); // query (Query | SubQuery) -> target class
 
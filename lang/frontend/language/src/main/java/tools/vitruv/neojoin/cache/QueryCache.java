@@ -0,0 +1,386 @@
+package tools.vitruv.neojoin.cache;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.impl.EPackageImpl;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.validation.Issue;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.Parser;
+import tools.vitruv.neojoin.aqr.AQR;
+import tools.vitruv.neojoin.utils.EMFUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.ZipFile;
+
+/**
+ * On-disk cache of the results of {@link Parser parsing} and validating queries, so that unchanged queries do not
+ * have to be parsed again in later runs.
+ * <p>
+ * An entry is stored per query content and contains the validation issues and, for valid queries, the meta-model
+ * generated from the {@link AQR}. The {@link AQR} itself is not stored: its expressions are linked against the JVM
+ * types inferred while parsing and cannot be restored without parsing the query, so queries that are transformed
+ * must still be parsed, but not {@link Parser#parseValid validated} again.
+ * <p>
+ * An entry is only used if it was written by the same NeoJoin build and the content hashes of the packages the query
+ * depends on are unchanged. These are the packages it imports, including the packages they contain or reference.
+ * Entries of invalid queries, whose imports may not be known, depend on all packages of the registry instead.
+ */
+public final class QueryCache {
+
+    /**
+     * Version of the file format, entries of other versions are ignored.
+     */
+    private static final int Version = 2;
+
+    /**
+     * Identity of the NeoJoin build, which determines the grammar, the validation rules and the meta-model generation
+     * the entries were created with.
+     */
+    private static final String BuildVersion = getBuildVersion();
+
+    private static final String FileExtension = "njcache";
+
+    /**
+     * Cached result of parsing and validating a query.
+     *
+     * @param issues    issues found while parsing and validating the query
+     * @param metaModel meta-model generated from the query or {@code null} if the query is invalid
+     */
+    public record Entry(
+        List<Issue> issues,
+        @Nullable EPackage metaModel
+    ) {}
+
+    private final Path directory;
+    private final EPackage.Registry registry;
+    private final String buildVersion;
+    private final Map<Resource, String> resourceHashes = new HashMap<>();
+
+    /**
+     * @param directory directory to store the entries in, which is created when the first entry is stored
+     * @param registry  registry with the packages that queries can import
+     */
+    public QueryCache(Path directory, EPackage.Registry registry) {
+        this(directory, registry, BuildVersion);
+    }
+
+    /**
+     * @param buildVersion identity of the build, entries written by other builds are ignored
+     */
+    QueryCache(Path directory, EPackage.Registry registry, String buildVersion) {
+        this.directory = directory;
+        this.registry = registry;
+        this.buildVersion = buildVersion;
+    }
+
+    /**
+     * Returns the hash of the content of the given query file, under which its entry is stored.
+     */
+    public static String hash(Path queryFile) throws IOException {
+        return HexFormat.of().formatHex(createDigest().digest(Files.readAllBytes(queryFile)));
+    }
+
+    /**
+     * Returns the entry for the query with the given hash if it exists and the packages it depends on are unchanged.
+     * Entries that cannot be read are ignored.
+     *
+     * @param queryHash {@link #hash(Path) hash} of the query
+     * @param file      URI of the query file, to which the issues of the entry refer
+     */
+    public synchronized @Nullable Entry get(String queryHash, URI file) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(getEntryFile(queryHash));
+        } catch (IOException e) {
+            return null; // not cached yet
+        }
+
+        try (var input = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (input.readInt() != Version || !input.readUTF().equals(buildVersion)) {
+                return null;
+            }
+
+            int packageCount = input.readInt();
+            for (int i = 0; i < packageCount; i++) {
+                var nsURI = input.readUTF();
+                var hash = input.readUTF();
+                var pack = Objects.requireNonNullElseGet(
+                    registry.getEPackage(nsURI),
+                    () -> EPackage.Registry.INSTANCE.getEPackage(nsURI)
+                );
+                if (pack == null || !hash.equals(getPackageHash(pack))) {
+                    return null;
+                }
+            }
+
+            var issues = new ArrayList<Issue>();
+            int issueCount = input.readInt();
+            for (int i = 0; i < issueCount; i++) {
+                issues.add(readIssue(input, file));
+            }
+
+            EPackage metaModel = null;
+            if (input.readBoolean()) {
+                var bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                var resource = new XMIResourceImpl(URI.createURI(queryHash + ".ecore"));
+                resource.load(new ByteArrayInputStream(bytes), null);
+                metaModel = (EPackage) resource.getContents().get(0);
+            }
+            return new Entry(issues, metaModel);
+        } catch (IOException | RuntimeException e) {
+            return null; // written by an incompatible version or truncated
+        }
+    }
+
+    /**
+     * Stores the result of parsing and validating the valid query with the given hash.
+     *
+     * @param queryHash {@link #hash(Path) hash} of the query
+     * @param issues    issues found while parsing and validating the query
+     * @param imports   packages imported by the query
+     * @param metaModel meta-model generated from the query, which is copied
+     */
+    public synchronized void putValid(
+        String queryHash,
+        List<Issue> issues,
+        Collection<EPackage> imports,
+        EPackage metaModel
+    ) throws IOException {
+        put(queryHash, issues, collectDependencies(imports), metaModel);
+    }
+
+    /**
+     * Stores the result of parsing and validating the invalid query with the given hash.
+     *
+     * @param queryHash {@link #hash(Path) hash} of the query
+     * @param issues    issues found while parsing and validating the query
+     */
+    public synchronized void putInvalid(String queryHash, List<Issue> issues) throws IOException {
+        put(queryHash, issues, EMFUtils.collectAvailablePackages(registry), null);
+    }
+
+    private void put(
+        String queryHash,
+        List<Issue> issues,
+        Collection<EPackage> dependencies,
+        @Nullable EPackage metaModel
+    ) throws IOException {
+        var packages = new LinkedHashMap<String, EPackage>();
+        dependencies.forEach(pack -> packages.put(pack.getNsURI(), pack));
+
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeInt(Version);
+            output.writeUTF(buildVersion);
+
+            output.writeInt(packages.size());
+            for (var pack : packages.values()) {
+                output.writeUTF(pack.getNsURI());
+                output.writeUTF(getPackageHash(pack));
+            }
+
+            output.writeInt(issues.size());
+            for (var issue : issues) {
+                writeIssue(output, issue);
+            }
+
+            output.writeBoolean(metaModel != null);
+            if (metaModel != null) {
+                var resource = new XMIResourceImpl(URI.createURI(queryHash + ".ecore"));
+                resource.getContents().add(EcoreUtil.copy(metaModel));
+                var xmi = new ByteArrayOutputStream();
+                resource.save(xmi, null);
+                output.writeInt(xmi.size());
+                xmi.writeTo(output);
+            }
+        }
+
+        // entries are replaced atomically, so that concurrent runs never read a partially written entry
+        Files.createDirectories(directory);
+        var temporaryFile = Files.createTempFile(directory, queryHash, ".tmp");
+        try {
+            Files.write(temporaryFile, bytes.toByteArray());
+            Files.move(temporaryFile, getEntryFile(queryHash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private Path getEntryFile(String queryHash) {
+        return directory.resolve(queryHash + "." + FileExtension);
+    }
+
+    /**
+     * Returns the given packages together with all packages they depend on: the root packages containing them, all
+     * subpackages of these and, transitively, the packages of all classifiers and features they reference.
+     */
+    private static Collection<EPackage> collectDependencies(Collection<EPackage> imports) {
+        var dependencies = new LinkedHashMap<String, EPackage>();
+        var visitedRoots = new HashSet<EPackage>();
+        var pendingRoots = new ArrayDeque<EPackage>();
+        imports.forEach(pack -> pendingRoots.add(EMFUtils.getRootPackage(pack)));
+        while (!pendingRoots.isEmpty()) {
+            var root = pendingRoots.remove();
+            if (!visitedRoots.add(root)) {
+                continue;
+            }
+
+            EMFUtils.getAllEPackages(root).forEach(pack -> dependencies.put(pack.getNsURI(), pack));
+            for (var referenced : EcoreUtil.ExternalCrossReferencer.find(Collections.singleton(root)).keySet()) {
+                var pack = getPackage(referenced);
+                if (pack != null) {
+                    pendingRoots.add(EMFUtils.getRootPackage(pack));
+                }
+            }
+        }
+        return dependencies.values();
+    }
+
+    private static @Nullable EPackage getPackage(EObject object) {
+        for (EObject current = object; current != null; current = current.eContainer()) {
+            if (current instanceof EPackage pack) {
+                return pack;
+            }
+        }
+        return null; // unresolved proxy
+    }
+
+    /**
+     * Returns the hash of the serialized resource containing the given package. Generated packages, e.g. Ecore itself,
+     * cannot change without a new build and packages that are not stored in a resource cannot be serialized, so both
+     * are identified by their URI.
+     */
+    private String getPackageHash(EPackage pack) {
+        var resource = pack.eResource();
+        if (resource == null || pack.getClass() != EPackageImpl.class) {
+            return pack.getNsURI();
+        }
+        return resourceHashes.computeIfAbsent(resource, r -> {
+            var bytes = new ByteArrayOutputStream();
+            try {
+                r.save(bytes, null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return HexFormat.of().formatHex(createDigest().digest(bytes.toByteArray()));
+        });
+    }
+
+    /**
+     * Returns the hash of the code NeoJoin is loaded from, since snapshot builds do not change their version. The
+     * entries of a jar are identified by their names and CRCs, which are read from its central directory without
+     * reading their content, and the files of a class directory by their paths and content. If the code cannot be
+     * located, every process gets a new identity, so that entries are never reused.
+     */
+    private static String getBuildVersion() {
+        var digest = createDigest();
+        try {
+            var codeSource = Parser.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null) {
+                return UUID.randomUUID().toString();
+            }
+
+            var location = Path.of(codeSource.getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                try (var files = Files.walk(location)) {
+                    for (var file : files.filter(Files::isRegularFile).sorted().toList()) {
+                        digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(file));
+                    }
+                }
+            } else {
+                try (var jar = new ZipFile(location.toFile())) {
+                    var crc = ByteBuffer.allocate(Long.BYTES);
+                    jar.stream().forEach(entry -> {
+                        digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                        digest.update(crc.clear().putLong(entry.getCrc()).array());
+                    });
+                }
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return UUID.randomUUID().toString();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void writeIssue(DataOutputStream output, Issue issue) throws IOException {
+        output.writeUTF(issue.getSeverity().name());
+        output.writeUTF(Objects.requireNonNullElse(issue.getMessage(), ""));
+        output.writeUTF(Objects.requireNonNullElse(issue.getCode(), ""));
+        output.writeUTF(issue.getUriToProblem() != null
+            ? Objects.requireNonNullElse(issue.getUriToProblem().fragment(), "")
+            : "");
+        for (var value : new Integer[] {
+            issue.getLineNumber(),
+            issue.getColumn(),
+            issue.getLineNumberEnd(),
+            issue.getColumnEnd(),
+            issue.getOffset(),
+            issue.getLength()
+        }) {
+            output.writeInt(Objects.requireNonNullElse(value, -1));
+        }
+    }
+
+    private static Issue readIssue(DataInputStream input, URI file) throws IOException {
+        var issue = new Issue.IssueImpl();
+        issue.setSeverity(Severity.valueOf(input.readUTF()));
+        issue.setMessage(input.readUTF());
+        var code = input.readUTF();
+        issue.setCode(code.isEmpty() ? null : code);
+        var fragment = input.readUTF();
+        issue.setUriToProblem(fragment.isEmpty() ? file : file.appendFragment(fragment));
+        issue.setLineNumber(readInteger(input));
+        issue.setColumn(readInteger(input));
+        issue.setLineNumberEnd(readInteger(input));
+        issue.setColumnEnd(readInteger(input));
+        issue.setOffset(readInteger(input));
+        issue.setLength(readInteger(input));
+        return issue;
+    }
+
+    private static @Nullable Integer readInteger(DataInputStream input) throws IOException {
+        var value = input.readInt();
+        return value == -1 ? null : value;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every Java platform supports SHA-256
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package tools.vitruv.neojoin.cache;
+
+import org.jspecify.annotations.NullMarked;
@@ -3,7 +3,10 @@ package tools.vitruv.neojoin.collector;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 
+import tools.vitruv.neojoin.utils.EMFUtils;
+import tools.vitruv.neojoin.utils.ResourceProfile;
 import tools.vitruv.neojoin.utils.Utils;
 
 import java.io.IOException;
@@ -15,8 +18,9 @@ import java.nio.file.Path;
 import java.nio.file.ProviderNotFoundException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -25,16 +29,33 @@ import java.util.stream.Stream;
  * <p>
  * A search path is a semicolon separated list of paths. Each path can either point directly to a model file
  * or to a directory which is then searched recursively for models. Models can also be located in
- * {@link #isSupportedArchive(Path) supported archives} on the search path. All files with the specified
- * {@link #fileExtension() file extension} are considered models and will be
+ * {@link #isSupportedArchive(Path) supported archives} on the search path. All files with one of the specified
+ * {@link #fileExtensions() file extensions} are considered models and will be
  * {@link ResourceSet#getResource(URI, boolean) loaded}.
+ * <p>
+ * In parallel mode, the model files are parsed concurrently, each into its own resource set. The loaded resources are
+ * then moved into the given resource set in the same order as in sequential mode, so that the results and the
+ * detection of duplicates do not depend on the mode.
  */
 public abstract class AbstractModelCollector {
 
     private final List<Path> paths;
+    private final boolean parallel;
+    private final ResourceProfile profile;
 
     protected AbstractModelCollector(String searchPathString) {
+        this(searchPathString, false, ResourceProfile.Default);
+    }
+
+    /**
+     * @param searchPathString search path, see {@link AbstractModelCollector}
+     * @param parallel         whether model files are loaded concurrently
+     * @param profile          options for loading the model files
+     */
+    protected AbstractModelCollector(String searchPathString, boolean parallel, ResourceProfile profile) {
         this.paths = parseSearchPathString(searchPathString);
+        this.parallel = parallel;
+        this.profile = profile;
     }
 
     private static List<Path> parseSearchPathString(String pathString) {
@@ -45,21 +66,77 @@ public abstract class AbstractModelCollector {
 
     protected abstract String fileExtension();
 
-    protected Stream<Resource> collectResourcesAsStream(ResourceSet resourceSet) {
+    /**
+     * Returns the extensions of all files that are considered models, by default only the {@link #fileExtension()}.
+     */
+    protected Set<String> fileExtensions() {
+        return Set.of(fileExtension());
+    }
+
+    /**
+     * Returns the options for loading the model files.
+     */
+    protected ResourceProfile profile() {
+        return profile;
+    }
+
+    /**
+     * Returns the URIs of all model files on the search path without loading them.
+     */
+    protected Stream<URI> collectURIsAsStream() {
         return paths.stream()
-            .flatMap(path -> getContainedFiles(path).stream())
-            .map(uri -> resourceSet.getResource(uri, true));
+            .flatMap(path -> getContainedFiles(path).stream());
+    }
+
+    protected Stream<Resource> collectResourcesAsStream(ResourceSet resourceSet) {
+        var uris = collectURIsAsStream();
+        if (!parallel) {
+            profile.applyTo(resourceSet);
+            return uris.map(uri -> resourceSet.getResource(uri, true));
+        }
+
+        var packageRegistry = resourceSet.getPackageRegistry();
+        EMFUtils.collectAvailablePackages(packageRegistry).forEach(EMFUtils::prepareConcurrentAccess);
+        var uriList = uris.toList();
+        // models that are already loaded in the given resource set are reused, like in sequential mode
+        var loaded = new HashMap<URI, Resource>();
+        for (var uri : uriList) {
+            var resource = resourceSet.getResource(uri, false);
+            if (resource != null && resource.isLoaded()) {
+                loaded.put(uri, resource);
+            }
+        }
+        var resources = uriList
+            .parallelStream()
+            .map(uri -> {
+                if (loaded.containsKey(uri)) {
+                    return loaded.get(uri);
+                }
+                var workerResourceSet = new ResourceSetImpl();
+                workerResourceSet.setPackageRegistry(packageRegistry);
+                workerResourceSet.setResourceFactoryRegistry(resourceSet.getResourceFactoryRegistry());
+                workerResourceSet.setURIConverter(resourceSet.getURIConverter());
+                workerResourceSet.getLoadOptions().putAll(resourceSet.getLoadOptions());
+                profile.applyTo(workerResourceSet);
+                return workerResourceSet.getResource(uri, true);
+            })
+            .toList();
+        // references to other files are proxies until first access, which are then resolved in the given resource set
+        resources.stream()
+            .filter(resource -> resource.getResourceSet() != resourceSet)
+            .forEach(resourceSet.getResources()::add);
+        return resources.stream();
     }
 
 	private List<URI> getContainedFiles(Path fileOrDirectory) {
-		var extension = fileExtension();
+		var extensions = fileExtensions();
 
 		try (var paths = Files.walk(fileOrDirectory)) {
 			return paths
 				.filter(Files::isRegularFile)
                 .flatMap(file -> isSupportedArchive(file) ? getContainedFilesInArchive(file).stream() : Stream.of(file))
 				.map(path -> URI.createURI(path.toUri().toString()))
-				.filter(uri -> Objects.equals(uri.fileExtension(), extension))
+				.filter(uri -> uri.fileExtension() != null && extensions.contains(uri.fileExtension()))
 				.toList();
 		} catch (NoSuchFileException e) {
 			throw new IllegalArgumentException("File or directory does not exist: " + fileOrDirectory);
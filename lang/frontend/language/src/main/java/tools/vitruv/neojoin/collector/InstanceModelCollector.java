@@ -1,19 +1,32 @@
 package tools.vitruv.neojoin.collector;
 
+import org.eclipse.emf.common.util.WrappedException;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.jspecify.annotations.Nullable;
 import tools.vitruv.neojoin.utils.EMFUtils;
+import tools.vitruv.neojoin.utils.ResourceProfile;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Searches for instance-model files with the {@code .xmi} extension and collects them into a map indexed by
- * the package that they instantiate.
+ * Searches for instance-model files with the {@code .xmi} or the {@code .xmib} ({@link EMFUtils#BinaryFileExtension
+ * binary format}) extension and collects them into a map indexed by the package that they instantiate.
  *
  * @see #collect()
+ * @see #collectDeferred()
  */
 public class InstanceModelCollector extends AbstractModelCollector {
 
@@ -24,39 +37,141 @@ public class InstanceModelCollector extends AbstractModelCollector {
         return FileExtension;
     }
 
+    @Override
+    protected Set<String> fileExtensions() {
+        return Set.of(FileExtension, EMFUtils.BinaryFileExtension);
+    }
+
     private final EPackage.Registry registry;
 
     public InstanceModelCollector(String searchPathString, EPackage.Registry registry) {
-        super(searchPathString);
+        this(searchPathString, registry, false, ResourceProfile.Default);
+    }
+
+    /**
+     * @param parallel whether instance models are loaded concurrently
+     * @param profile  options for loading the instance models
+     */
+    public InstanceModelCollector(
+        String searchPathString,
+        EPackage.Registry registry,
+        boolean parallel,
+        ResourceProfile profile
+    ) {
+        super(searchPathString, parallel, profile);
         this.registry = registry;
     }
 
-    public Map<EPackage, Resource> collect() {
+    /**
+     * Registers the resource factories for instance models in the global registry unless already registered.
+     */
+    public static void registerResourceFactories() {
         if (!Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().containsKey(FileExtension)) {
             Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().put(
                 FileExtension, new XMIResourceFactoryImpl());
         }
+        EMFUtils.registerBinaryResourceFactory(Resource.Factory.Registry.INSTANCE);
+    }
 
-        var knownPackages = EMFUtils.collectAvailablePackages(registry);
+    public Map<EPackage, Resource> collect() {
+        return collect(new ResourceSetImpl());
+    }
+
+    /**
+     * Same as {@link #collect()}, but the instance models are loaded into the given resource set, whose package
+     * registry is set to the registry of this collector. Models that are already loaded in the resource set are reused
+     * instead of loaded again, so that a resource set can be kept to collect unchanged models without reloading them.
+     */
+    public Map<EPackage, Resource> collect(ResourceSet resourceSet) {
+        registerResourceFactories();
+
+        resourceSet.setPackageRegistry(registry);
+        return index(collectResourcesAsStream(resourceSet), InstanceModelCollector::getInstancedPackage);
+    }
+
+    /**
+     * Same as {@link #collect()}, but the XMI files are not loaded. Their resources are only created in the resource
+     * set, which holds the load options, and the instantiated package is determined from the namespace of the root
+     * element. Such a resource can be {@link Resource#load(Map) loaded} on demand, or its instances can be streamed
+     * from the file without loading it. Files in the binary format are loaded as usual.
+     */
+    public Map<EPackage, Resource> collectDeferred() {
+        registerResourceFactories();
+
+        var resourceSet = createResourceSet();
+        profile().applyTo(resourceSet);
+        var packagesByNsURI = EMFUtils.collectAvailablePackages(registry).stream()
+            .collect(Collectors.toMap(EPackage::getNsURI, pack -> pack, (first, second) -> first));
 
+        var resources = collectURIsAsStream().map(uri -> FileExtension.equals(uri.fileExtension())
+            ? resourceSet.createResource(uri)
+            : resourceSet.getResource(uri, true)
+        );
+        return index(resources, res -> {
+            if (res.isLoaded()) {
+                return getInstancedPackage(res);
+            }
+            var nsURI = readRootNamespace(res);
+            return nsURI != null ? packagesByNsURI.get(nsURI) : null;
+        });
+    }
+
+    private ResourceSet createResourceSet() {
         var resourceSet = new ResourceSetImpl();
         resourceSet.setPackageRegistry(registry);
+        return resourceSet;
+    }
 
-        var map = new HashMap<EPackage, Resource>();
-        collectResourcesAsStream(resourceSet).forEach(res -> {
-            if (res.getContents().isEmpty()) {
-                return;
+    private static @Nullable EPackage getInstancedPackage(Resource resource) {
+        if (resource.getContents().isEmpty()) {
+            return null;
+        }
+        return resource.getContents().get(0).eClass().getEPackage();
+    }
+
+    /**
+     * Returns the namespace of the first root object in the given unloaded XMI resource or {@code null} if it is empty.
+     */
+    private static @Nullable String readRootNamespace(Resource resource) {
+        var uriConverter = resource.getResourceSet().getURIConverter();
+        try (var input = uriConverter.createInputStream(resource.getURI())) {
+            var factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    // skip the xmi:XMI element that wraps multiple root objects
+                    if (reader.next() == XMLStreamReader.START_ELEMENT
+                        && !EMFUtils.isXMINamespace(reader.getNamespaceURI())) {
+                        return reader.getNamespaceURI();
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
             }
+        } catch (IOException | XMLStreamException e) {
+            throw new WrappedException(e);
+        }
+    }
 
-            var instancedPackage = res.getContents().get(0).eClass().getEPackage();
-            if (!knownPackages.contains(instancedPackage)) {
+    private Map<EPackage, Resource> index(
+        Stream<Resource> resources,
+        Function<Resource, @Nullable EPackage> instancedPackage
+    ) {
+        var knownPackages = EMFUtils.collectAvailablePackages(registry);
+
+        var map = new HashMap<EPackage, Resource>();
+        resources.forEach(res -> {
+            var pack = instancedPackage.apply(res);
+            if (pack == null || !knownPackages.contains(pack)) {
                 return;
             }
 
-            var previous = map.put(instancedPackage, res);
+            var previous = map.put(pack, res);
             if (previous != null) {
                 throw new IllegalArgumentException("Found multiple instances for package '%s': %s and %s".formatted(
-                    instancedPackage.getName(),
+                    pack.getName(),
                     previous.getURI(),
                     res.getURI()
                 ));
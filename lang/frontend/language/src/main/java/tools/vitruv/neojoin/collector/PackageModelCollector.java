@@ -7,6 +7,7 @@ import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
 import tools.vitruv.neojoin.utils.EMFUtils;
 import tools.vitruv.neojoin.utils.Pair;
+import tools.vitruv.neojoin.utils.ResourceProfile;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,7 +27,15 @@ public class PackageModelCollector extends AbstractModelCollector {
     }
 
     public PackageModelCollector(String searchPathString) {
-        super(searchPathString);
+        this(searchPathString, false, ResourceProfile.Default);
+    }
+
+    /**
+     * @param parallel whether meta-models are loaded concurrently
+     * @param profile  options for loading the meta-models
+     */
+    public PackageModelCollector(String searchPathString, boolean parallel, ResourceProfile profile) {
+        super(searchPathString, parallel, profile);
     }
 
     public Pair<List<Issue>, EPackage.Registry> collect() {
@@ -0,0 +1,30 @@
+package tools.vitruv.neojoin.jvmmodel;
+
+import org.eclipse.xtext.xbase.XExpression;
+import org.eclipse.xtext.xbase.interpreter.IEvaluationContext;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.utils.Result;
+
+/**
+ * {@link XExpression Xbase expression} that is prepared for repeated evaluation.
+ *
+ * @see ExpressionHelper#compile(XExpression)
+ */
+public interface CompiledExpression {
+
+    /**
+     * Evaluate the expression with the given context.
+     *
+     * @param context context, i.e. accessible local variables
+     * @return {@link Result.Success} with the returned value if execution was successful,
+     * or {@link Result.Failure} with the thrown exception otherwise
+     * @see ExpressionHelper#evaluate(XExpression, IEvaluationContext)
+     */
+    Result<@Nullable Object> evaluate(IEvaluationContext context);
+
+    /**
+     * Returns whether the expression was compiled into java code or falls back to the interpreter.
+     */
+    boolean isCompiled();
+
+}
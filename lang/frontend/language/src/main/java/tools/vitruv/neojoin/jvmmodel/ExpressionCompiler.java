@@ -0,0 +1,531 @@
+package tools.vitruv.neojoin.jvmmodel;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.impl.DynamicEObjectImpl;
+import org.eclipse.xtext.common.types.JvmArrayType;
+import org.eclipse.xtext.common.types.JvmField;
+import org.eclipse.xtext.common.types.JvmFormalParameter;
+import org.eclipse.xtext.common.types.JvmOperation;
+import org.eclipse.xtext.common.types.util.JavaReflectAccess;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.xbase.XAbstractFeatureCall;
+import org.eclipse.xtext.xbase.XAssignment;
+import org.eclipse.xtext.xbase.XBinaryOperation;
+import org.eclipse.xtext.xbase.XBlockExpression;
+import org.eclipse.xtext.xbase.XBooleanLiteral;
+import org.eclipse.xtext.xbase.XCastedExpression;
+import org.eclipse.xtext.xbase.XClosure;
+import org.eclipse.xtext.xbase.XExpression;
+import org.eclipse.xtext.xbase.XIfExpression;
+import org.eclipse.xtext.xbase.XListLiteral;
+import org.eclipse.xtext.xbase.XMemberFeatureCall;
+import org.eclipse.xtext.xbase.XNullLiteral;
+import org.eclipse.xtext.xbase.XNumberLiteral;
+import org.eclipse.xtext.xbase.XPostfixOperation;
+import org.eclipse.xtext.xbase.XStringLiteral;
+import org.eclipse.xtext.xbase.XVariableDeclaration;
+import org.eclipse.xtext.xbase.interpreter.IEvaluationContext;
+import org.eclipse.xtext.xbase.interpreter.impl.XbaseInterpreter;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Functions;
+import org.eclipse.xtext.xbase.lib.Procedures;
+import org.eclipse.xtext.xbase.typesystem.IBatchTypeResolver;
+import org.eclipse.xtext.xbase.typesystem.IResolvedTypes;
+import org.eclipse.xtext.xbase.util.XExpressionHelper;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiles {@link XExpression Xbase expressions} into a tree of java lambdas. In contrast to the
+ * {@link XbaseInterpreter interpreter}, all lookups (referenced java methods, variable names, types, ...) are performed
+ * once during compilation instead of during every evaluation.
+ * <p>
+ * Only the subset of Xbase that is commonly used in queries is supported: literals, list literals, variables, feature
+ * accesses on instances of dynamic source model classes, method calls (incl. operators and extension methods), closures, blocks,
+ * if-expressions and casts to reference types. The semantics (e.g. short-circuit operators, null-safe feature calls,
+ * default values) follow the interpreter.
+ *
+ * @see #compile(XExpression)
+ */
+@Singleton
+class ExpressionCompiler {
+
+    /**
+     * Compiled expression.
+     */
+    @FunctionalInterface
+    interface Code {
+
+        @Nullable Object evaluate(IEvaluationContext context);
+
+    }
+
+    /**
+     * Thrown during compilation if an expression contains unsupported constructs.
+     */
+    private static class UnsupportedExpressionException extends RuntimeException {
+
+        UnsupportedExpressionException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    private static final UnsupportedExpressionException UNSUPPORTED = new UnsupportedExpressionException();
+
+    @Inject
+    private IBatchTypeResolver typeResolver;
+
+    @Inject
+    private XExpressionHelper xbaseExpressionHelper;
+
+    @Inject
+    private Provider<JavaReflectAccess> reflectAccessProvider;
+
+    @Inject
+    private Provider<XbaseInterpreter> interpreterProvider;
+
+    /**
+     * Compiles the given expression.
+     *
+     * @param expression expression to compile
+     * @return compiled expression or {@code null} if the expression contains unsupported constructs
+     * @implNote Requires resolvable types just like the interpreter, i.e. the expression must be part of a resource
+     * after jvm model inference (see {@link QueryModelInferrer}).
+     */
+    @Nullable Code compile(XExpression expression) {
+        try {
+            return new Compilation(typeResolver.resolveTypes(expression), reflectAccessProvider.get())
+                .compile(expression);
+        } catch (UnsupportedExpressionException e) {
+            return null;
+        }
+    }
+
+    private class Compilation {
+
+        private final IResolvedTypes types;
+        private final JavaReflectAccess reflectAccess;
+
+        private Compilation(IResolvedTypes types, JavaReflectAccess reflectAccess) {
+            this.types = types;
+            this.reflectAccess = reflectAccess;
+        }
+
+        private Code compile(@Nullable XExpression expression) {
+            if (expression instanceof XNumberLiteral
+                || expression instanceof XStringLiteral
+                || expression instanceof XBooleanLiteral) {
+                return compileConstant(expression);
+            } else if (expression instanceof XNullLiteral) {
+                return constant(null);
+            } else if (expression instanceof XListLiteral list) {
+                return compileList(list);
+            } else if (expression instanceof XClosure closure) {
+                return compileClosure(closure);
+            } else if (expression instanceof XBlockExpression block) {
+                return compileBlock(block);
+            } else if (expression instanceof XIfExpression ifExpression) {
+                return compileIf(ifExpression);
+            } else if (expression instanceof XCastedExpression cast) {
+                return compileCast(cast);
+            } else if (expression instanceof XAbstractFeatureCall featureCall
+                && !(expression instanceof XAssignment)
+                && !(expression instanceof XPostfixOperation)) {
+                return compileFeatureCall(featureCall);
+            } else {
+                throw UNSUPPORTED;
+            }
+        }
+
+        private List<Code> compileAll(List<XExpression> expressions) {
+            return expressions.stream().map(this::compile).toList();
+        }
+
+        /**
+         * Literals do not depend on the context and are therefore evaluated once.
+         */
+        private Code compileConstant(XExpression literal) {
+            var result = interpreterProvider.get().evaluate(literal);
+            if (result.getException() != null) {
+                throw UNSUPPORTED;
+            }
+            return constant(result.getResult());
+        }
+
+        private Code compileList(XListLiteral list) {
+            var type = types.getActualType(list);
+            if (type == null || type.isArray()) {
+                throw UNSUPPORTED;
+            }
+
+            var elements = compileAll(list.getElements());
+            return context -> {
+                var values = new ArrayList<@Nullable Object>(elements.size());
+                for (var element : elements) {
+                    values.add(element.evaluate(context));
+                }
+                return Collections.unmodifiableList(values);
+            };
+        }
+
+        private Code compileClosure(XClosure closure) {
+            var type = types.getActualType(closure);
+            if (type == null || type.getRawTypeReference().getType() == null) {
+                throw UNSUPPORTED;
+            }
+
+            var parameters = closure.getFormalParameters().stream()
+                .map(p -> QualifiedName.create(p.getName()))
+                .toList();
+            var body = compile(closure.getExpression());
+            var typeName = type.getRawTypeReference().getType().getIdentifier();
+
+            // closures are only supported for the function types of Xbase
+            // because other functional interfaces could require conversions of the returned value
+            if (typeName.equals(Functions.Function0.class.getName()) && parameters.isEmpty()) {
+                return context -> (Functions.Function0<Object>) () -> invokeClosure(context, parameters, body);
+            } else if (typeName.equals(Functions.Function1.class.getName()) && parameters.size() == 1) {
+                return context -> (Functions.Function1<Object, Object>) p1 ->
+                    invokeClosure(context, parameters, body, p1);
+            } else if (typeName.equals(Functions.Function2.class.getName()) && parameters.size() == 2) {
+                return context -> (Functions.Function2<Object, Object, Object>) (p1, p2) ->
+                    invokeClosure(context, parameters, body, p1, p2);
+            } else if (typeName.equals(Procedures.Procedure0.class.getName()) && parameters.isEmpty()) {
+                return context -> (Procedures.Procedure0) () -> invokeClosure(context, parameters, body);
+            } else if (typeName.equals(Procedures.Procedure1.class.getName()) && parameters.size() == 1) {
+                return context -> (Procedures.Procedure1<Object>) p1 -> invokeClosure(context, parameters, body, p1);
+            } else if (typeName.equals(Procedures.Procedure2.class.getName()) && parameters.size() == 2) {
+                return context -> (Procedures.Procedure2<Object, Object>) (p1, p2) ->
+                    invokeClosure(context, parameters, body, p1, p2);
+            } else {
+                throw UNSUPPORTED;
+            }
+        }
+
+        private Code compileBlock(XBlockExpression block) {
+            var expressions = new ArrayList<Code>(block.getExpressions().size());
+            for (var expression : block.getExpressions()) {
+                if (expression instanceof XVariableDeclaration declaration) {
+                    expressions.add(compileVariableDeclaration(declaration));
+                } else {
+                    expressions.add(compile(expression));
+                }
+            }
+
+            return context -> {
+                var blockContext = context.fork();
+                Object result = null;
+                for (var expression : expressions) {
+                    result = expression.evaluate(blockContext);
+                }
+                return result;
+            };
+        }
+
+        private Code compileVariableDeclaration(XVariableDeclaration declaration) {
+            if (declaration.getRight() == null) {
+                throw UNSUPPORTED;
+            }
+
+            var name = QualifiedName.create(declaration.getName());
+            var right = compile(declaration.getRight());
+            return context -> {
+                context.newValue(name, right.evaluate(context));
+                return null;
+            };
+        }
+
+        private Code compileIf(XIfExpression ifExpression) {
+            var condition = compile(ifExpression.getIf());
+            var then = compile(ifExpression.getThen());
+            var otherwise = ifExpression.getElse() != null
+                ? compile(ifExpression.getElse())
+                : constant(getDefaultValue(ifExpression));
+
+            return context -> Boolean.TRUE.equals(condition.evaluate(context))
+                ? then.evaluate(context)
+                : otherwise.evaluate(context);
+        }
+
+        private Code compileCast(XCastedExpression cast) {
+            if (cast.getType() == null || cast.getType().getType() == null) {
+                throw UNSUPPORTED;
+            }
+
+            var clazz = reflectAccess.getRawType(cast.getType().getType());
+            if (clazz == null || clazz.isPrimitive()) {
+                throw UNSUPPORTED;
+            }
+
+            var target = compile(cast.getTarget());
+            return context -> clazz.cast(target.evaluate(context));
+        }
+
+        private Code compileFeatureCall(XAbstractFeatureCall featureCall) {
+            if (featureCall.isTypeLiteral()
+                || featureCall.isPackageFragment()
+                || xbaseExpressionHelper.isGetAndAssign(featureCall)
+                || (featureCall instanceof XBinaryOperation operation && operation.isReassignFirstArgument())) {
+                throw UNSUPPORTED;
+            }
+
+            var feature = featureCall.getFeature();
+            if (feature instanceof JvmFormalParameter parameter) {
+                return compileVariable(parameter.getName());
+            } else if (feature instanceof XVariableDeclaration variable) {
+                return compileVariable(variable.getName());
+            } else if (feature instanceof JvmField field) {
+                return compileField(featureCall, field);
+            } else if (feature instanceof JvmOperation operation) {
+                return xbaseExpressionHelper.isShortCircuitOperation(featureCall)
+                    ? compileShortCircuitOperation((XBinaryOperation) featureCall, operation)
+                    : compileOperation(featureCall, operation);
+            } else {
+                throw UNSUPPORTED;
+            }
+        }
+
+        private Code compileVariable(String variable) {
+            var name = QualifiedName.create(variable);
+            return context -> context.getValue(name);
+        }
+
+        /**
+         * Only fields of source model classes without an instance class are supported, whose instances are always
+         * {@link DynamicEObjectImpl dynamic ecore objects}.
+         */
+        private Code compileField(XAbstractFeatureCall featureCall, JvmField field) {
+            if (field.isStatic() || featureCall.getActualReceiver() == null) {
+                throw UNSUPPORTED;
+            }
+
+            var receiverType = types.getActualType(featureCall.getActualReceiver());
+            if (receiverType == null
+                || receiverType.getType() == null
+                || !(SourceModelInferrer.getEClassifierOrNull(receiverType.getType()) instanceof EClass receiverClass)
+                || receiverClass.getInstanceClassName() != null) {
+                throw UNSUPPORTED;
+            }
+
+            var receiver = compileReceiver(featureCall);
+            var access = new FieldAccess(field.getSimpleName());
+            return context -> {
+                var receiverValue = receiver.evaluate(context);
+                if (receiverValue == NULL_SAFE) {
+                    return receiver.nullSafeDefault();
+                }
+                return access.get((EObject) receiverValue);
+            };
+        }
+
+        private Code compileOperation(XAbstractFeatureCall featureCall, JvmOperation operation) {
+            var method = getMethod(operation);
+            var isStatic = Modifier.isStatic(method.getModifiers());
+            if (isStatic && featureCall.getActualReceiver() != null) {
+                throw UNSUPPORTED;
+            }
+
+            var receiver = isStatic ? null : compileReceiver(featureCall);
+            var arguments = compileAll(featureCall.getActualArguments());
+            return context -> {
+                Object receiverValue = null;
+                if (receiver != null) {
+                    receiverValue = receiver.evaluate(context);
+                    if (receiverValue == NULL_SAFE) {
+                        return receiver.nullSafeDefault();
+                    }
+                }
+
+                var argumentValues = new Object[arguments.size()];
+                for (int i = 0; i < argumentValues.length; i++) {
+                    argumentValues[i] = arguments.get(i).evaluate(context);
+                }
+                return invoke(method, receiverValue, argumentValues);
+            };
+        }
+
+        /**
+         * Compiles {@code &&}, {@code ||} and {@code ?:} which only evaluate the right operand if necessary.
+         */
+        private Code compileShortCircuitOperation(XBinaryOperation operation, JvmOperation jvmOperation) {
+            var method = getMethod(jvmOperation);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                throw UNSUPPORTED;
+            }
+
+            var left = compile(operation.getLeftOperand());
+            var right = compile(operation.getRightOperand());
+            var operator = operation.getConcreteSyntaxFeatureName();
+            if (operator.equals(xbaseExpressionHelper.getElvisOperator())) {
+                return context -> {
+                    var leftValue = left.evaluate(context);
+                    return leftValue != null
+                        ? leftValue
+                        : invoke(method, null, new Object[]{null, right.evaluate(context)});
+                };
+            } else if (operator.equals(xbaseExpressionHelper.getAndOperator())) {
+                return context -> {
+                    var leftValue = left.evaluate(context);
+                    return !(Boolean) leftValue
+                        ? false
+                        : invoke(method, null, new Object[]{leftValue, right.evaluate(context)});
+                };
+            } else if (operator.equals(xbaseExpressionHelper.getOrOperator())) {
+                return context -> {
+                    var leftValue = left.evaluate(context);
+                    return (Boolean) leftValue
+                        ? true
+                        : invoke(method, null, new Object[]{leftValue, right.evaluate(context)});
+                };
+            } else {
+                throw UNSUPPORTED;
+            }
+        }
+
+        private Receiver compileReceiver(XAbstractFeatureCall featureCall) {
+            var receiver = compile(featureCall.getActualReceiver());
+            var isNullSafe = featureCall instanceof XMemberFeatureCall memberFeatureCall && memberFeatureCall.isNullSafe();
+            var nullSafeDefault = isNullSafe ? getDefaultValue(featureCall) : null;
+            return new Receiver(receiver, isNullSafe, nullSafeDefault);
+        }
+
+        private Method getMethod(JvmOperation operation) {
+            if (operation.isVarArgs()
+                || operation.getParameters().stream()
+                .anyMatch(p -> p.getParameterType() == null || p.getParameterType().getType() instanceof JvmArrayType)) {
+                throw UNSUPPORTED; // requires argument conversions
+            }
+
+            Method method;
+            try {
+                method = reflectAccess.getMethod(operation);
+            } catch (RuntimeException e) {
+                throw UNSUPPORTED;
+            }
+            if (method == null || !method.trySetAccessible()) {
+                throw UNSUPPORTED;
+            }
+            return method;
+        }
+
+        private @Nullable Object getDefaultValue(XExpression expression) {
+            var type = types.getActualType(expression);
+            if (type == null || !type.isPrimitive()) {
+                return null;
+            }
+
+            var clazz = reflectAccess.getRawType(type.getType());
+            if (clazz == null) {
+                throw UNSUPPORTED;
+            }
+            return Array.get(Array.newInstance(clazz, 1), 0);
+        }
+
+    }
+
+    /**
+     * Marker value returned by a {@link Receiver} if it evaluated to {@code null} in a null-safe feature call.
+     */
+    private static final Object NULL_SAFE = new Object();
+
+    /**
+     * Receiver of a feature call.
+     */
+    private record Receiver(Code code, boolean isNullSafe, @Nullable Object nullSafeDefault) {
+
+        /**
+         * Evaluates the receiver.
+         *
+         * @return receiver value or {@link ExpressionCompiler#NULL_SAFE} if the receiver is {@code null} and the feature call is null-safe
+         * @throws NullPointerException if the receiver is {@code null} and the feature call is not null-safe
+         */
+        Object evaluate(IEvaluationContext context) {
+            var value = code.evaluate(context);
+            if (value == null) {
+                if (isNullSafe) {
+                    return NULL_SAFE;
+                }
+                throw new NullPointerException("receiver is null");
+            }
+            return value;
+        }
+
+    }
+
+    /**
+     * Field access on a {@link DynamicEObjectImpl dynamic ecore object} that behaves like the one of the interpreter
+     * used by {@link ExpressionHelper}. The structural feature is looked up once per receiver class.
+     */
+    private static class FieldAccess {
+
+        private record Lookup(EClass clazz, EStructuralFeature feature) {}
+
+        private final String name;
+        private volatile @Nullable Lookup lookup;
+
+        private FieldAccess(String name) {
+            this.name = name;
+        }
+
+        @Nullable Object get(EObject eObject) {
+            var current = lookup;
+            if (current == null || current.clazz() != eObject.eClass()) {
+                var feature = eObject.eClass().getEStructuralFeature(name);
+                if (feature == null) {
+                    throw new IllegalStateException("Could not find field " + name);
+                }
+                current = new Lookup(eObject.eClass(), feature);
+                lookup = current;
+            }
+
+            var value = eObject.eGet(current.feature());
+            if (value instanceof List<?> list) {
+                return Collections.unmodifiableList(list);
+            } else {
+                return value;
+            }
+        }
+
+    }
+
+    private static Code constant(@Nullable Object value) {
+        return context -> value;
+    }
+
+    private static @Nullable Object invokeClosure(
+        IEvaluationContext context,
+        List<QualifiedName> parameters,
+        Code body,
+        Object... arguments
+    ) {
+        var closureContext = context.fork();
+        for (int i = 0; i < arguments.length; i++) {
+            closureContext.newValue(parameters.get(i), arguments[i]);
+        }
+        return body.evaluate(closureContext);
+    }
+
+    private static @Nullable Object invoke(Method method, @Nullable Object receiver, Object[] arguments) {
+        try {
+            return method.invoke(receiver, arguments);
+        } catch (InvocationTargetException e) {
+            throw Exceptions.sneakyThrow(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw Exceptions.sneakyThrow(e);
+        }
+    }
+
+}
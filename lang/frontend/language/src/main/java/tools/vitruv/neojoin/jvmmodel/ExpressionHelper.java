@@ -48,6 +48,7 @@ import static tools.vitruv.neojoin.utils.Assertions.check;
  * @see #inferEType(XExpression)
  * @see #getFeatureOrNull(XExpression)
  * @see #evaluate(XExpression, IEvaluationContext)
+ * @see #compile(XExpression)
  */
 @Singleton
 public class ExpressionHelper {
@@ -131,10 +132,16 @@ public class ExpressionHelper {
     }
 
     @Inject
-    private Interpreter interpreter;
+    private Provider<Interpreter> interpreterProvider;
 
     /**
-     * Evaluate the given expression with the given context.
+     * The interpreter caches looked up java classes internally, so every thread gets its own instance.
+     */
+    private final ThreadLocal<Interpreter> interpreter = ThreadLocal.withInitial(() -> interpreterProvider.get());
+
+    /**
+     * Evaluate the given expression with the given context. Can be called concurrently from multiple threads as long
+     * as each thread uses its own context.
      *
      * @param expression expression to evaluate
      * @param context    context, i.e. accessible local variables
@@ -143,7 +150,7 @@ public class ExpressionHelper {
      * @see #createContext(Iterator, Iterator, AQRFrom) creating the context
      */
     public Result<@Nullable Object> evaluate(XExpression expression, IEvaluationContext context) {
-        IEvaluationResult result = interpreter.evaluate(expression, context, CancelIndicator.NullImpl);
+        IEvaluationResult result = interpreter.get().evaluate(expression, context, CancelIndicator.NullImpl);
         if (result.getException() != null) {
             return new Result.Failure<>(result.getException());
         } else {
@@ -151,6 +158,57 @@ public class ExpressionHelper {
         }
     }
 
+    @Inject
+    private ExpressionCompiler compiler;
+
+    /**
+     * Prepares the given expression for repeated evaluation. If possible, the expression is compiled into java code,
+     * which is considerably faster than {@link #evaluate(XExpression, IEvaluationContext) interpreting} it.
+     * Otherwise, e.g. if the expression contains unsupported constructs, the returned expression is always
+     * interpreted. This is decided once during compilation.
+     *
+     * @param expression expression to compile
+     * @return compiled expression which can be evaluated concurrently from multiple threads
+     * @implNote Exceptions thrown by the compiled code are reported as {@link Result.Failure failures}, just like the
+     * exceptions thrown by the methods the interpreter invokes.
+     */
+    public CompiledExpression compile(XExpression expression) {
+        var code = compiler.compile(expression);
+        if (code == null) {
+            return new CompiledExpression() {
+
+                @Override
+                public Result<@Nullable Object> evaluate(IEvaluationContext context) {
+                    return ExpressionHelper.this.evaluate(expression, context);
+                }
+
+                @Override
+                public boolean isCompiled() {
+                    return false;
+                }
+
+            };
+        } else {
+            return new CompiledExpression() {
+
+                @Override
+                public Result<@Nullable Object> evaluate(IEvaluationContext context) {
+                    try {
+                        return new Result.Success<>(code.evaluate(context));
+                    } catch (Exception e) {
+                        return new Result.Failure<>(e);
+                    }
+                }
+
+                @Override
+                public boolean isCompiled() {
+                    return true;
+                }
+
+            };
+        }
+    }
+
     @Inject
     private IBatchTypeResolver typeResolver;
 
@@ -0,0 +1,35 @@
+package tools.vitruv.neojoin.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event with the number of evaluations and the total evaluation time of an expression of the query.
+ *
+ * @see Metrics#commitExpressionEvents()
+ */
+@Name("tools.vitruv.neojoin.Expression")
+@Label("Expression")
+@Category("NeoJoin")
+@Description("Evaluations and total evaluation time of a query expression")
+@StackTrace(false)
+class ExpressionEvent extends jdk.jfr.Event {
+
+    @Label("Location")
+    String location;
+
+    @Label("Expression")
+    String expression;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Time")
+    @Timespan
+    long time;
+
+}
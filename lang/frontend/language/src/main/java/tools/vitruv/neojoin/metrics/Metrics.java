@@ -0,0 +1,310 @@
+package tools.vitruv.neojoin.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.xbase.XExpression;
+import org.eclipse.xtext.xbase.interpreter.IEvaluationContext;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.SourceLocation;
+import tools.vitruv.neojoin.jvmmodel.CompiledExpression;
+import tools.vitruv.neojoin.utils.Result;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry for the metrics of a NeoJoin run: the duration of its phases, the rows produced by the operators of every
+ * target class and the number of evaluations and the evaluation time of every expression of the query. Everything
+ * that is recorded is also published as a JDK Flight Recorder event, see {@link PhaseEvent}, {@link OperatorEvent} and
+ * {@link ExpressionEvent}.
+ * <p>
+ * Metrics are disabled by passing {@code null} instead of a registry. Then phases are not timed, operators are not
+ * profiled and expressions are not instrumented, so disabled metrics cost nothing.
+ *
+ * @see #create(boolean)
+ * @see #writeJson(Path)
+ */
+public class Metrics {
+
+    /**
+     * Duration of a phase.
+     *
+     * @param name  name of the phase
+     * @param nanos duration in nanoseconds
+     */
+    public record PhaseMetrics(String name, long nanos) {}
+
+    /**
+     * Statistics of an operator that provided the source instances of a target class.
+     *
+     * @param targetClass name of the target class
+     * @param operator    description of the operator
+     * @param depth       depth of the operator in the operator tree of the target class, 0 for its root
+     * @param rows        number of produced rows
+     * @param evaluations number of expression evaluations
+     * @param nanos       inclusive time in nanoseconds
+     */
+    public record OperatorMetrics(
+        String targetClass,
+        String operator,
+        int depth,
+        long rows,
+        long evaluations,
+        long nanos
+    ) {}
+
+    /**
+     * Statistics of an expression.
+     *
+     * @param location    location of the expression in the query
+     * @param expression  source text of the expression
+     * @param evaluations number of evaluations
+     * @param nanos       total evaluation time in nanoseconds
+     */
+    public record ExpressionMetrics(SourceLocation location, String expression, long evaluations, long nanos) {}
+
+    private final List<PhaseMetrics> phases = Collections.synchronizedList(new ArrayList<>());
+    private final List<OperatorMetrics> operators = Collections.synchronizedList(new ArrayList<>());
+    private final Map<XExpression, ExpressionStatistics> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a new registry if metrics are requested or the NeoJoin events are recorded by a running flight
+     * recording, e.g. one started with {@code -XX:StartFlightRecording}. Returns {@code null} otherwise.
+     */
+    public static @Nullable Metrics create(boolean requested) {
+        return requested || isRecording() ? new Metrics() : null;
+    }
+
+    private static boolean isRecording() {
+        return FlightRecorder.isInitialized() && EventType.getEventType(PhaseEvent.class).isEnabled();
+    }
+
+    /**
+     * Starts timing a phase for the given registry if it is not {@code null}.
+     *
+     * @return the phase to {@link Phase#close() close} when it is finished
+     */
+    public static Phase startPhase(@Nullable Metrics metrics, String name) {
+        return metrics != null ? new Phase(metrics, name) : Phase.Disabled;
+    }
+
+    /**
+     * A phase that is timed until it is {@link #close() closed}.
+     */
+    public static final class Phase implements AutoCloseable {
+
+        private static final Phase Disabled = new Phase(null, "");
+
+        private final @Nullable Metrics metrics;
+        private final String name;
+        private final @Nullable PhaseEvent event;
+        private final long start;
+
+        private Phase(@Nullable Metrics metrics, String name) {
+            this.metrics = metrics;
+            this.name = name;
+            if (metrics != null) {
+                this.event = new PhaseEvent();
+                this.event.phase = name;
+                this.event.begin();
+            } else {
+                this.event = null;
+            }
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Records the duration of the phase. Phases that are not closed, e.g. because of an exception, are not
+         * recorded.
+         */
+        @Override
+        public void close() {
+            if (metrics != null && event != null) {
+                var nanos = System.nanoTime() - start;
+                event.commit();
+                metrics.phases.add(new PhaseMetrics(name, nanos));
+            }
+        }
+
+    }
+
+    /**
+     * Records the statistics of an operator.
+     */
+    public void record(OperatorMetrics operator) {
+        operators.add(operator);
+
+        var event = new OperatorEvent();
+        if (event.isEnabled()) {
+            event.targetClass = operator.targetClass();
+            event.operator = operator.operator();
+            event.depth = operator.depth();
+            event.rows = operator.rows();
+            event.evaluations = operator.evaluations();
+            event.time = operator.nanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the given compiled expression that records the number of evaluations and the evaluation time of the
+     * given expression in the given registry if it is not {@code null}.
+     */
+    public static CompiledExpression instrument(
+        @Nullable Metrics metrics,
+        XExpression expression,
+        CompiledExpression compiled
+    ) {
+        if (metrics == null) {
+            return compiled;
+        }
+
+        var statistics = metrics.expressions.computeIfAbsent(expression, e -> new ExpressionStatistics());
+        return new CompiledExpression() {
+
+            @Override
+            public Result<@Nullable Object> evaluate(IEvaluationContext context) {
+                long start = System.nanoTime();
+                try {
+                    return compiled.evaluate(context);
+                } finally {
+                    statistics.nanos.add(System.nanoTime() - start);
+                    statistics.evaluations.increment();
+                }
+            }
+
+            @Override
+            public boolean isCompiled() {
+                return compiled.isCompiled();
+            }
+
+        };
+    }
+
+    private static class ExpressionStatistics {
+
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+    }
+
+    /**
+     * Commits an {@link ExpressionEvent} with the statistics of every instrumented expression. The statistics are
+     * cumulative, i.e. they contain all evaluations since the expression was first instrumented.
+     */
+    public void commitExpressionEvents() {
+        if (!new ExpressionEvent().isEnabled()) {
+            return;
+        }
+
+        for (var expression : getExpressions()) {
+            var event = new ExpressionEvent();
+            event.location = expression.location().display();
+            event.expression = expression.expression();
+            event.evaluations = expression.evaluations();
+            event.time = expression.nanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the recorded phases in the order they were finished.
+     */
+    public List<PhaseMetrics> getPhases() {
+        synchronized (phases) {
+            return List.copyOf(phases);
+        }
+    }
+
+    /**
+     * Returns the recorded operators in the order they were recorded.
+     */
+    public List<OperatorMetrics> getOperators() {
+        synchronized (operators) {
+            return List.copyOf(operators);
+        }
+    }
+
+    /**
+     * Returns the statistics of all instrumented expressions, the most expensive first.
+     */
+    public List<ExpressionMetrics> getExpressions() {
+        return expressions.entrySet().stream()
+            .map(entry -> new ExpressionMetrics(
+                SourceLocation.from(entry.getKey()),
+                toText(entry.getKey()),
+                entry.getValue().evaluations.sum(),
+                entry.getValue().nanos.sum()
+            ))
+            .sorted(Comparator.comparingLong(ExpressionMetrics::nanos).reversed())
+            .toList();
+    }
+
+    private static String toText(XExpression expression) {
+        var node = NodeModelUtils.findActualNodeFor(expression);
+        return node != null ? NodeModelUtils.getTokenText(node) : expression.toString();
+    }
+
+    /**
+     * Returns a JSON summary of all recorded metrics. Times are given in nanoseconds.
+     */
+    public String toJson() {
+        var phasesJson = new JsonArray();
+        for (var phase : getPhases()) {
+            var json = new JsonObject();
+            json.addProperty("name", phase.name());
+            json.addProperty("nanos", phase.nanos());
+            phasesJson.add(json);
+        }
+
+        var operatorsJson = new JsonArray();
+        for (var operator : getOperators()) {
+            var json = new JsonObject();
+            json.addProperty("targetClass", operator.targetClass());
+            json.addProperty("operator", operator.operator());
+            json.addProperty("depth", operator.depth());
+            json.addProperty("rows", operator.rows());
+            json.addProperty("evaluations", operator.evaluations());
+            json.addProperty("nanos", operator.nanos());
+            operatorsJson.add(json);
+        }
+
+        var expressionsJson = new JsonArray();
+        for (var expression : getExpressions()) {
+            var json = new JsonObject();
+            json.addProperty("location", expression.location().display());
+            json.addProperty("line", expression.location().start().getLine());
+            json.addProperty("column", expression.location().start().getColumn());
+            json.addProperty("expression", expression.expression());
+            json.addProperty("evaluations", expression.evaluations());
+            json.addProperty("nanos", expression.nanos());
+            expressionsJson.add(json);
+        }
+
+        var root = new JsonObject();
+        root.add("phases", phasesJson);
+        root.add("operators", operatorsJson);
+        root.add("expressions", expressionsJson);
+        return new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(root);
+    }
+
+    /**
+     * Writes the {@link #toJson() JSON summary} to the given file.
+     */
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson());
+    }
+
+}
@@ -0,0 +1,42 @@
+package tools.vitruv.neojoin.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event with the statistics of an operator that provided the source instances of a target class.
+ *
+ * @see Metrics#record(Metrics.OperatorMetrics)
+ */
+@Name("tools.vitruv.neojoin.Operator")
+@Label("Operator")
+@Category("NeoJoin")
+@Description("Rows, expression evaluations and time of an operator after a transformation")
+@StackTrace(false)
+class OperatorEvent extends jdk.jfr.Event {
+
+    @Label("Target Class")
+    String targetClass;
+
+    @Label("Operator")
+    String operator;
+
+    @Label("Depth")
+    @Description("Depth of the operator in the operator tree of the target class")
+    int depth;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Time")
+    @Timespan
+    long time;
+
+}
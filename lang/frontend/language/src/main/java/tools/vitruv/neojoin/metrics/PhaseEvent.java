@@ -0,0 +1,22 @@
+package tools.vitruv.neojoin.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for a phase of a NeoJoin run, e.g. parsing the query or creating the target instances.
+ *
+ * @see Metrics#startPhase(Metrics, String)
+ */
+@Name("tools.vitruv.neojoin.Phase")
+@Label("Phase")
+@Category("NeoJoin")
+@Description("Phase of a NeoJoin run")
+class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package tools.vitruv.neojoin.metrics;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,195 @@
+package tools.vitruv.neojoin.synthetic;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.DynamicEObjectImpl;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.synthetic.ModelPlan.PlannedObject;
+import tools.vitruv.neojoin.synthetic.ModelPlan.PlannedResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a synthesized resource in EMF's {@link BinaryResourceImpl binary format}, one object at a time.
+ * <p>
+ * The output stream of the binary format writes the objects of a resource recursively and remembers every written
+ * object. Instead, every object is only created when it is written, the objects it contains are created lazily when
+ * their containment reference is written and written objects are only counted. All other references are written as
+ * proxies, which EMF resolves when the reference is accessed.
+ */
+final class BinaryModelWriter extends BinaryResourceImpl.EObjectOutputStream {
+
+    private final ModelPlan plan;
+    private final PlannedResource resource;
+    private final Map<PlannedResource, URI> uris;
+
+    /**
+     * @param uris URIs of all resources of the plan to refer to objects in other resources
+     */
+    BinaryModelWriter(
+        ModelPlan plan,
+        PlannedResource resource,
+        Map<PlannedResource, URI> uris,
+        OutputStream output
+    ) throws IOException {
+        super(output, Map.of());
+        this.plan = plan;
+        this.resource = resource;
+        this.uris = uris;
+        this.baseURI = uris.get(resource); // proxy URIs are written relative to the resource
+        this.eObjectIDMap = new CountingMap();
+    }
+
+    void write() throws IOException {
+        writeCompressedInt(resource.rootCount);
+        for (var clazz : resource.rootClasses) {
+            for (int index = 0; index < clazz.count; index++) {
+                saveEObject(create(new PlannedObject(clazz, index)), Check.CONTAINER);
+            }
+        }
+        flush();
+    }
+
+    private InternalEObject create(PlannedObject object) {
+        var clazz = object.type();
+        var random = plan.random(object);
+        var created = new GeneratedObject(object);
+
+        for (var attribute : clazz.attributes) {
+            var values = plan.values(object, attribute, random).stream()
+                .map(value -> EcoreUtil.createFromString(attribute.getEAttributeType(), value))
+                .toList();
+            if (attribute.isMany()) {
+                getList(created, attribute).addAll(values);
+            } else {
+                created.eSet(attribute, values.get(0));
+            }
+        }
+        for (var reference : clazz.references) {
+            var proxies = plan.targets(object, reference, random).stream()
+                .map(this::createProxy)
+                .toList();
+            if (reference.isMany()) {
+                getList(created, reference).addAll(proxies);
+            } else if (!proxies.isEmpty()) {
+                created.eSet(reference, proxies.get(0));
+            }
+        }
+        return created;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> getList(EObject object, EStructuralFeature feature) {
+        return (List<Object>) object.eGet(feature);
+    }
+
+    private EObject createProxy(PlannedObject target) {
+        var proxy = (InternalEObject) EcoreUtil.create(target.type().eClass);
+        proxy.eSetProxyURI(uris.get(target.type().resource).appendFragment(plan.fragment(target)));
+        return proxy;
+    }
+
+    /**
+     * Writes the objects contained by a {@link GeneratedObject} when its containment references are written.
+     */
+    @Override
+    protected void saveFeatureValue(
+        InternalEObject internalEObject,
+        Object value,
+        int featureID,
+        EStructuralFeatureData eStructuralFeatureData
+    ) throws IOException {
+        if (!(value instanceof Children children)) {
+            super.saveFeatureValue(internalEObject, value, featureID, eStructuralFeatureData);
+            return;
+        }
+
+        var objects = children.classes().stream()
+            .flatMap(clazz -> plan.children(children.container(), clazz).stream())
+            .toList();
+        if (children.reference().isMany()) {
+            writeCompressedInt(objects.size());
+        }
+        for (var child : objects) {
+            saveEObject(create(child), Check.NOTHING);
+        }
+    }
+
+    /**
+     * Placeholder for the objects contained by a {@link GeneratedObject} through a containment reference.
+     */
+    private record Children(PlannedObject container, EReference reference, List<ModelPlan.PlannedClass> classes) {}
+
+    /**
+     * A synthesized object whose containment references hold the {@link Children} placeholder.
+     */
+    private static final class GeneratedObject extends DynamicEObjectImpl {
+
+        private final PlannedObject object;
+
+        GeneratedObject(PlannedObject object) {
+            super(object.type().eClass);
+            this.object = object;
+        }
+
+        private List<ModelPlan.PlannedClass> getChildren(int featureID) {
+            return object.type().children.getOrDefault(eClass().getEStructuralFeature(featureID), List.of());
+        }
+
+        @Override
+        public boolean eIsSet(int featureID) {
+            var children = getChildren(featureID);
+            if (!children.isEmpty()) {
+                return children.stream().anyMatch(clazz -> clazz.countIn(object.type(), object.index()) > 0);
+            }
+            return super.eIsSet(featureID);
+        }
+
+        @Override
+        public Object eGet(int featureID, boolean resolve, boolean coreType) {
+            var children = getChildren(featureID);
+            if (!children.isEmpty()) {
+                return new Children(object, (EReference) eClass().getEStructuralFeature(featureID), children);
+            }
+            return super.eGet(featureID, resolve, coreType);
+        }
+
+    }
+
+    /**
+     * Assigns consecutive IDs to written objects like the map of the output stream, but does not retain them. Every
+     * object is written exactly once, so an ID is never looked up.
+     */
+    private static final class CountingMap extends AbstractMap<EObject, Integer> {
+
+        private int size;
+
+        @Override
+        public @Nullable Integer put(EObject key, Integer value) {
+            size++;
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<EObject, Integer>> entrySet() {
+            return Set.of();
+        }
+
+    }
+
+}
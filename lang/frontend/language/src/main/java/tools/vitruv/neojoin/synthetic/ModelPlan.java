@@ -0,0 +1,574 @@
+package tools.vitruv.neojoin.synthetic;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.jspecify.annotations.Nullable;
+import tools.vitruv.neojoin.utils.EMFUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static tools.vitruv.neojoin.utils.Assertions.require;
+
+/**
+ * Layout and contents of synthesized instance models. Every object is identified by its class and its index within
+ * that class, and everything about it is computed from these two, so the models can be written without keeping
+ * objects in memory.
+ * <p>
+ * Every root package gets its own resource. An object is contained by an object of the first class of its resource
+ * that has a containment reference of a matching type, unless this would create a containment cycle or exceed the
+ * capacity of a bounded reference. The {@code i}-th object of a contained class goes to the container with index
+ * {@code i % n}, where {@code n} is the number of containers. Objects without a container are roots of their resource.
+ * <p>
+ * Values are drawn from a random generator seeded with the seed of the options and the identity of the object, so
+ * every object gets the same values regardless of the order in which the objects are written.
+ */
+final class ModelPlan {
+
+    /**
+     * A resource, i.e. an output file, with the objects of a root package and its subpackages.
+     */
+    static final class PlannedResource {
+
+        final EPackage pack;
+        final String fileName;
+        final List<PlannedClass> rootClasses = new ArrayList<>();
+        int rootCount;
+
+        private PlannedResource(EPackage pack, String fileName) {
+            this.pack = pack;
+            this.fileName = fileName;
+        }
+
+    }
+
+    /**
+     * A concrete class with at least one object.
+     */
+    static final class PlannedClass {
+
+        final EClass eClass;
+        final String qualifiedName;
+        final int ordinal;
+        final int count;
+        final PlannedResource resource;
+
+        @Nullable PlannedClass container;
+        @Nullable EReference containment;
+        int rootOffset;
+
+        /**
+         * Classes of the objects contained by objects of this class in the order in which they are written.
+         */
+        final Map<EReference, List<PlannedClass>> children = new LinkedHashMap<>();
+        final List<EAttribute> attributes = new ArrayList<>();
+        final List<EReference> references = new ArrayList<>();
+
+        private PlannedClass(EClass eClass, String qualifiedName, int ordinal, int count, PlannedResource resource) {
+            this.eClass = eClass;
+            this.qualifiedName = qualifiedName;
+            this.ordinal = ordinal;
+            this.count = count;
+            this.resource = resource;
+        }
+
+        /**
+         * Returns the number of objects of this class that are contained by the container with the given index.
+         */
+        int countIn(PlannedClass container, int containerIndex) {
+            return count > containerIndex ? (count - containerIndex - 1) / container.count + 1 : 0;
+        }
+
+        @Override
+        public String toString() {
+            return qualifiedName;
+        }
+
+    }
+
+    /**
+     * An object given by its class and its index.
+     */
+    record PlannedObject(PlannedClass type, int index) {}
+
+    private static final long Golden = 0x9E3779B97F4A7C15L;
+    private static final long Epoch = 946684800000L; // 2000-01-01
+
+    private static final Set<Class<?>> SupportedTypes = Set.of(
+        String.class, boolean.class, Boolean.class, char.class, Character.class,
+        byte.class, Byte.class, short.class, Short.class, int.class, Integer.class, long.class, Long.class,
+        float.class, Float.class, double.class, Double.class, BigInteger.class, BigDecimal.class, Date.class
+    );
+
+    private final SyntheticModelOptions options;
+    private final List<PlannedResource> resources = new ArrayList<>();
+    private final List<PlannedClass> classes = new ArrayList<>();
+    private final Map<PlannedClass, Map<EAttribute, ValueDistribution>> distributions = new HashMap<>();
+    private final Map<EReference, TargetSpace> targetSpaces = new HashMap<>();
+    private final Map<ValueDistribution.Zipf, double[]> zipfDistributions = new HashMap<>();
+
+    ModelPlan(Collection<EPackage> rootPackages, SyntheticModelOptions options, String fileExtension) {
+        this.options = options;
+
+        var byName = new HashMap<String, List<EClass>>();
+        var fileNames = new HashSet<String>();
+        for (var pack : rootPackages) {
+            var fileName = pack.getName() + "." + fileExtension;
+            require(fileNames.add(fileName), () -> "Multiple packages named '%s'".formatted(pack.getName()));
+            EMFUtils.getAllEClassifiers(pack)
+                .filter(EClass.class::isInstance)
+                .map(EClass.class::cast)
+                .forEach(clazz -> {
+                    byName.computeIfAbsent(clazz.getName(), n -> new ArrayList<>()).add(clazz);
+                    byName.computeIfAbsent(qualifiedName(clazz), n -> new ArrayList<>()).add(clazz);
+                });
+        }
+
+        var counts = new HashMap<EClass, Integer>();
+        options.counts().forEach((name, count) -> {
+            for (var clazz : lookup(byName, name)) {
+                require(isConcrete(clazz), () -> "Class '%s' is abstract".formatted(name));
+                // qualified names take precedence over simple names
+                if (name.contains(".") || !counts.containsKey(clazz)) {
+                    counts.put(clazz, count);
+                }
+            }
+        });
+
+        for (var pack : rootPackages) {
+            var resource = new PlannedResource(pack, pack.getName() + "." + fileExtension);
+            resources.add(resource);
+            EMFUtils.getAllEClassifiers(pack)
+                .filter(EClass.class::isInstance)
+                .map(EClass.class::cast)
+                .filter(ModelPlan::isConcrete)
+                .forEach(clazz -> {
+                    var count = counts.getOrDefault(clazz, options.defaultCount());
+                    if (count > 0) {
+                        classes.add(new PlannedClass(clazz, qualifiedName(clazz), classes.size(), count, resource));
+                    }
+                });
+        }
+
+        classes.forEach(this::planContainment);
+        for (var clazz : classes) {
+            if (clazz.container == null) {
+                clazz.rootOffset = clazz.resource.rootCount;
+                clazz.resource.rootClasses.add(clazz);
+                clazz.resource.rootCount += clazz.count;
+            }
+        }
+        classes.forEach(this::planFeatures);
+        planDistributions(byName);
+    }
+
+    private static boolean isConcrete(EClass clazz) {
+        return !clazz.isAbstract() && !clazz.isInterface();
+    }
+
+    private static String qualifiedName(EClass clazz) {
+        return EMFUtils.getFullyQualifiedNameAsStream(clazz.getEPackage()).collect(Collectors.joining(".")) + "."
+            + clazz.getName();
+    }
+
+    private static List<EClass> lookup(Map<String, List<EClass>> byName, String name) {
+        var found = byName.get(name);
+        require(found != null, () -> "Unknown class '%s'".formatted(name));
+        return found;
+    }
+
+    /**
+     * Persistent features that can be set, i.e. features that are saved with a model.
+     */
+    private static boolean isPersistent(EStructuralFeature feature) {
+        return feature.isChangeable() && !feature.isTransient() && !feature.isDerived() && !feature.isVolatile();
+    }
+
+    private void planContainment(PlannedClass clazz) {
+        for (var candidate : classes) {
+            if (candidate.resource != clazz.resource || containsTransitively(clazz, candidate)) {
+                continue;
+            }
+            for (var reference : candidate.eClass.getEAllContainments()) {
+                if (isPersistent(reference)
+                    && reference.getEReferenceType().isSuperTypeOf(clazz.eClass)
+                    && hasCapacity(candidate, reference, clazz)) {
+                    clazz.container = candidate;
+                    clazz.containment = reference;
+                    candidate.children.computeIfAbsent(reference, r -> new ArrayList<>()).add(clazz);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether objects of the given class (transitively) contain the objects of the given candidate container.
+     */
+    private static boolean containsTransitively(PlannedClass clazz, PlannedClass candidate) {
+        for (PlannedClass current = candidate; current != null; current = current.container) {
+            if (current == clazz) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCapacity(PlannedClass container, EReference reference, PlannedClass clazz) {
+        if (reference.getUpperBound() == EStructuralFeature.UNBOUNDED_MULTIPLICITY) {
+            return true;
+        }
+        long perContainer = ceilDiv(clazz.count, container.count);
+        for (var sibling : container.children.getOrDefault(reference, List.of())) {
+            perContainer += ceilDiv(sibling.count, container.count);
+        }
+        return perContainer <= reference.getUpperBound();
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+
+    private void planFeatures(PlannedClass clazz) {
+        for (var attribute : clazz.eClass.getEAllAttributes()) {
+            if (isPersistent(attribute) && isSupported(attribute.getEAttributeType())) {
+                clazz.attributes.add(attribute);
+            }
+        }
+        for (var reference : clazz.eClass.getEAllReferences()) {
+            if (isPersistent(reference)
+                && !reference.isContainment()
+                && !reference.isContainer()
+                && isGenerated(reference)
+                && targets(reference).total > 0) {
+                clazz.references.add(reference);
+            }
+        }
+    }
+
+    /**
+     * Only one side of a bidirectional reference is generated, EMF sets the opposite side when the model is loaded.
+     * That is the single-valued side if there is one, so its upper bound is respected.
+     */
+    private static boolean isGenerated(EReference reference) {
+        var opposite = reference.getEOpposite();
+        if (opposite == null) {
+            return true;
+        }
+        if (reference.isMany() != opposite.isMany()) {
+            return !reference.isMany();
+        }
+        return identifier(reference).compareTo(identifier(opposite)) <= 0;
+    }
+
+    private static String identifier(EReference reference) {
+        return qualifiedName(reference.getEContainingClass()) + "." + reference.getName();
+    }
+
+    private void planDistributions(Map<String, List<EClass>> byName) {
+        for (var clazz : classes) {
+            var attributes = new HashMap<EAttribute, ValueDistribution>();
+            for (var attribute : clazz.attributes) {
+                attributes.put(attribute, defaultDistribution(attribute.getEAttributeType()));
+            }
+            distributions.put(clazz, attributes);
+        }
+
+        // apply simple names first, so qualified names take precedence
+        var explicit = options.distributions().entrySet().stream()
+            .sorted(Map.Entry.comparingByKey(Comparator.comparingLong(ModelPlan::dots)))
+            .toList();
+        for (var entry : explicit) {
+            var name = entry.getKey();
+            var separator = name.lastIndexOf('.');
+            require(separator > 0, () -> "Invalid attribute '%s', expected CLASS.ATTRIBUTE".formatted(name));
+            var attributeName = name.substring(separator + 1);
+            for (var eClass : lookup(byName, name.substring(0, separator))) {
+                var attribute = eClass.getEStructuralFeature(attributeName);
+                require(
+                    attribute instanceof EAttribute,
+                    () -> "Unknown attribute '%s' of class '%s'".formatted(attributeName, eClass.getName())
+                );
+                for (var clazz : classes) {
+                    if (eClass.isSuperTypeOf(clazz.eClass) && clazz.attributes.contains(attribute)) {
+                        distributions.get(clazz).put((EAttribute) attribute, entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private static long dots(String name) {
+        return name.chars().filter(c -> c == '.').count();
+    }
+
+    private ValueDistribution defaultDistribution(EDataType type) {
+        if (type instanceof EEnum enumeration) {
+            return new ValueDistribution.Uniform(0, enumeration.getELiterals().size() - 1);
+        }
+        var instanceClass = type.getInstanceClass();
+        if (instanceClass == String.class) {
+            return new ValueDistribution.Key(options.keyOverlap());
+        } else if (instanceClass == boolean.class || instanceClass == Boolean.class) {
+            return new ValueDistribution.Uniform(0, 1);
+        } else if (instanceClass == char.class || instanceClass == Character.class) {
+            return new ValueDistribution.Uniform(0, 25);
+        } else if (instanceClass == Date.class) {
+            return new ValueDistribution.Uniform(0, 3652);
+        } else {
+            return new ValueDistribution.Uniform(0, 100);
+        }
+    }
+
+    private static boolean isSupported(EDataType type) {
+        if (type instanceof EEnum enumeration) {
+            return !enumeration.getELiterals().isEmpty();
+        }
+        var instanceClass = type.getInstanceClass();
+        return instanceClass != null && SupportedTypes.contains(instanceClass);
+    }
+
+    List<PlannedResource> resources() {
+        return resources;
+    }
+
+    List<PlannedClass> classes() {
+        return classes;
+    }
+
+    /**
+     * Returns the random generator for the values of the given object.
+     */
+    SplittableRandom random(PlannedObject object) {
+        var identity = ((long) object.type().ordinal << 32) | object.index();
+        return new SplittableRandom(mix(options.seed() + Golden * identity));
+    }
+
+    /**
+     * Scrambles the bits of the given seed, the generators of similar seeds would produce similar values otherwise.
+     */
+    private static long mix(long seed) {
+        seed = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94D049BB133111EBL;
+        return seed ^ (seed >>> 31);
+    }
+
+    /**
+     * Returns the URI fragment of the given object within its resource.
+     */
+    String fragment(PlannedObject object) {
+        var clazz = object.type();
+        if (clazz.container == null || clazz.containment == null) {
+            return "/" + (clazz.rootOffset + object.index());
+        }
+
+        var container = clazz.container;
+        var containerIndex = object.index() % container.count;
+        var prefix = fragment(new PlannedObject(container, containerIndex)) + "/@" + clazz.containment.getName();
+        if (!clazz.containment.isMany()) {
+            return prefix;
+        }
+
+        var position = object.index() / container.count;
+        for (var sibling : container.children.get(clazz.containment)) {
+            if (sibling == clazz) {
+                break;
+            }
+            position += sibling.countIn(container, containerIndex);
+        }
+        return prefix + "." + position;
+    }
+
+    /**
+     * Returns the objects of the given class that are contained by the given container.
+     */
+    List<PlannedObject> children(PlannedObject container, PlannedClass clazz) {
+        var children = new ArrayList<PlannedObject>(clazz.countIn(container.type(), container.index()));
+        for (int index = container.index(); index < clazz.count; index += container.type().count) {
+            children.add(new PlannedObject(clazz, index));
+        }
+        return children;
+    }
+
+    /**
+     * Returns the literal values of the given attribute of the given object.
+     */
+    List<String> values(PlannedObject object, EAttribute attribute, SplittableRandom random) {
+        var distribution = distributions.get(object.type()).get(attribute);
+        if (!attribute.isMany()) {
+            return List.of(value(object, attribute, distribution, random));
+        }
+
+        var count = multiplicity(attribute, Integer.MAX_VALUE, random);
+        var values = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(value(object, attribute, distribution, random));
+        }
+        return values;
+    }
+
+    private String value(
+        PlannedObject object,
+        EAttribute attribute,
+        ValueDistribution distribution,
+        SplittableRandom random
+    ) {
+        var type = attribute.getEAttributeType();
+        var instanceClass = type.getInstanceClass();
+        long number;
+        double fraction;
+        if (distribution instanceof ValueDistribution.Key key) {
+            // independent of the class, so objects with the same index in different classes share their key
+            var keySeed = options.seed() ^ (Golden * attribute.getName().hashCode() + object.index());
+            var shared = new SplittableRandom(mix(keySeed)).nextDouble() < key.overlap();
+            if (!shared && instanceClass == String.class) {
+                return attribute.getName() + " " + object.index() + " " + object.type().qualifiedName;
+            }
+            number = shared ? object.index() : -1 - ((long) object.index() * classes.size() + object.type().ordinal);
+            fraction = number;
+        } else if (distribution instanceof ValueDistribution.Uniform uniform) {
+            number = uniform.min() == uniform.max() ? uniform.min() : random.nextLong(uniform.min(), uniform.max() + 1);
+            fraction = uniform.min() + random.nextDouble() * (uniform.max() - uniform.min());
+        } else {
+            number = sampleZipf((ValueDistribution.Zipf) distribution, random);
+            fraction = number;
+        }
+        return format(attribute, type, number, fraction);
+    }
+
+    private int sampleZipf(ValueDistribution.Zipf zipf, SplittableRandom random) {
+        var cumulative = zipfDistributions.computeIfAbsent(zipf, z -> {
+            var weights = new double[z.values()];
+            var sum = 0.0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += 1 / Math.pow(i + 1, z.exponent());
+                weights[i] = sum;
+            }
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] /= sum;
+            }
+            return weights;
+        });
+        var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    private static String format(EAttribute attribute, EDataType type, long number, double fraction) {
+        if (type instanceof EEnum enumeration) {
+            var literals = enumeration.getELiterals();
+            return literals.get((int) Math.floorMod(number, (long) literals.size())).getLiteral();
+        }
+
+        var instanceClass = type.getInstanceClass();
+        var rounded = Math.round(fraction * 100) / 100.0;
+        if (instanceClass == String.class) {
+            return attribute.getName() + " " + number;
+        } else if (instanceClass == int.class || instanceClass == Integer.class) {
+            return String.valueOf((int) number);
+        } else if (instanceClass == short.class || instanceClass == Short.class) {
+            return String.valueOf((short) number);
+        } else if (instanceClass == byte.class || instanceClass == Byte.class) {
+            return String.valueOf((byte) number);
+        } else if (instanceClass == float.class || instanceClass == Float.class) {
+            return String.valueOf((float) rounded);
+        } else if (instanceClass == double.class || instanceClass == Double.class) {
+            return String.valueOf(rounded);
+        } else if (instanceClass == BigDecimal.class) {
+            return BigDecimal.valueOf(rounded).toPlainString();
+        } else if (instanceClass == boolean.class || instanceClass == Boolean.class) {
+            return String.valueOf((number & 1) == 1);
+        } else if (instanceClass == char.class || instanceClass == Character.class) {
+            return String.valueOf((char) ('a' + Math.floorMod(number, 26)));
+        } else if (instanceClass == Date.class) {
+            return EcoreUtil.convertToString(type, new Date(Epoch + TimeUnit.DAYS.toMillis(number)));
+        } else {
+            return String.valueOf(number); // long and BigInteger
+        }
+    }
+
+    /**
+     * Returns the objects referenced by the given object through the given reference.
+     */
+    List<PlannedObject> targets(PlannedObject object, EReference reference, SplittableRandom random) {
+        var space = targets(reference);
+        if (!reference.isMany()) {
+            var opposite = reference.getEOpposite();
+            if (opposite != null && !opposite.isMany()) {
+                // one-to-one, random targets could be referenced twice
+                return object.index() < space.total ? List.of(space.get(object.index())) : List.of();
+            }
+            return List.of(space.get(random.nextLong(space.total)));
+        }
+
+        var count = multiplicity(reference, space.total, random);
+        return random.longs(0, space.total)
+            .distinct()
+            .limit(count)
+            .mapToObj(space::get)
+            .toList();
+    }
+
+    /**
+     * Returns the number of values of a many-valued feature: uniformly distributed around the fan-out within the bounds
+     * of the feature.
+     */
+    private int multiplicity(EStructuralFeature feature, long available, SplittableRandom random) {
+        var count = random.nextInt((int) Math.round(2 * options.fanOut()) + 1);
+        count = Math.max(count, feature.getLowerBound());
+        if (feature.getUpperBound() != EStructuralFeature.UNBOUNDED_MULTIPLICITY) {
+            count = Math.min(count, feature.getUpperBound());
+        }
+        return (int) Math.min(count, available);
+    }
+
+    private TargetSpace targets(EReference reference) {
+        return targetSpaces.computeIfAbsent(reference, r -> {
+            var types = classes.stream()
+                .filter(clazz -> r.getEReferenceType().isSuperTypeOf(clazz.eClass))
+                .toList();
+            var offsets = new long[types.size()];
+            long total = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = total;
+                total += types.get(i).count;
+            }
+            return new TargetSpace(types, offsets, total);
+        });
+    }
+
+    /**
+     * All objects that a reference can refer to, numbered consecutively.
+     */
+    private record TargetSpace(List<PlannedClass> types, long[] offsets, long total) {
+
+        PlannedObject get(long number) {
+            var position = Arrays.binarySearch(offsets, number);
+            if (position < 0) {
+                position = -position - 2;
+            }
+            return new PlannedObject(types.get(position), (int) (number - offsets[position]));
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package tools.vitruv.neojoin.synthetic;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import tools.vitruv.neojoin.collector.InstanceModelCollector;
+import tools.vitruv.neojoin.utils.EMFUtils;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthesizes instance models of arbitrary meta-models, e.g. to test queries on large models. Every root package
+ * gets an instance model with the configured number of objects of every concrete class, which is written to a file
+ * named after the package. The objects are generated while they are written, so models of any size can be
+ * synthesized with little memory.
+ * <p>
+ * Objects are nested in the first matching containment reference of another class of their package, many-valued
+ * references and attributes get a random number of values around the configured fan-out and attribute values follow
+ * the configured {@link ValueDistribution distributions}. By default, string attributes are
+ * {@link ValueDistribution.Key keys} that join objects of classes with attributes of the same name.
+ *
+ * @see SyntheticModelOptions
+ */
+public class SyntheticModelGenerator {
+
+    private final ModelPlan plan;
+    private final boolean binary;
+
+    /**
+     * @param packages packages to instantiate, subpackages are instantiated together with their root package
+     * @param binary   whether the models are written in the {@link EMFUtils#BinaryFileExtension binary format}
+     *                 instead of XMI
+     * @throws IllegalArgumentException if the options refer to unknown classes or attributes
+     */
+    public SyntheticModelGenerator(Collection<EPackage> packages, SyntheticModelOptions options, boolean binary) {
+        var rootPackages = packages.stream()
+            .map(EMFUtils::getRootPackage)
+            .distinct()
+            .sorted(Comparator.comparing(EPackage::getName).thenComparing(EPackage::getNsURI))
+            .toList();
+        this.plan = new ModelPlan(
+            rootPackages,
+            options,
+            binary ? EMFUtils.BinaryFileExtension : InstanceModelCollector.FileExtension
+        );
+        this.binary = binary;
+    }
+
+    /**
+     * Returns the number of objects of every class that is instantiated.
+     */
+    public Map<EClass, Integer> getCounts() {
+        var counts = new LinkedHashMap<EClass, Integer>();
+        plan.classes().forEach(clazz -> counts.put(clazz.eClass, clazz.count));
+        return counts;
+    }
+
+    /**
+     * Writes the instance models to the given directory. Packages without objects are skipped.
+     *
+     * @return the written files
+     */
+    public List<Path> generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        var uris = new HashMap<ModelPlan.PlannedResource, URI>();
+        for (var resource : plan.resources()) {
+            var file = directory.resolve(resource.fileName).toAbsolutePath();
+            uris.put(resource, URI.createFileURI(file.toString()));
+        }
+
+        var files = new ArrayList<Path>();
+        for (var resource : plan.resources()) {
+            if (resource.rootCount == 0) {
+                continue;
+            }
+
+            var file = directory.resolve(resource.fileName);
+            try (var output = new BufferedOutputStream(Files.newOutputStream(file))) {
+                if (binary) {
+                    new BinaryModelWriter(plan, resource, uris, output).write();
+                } else {
+                    new XMIModelWriter(plan, resource, output).write();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Failed to write " + file, e);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+}
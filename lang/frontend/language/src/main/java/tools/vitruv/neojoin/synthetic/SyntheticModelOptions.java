@@ -0,0 +1,50 @@
+package tools.vitruv.neojoin.synthetic;
+
+import java.util.Map;
+
+import static tools.vitruv.neojoin.utils.Assertions.require;
+
+/**
+ * Options for {@link SyntheticModelGenerator synthesizing} instance models.
+ * <p>
+ * Classes are identified by their name or by their name qualified with the names of their packages, e.g.
+ * {@code Restaurant} or {@code restaurant.Restaurant}. A name that is not qualified applies to all classes with that
+ * name. Attributes are identified by their class and their name, e.g. {@code Food.price}.
+ *
+ * @param defaultCount  number of objects of every concrete class without an explicit count
+ * @param counts        number of objects per class
+ * @param fanOut        average number of values of a many-valued reference or attribute
+ * @param keyOverlap    overlap of the {@link ValueDistribution.Key key} distribution, which is the default for string
+ *                      attributes
+ * @param distributions distributions of attribute values per attribute, attributes without a distribution use
+ *                      {@link ValueDistribution.Uniform uniform} values or keys for strings
+ * @param seed          seed of all random decisions, equal options and meta-models produce equal models
+ */
+public record SyntheticModelOptions(
+    int defaultCount,
+    Map<String, Integer> counts,
+    double fanOut,
+    double keyOverlap,
+    Map<String, ValueDistribution> distributions,
+    long seed
+) {
+
+    public SyntheticModelOptions {
+        require(defaultCount >= 0, () -> "Number of objects must not be negative: " + defaultCount);
+        counts.forEach((clazz, count) ->
+            require(count >= 0, () -> "Number of objects of '%s' must not be negative: %d".formatted(clazz, count)));
+        require(fanOut >= 0, () -> "Fan-out must not be negative: " + fanOut);
+        require(keyOverlap >= 0 && keyOverlap <= 1, () -> "Key overlap must be between 0 and 1: " + keyOverlap);
+        counts = Map.copyOf(counts);
+        distributions = Map.copyOf(distributions);
+    }
+
+    /**
+     * Returns options with the given number of objects per class and default values otherwise: an average fan-out of
+     * 3, a key overlap of 0.5 and the seed 0.
+     */
+    public static SyntheticModelOptions withCount(int defaultCount) {
+        return new SyntheticModelOptions(defaultCount, Map.of(), 3, 0.5, Map.of(), 0);
+    }
+
+}
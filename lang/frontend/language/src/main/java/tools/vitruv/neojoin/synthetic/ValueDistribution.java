@@ -0,0 +1,106 @@
+package tools.vitruv.neojoin.synthetic;
+
+import static tools.vitruv.neojoin.utils.Assertions.require;
+
+/**
+ * Distribution of the values of a synthesized attribute. Every distribution yields a number that is mapped to a value
+ * of the attribute's type: Strings are the name of the attribute followed by the number, e.g. {@code name 42}, numbers
+ * are used as they are, enumerations use the literal at the number's position modulo the number of literals, booleans
+ * are {@code true} for odd numbers and dates are days after 2000-01-01.
+ *
+ * @see SyntheticModelOptions#distributions()
+ * @see #parse(String)
+ */
+public sealed interface ValueDistribution {
+
+    /**
+     * Values that join objects of different classes, possibly of different packages, whose attributes have the same
+     * name. The {@code i}-th object of every class gets the shared value {@code i} with the given probability and a
+     * value that is unique to its class otherwise. The decision only depends on the attribute name, the index and the
+     * seed, so the given fraction of the objects of two classes with the same number of objects join with each other.
+     *
+     * @param overlap probability of a shared value between 0 and 1
+     */
+    record Key(double overlap) implements ValueDistribution {
+
+        public Key {
+            require(overlap >= 0 && overlap <= 1, () -> "Key overlap must be between 0 and 1: " + overlap);
+        }
+
+        @Override
+        public String toString() {
+            return "key:" + overlap;
+        }
+
+    }
+
+    /**
+     * Uniformly distributed values between {@code min} and {@code max} (both inclusive). Floating point attributes
+     * get fractional values.
+     */
+    record Uniform(long min, long max) implements ValueDistribution {
+
+        public Uniform {
+            require(min <= max, () -> "Minimum must not be greater than maximum: " + min + ".." + max);
+        }
+
+        @Override
+        public String toString() {
+            return "uniform:" + min + ".." + max;
+        }
+
+    }
+
+    /**
+     * Values between 0 and {@code values} (exclusive) whose frequency follows Zipf's law, i.e. the frequency of the
+     * {@code k}-th value is proportional to {@code 1 / (k + 1)^exponent}. Models skewed data like popular join keys or
+     * large groups.
+     */
+    record Zipf(int values, double exponent) implements ValueDistribution {
+
+        public Zipf {
+            require(values > 0, () -> "Number of values must be positive: " + values);
+            require(exponent >= 0, () -> "Exponent must not be negative: " + exponent);
+        }
+
+        @Override
+        public String toString() {
+            return "zipf:" + values + ":" + exponent;
+        }
+
+    }
+
+    /**
+     * Parses a distribution in one of the formats {@code key[:OVERLAP]}, {@code uniform:MIN..MAX} and
+     * {@code zipf:VALUES[:EXPONENT]}. The overlap of a key defaults to 1 and the exponent of Zipf's law to 1.
+     *
+     * @throws IllegalArgumentException if the given text is not a valid distribution
+     */
+    static ValueDistribution parse(String text) {
+        var parts = text.split(":", -1);
+        try {
+            var distribution = switch (parts[0]) {
+                case "key" -> parts.length <= 2
+                    ? new Key(parts.length == 2 ? Double.parseDouble(parts[1]) : 1)
+                    : null;
+                case "uniform" -> {
+                    var bounds = parts.length == 2 ? parts[1].split("\\.\\.", -1) : new String[0];
+                    yield bounds.length == 2 ? new Uniform(Long.parseLong(bounds[0]), Long.parseLong(bounds[1])) : null;
+                }
+                case "zipf" -> parts.length == 2 || parts.length == 3
+                    ? new Zipf(Integer.parseInt(parts[1]), parts.length == 3 ? Double.parseDouble(parts[2]) : 1)
+                    : null;
+                default -> null;
+            };
+            if (distribution != null) {
+                return distribution;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in distribution '%s'".formatted(text), e);
+        }
+        throw new IllegalArgumentException(
+            "Invalid distribution '%s', expected key[:OVERLAP], uniform:MIN..MAX or zipf:VALUES[:EXPONENT]"
+                .formatted(text));
+    }
+
+}
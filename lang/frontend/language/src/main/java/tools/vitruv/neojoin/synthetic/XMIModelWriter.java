@@ -0,0 +1,170 @@
+package tools.vitruv.neojoin.synthetic;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import tools.vitruv.neojoin.synthetic.ModelPlan.PlannedObject;
+import tools.vitruv.neojoin.synthetic.ModelPlan.PlannedResource;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a synthesized resource as XMI with a {@link XMLStreamWriter}, one object at a time. The output matches what
+ * EMF writes: references within the resource are attributes with URI fragments and references to other resources are
+ * elements with an {@code href}.
+ */
+final class XMIModelWriter {
+
+    private final ModelPlan plan;
+    private final PlannedResource resource;
+    private final XMLStreamWriter writer;
+    private final Map<EPackage, String> prefixes;
+
+    XMIModelWriter(ModelPlan plan, PlannedResource resource, OutputStream output) throws XMLStreamException {
+        this.plan = plan;
+        this.resource = resource;
+        this.writer = XMLOutputFactory.newFactory().createXMLStreamWriter(output, "UTF-8");
+        this.prefixes = assignPrefixes(plan);
+    }
+
+    /**
+     * Namespace prefixes of all packages that are instantiated by the plan, which are unique in contrast to the
+     * prefixes declared by the packages.
+     */
+    private static Map<EPackage, String> assignPrefixes(ModelPlan plan) {
+        var prefixes = new LinkedHashMap<EPackage, String>();
+        var used = new HashSet<String>();
+        for (var clazz : plan.classes()) {
+            var pack = clazz.eClass.getEPackage();
+            if (!prefixes.containsKey(pack)) {
+                var base = pack.getNsPrefix() != null && !pack.getNsPrefix().isEmpty() ? pack.getNsPrefix()
+                    : pack.getName();
+                var prefix = base;
+                for (int i = 1; !used.add(prefix); i++) {
+                    prefix = base + i;
+                }
+                prefixes.put(pack, prefix);
+            }
+        }
+        return prefixes;
+    }
+
+    void write() throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+
+        // multiple root objects are wrapped in an xmi:XMI element, which holds the namespace declarations instead
+        var wrapped = resource.rootCount != 1;
+        if (wrapped) {
+            writer.writeStartElement("xmi", "XMI", XMIResource.XMI_URI);
+            writeNamespaces();
+        }
+        for (var clazz : resource.rootClasses) {
+            for (int index = 0; index < clazz.count; index++) {
+                var object = new PlannedObject(clazz, index);
+                writer.writeStartElement(prefixes.get(clazz.eClass.getEPackage()), clazz.eClass.getName(),
+                    clazz.eClass.getEPackage().getNsURI());
+                if (!wrapped) {
+                    writeNamespaces();
+                }
+                writeObject(object);
+            }
+        }
+        if (wrapped) {
+            writer.writeEndElement();
+        }
+
+        writer.writeEndDocument();
+        writer.close();
+    }
+
+    private void writeNamespaces() throws XMLStreamException {
+        writer.writeNamespace("xmi", XMIResource.XMI_URI);
+        writer.writeNamespace("xsi", XMLResource.XSI_URI);
+        for (var entry : prefixes.entrySet()) {
+            writer.writeNamespace(entry.getValue(), entry.getKey().getNsURI());
+        }
+        writer.writeAttribute("xmi", XMIResource.XMI_URI, XMIResource.VERSION_NAME, XMIResource.VERSION_VALUE);
+    }
+
+    /**
+     * Writes the attributes and contents of the given object, whose start element has already been written.
+     */
+    private void writeObject(PlannedObject object) throws XMLStreamException {
+        var clazz = object.type();
+        var random = plan.random(object);
+
+        var manyValued = new ArrayList<Map.Entry<String, List<String>>>();
+        for (var attribute : clazz.attributes) {
+            var values = plan.values(object, attribute, random);
+            if (attribute.isMany()) {
+                manyValued.add(Map.entry(attribute.getName(), values));
+            } else {
+                writer.writeAttribute(attribute.getName(), values.get(0));
+            }
+        }
+
+        var external = new ArrayList<Map.Entry<EReference, PlannedObject>>();
+        for (var reference : clazz.references) {
+            var targets = plan.targets(object, reference, random);
+            var internal = targets.stream()
+                .filter(target -> target.type().resource == resource)
+                .map(plan::fragment)
+                .collect(Collectors.joining(" "));
+            if (!internal.isEmpty()) {
+                writer.writeAttribute(reference.getName(), internal);
+            }
+            targets.stream()
+                .filter(target -> target.type().resource != resource)
+                .forEach(target -> external.add(Map.entry(reference, target)));
+        }
+
+        for (var entry : manyValued) {
+            for (var value : entry.getValue()) {
+                writer.writeStartElement(entry.getKey());
+                writer.writeCharacters(value);
+                writer.writeEndElement();
+            }
+        }
+        for (var entry : clazz.children.entrySet()) {
+            for (var childClass : entry.getValue()) {
+                for (var child : plan.children(object, childClass)) {
+                    writer.writeStartElement(entry.getKey().getName());
+                    writeType(child.type().eClass, entry.getKey());
+                    writeObject(child);
+                }
+            }
+        }
+        for (var entry : external) {
+            var target = entry.getValue();
+            writer.writeStartElement(entry.getKey().getName());
+            writeType(target.type().eClass, entry.getKey());
+            writer.writeAttribute(XMLResource.HREF, target.type().resource.fileName + "#" + plan.fragment(target));
+            writer.writeEndElement();
+        }
+
+        writer.writeEndElement();
+    }
+
+    private void writeType(EClass type, EReference reference) throws XMLStreamException {
+        if (type != reference.getEReferenceType()) {
+            writer.writeAttribute(
+                "xsi",
+                XMLResource.XSI_URI,
+                XMLResource.TYPE,
+                prefixes.get(type.getEPackage()) + ":" + type.getName()
+            );
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package tools.vitruv.neojoin.synthetic;
+
+import org.jspecify.annotations.NullMarked;
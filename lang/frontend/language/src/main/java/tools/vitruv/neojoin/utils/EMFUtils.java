@@ -4,8 +4,9 @@ import static tools.vitruv.neojoin.utils.Assertions.check;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -20,8 +21,11 @@ import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.impl.EPackageRegistryImpl;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.XMIResource;
 import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Various utilities for EMF and especially Ecore models.
@@ -30,6 +34,32 @@ public final class EMFUtils {
 
     private EMFUtils() {}
 
+    /**
+     * File extension of models in EMF's {@link BinaryResourceImpl binary format}, which is considerably faster to load
+     * and save than XMI.
+     */
+    public static final String BinaryFileExtension = "xmib";
+
+    /**
+     * Registers the resource factory for the {@link #BinaryFileExtension binary format} in the given registry unless
+     * a factory is already registered for its extension.
+     */
+    public static void registerBinaryResourceFactory(Resource.Factory.Registry registry) {
+        registry.getExtensionToFactoryMap().putIfAbsent(BinaryFileExtension, (Resource.Factory) BinaryResourceImpl::new);
+    }
+
+    /**
+     * Returns whether the given namespace URI is a namespace of XMI itself, e.g. of the {@code xmi:id} attribute or
+     * of the {@code xmi:XMI} element that wraps multiple root objects.
+     */
+    public static boolean isXMINamespace(@Nullable String namespaceURI) {
+        return namespaceURI != null && (
+            namespaceURI.equals(XMIResource.XMI_URI)
+                || namespaceURI.startsWith(XMIResource.XMI_NAMESPACE_PREFIX)
+                || namespaceURI.startsWith(XMIResource.XMI_2_4_NAMESPACE_PREFIX)
+        );
+    }
+
     /**
      * Returns a set of all {@link EPackage packages} contained in the given package registry.
      */
@@ -111,6 +141,23 @@ public final class EMFUtils {
             .flatMap(p -> p.getEClassifiers().stream());
     }
 
+    /**
+     * EMF resolves proxies and initializes some meta-model caches lazily on first access, which is not thread-safe.
+     * Therefore, trigger these initializations for all classes of the given package and its subpackages before its
+     * instances are created or accessed concurrently.
+     */
+    public static void prepareConcurrentAccess(EPackage pack) {
+        getAllEClassifiers(pack)
+            .filter(EClass.class::isInstance)
+            .map(EClass.class::cast)
+            .forEach(clazz -> {
+                clazz.getEAllSuperTypes();
+                clazz.getEAllStructuralFeatures();
+                clazz.getEAllContainments();
+                clazz.getEStructuralFeature(""); // builds the name to feature map
+            });
+    }
+
     /**
      * Returns all {@link EDataType data types} contained in the given package.
      */
@@ -164,18 +211,37 @@ public final class EMFUtils {
 
     /**
      * Write the given {@link EObject} to a file specified by the given {@link URI}. Requires a registered resource factory
-     * for the file extension of the given {@link URI}.
+     * for the file extension of the given {@link URI}, except for the {@link #BinaryFileExtension binary format}.
      *
      * @param uri    URI of the output file
      * @param object the {@link EObject} to write
      */
     public static void save(URI uri, EObject object) throws IOException {
+        save(uri, object, ResourceProfile.Default);
+    }
+
+    /**
+     * Same as {@link #save(URI, EObject)} with the save options of the given profile.
+     *
+     * @param profile options for saving the resource
+     */
+    public static void save(URI uri, EObject object, ResourceProfile profile) throws IOException {
+        save(uri, List.of(object), profile);
+    }
+
+    /**
+     * Same as {@link #save(URI, EObject, ResourceProfile)} for multiple root objects.
+     */
+    public static void save(URI uri, Collection<? extends EObject> objects, ResourceProfile profile) throws IOException {
         ResourceSet resourceSet = new ResourceSetImpl();
+        registerBinaryResourceFactory(resourceSet.getResourceFactoryRegistry());
 
         Resource resource = resourceSet.createResource(uri);
-        resource.getContents().add(object);
+        check(resource != null, () -> "no resource factory registered for " + uri);
+        resource.getContents().addAll(objects);
 
-        Map<String, Object> options = Map.of(XMLResource.OPTION_URI_HANDLER, new RelativeURIResolver(resource));
+        var options = profile.saveOptions();
+        options.put(XMLResource.OPTION_URI_HANDLER, new RelativeURIResolver(resource));
         resource.save(options);
     }
 
@@ -0,0 +1,84 @@
+package tools.vitruv.neojoin.utils;
+
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.emf.ecore.xmi.impl.XMLParserPoolImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options for loading and saving XMI and Ecore resources.
+ * <p>
+ * The options are created anew for every call because some of them hold caches that must not be shared between
+ * concurrent loads or saves. The parser pool is thread-safe and shared by all loads.
+ *
+ * @see tools.vitruv.neojoin.collector.AbstractModelCollector
+ * @see EMFUtils#save
+ */
+public enum ResourceProfile {
+
+    /**
+     * The default options of EMF.
+     */
+    Default {
+        @Override
+        public Map<Object, Object> loadOptions() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public Map<Object, Object> saveOptions() {
+            return new HashMap<>();
+        }
+    },
+
+    /**
+     * Options for large models: Pooled parsers, a cache to look up features by their XML names, deferred resolution
+     * of IDREFs and attachment to the resource, cached lookup tables on save and buffered output.
+     */
+    Throughput {
+        @Override
+        public Map<Object, Object> loadOptions() {
+            var options = new HashMap<>();
+            options.put(XMLResource.OPTION_USE_PARSER_POOL, ParserPool);
+            options.put(XMLResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, new HashMap<>());
+            options.put(XMLResource.OPTION_DEFER_IDREF_RESOLUTION, Boolean.TRUE);
+            options.put(XMLResource.OPTION_DEFER_ATTACHMENT, Boolean.TRUE);
+            options.put(XMLResource.OPTION_USE_DEPRECATED_METHODS, Boolean.FALSE);
+            return options;
+        }
+
+        @Override
+        public Map<Object, Object> saveOptions() {
+            var options = new HashMap<>();
+            options.put(XMLResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
+            options.put(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE, new ArrayList<>());
+            options.put(XMLResource.OPTION_FLUSH_THRESHOLD, FlushThreshold);
+            options.put(XMLResource.OPTION_USE_FILE_BUFFER, Boolean.FALSE);
+            return options;
+        }
+    };
+
+    private static final XMLParserPoolImpl ParserPool = new XMLParserPoolImpl(true);
+    private static final int FlushThreshold = 1 << 20; // characters
+
+    /**
+     * Returns new options for {@link org.eclipse.emf.ecore.resource.Resource#load(Map) loading} a resource.
+     */
+    public abstract Map<Object, Object> loadOptions();
+
+    /**
+     * Returns new options for {@link org.eclipse.emf.ecore.resource.Resource#save(Map) saving} a resource.
+     */
+    public abstract Map<Object, Object> saveOptions();
+
+    /**
+     * Adds the {@link #loadOptions() load options} to the given resource set.
+     */
+    public void applyTo(ResourceSet resourceSet) {
+        resourceSet.getLoadOptions().putAll(loadOptions());
+    }
+
+}
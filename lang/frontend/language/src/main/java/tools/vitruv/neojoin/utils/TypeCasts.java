@@ -2,6 +2,8 @@ package tools.vitruv.neojoin.utils;
 
 import com.google.common.primitives.Primitives;
 
+import java.util.function.UnaryOperator;
+
 import static tools.vitruv.neojoin.utils.Assertions.*;
 
 /**
@@ -73,6 +75,24 @@ public final class TypeCasts {
         return castNumberToNumber(value, wrappedTo);
     }
 
+    /**
+     * Returns a function that casts values to the given type like {@link #cast(Object, Class)}. The type dependent
+     * checks are done once, so that the function can be applied repeatedly, e.g. for all values of an attribute.
+     *
+     * @param to the type to cast to
+     * @return function that casts a non-null value to the given type
+     */
+    public static UnaryOperator<Object> caster(Class<?> to) {
+        var wrappedTo = Primitives.wrap(to);
+        if (!Primitives.isWrapperType(wrappedTo)) {
+            // fallback to java assignment semantics for non-primitive types
+            return value -> value;
+        }
+
+        // no conversion required in the common case, otherwise convert like cast(..)
+        return value -> value.getClass() == wrappedTo ? value : cast(value, wrappedTo);
+    }
+
     private static Character castNumberToChar(Object value) {
         // short has the same size as char
         return (char) ((Number) value).shortValue();
@@ -0,0 +1,171 @@
+package tools.vitruv.neojoin.cache;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.xtext.diagnostics.Severity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.vitruv.neojoin.AbstractIntegrationTest;
+import tools.vitruv.neojoin.PackageRegistryUtils;
+import tools.vitruv.neojoin.aqr.AQRBuilder;
+import tools.vitruv.neojoin.aqr.AQRImport;
+import tools.vitruv.neojoin.generation.MetaModelGenerator;
+import tools.vitruv.neojoin.jvmmodel.ExpressionHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCacheTest extends AbstractIntegrationTest implements PackageRegistryUtils {
+
+    private static final URI File = URI.createFileURI("/queries/test.nj");
+
+    private static final String ValidQuery = """
+        export package to "http://example.com"
+
+        import "http://example.org/restaurant"
+
+        from Restaurant create {
+            name
+            numberOfFoods := it.sells.size
+        }
+        """;
+
+    private static final String InvalidQuery = """
+        export package to "http://example.com"
+
+        import "http://example.org/restaurant"
+
+        from Unknown create
+        """;
+
+    @TempDir
+    private Path directory;
+
+    private Path queryFile;
+
+    @Override
+    protected List<String> getMetaModelPaths() {
+        return List.of("/models/restaurant.ecore", "/models/reviewpage.ecore");
+    }
+
+    @BeforeEach
+    void setUp() {
+        queryFile = directory.resolve("test.nj");
+    }
+
+    private QueryCache createCache(String buildVersion) {
+        return new QueryCache(directory.resolve("cache"), getPackageRegistry(), buildVersion);
+    }
+
+    private String put(String query) throws IOException {
+        Files.writeString(queryFile, query);
+        var hash = QueryCache.hash(queryFile);
+
+        var result = internalParse(query);
+        var cache = createCache("build");
+        var hasError = result.right().stream().anyMatch(issue -> issue.getSeverity() == Severity.ERROR);
+        if (hasError) {
+            cache.putInvalid(hash, result.right());
+        } else {
+            var aqr = new AQRBuilder(result.left(), getInjector().getInstance(ExpressionHelper.class)).build();
+            var imports = aqr.imports().stream().map(AQRImport::pack).toList();
+            cache.putValid(hash, result.right(), imports, new MetaModelGenerator(aqr).generate().pack());
+        }
+        return hash;
+    }
+
+    private QueryCache.Entry get(String hash) {
+        return createCache("build").get(hash, File);
+    }
+
+    @Test
+    void validQuery() throws IOException {
+        var hash = put(ValidQuery);
+
+        var entry = get(hash);
+
+        assertThat(entry).isNotNull();
+        assertThat(entry.issues()).isEmpty();
+        assertThat(entry.metaModel()).isNotNull();
+        var restaurant = (EClass) entry.metaModel().getEClassifier("Restaurant");
+        assertThat(restaurant.getEStructuralFeatures())
+            .extracting(feature -> feature.getName() + ": " + feature.getEType().getName())
+            .containsExactly("name: EString", "numberOfFoods: EInt");
+    }
+
+    @Test
+    void invalidQuery() throws IOException {
+        var hash = put(InvalidQuery);
+
+        var entry = get(hash);
+
+        assertThat(entry).isNotNull();
+        assertThat(entry.metaModel()).isNull();
+        assertThat(entry.issues()).hasSize(1);
+        var issue = entry.issues().get(0);
+        assertThat(issue.getSeverity()).isEqualTo(Severity.ERROR);
+        assertThat(issue.getLineNumber()).isEqualTo(5);
+        assertThat(issue.getUriToProblem().trimFragment()).isEqualTo(File);
+    }
+
+    @Test
+    void notCached() throws IOException {
+        put(ValidQuery);
+        Files.writeString(queryFile, ValidQuery + "\n");
+
+        assertThat(get(QueryCache.hash(queryFile))).isNull();
+    }
+
+    @Test
+    void buildChanged() throws IOException {
+        var hash = put(ValidQuery);
+
+        assertThat(createCache("other build").get(hash, File)).isNull();
+    }
+
+    @Test
+    void importedPackageChanged() throws IOException {
+        var hash = put(ValidQuery);
+
+        EClassifier added = EcoreFactory.eINSTANCE.createEClass();
+        added.setName("Added");
+        lookup("restaurant").getEClassifiers().add(added);
+
+        assertThat(get(hash)).isNull();
+    }
+
+    @Test
+    void referencedPackageChanged() throws IOException {
+        EReference reference = EcoreFactory.eINSTANCE.createEReference();
+        reference.setName("reviewPage");
+        reference.setEType(lookup("reviewpage", "ReviewPage"));
+        ((EClass) lookup("restaurant", "Restaurant")).getEStructuralFeatures().add(reference);
+        var hash = put(ValidQuery);
+
+        EClassifier added = EcoreFactory.eINSTANCE.createEClass();
+        added.setName("Added");
+        lookup("reviewpage").getEClassifiers().add(added);
+
+        assertThat(get(hash)).isNull();
+    }
+
+    @Test
+    void otherPackageChanged() throws IOException {
+        var hash = put(ValidQuery);
+
+        EClassifier added = EcoreFactory.eINSTANCE.createEClass();
+        added.setName("Added");
+        lookup("reviewpage").getEClassifiers().add(added);
+
+        assertThat(get(hash)).isNotNull();
+    }
+
+}
@@ -0,0 +1,207 @@
+package tools.vitruv.neojoin.synthetic;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.vitruv.neojoin.collector.InstanceModelCollector;
+import tools.vitruv.neojoin.collector.PackageModelCollector;
+import tools.vitruv.neojoin.utils.EMFUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SyntheticModelGeneratorTest {
+
+    private EPackage.Registry registry;
+
+    @BeforeEach
+    void setUp() throws URISyntaxException {
+        var models = Path.of(Objects.requireNonNull(getClass().getResource("/models")).toURI());
+        registry = new PackageModelCollector(models.toString()).collect().right();
+    }
+
+    private List<EPackage> packages(String... names) {
+        return EMFUtils.collectAvailablePackages(registry).stream()
+            .filter(pack -> List.of(names).contains(pack.getName()))
+            .toList();
+    }
+
+    private Map<String, Resource> generate(SyntheticModelOptions options, boolean binary, Path directory)
+        throws IOException {
+        new SyntheticModelGenerator(packages("restaurant", "reviewpage"), options, binary).generate(directory);
+        return new InstanceModelCollector(directory.toString(), registry).collect().entrySet().stream()
+            .collect(Collectors.toMap(entry -> entry.getKey().getName(), Map.Entry::getValue));
+    }
+
+    private static SyntheticModelOptions options(double keyOverlap) {
+        return new SyntheticModelOptions(
+            100,
+            Map.of("Store", 1, "ReviewPage", 50),
+            2,
+            keyOverlap,
+            Map.of("Review.rating", new ValueDistribution.Uniform(1, 5)),
+            42
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<EObject> getList(EObject object, String feature) {
+        return (List<EObject>) object.eGet(object.eClass().getEStructuralFeature(feature));
+    }
+
+    private static Object get(EObject object, String feature) {
+        return object.eGet(object.eClass().getEStructuralFeature(feature));
+    }
+
+    @Test
+    void containment(@TempDir Path directory) throws IOException {
+        var models = generate(options(0.5), false, directory);
+
+        assertThat(directory.resolve("restaurant.xmi")).exists();
+        var store = models.get("restaurant").getContents();
+        assertThat(store).hasSize(1);
+        assertThat(getList(store.get(0), "restaurants")).hasSize(100);
+        assertThat(getList(store.get(0), "foods")).hasSize(100);
+
+        var pages = getList(models.get("reviewpage").getContents().get(0), "pages");
+        assertThat(pages).hasSize(50);
+    }
+
+    @Test
+    void references(@TempDir Path directory) throws IOException {
+        var models = generate(options(0.5), false, directory);
+
+        var restaurants = getList(models.get("restaurant").getContents().get(0), "restaurants");
+        assertThat(restaurants)
+            .allSatisfy(restaurant -> assertThat(getList(restaurant, "sells"))
+                .hasSizeLessThanOrEqualTo(4)
+                .doesNotHaveDuplicates()
+                .allSatisfy(food -> {
+                    assertThat(food.eIsProxy()).isFalse();
+                    assertThat(food.eClass().getName()).isEqualTo("Food");
+                }))
+            .anySatisfy(restaurant -> assertThat(getList(restaurant, "sells")).isNotEmpty());
+    }
+
+    @Test
+    void attributes(@TempDir Path directory) throws IOException {
+        var models = generate(options(0.5), false, directory);
+
+        var reviews = getList(models.get("reviewpage").getContents().get(0), "reviews");
+        assertThat(reviews)
+            .extracting(review -> (Integer) get(review, "rating"))
+            .allSatisfy(rating -> assertThat(rating).isBetween(1, 5))
+            .contains(1, 5);
+
+        var foods = getList(models.get("restaurant").getContents().get(0), "foods");
+        assertThat(foods)
+            .extracting(food -> get(food, "type").toString())
+            .contains("FOOD", "DRINK");
+    }
+
+    @Test
+    void keyOverlap(@TempDir Path directory) throws IOException {
+        assertThat(joiningPages(1, directory.resolve("all"))).isEqualTo(50);
+        assertThat(joiningPages(0, directory.resolve("none"))).isZero();
+        assertThat(joiningPages(0.5, directory.resolve("half"))).isBetween(15L, 35L);
+    }
+
+    /**
+     * Returns the number of review pages with the name of a restaurant.
+     */
+    private long joiningPages(double keyOverlap, Path directory) throws IOException {
+        var models = generate(options(keyOverlap), false, directory);
+        var names = getList(models.get("restaurant").getContents().get(0), "restaurants").stream()
+            .map(restaurant -> get(restaurant, "name"))
+            .collect(Collectors.toSet());
+        return getList(models.get("reviewpage").getContents().get(0), "pages").stream()
+            .filter(page -> names.contains(get(page, "name")))
+            .count();
+    }
+
+    @Test
+    void binary(@TempDir Path directory) throws IOException {
+        var xmi = generate(options(0.5), false, directory.resolve("xmi"));
+        var binary = generate(options(0.5), true, directory.resolve("binary"));
+
+        assertThat(directory.resolve("binary/restaurant.xmib")).exists();
+        for (var name : List.of("restaurant", "reviewpage")) {
+            assertThat(EcoreUtil.equals(xmi.get(name).getContents(), binary.get(name).getContents()))
+                .as("the binary model equals the XMI model of %s", name)
+                .isTrue();
+        }
+    }
+
+    @Test
+    void deterministic(@TempDir Path directory) throws IOException {
+        var options = new SyntheticModelOptions(100, Map.of("Store", 1), 2, 0.5, Map.of(), 42);
+        var generator = new SyntheticModelGenerator(packages("restaurant"), options, false);
+        var first = generator.generate(directory.resolve("first")).get(0);
+        var second = generator.generate(directory.resolve("second")).get(0);
+        var otherSeed = new SyntheticModelGenerator(
+            packages("restaurant"),
+            new SyntheticModelOptions(100, Map.of("Store", 1), 2, 0.5, Map.of(), 7),
+            false
+        ).generate(directory.resolve("other")).get(0);
+
+        assertThat(Files.mismatch(first, second)).isEqualTo(-1);
+        assertThat(Files.mismatch(first, otherSeed)).isNotEqualTo(-1);
+    }
+
+    @Test
+    void containmentCycle(@TempDir Path directory) throws IOException {
+        new SyntheticModelGenerator(packages("cyclic"), SyntheticModelOptions.withCount(10), false)
+            .generate(directory);
+
+        var resource = new InstanceModelCollector(directory.toString(), registry).collect().values().iterator().next();
+        assertThat(resource.getErrors()).isEmpty();
+        // Parent objects are contained by Root objects, Child objects have no container
+        assertThat(resource.getContents())
+            .extracting(object -> object.eClass().getName())
+            .containsOnly("Root", "Child")
+            .hasSize(20);
+    }
+
+    @Test
+    void invalidOptions() {
+        var packages = packages("restaurant");
+        assertThatThrownBy(() -> new SyntheticModelGenerator(
+            packages,
+            new SyntheticModelOptions(10, Map.of("Unknown", 1), 2, 0.5, Map.of(), 0),
+            false
+        )).isInstanceOf(IllegalArgumentException.class).hasMessage("Unknown class 'Unknown'");
+        assertThatThrownBy(() -> new SyntheticModelGenerator(
+            packages,
+            new SyntheticModelOptions(10, Map.of(), 2, 0.5, Map.of("Food.unknown", new ValueDistribution.Key(1)), 0),
+            false
+        )).isInstanceOf(IllegalArgumentException.class).hasMessage("Unknown attribute 'unknown' of class 'Food'");
+    }
+
+    @Test
+    void parseDistribution() {
+        assertThat(ValueDistribution.parse("key")).isEqualTo(new ValueDistribution.Key(1));
+        assertThat(ValueDistribution.parse("key:0.25")).isEqualTo(new ValueDistribution.Key(0.25));
+        assertThat(ValueDistribution.parse("uniform:-5..10")).isEqualTo(new ValueDistribution.Uniform(-5, 10));
+        assertThat(ValueDistribution.parse("zipf:100")).isEqualTo(new ValueDistribution.Zipf(100, 1));
+        assertThat(ValueDistribution.parse("zipf:100:1.5")).isEqualTo(new ValueDistribution.Zipf(100, 1.5));
+
+        assertThatThrownBy(() -> ValueDistribution.parse("normal:1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ValueDistribution.parse("uniform:5")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ValueDistribution.parse("uniform:5..1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ValueDistribution.parse("key:2")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}